@@ -4,11 +4,17 @@
 package com.example.pfe.Controller;
 
 
+import com.example.pfe.Service.DocumentExportService;
+import com.example.pfe.Service.DocumentSearchService;
 import com.example.pfe.Service.DocumentService;
+import com.example.pfe.Service.FileDeliveryService;
+import com.example.pfe.Service.LeaveFileStorageService;
 import com.example.pfe.dto.DocumentFilterRequest;
 import com.example.pfe.dto.LeaveDocumentDTO;
 import com.example.pfe.entities.LeaveDocument;
 import com.example.pfe.entities.LeaveDocument.DocumentStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -26,9 +32,14 @@ import java.io.IOException;
  *
  * Endpoints:
  *   GET  /api/admin/documents              — filtered + paginated list
+ *   GET  /api/admin/documents/search       — full-text search + facets
+ *   POST /api/admin/documents/search/rebuild — reindex from the DB (ADMIN only)
  *   GET  /api/admin/documents/{id}/download — stream file
+ *   GET  /api/admin/documents/{id}/preview  — JPEG thumbnail
  *   PATCH /api/admin/documents/{id}/review  — approve or reject
  *   PATCH /api/admin/documents/{id}/archive — soft-archive
+ *   DELETE /api/admin/documents/{id}        — hard delete (ADMIN only)
+ *   GET  /api/admin/documents/storage/stats — dedup ratio, bytes saved
  *   POST /api/admin/documents/export/zip    — download as ZIP
  *   POST /api/admin/documents/export/excel  — download as .xlsx report
  */
@@ -38,7 +49,9 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class AdminDocumentController {
 
-    private final DocumentService documentService;
+    private final DocumentService       documentService;
+    private final DocumentExportService documentExportService;
+    private final FileDeliveryService   fileDeliveryService;
 
     /**
      * GET /api/admin/documents
@@ -62,18 +75,73 @@ public class AdminDocumentController {
     }
 
     /**
-     * GET /api/admin/documents/{id}/download
-     * Streams the actual file — any content type.
+     * GET /api/admin/documents/search?q=certificat+medical
+     *
+     * Ranked full-text search over file contents, file names and employee
+     * names; accepts the same filter params as the list (userFullName,
+     * userId, documentType, status, uploadedFrom, leaveFrom…).
+     * {@code q} supports "phrases", -exclusion, prefix* and a|b.
+     * Without {@code q}, matches are ordered by upload date, newest first.
+     *
+     * Response: { content, totalElements, page, size, tookMs,
+     *             facets: { "documentType": { "PROOF": 12, … }, "status": {…}, "category": {…} } }
+     */
+    @GetMapping("/search")
+    public ResponseEntity<DocumentService.SearchResult> search(
+            @RequestParam(required = false) String q,
+            DocumentFilterRequest filter,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) throws IOException {
+        if (page < 0 || size < 1 || size > 100) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and 100");
+        }
+        if (((long) page + 1) * size > DocumentSearchService.MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException(
+                    "Search results can only be paged through the first " + DocumentSearchService.MAX_RESULT_WINDOW);
+        }
+        return ResponseEntity.ok(documentService.search(q, filter, page, size));
+    }
+
+    /**
+     * POST /api/admin/documents/search/rebuild
+     * Drops the search index and re-reads every document in the background.
+     * 202 when started, 409 if a rebuild is already running.
+     */
+    @PostMapping("/search/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildSearchIndex() {
+        return documentService.rebuildSearchIndex()
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * GET /api/admin/documents/{id}/download[?inline=true]
+     * Streams the actual file — any content type. Supports ETag / 304 and
+     * Range requests; {@code inline=true} lets the browser's PDF viewer open it.
      */
     @GetMapping("/{id}/download")
-    public ResponseEntity<org.springframework.core.io.Resource> download(
-            @PathVariable Long id) throws IOException {
+    public void download(@PathVariable Long id,
+                         @RequestParam(defaultValue = "false") boolean inline,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
         DocumentService.DocumentDownload dl = documentService.download(id, null, true);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + dl.originalName() + "\"")
-                .contentType(MediaType.parseMediaType(dl.mimeType()))
-                .body(dl.resource());
+        fileDeliveryService.serve(dl.key(), dl.originalName(), dl.mimeType(), dl.contentHash(),
+                inline, request, response);
+    }
+
+    /**
+     * GET /api/admin/documents/{id}/preview
+     * Small JPEG thumbnail of page 1 / the image — the list returns its URL
+     * as previewUrl. 404 until the background job has produced it.
+     */
+    @GetMapping("/{id}/preview")
+    public void preview(@PathVariable Long id,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        DocumentService.DocumentDownload dl = documentService.preview(id, null, true);
+        fileDeliveryService.serve(dl.key(), dl.originalName(), dl.mimeType(), dl.contentHash(),
+                true, request, response);
     }
 
     /**
@@ -107,11 +175,39 @@ public class AdminDocumentController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * DELETE /api/admin/documents/{id}
+     * Removes the row and one reference to its file; shared files stay until
+     * no document points at them.
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> delete(@PathVariable Long id) throws IOException {
+        documentService.deleteDocument(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /api/admin/documents/storage/stats
+     *
+     * {
+     *   "blobs": 812, "references": 1340,
+     *   "logicalBytes": 1523400000, "physicalBytes": 921800000,
+     *   "bytesSaved": 601600000, "dedupRatio": 1.65
+     * }
+     */
+    @GetMapping("/storage/stats")
+    public ResponseEntity<LeaveFileStorageService.StorageStats> storageStats() {
+        return ResponseEntity.ok(documentService.storageStats());
+    }
+
     /**
      * POST /api/admin/documents/export/zip
      *
      * Body: same filter fields as GET list.
-     * Returns a streaming ZIP — no full in-memory load.
+     * Returns a streaming ZIP — documents are paged from the DB and the next
+     * files buffered ahead on a small I/O pool; PDFs/images are deflated at
+     * NO_COMPRESSION (stored blocks) instead of being compressed again.
      *
      * ZIP structure inside:
      *   Doe_John/2026-05/ACCEPTATION_LETTER_42_acceptation_letter.pdf
@@ -123,7 +219,7 @@ public class AdminDocumentController {
     @PostMapping("/export/zip")
     public ResponseEntity<StreamingResponseBody> exportZip(
             @RequestBody DocumentFilterRequest filter) {
-        StreamingResponseBody body = out -> documentService.streamZip(filter, out);
+        StreamingResponseBody body = out -> documentExportService.streamZip(filter, out);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"documents_export.zip\"")
@@ -135,22 +231,23 @@ public class AdminDocumentController {
      * POST /api/admin/documents/export/excel
      *
      * Body: same filter fields.
-     * Returns a .xlsx report with one row per document.
+     * Streams a .xlsx report with one row per document (SXSSF, written
+     * directly to the response — no byte[] of the whole workbook).
      *
      * Columns: ID, Employé, Type doc, Catégorie, Statut, Fichier,
      *          Taille (KB), Date upload, Congé début, Congé fin,
      *          Revu par, Date révision, Notes admin
      */
     @PostMapping("/export/excel")
-    public ResponseEntity<byte[]> exportExcel(
-            @RequestBody DocumentFilterRequest filter) throws IOException {
-        byte[] wb = documentService.exportExcel(filter);
+    public ResponseEntity<StreamingResponseBody> exportExcel(
+            @RequestBody DocumentFilterRequest filter) {
+        StreamingResponseBody body = out -> documentExportService.streamExcel(filter, out);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"documents_report.xlsx\"")
                 .contentType(MediaType.parseMediaType(
                         "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(wb);
+                .body(body);
     }
 
     // ─── Helpers ──────────────────────────────────────────────
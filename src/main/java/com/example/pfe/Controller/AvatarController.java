@@ -0,0 +1,40 @@
+package com.example.pfe.Controller;
+
+import com.example.pfe.Service.FileDeliveryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Serves /uploads/avatars/** when files live in S3 — the static resource
+ * handler in WebConfig only covers the local directory. Goes through
+ * {@link FileDeliveryService}, so the client is redirected to a presigned
+ * URL, or the bytes are proxied when presigning is disabled.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+@RequiredArgsConstructor
+public class AvatarController {
+
+    private final FileDeliveryService fileDeliveryService;
+
+    @GetMapping("/uploads/avatars/{fileName:.+}")
+    public void avatar(@PathVariable String fileName,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        if (fileName.contains("/") || fileName.contains("..")) {
+            throw new SecurityException("Invalid file name");
+        }
+        String mimeType = MediaTypeFactory.getMediaType(fileName)
+                .map(Object::toString)
+                .orElse("application/octet-stream");
+        fileDeliveryService.serve(fileName, fileName, mimeType, null, true, request, response);
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.pfe.Controller;
 
 import com.example.pfe.Service.DocumentService;
+import com.example.pfe.Service.FileDeliveryService;
 import com.example.pfe.config.UserPrincipal;
 import com.example.pfe.dto.DocumentFilterRequest;
 import com.example.pfe.dto.LeaveDocumentDTO;
 import com.example.pfe.entities.LeaveDocument;
 import com.example.pfe.entities.LeaveDocument.DocumentType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -24,7 +27,8 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class EmployeeDocumentController {
 
-    private final DocumentService documentService;
+    private final DocumentService     documentService;
+    private final FileDeliveryService fileDeliveryService;
 
     @GetMapping
     public ResponseEntity<Page<LeaveDocumentDTO>> myDocuments(
@@ -36,19 +40,35 @@ public class EmployeeDocumentController {
                 documentService.findByEmployee(principal.getId(), filter, pageable));
     }
 
+    // ETag / 304 / Range handled by FileDeliveryService
     @GetMapping("/{id}/download")
-    public ResponseEntity<org.springframework.core.io.Resource> download(
+    public void download(
             @PathVariable Long id,
-            @AuthenticationPrincipal UserPrincipal principal) throws IOException {
+            @RequestParam(defaultValue = "false") boolean inline,
+            @AuthenticationPrincipal UserPrincipal principal,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
         DocumentService.DocumentDownload dl =
                 documentService.download(id, principal.getId(), false);
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + dl.originalName() + "\"")
-                .contentType(MediaType.parseMediaType(dl.mimeType()))
-                .body(dl.resource());
+        fileDeliveryService.serve(dl.key(), dl.originalName(), dl.mimeType(), dl.contentHash(),
+                inline, request, response);
+    }
+
+    // Thumbnail (JPEG, ~240 px wide) — 404 until generated
+    @GetMapping("/{id}/preview")
+    public void preview(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal principal,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        DocumentService.DocumentDownload dl =
+                documentService.preview(id, principal.getId(), false);
+
+        fileDeliveryService.serve(dl.key(), dl.originalName(), dl.mimeType(), dl.contentHash(),
+                true, request, response);
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -1,9 +1,11 @@
 package com.example.pfe.Controller;
 
 import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.Service.LeaveBalanceRolloverService;
 import com.example.pfe.Service.LeaveService;
 import com.example.pfe.config.UserPrincipal;
 import com.example.pfe.dto.*;
+import com.example.pfe.entities.LeaveRolloverCheckpoint;
 import com.example.pfe.exception.ResourceNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -25,8 +27,9 @@ import java.util.List;
 @Slf4j
 public class LeaveController {
 
-    private final LeaveService   leaveService;
-    private final UserRepository userRepository;
+    private final LeaveService                leaveService;
+    private final LeaveBalanceRolloverService rolloverService;
+    private final UserRepository              userRepository;
 
     // ══════════════════════════════════════════════════════════
     // EMPLOYEE ENDPOINTS
@@ -191,6 +194,19 @@ public class LeaveController {
         return ResponseEntity.ok(leaveService.rejectLeave(id, resolveUserId(userDetails), dto));
     }
 
+    /**
+     * POST /api/leaves/balances/rollover?year=2027
+     * Runs (or resumes) the year-end balance rollover on demand.
+     * Normally triggered by the scheduler at 00:30 on January 1st for the year
+     * that starts; safe to call again.
+     */
+    @PostMapping("/balances/rollover")
+    @PreAuthorize("hasRole('GENERAL_MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<LeaveRolloverCheckpoint> rolloverBalances(@RequestParam int year) {
+        log.info("Manual leave balance rollover requested for {}", year);
+        return ResponseEntity.ok(rolloverService.rollover(year));
+    }
+
     // ══════════════════════════════════════════════════════════
     // PRIVATE HELPER
     // ══════════════════════════════════════════════════════════
@@ -7,29 +7,27 @@ import com.example.pfe.entities.LeaveDocument;
 import com.example.pfe.entities.LeaveRequest;
 import com.example.pfe.exception.BusinessException;
 import com.example.pfe.exception.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.example.pfe.Service.JasperService;
 import com.example.pfe.Service.DocumentService;
+import com.example.pfe.Service.FileDeliveryService;
+import com.example.pfe.Service.LetterBatchService;
 import com.example.pfe.dto.LeaveDocumentRequest;
+import com.example.pfe.dto.LetterBatchRequest;
 import com.example.pfe.enums.LeaveType;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 @RestController
 @RequestMapping("/api/leaves")
@@ -41,9 +39,8 @@ public class LeaveDocumentController {
     private final UserRepository         userRepository;
     private final JasperService          jasperService;
     private final DocumentService        documentService;
-
-    @Value("${app.upload.dir:uploads}")
-    private String uploadBaseDir;
+    private final LetterBatchService     letterBatchService;
+    private final FileDeliveryService    fileDeliveryService;
 
     // ── Upload ────────────────────────────────────────────────────────────────
 
@@ -59,54 +56,40 @@ public class LeaveDocumentController {
             throw new BusinessException("Only PDF files are accepted.");
         }
 
-        documentService.saveGeneratedDocument(
-                file.getBytes(),
+        // Streamed to storage once; documentPath points at that copy
+        LeaveDocument saved = documentService.saveGeneratedDocumentFromFile(
+                file,
                 id,
                 leave.getUser().getId(),
                 LeaveDocument.DocumentType.ACCEPTATION_LETTER
         );
-
-        Path dir = Paths.get(uploadBaseDir, "leave-docs");
-        Files.createDirectories(dir);
-        String safeName = (leave.getUser().getFirstName() + "_" + leave.getUser().getLastName())
-                .replaceAll("[^a-zA-Z0-9_-]", "_");
-        String fileName = "leave_" + id + "_" + safeName + ".pdf";
-        Files.write(dir.resolve(fileName), file.getBytes());
-        leave.setDocumentPath("leave-docs/" + fileName);
+        leave.setDocumentPath(saved.getFilePath());
         leaveRequestRepository.save(leave);
 
-        log.info("Authorization letter saved for leave {} → leave_documents + disk", id);
+        log.info("Authorization letter saved for leave {} → {}", id, saved.getFilePath());
         return ResponseEntity.ok().build();
     }
 
     // ── Serve / Download ──────────────────────────────────────────────────────
 
+    // documentPath is a blob store key, so this works on any node and any backend
     @GetMapping("/{id}/document")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Resource> getDocument(
+    public void getDocument(
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) throws MalformedURLException {
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
         LeaveRequest leave = getLeaveById(id);
 
-        if (leave.getDocumentPath() == null) {
+        String key = leave.getDocumentPath();
+        if (key == null) {
             throw new ResourceNotFoundException("No document found for leave request " + id);
         }
 
-        Path filePath = Paths.get(uploadBaseDir).resolve(leave.getDocumentPath()).normalize();
-        Resource resource = new UrlResource(filePath.toUri());
-
-        if (!resource.exists() || !resource.isReadable()) {
-            throw new ResourceNotFoundException("Document file not found on server.");
-        }
-
-        String fileName = filePath.getFileName().toString();
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_PDF)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "inline; filename=\"" + fileName + "\"")
-                .body(resource);
+        String fileName = key.substring(key.lastIndexOf('/') + 1);
+        fileDeliveryService.serve(key, fileName, MediaType.APPLICATION_PDF_VALUE, null,
+                true, request, response);
     }
 
     // ── Generate from template ────────────────────────────────────────────────
@@ -141,25 +124,40 @@ public class LeaveDocumentController {
             docType = LeaveDocument.DocumentType.ACCEPTATION_LETTER;
         }
 
-        // ✅ Save to leave_documents table
-        documentService.saveGeneratedDocument(
+        // ✅ Save to leave_documents table — documentPath points at the stored copy
+        LeaveDocument saved = documentService.saveGeneratedDocument(
                 pdfBytes, id, leave.getUser().getId(), docType
         );
-
-        // ✅ Keep legacy documentPath
-        Path dir = Paths.get(uploadBaseDir, "leave-docs");
-        Files.createDirectories(dir);
-        String safeName = (leave.getUser().getFirstName() + "_" + leave.getUser().getLastName())
-                .replaceAll("[^a-zA-Z0-9_-]", "_");
-        String fileName = (docType == LeaveDocument.DocumentType.EXIT_AUTHORIZATION_LETTER
-                ? "exit_" : "leave_") + id + "_" + safeName + ".pdf";
-        Files.write(dir.resolve(fileName), pdfBytes);
-        leave.setDocumentPath("leave-docs/" + fileName);
+        leave.setDocumentPath(saved.getFilePath());
         leaveRequestRepository.save(leave);
 
-        log.info("✅ Document generated for {} {}: {}", docType, id, fileName);
+        log.info("✅ Document generated for {} {}: {}", docType, id, saved.getFilePath());
         return ResponseEntity.ok().build();
     }
+    // ── Bulk export ───────────────────────────────────────────────────────────
+
+    /**
+     * POST /api/leaves/letters/export/zip
+     * Generates every approved letter in the period and streams them as one ZIP.
+     *
+     * Example body:
+     * { "from": "2026-05-01", "to": "2026-05-31" }
+     */
+    @PostMapping("/letters/export/zip")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GENERAL_MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportLettersZip(
+            @RequestBody LetterBatchRequest request) {
+
+        letterBatchService.validate(request);
+        StreamingResponseBody body = out -> letterBatchService.streamLettersZip(request, out);
+        String fileName = "letters_" + request.getFrom() + "_" + request.getTo() + ".zip";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
     // ── Helper ────────────────────────────────────────────────────────────────
 
     private LeaveRequest getLeaveById(Long id) {
@@ -179,8 +177,8 @@ public class LeaveDocumentController {
         LeaveRequest leave = leaveRequestRepository.findById(leaveId)
                 .orElseThrow(() -> new ResourceNotFoundException("Leave not found: " + leaveId));
 
-        documentService.saveGeneratedDocument(
-                file.getBytes(),
+        documentService.saveGeneratedDocumentFromFile(
+                file,
                 leaveId,
                 leave.getUser().getId(),
                 LeaveDocument.DocumentType.ACCEPTATION_LETTER
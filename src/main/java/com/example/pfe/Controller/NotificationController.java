@@ -63,6 +63,7 @@ public class NotificationController {
     /**
      * GET /api/notifications?page=0&size=20
      * Returns the user's notification history, newest first.
+     * Offset paging with a total count — prefer /feed for scrolling lists.
      */
     @GetMapping
     public ResponseEntity<Page<NotificationDTO>> getNotifications(
@@ -75,6 +76,20 @@ public class NotificationController {
                         principal.getId(), PageRequest.of(page, size)));
     }
 
+    /**
+     * GET /api/notifications/feed?size=20[&cursor=…]
+     * Infinite scroll: returns { items, nextCursor, hasMore }. Pass nextCursor
+     * back to get the following slice; an invalid cursor is a 400.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<NotificationService.FeedPage> getFeed(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(notificationService.getFeed(principal.getId(), cursor, size));
+    }
+
     /**
      * GET /api/notifications/unread-count
      * Returns the number of unread notifications — used for the bell badge.
@@ -107,4 +122,23 @@ public class NotificationController {
         notificationService.markAllRead(principal.getId());
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // ── Broadcast ─────────────────────────────────────────────
+
+    /**
+     * POST /api/notifications/broadcast   (ADMIN)
+     * Body: { "title": "Office closed Friday", "message": "…", "link": "/news/42" }
+     * Sends an ANNOUNCEMENT to every active user; returns { "recipients": n }.
+     */
+    @PostMapping("/broadcast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> broadcast(@RequestBody BroadcastRequest request) {
+        if (request.title() == null || request.title().isBlank()) {
+            throw new IllegalArgumentException("title is required");
+        }
+        int recipients = notificationService.broadcast(request.title(), request.message(), request.link());
+        return ResponseEntity.ok(Map.of("recipients", recipients));
+    }
+
+    public record BroadcastRequest(String title, String message, String link) {}
+}
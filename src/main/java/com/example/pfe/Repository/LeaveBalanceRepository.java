@@ -2,8 +2,12 @@ package com.example.pfe.Repository;
 
 import com.example.pfe.entities.LeaveBalance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,27 @@ public interface LeaveBalanceRepository extends JpaRepository<LeaveBalance, Long
 
     // Check if balance already exists for this user/year
     boolean existsByUserIdAndYear(Long userId, Integer year);
-}
\ No newline at end of file
+
+    // Remaining annual days for a chunk of users — used by the year-end rollover
+    @Query("SELECT b.user.id AS userId, (b.annualTotal - b.annualTaken) AS annualRemaining " +
+            "FROM LeaveBalance b WHERE b.year = :year AND b.user.id IN :userIds")
+    List<AnnualRemaining> findAnnualRemaining(@Param("year") Integer year,
+                                              @Param("userIds") Collection<Long> userIds);
+
+    // Target-year rows that already exist for a chunk — lets the rollover report
+    // created vs. carried-over rows (a rewritten JDBC batch has no per-row counts)
+    @Query("SELECT b.user.id AS userId, b.rolledOver AS rolledOver " +
+            "FROM LeaveBalance b WHERE b.year = :year AND b.user.id IN :userIds")
+    List<RolloverState> findRolloverState(@Param("year") Integer year,
+                                          @Param("userIds") Collection<Long> userIds);
+
+    interface AnnualRemaining {
+        Long getUserId();
+        Double getAnnualRemaining();
+    }
+
+    interface RolloverState {
+        Long getUserId();
+        Boolean getRolledOver();
+    }
+}
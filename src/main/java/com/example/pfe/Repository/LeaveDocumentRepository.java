@@ -2,11 +2,17 @@ package com.example.pfe.Repository;
 
 import com.example.pfe.entities.LeaveDocument;
 import com.example.pfe.entities.LeaveDocument.DocumentStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LeaveDocumentRepository
@@ -24,4 +30,17 @@ public interface LeaveDocumentRepository
     boolean existsByLeaveRequestIdAndDocumentType(
             Long leaveRequestId,
             LeaveDocument.DocumentType type);
-}
\ No newline at end of file
+
+    // Search index rebuild — keyset pages, owner and leave fetched in the same query
+    @Query("SELECT d FROM LeaveDocument d JOIN FETCH d.user LEFT JOIN FETCH d.leaveRequest " +
+           "WHERE d.id > :afterId ORDER BY d.id")
+    List<LeaveDocument> findIndexBatch(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Search index refresh — one document, same fetch plan as the rebuild
+    @Query("SELECT d FROM LeaveDocument d JOIN FETCH d.user LEFT JOIN FETCH d.leaveRequest WHERE d.id = :id")
+    Optional<LeaveDocument> findForIndex(@Param("id") Long id);
+
+    // Search hits — loads one result page with everything the DTO mapper reads
+    @EntityGraph(attributePaths = {"user", "leaveRequest", "reviewedBy", "uploadedBy"})
+    List<LeaveDocument> findByIdIn(Collection<Long> ids);
+}
@@ -92,5 +92,45 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long
             @Param("type") LeaveType type,
             @Param("year") int year,
             @Param("month") int month);
-}
 
+    // ── Bulk letter export: ids of approved leaves in a period, then pages with the user fetched ──
+
+    @Query("""
+    SELECT lr.id FROM LeaveRequest lr
+    WHERE lr.status = com.example.pfe.enums.LeaveStatus.APPROVED
+      AND lr.startDate BETWEEN :from AND :to
+      AND (:type   IS NULL OR lr.leaveType = :type)
+      AND (:userId IS NULL OR lr.user.id   = :userId)
+    ORDER BY lr.startDate, lr.id
+""")
+    List<Long> findApprovedIdsForLetterBatch(
+            @Param("from")   LocalDate from,
+            @Param("to")     LocalDate to,
+            @Param("type")   LeaveType type,
+            @Param("userId") Long userId);
+
+    @Query("SELECT lr FROM LeaveRequest lr JOIN FETCH lr.user WHERE lr.id IN :ids")
+    List<LeaveRequest> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Same count as countExitAuthorizationsInMonth, for every user/month in one query. */
+    @Query("""
+    SELECT lr.user.id AS userId, YEAR(lr.startDate) AS year, MONTH(lr.startDate) AS month,
+           COUNT(lr) AS total
+    FROM LeaveRequest lr
+    WHERE lr.leaveType = :type
+      AND lr.status = com.example.pfe.enums.LeaveStatus.APPROVED
+      AND lr.startDate BETWEEN :from AND :to
+    GROUP BY lr.user.id, YEAR(lr.startDate), MONTH(lr.startDate)
+""")
+    List<MonthlyCount> countByUserAndMonth(
+            @Param("type") LeaveType type,
+            @Param("from") LocalDate from,
+            @Param("to")   LocalDate to);
+
+    interface MonthlyCount {
+        Long getUserId();
+        Integer getYear();
+        Integer getMonth();
+        Long getTotal();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.pfe.Repository;
+
+import com.example.pfe.entities.LeaveRolloverCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LeaveRolloverCheckpointRepository extends JpaRepository<LeaveRolloverCheckpoint, Long> {
+
+    Optional<LeaveRolloverCheckpoint> findByTargetYear(Integer targetYear);
+}
@@ -0,0 +1,50 @@
+package com.example.pfe.Repository;
+
+import com.example.pfe.entities.NotificationCounter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Long> {
+
+    /**
+     * Adds {@code delta} to the user's counter. A user without a counter row
+     * is seeded with the real count instead, so history from before the row
+     * existed is not lost. Must run after the notifications change it reflects.
+     */
+    String APPLY_DELTA_SQL = """
+            INSERT INTO notification_counters (user_id, unread_count, updated_at)
+            VALUES (?, (SELECT COUNT(*) FROM notifications n WHERE n.user_id = ? AND n.is_read = false), NOW())
+            ON DUPLICATE KEY UPDATE unread_count = GREATEST(unread_count + ?, 0), updated_at = NOW()
+            """;
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO notification_counters (user_id, unread_count, updated_at)
+            VALUES (:userId, (SELECT COUNT(*) FROM notifications n WHERE n.user_id = :userId AND n.is_read = false), NOW())
+            ON DUPLICATE KEY UPDATE unread_count = GREATEST(unread_count + :delta, 0), updated_at = NOW()
+            """, nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId, @Param("delta") long delta);
+
+    // Keyset page of counter owners for the reconcile job
+    @Query("SELECT c.userId FROM NotificationCounter c WHERE c.userId > :afterId ORDER BY c.userId")
+    List<Long> findUserIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Resets a chunk of counters to the real COUNT — uses idx_notif_user_read
+    @Modifying
+    @Query(value = """
+            UPDATE notification_counters c
+            SET c.unread_count = (SELECT COUNT(*) FROM notifications n
+                                  WHERE n.user_id = c.user_id AND n.is_read = false),
+                c.updated_at = NOW()
+            WHERE c.user_id IN (:userIds)
+            """, nativeQuery = true)
+    int reconcile(@Param("userIds") Collection<Long> userIds);
+}
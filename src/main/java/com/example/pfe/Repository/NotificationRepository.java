@@ -1,20 +1,45 @@
 package com.example.pfe.Repository;
 
 import com.example.pfe.entities.Notification;
+import com.example.pfe.enums.NotificationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
     /** All notifications for a user, newest first */
     Page<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
+    /**
+     * Newest notifications of a user, no count query. Pass {@code PageRequest.of(0, size)}:
+     * the Slice reads one extra row to know whether there is more.
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    Slice<Notification> findFeedFirst(@Param("userId") Long userId, Pageable pageable);
+
+    /** Next feed slice strictly after the cursor row — a range scan on idx_notif_user_feed, no OFFSET */
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    Slice<Notification> findFeedBefore(@Param("userId") Long userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    /** Latest unread notification of a type since {@code since} — target for coalescing */
+    Optional<Notification> findFirstByUserIdAndTypeAndReadFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+            Long userId, NotificationType type, LocalDateTime since);
+
     /** Unread count — used for the bell badge */
     long countByUserIdAndReadFalse(Long userId);
 
@@ -23,8 +48,8 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId AND n.read = false")
     int markAllReadByUserId(@Param("userId") Long userId);
 
-    /** Mark a single notification as read */
+    /** Mark a single notification as read — returns 0 if it already was (keeps the counter exact) */
     @Modifying
-    @Query("UPDATE Notification n SET n.read = true WHERE n.id = :id AND n.user.id = :userId")
+    @Query("UPDATE Notification n SET n.read = true WHERE n.id = :id AND n.user.id = :userId AND n.read = false")
     int markReadById(@Param("id") Long id, @Param("userId") Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.example.pfe.Repository;
+
+import com.example.pfe.entities.RagChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RagChunkRepository extends JpaRepository<RagChunk, String> {
+
+    List<RagChunk> findByFileSlug(String fileSlug);
+}
@@ -9,6 +9,9 @@ public interface RagIngestionLogRepository extends JpaRepository<RagIngestionLog
 
     Optional<RagIngestionLog> findFirstByFileSlugOrderByIngestedAtDesc(String fileSlug);
 
+    // Version des documents indexés (cache des réponses du chatbot)
+    Optional<RagIngestionLog> findFirstByStatusOrderByIngestedAtDesc(String status);
+
     // 👇 AJOUTE CETTE LIGNE
     long countByStatus(String status);
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.example.pfe.Repository;
+
+import com.example.pfe.entities.StoredBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+
+    // Register a new blob or add one reference to an existing one — single atomic statement
+    @Modifying
+    @Query(value = """
+            INSERT INTO stored_blobs (content_hash, file_path, file_size, ref_count, created_at)
+            VALUES (:hash, :path, :size, 1, NOW())
+            ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, released_at = NULL
+            """, nativeQuery = true)
+    int acquire(@Param("hash") String contentHash,
+                @Param("path") String filePath,
+                @Param("size") long fileSize);
+
+    @Modifying
+    @Query("""
+            UPDATE StoredBlob b SET b.refCount = b.refCount - 1, b.releasedAt = :now
+            WHERE b.contentHash = :hash AND b.refCount > 0
+            """)
+    int release(@Param("hash") String contentHash, @Param("now") LocalDateTime now);
+
+    // Unreferenced blobs whose grace period has expired
+    @Query("""
+            SELECT b FROM StoredBlob b
+            WHERE b.refCount = 0 AND b.releasedAt < :cutoff
+            ORDER BY b.id
+            """)
+    List<StoredBlob> findOrphans(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Re-checks refCount so a blob re-acquired since findOrphans is kept
+    @Modifying
+    @Query("DELETE FROM StoredBlob b WHERE b.id = :id AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+
+    // Locks the blob's row (or, if there is none, its key) until the transaction ends
+    @Query(value = "SELECT ref_count FROM stored_blobs WHERE content_hash = :hash FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockRefCount(@Param("hash") String contentHash);
+
+    @Query("""
+            SELECT COUNT(b)                               AS blobs,
+                   COALESCE(SUM(b.refCount), 0)           AS totalReferences,
+                   COALESCE(SUM(b.fileSize), 0)           AS physicalBytes,
+                   COALESCE(SUM(b.fileSize * b.refCount), 0) AS logicalBytes
+            FROM StoredBlob b
+            WHERE b.refCount > 0
+            """)
+    BlobTotals totals();
+
+    interface BlobTotals {
+        Long getBlobs();
+        Long getTotalReferences();
+        Long getPhysicalBytes();
+        Long getLogicalBytes();
+    }
+}
@@ -7,9 +7,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +30,12 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     // Ajoutez cette méthode pour trouver par token d'activation
     Optional<User> findByActivationToken(String activationToken);
 
+    // Login: one column, no entity merge (the login path runs outside a transaction)
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.lastLogin = :at WHERE u.id = :id")
+    int updateLastLogin(@Param("id") Long id, @Param("at") LocalDateTime at);
+
     // Self‑registration approval flow
     List<User> findByRegistrationPendingTrue();
 
@@ -104,4 +114,29 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
 
     List<User> findAllByActiveTrue();
 
-    List<User> findAllByActiveTrueAndDepartment(Department department);}
\ No newline at end of file
+    List<User> findAllByActiveTrueAndDepartment(Department department);
+
+    // Recipients of company-wide notifications — ids only, no entity loads
+    @Query("SELECT u.id FROM User u WHERE u.active = true AND u.enabled = true ORDER BY u.id")
+    List<Long> findActiveUserIds();
+
+    // Keyset page of active users (id + hire date only) for batch jobs
+    @Query("SELECT u.id AS id, u.hireDate AS hireDate FROM User u " +
+            "WHERE u.active = true AND u.id > :afterId ORDER BY u.id")
+    List<ActiveUserRow> findActiveUsersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    interface ActiveUserRow {
+        Long getId();
+        LocalDate getHireDate();
+    }
+
+    // Keyset page of users with a profile photo, for the avatar variant backfill
+    @Query("SELECT u.id AS id, u.avatar AS avatar FROM User u " +
+            "WHERE u.avatar IS NOT NULL AND u.avatar <> '' AND u.id > :afterId ORDER BY u.id")
+    List<AvatarRow> findAvatarsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    interface AvatarRow {
+        Long getId();
+        String getAvatar();
+    }
+}
@@ -11,10 +11,11 @@ import com.example.pfe.mapper.UserMapper;
 import com.example.pfe.Repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import com.example.pfe.Service.AttendanceService;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -33,9 +34,11 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final EmailService emailService;
     private final UserMapper userMapper;
-    private final AttendanceService attendanceService;
     private final RoleRepository roleRepository;
     private final NotificationService notificationService;
+    private final UserPrincipalCache principalCache;
+    private final PasswordHashingEngine passwordHashing;
+    private final LoginActivityService loginActivityService;
     // ==================== REGISTRATION ====================
 
     public RegistrationResponseDTO register(RegisterRequestDTO request) {
@@ -89,7 +92,7 @@ public class AuthenticationService {
         // .substring(0,12) takes first 12 characters: "123e4567-e89b"
         String tempPassword = UUID.randomUUID().toString().substring(0, 12);
         // Encrypt the password before saving (never store plain passwords!)
-        user.setPasswordHash(passwordEncoder.encode(tempPassword));
+        user.setPasswordHash(hashPassword(tempPassword));
 
         // Set account status flags
         user.setEnabled(false);// Account not active yet (needs email verification)
@@ -190,6 +193,9 @@ public class AuthenticationService {
      }
     // ==================== LOGIN ====================
 
+    // No transaction: the BCrypt check must not hold a DB connection, and the
+    // loaded user must not be flushed back as a full-entity UPDATE.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public JwtResponseDTO authenticate(LoginRequestDTO request) {
 
         // Step 1: Check if email and password are correct
@@ -198,35 +204,33 @@ public class AuthenticationService {
         // Step 2: Check if account is active and ready to use
         checkAccountStatus(user);
 
-        // Step 3: Update last login date
-        user.setLastLogin(LocalDateTime.now());
-        user = userRepository.save(user);
+        // Step 3: Update last login date (single-column UPDATE)
+        LocalDateTime now = LocalDateTime.now();
+        userRepository.updateLastLogin(user.getId(), now);
 
-        log.info(" User {} logged in. Last login updated to {}",
-                user.getEmail(), user.getLastLogin());
+        log.info(" User {} logged in. Last login updated to {}", user.getEmail(), now);
 
-        // ─────────────────────────────────────────────────────
-        // Step 3b: AUTO CHECK-IN on first login of the day ← ADD THIS
-        // Safe to call every login — service guards against duplicates
+        // Step 3b: AUTO CHECK-IN on first login of the day — in the background,
+        // never block login if it cannot even be queued
         try {
-            attendanceService.checkIn(user.getId());
-        } catch (Exception e) {
-            // Never block login if check-in fails
-            log.error("Check-in failed for user {} — login not blocked: {}",
+            loginActivityService.afterLogin(user.getId());
+        } catch (TaskRejectedException e) {
+            log.error("Check-in could not be scheduled for user {} — login not blocked: {}",
                     user.getId(), e.getMessage());
         }
-        // ─────────────────────────────────────────────────────
 
         // Step 4: Generate token
         String accessToken = jwtService.generateAccessToken(user);
 
         // Step 5: Return response
+        UserResponseDTO userDto = userMapper.toResponseDTO(user);
+        if (userDto != null) userDto.setLastLogin(now);
         return JwtResponseDTO.builder()
                 .token(accessToken)
                 .tokenType("Bearer")
                 .expiresIn(86400L)
                 .message("Login successful")
-                .user(userMapper.toResponseDTO(user))
+                .user(userDto)
                 .build();
     }
     // ==================== ACCOUNT ACTIVATION ====================
@@ -248,13 +252,14 @@ public class AuthenticationService {
 
         // ACTIVATE THE ACCOUNT!
         user.setUsername(request.getUsername());
-        user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
+        user.setPasswordHash(hashPassword(request.getNewPassword()));
         user.setEnabled(true);
         user.setFirstLogin(false);
         user.setActivationToken(null);
         user.setActivationTokenExpiry(null);
 
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
         notificationService.notifyWelcome(user.getId());
 
         // Return JWT token so user is logged in immediately after activation
@@ -323,13 +328,19 @@ public class AuthenticationService {
         User user = userRepository.findByEmailIgnoreCase(request.getEmail())
                 .orElseThrow(() -> new BusinessException("Incorrect email or password."));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        boolean matches = passwordHashing.run("verify",
+                () -> passwordEncoder.matches(request.getPassword(), user.getPasswordHash()));
+        if (!matches) {
             throw new BusinessException("Incorrect email or password.");
         }
 
         return user;
     }
 
+    private String hashPassword(String rawPassword) {
+        return passwordHashing.run("hash", () -> passwordEncoder.encode(rawPassword));
+    }
+
     private void checkAccountStatus(User user) {
 
         // Account waiting for admin approval
@@ -0,0 +1,84 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.storage.BlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Queues the 64/256 px variants of avatars uploaded before PreviewService
+ * existed, so {@code avatarThumbnail} URLs resolve for every user.
+ *
+ * Runs once at startup on its own thread, walking users by id and pacing
+ * itself on the preview queue. Idempotent: an avatar whose variants exist is
+ * skipped, so every node may run it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AvatarVariantBackfill {
+
+    private static final int PAGE_SIZE = 200;
+
+    private final UserRepository userRepository;
+    private final BlobStore      blobStore;
+    private final PreviewService previewService;
+
+    @Value("${app.previews.avatar-backfill.enabled:true}")
+    private boolean enabled = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        Thread t = new Thread(this::run, "avatar-backfill");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    /** Returns the number of avatars queued. */
+    int run() {
+        long afterId = 0;
+        int queued = 0;
+        try {
+            List<UserRepository.AvatarRow> page;
+            while (!(page = userRepository.findAvatarsAfter(afterId, PageRequest.of(0, PAGE_SIZE))).isEmpty()) {
+                for (UserRepository.AvatarRow row : page) {
+                    String key = row.getAvatar().substring(row.getAvatar().lastIndexOf('/') + 1);
+                    if (hasVariants(key)) continue;
+                    while (!previewService.hasRoom()) {
+                        Thread.sleep(500);
+                    }
+                    previewService.scheduleAvatarVariants(key);
+                    queued++;
+                }
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Avatar variant backfill stopped after user {}: {}", afterId, e.getMessage());
+        }
+        if (queued > 0) log.info("Avatar variant backfill — {} avatars queued", queued);
+        return queued;
+    }
+
+    private boolean hasVariants(String key) {
+        try {
+            for (int size : PreviewService.AVATAR_SIZES) {
+                if (!blobStore.exists(PreviewService.avatarVariantKey(key, size))) return false;
+            }
+            return true;
+        } catch (IOException e) {
+            return false;   // let the preview job find out
+        }
+    }
+}
@@ -12,19 +12,37 @@ public class ChatRouterService {
 
     private final QueryClassifierService classifier;
     private final RagService ragService;
+    private final SemanticAnswerCache answerCache;
 
     public String route(String question) {
+        // Une question proche d'une question déjà posée (même langue, même règlement)
+        // évite la classification, la traduction et la génération
+        SemanticAnswerCache.Lookup cached = answerCache.lookup(question, language(question));
+        if (cached.isHit()) {
+            return cached.answer();
+        }
+
+        long startedAt = System.nanoTime();
         QueryCategory category = classifier.classify(question);
         log.info("Routing question to: {}", category);
 
         return switch (category) {
-            case HR_DOCUMENTATION  -> ragService.chat(question);
+            case HR_DOCUMENTATION  -> answerHr(question, cached, startedAt);
             case SMALL_TALK        -> handleSmallTalk(question);
             case GENERAL_KNOWLEDGE -> handleGeneral(question);
             case OTHER             -> handleOther(question);
         };
     }
 
+    private String answerHr(String question, SemanticAnswerCache.Lookup cached, long startedAt) {
+        RagService.Answer answer = ragService.answer(question);
+        // Les réponses par défaut (RAG indisponible, aucun contexte) ne sont pas mises en cache
+        if (answer.grounded()) {
+            cached.store(answer.text(), System.nanoTime() - startedAt);
+        }
+        return answer.text();
+    }
+
     // ── Detect language then reply in that language only ─────────────────────
 
     private String handleSmallTalk(String question) {
@@ -74,6 +92,11 @@ public class ChatRouterService {
 
     // ── Language detection helpers ────────────────────────────────────────────
 
+    private String language(String question) {
+        if (containsArabic(question)) return "ar";
+        return question != null && isFrench(question.toLowerCase()) ? "fr" : "en";
+    }
+
     private boolean containsArabic(String text) {
         if (text == null || text.isEmpty()) {
             return false;
@@ -0,0 +1,565 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.dto.DocumentFilterRequest;
+import com.example.pfe.entities.LeaveDocument;
+import com.example.pfe.entities.LeaveDocument.DocumentCategory;
+import com.example.pfe.entities.LeaveDocument.DocumentStatus;
+import com.example.pfe.entities.LeaveDocument.DocumentType;
+import com.example.pfe.entities.LeaveRequest;
+import com.example.pfe.entities.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk exports of leave documents (ZIP of the files, Excel metadata report).
+ *
+ * Matching documents are read with a keyset-paged projection query
+ * ({@code id > lastId ORDER BY id LIMIT pageSize}): one SELECT per page with
+ * the user / leave request / reviewer columns joined in, no entity loading and
+ * no long-running transaction holding a connection for the whole download.
+ *
+ * The ZIP writer keeps the next {@code prefetch} files loading on a small I/O
+ * pool while it writes the current entry: each task opens the file (an S3 GET,
+ * a missing file) and reads its first {@code prefetch-bytes} into a buffer, so
+ * small files are already in memory by the time their turn comes and large
+ * ones only have their tail left to stream. At most
+ * {@code prefetch × prefetch-bytes} is buffered at once. Formats that are already compressed (PDF, JPEG, PNG, Office
+ * OOXML) are written at {@link Deflater#NO_COMPRESSION}: stored blocks, no CRC
+ * pass up front, so export speed is bounded by the disk instead of by Deflater.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentExportService {
+
+    private static final DateTimeFormatter MONTH_FMT    = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter DATETIME_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private static final String[] EXCEL_HEADERS = {
+            "ID", "Employé", "Type doc", "Catégorie", "Statut",
+            "Fichier", "Taille (KB)", "Date upload",
+            "Congé début", "Congé fin",
+            "Revu par", "Date révision", "Notes admin"
+    };
+
+    /** Column widths in characters — fixed up front instead of autoSizeColumn. */
+    private static final int[] EXCEL_WIDTHS = { 8, 28, 26, 12, 11, 40, 12, 17, 12, 12, 28, 17, 50 };
+
+    /** Rows kept in memory by SXSSF before older ones are flushed to a temp file. */
+    private static final int EXCEL_ROW_WINDOW = 200;
+
+    private static final Set<String> PRECOMPRESSED_TYPES = Set.of(
+            "application/pdf",
+            "image/jpeg",
+            "image/jpg",
+            "image/png",
+            "image/webp",
+            "application/zip",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+    );
+
+    private final EntityManager           entityManager;
+    private final LeaveFileStorageService storageService;
+    private final MeterRegistry           meterRegistry;
+
+    @Value("${app.documents.export.page-size:500}")
+    private int pageSize = 500;
+
+    @Value("${app.documents.export.io-threads:4}")
+    private int ioThreads = 4;
+
+    @Value("${app.documents.export.prefetch:8}")
+    private int prefetch = 8;
+
+    @Value("${app.documents.export.prefetch-bytes:1048576}")
+    private int prefetchBytes = 1024 * 1024;
+
+    private ExecutorService ioPool;
+    private Counter         exportedBytes;
+    private Counter         exportedFiles;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        ioPool = Executors.newFixedThreadPool(ioThreads, r -> {
+            Thread t = new Thread(r, "doc-export-io-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        exportedBytes = meterRegistry.counter("documents.export.zip.bytes");
+        exportedFiles = meterRegistry.counter("documents.export.zip.files");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioPool.shutdownNow();
+    }
+
+    // ══════════════════════════════════════════════════════════
+    // EXPORT — Stream ZIP
+    // ══════════════════════════════════════════════════════════
+
+    /**
+     * Streams a ZIP of all matching documents.
+     *
+     * ZIP internal structure:
+     *   {lastName}_{firstName}/{yyyy-MM}/{TYPE}_{filename}
+     *   e.g. Doe_John/2026-05/ACCEPTATION_LETTER_42_acceptation_letter.pdf
+     */
+    public void streamZip(DocumentFilterRequest filter, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long files = 0;
+        long bytes = 0;
+        Deque<Prefetched> window = new ArrayDeque<>(prefetch);
+
+        try (Stream<ExportRow> rows = scroll(DocumentService.Spec.build(filter));
+             ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024))) {
+
+            Iterator<ExportRow> it = rows.iterator();
+            while (it.hasNext() || !window.isEmpty()) {
+                while (window.size() < Math.max(1, prefetch) && it.hasNext()) {
+                    ExportRow row = it.next();
+                    window.addLast(new Prefetched(row, ioPool.submit(() -> readAhead(row.filePath()))));
+                }
+                bytes += writeEntry(zip, window.pollFirst());
+                files++;
+            }
+        } finally {
+            // Client disconnects leave opens in flight — cancel them and close what is already open
+            window.forEach(Prefetched::discard);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        meterRegistry.timer("documents.export.zip.time").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        exportedFiles.increment(files);
+        exportedBytes.increment(bytes);
+
+        double seconds = Math.max(elapsedNanos / 1e9, 0.001);
+        log.info("ZIP export done — {} files, {} KB in {} ms ({} MB/s)",
+                files, bytes / 1024, Math.round(seconds * 1000),
+                String.format("%.1f", bytes / 1048576.0 / seconds));
+    }
+
+    // ══════════════════════════════════════════════════════════
+    // EXPORT — Excel metadata report (streaming SXSSF)
+    // ══════════════════════════════════════════════════════════
+
+    /**
+     * Writes a .xlsx report straight to {@code out}, one row per document.
+     * SXSSF keeps only the last {@link #EXCEL_ROW_WINDOW} rows in memory, and
+     * column widths are fixed so there is no autoSizeColumn pass over the sheet.
+     */
+    public void streamExcel(DocumentFilterRequest filter, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        int rowNum = 0;
+
+        SXSSFWorkbook wb = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        wb.setCompressTempFiles(true);
+        try (Stream<ExportRow> rows = scroll(DocumentService.Spec.build(filter))) {
+            SXSSFSheet sheet = wb.createSheet("Documents Congés");
+            for (int i = 0; i < EXCEL_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, EXCEL_WIDTHS[i] * 256);
+            }
+
+            // Header
+            CellStyle headerStyle = buildHeaderStyle(wb);
+            Row headerRow = sheet.createRow(rowNum++);
+            for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(EXCEL_HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            Iterator<ExportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                writeExcelRow(sheet.createRow(rowNum++), it.next());
+            }
+
+            wb.write(out);
+        } finally {
+            wb.close();
+            wb.dispose();   // delete SXSSF temp files
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        meterRegistry.timer("documents.export.excel.time").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("Excel export done — {} rows in {} ms", rowNum - 1, elapsedNanos / 1_000_000);
+    }
+
+    // ══════════════════════════════════════════════════════════
+    // Keyset-paged projection
+    // ══════════════════════════════════════════════════════════
+
+    /**
+     * Lazily pages through the documents matching {@code spec}, ordered by id.
+     * Each page is a single SELECT; nothing beyond the current page is held.
+     */
+    Stream<ExportRow> scroll(Specification<LeaveDocument> spec) {
+        Iterator<ExportRow> pages = new Iterator<>() {
+            private Iterator<ExportRow> page = Collections.emptyIterator();
+            private long    lastId    = 0;
+            private boolean exhausted = false;
+
+            @Override
+            public boolean hasNext() {
+                if (page.hasNext()) return true;
+                if (exhausted) return false;
+
+                List<ExportRow> rows = fetchPage(spec, lastId);
+                if (rows.size() < pageSize) exhausted = true;
+                if (rows.isEmpty()) return false;
+
+                lastId = rows.get(rows.size() - 1).id();
+                page = rows.iterator();
+                return true;
+            }
+
+            @Override
+            public ExportRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    private List<ExportRow> fetchPage(Specification<LeaveDocument> spec, long lastId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<LeaveDocument> root = cq.from(LeaveDocument.class);
+
+        Join<LeaveDocument, User>         user     = root.join("user");
+        Join<LeaveDocument, LeaveRequest> leave    = root.join("leaveRequest", JoinType.LEFT);
+        Join<LeaveDocument, User>         reviewer = root.join("reviewedBy",   JoinType.LEFT);
+
+        cq.multiselect(
+                root.get("id").alias("id"),
+                root.get("fileName").alias("fileName"),
+                root.get("filePath").alias("filePath"),
+                root.get("mimeType").alias("mimeType"),
+                root.get("fileSize").alias("fileSize"),
+                root.get("documentType").alias("documentType"),
+                root.get("documentCategory").alias("documentCategory"),
+                root.get("status").alias("status"),
+                root.get("uploadedAt").alias("uploadedAt"),
+                root.get("reviewedAt").alias("reviewedAt"),
+                root.get("adminNotes").alias("adminNotes"),
+                user.get("firstName").alias("firstName"),
+                user.get("lastName").alias("lastName"),
+                leave.get("startDate").alias("leaveStart"),
+                leave.get("endDate").alias("leaveEnd"),
+                reviewer.get("firstName").alias("reviewerFirstName"),
+                reviewer.get("lastName").alias("reviewerLastName"));
+
+        Predicate after  = cb.greaterThan(root.<Long>get("id"), lastId);
+        Predicate filter = spec.toPredicate(root, cq, cb);
+        cq.where(filter == null ? after : cb.and(filter, after))
+          .orderBy(cb.asc(root.<Long>get("id")));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(pageSize)
+                .getResultList()
+                .stream()
+                .map(ExportRow::of)
+                .toList();
+    }
+
+    // ──────────────────────────────────────────────────────────
+    // Private helpers
+    // ──────────────────────────────────────────────────────────
+
+    /**
+     * Opens {@code path} and buffers up to {@link #prefetchBytes} of it. A read
+     * error part-way is kept and replayed after the buffered bytes, so the entry
+     * is still marked incomplete at the right offset.
+     */
+    private Fetched readAhead(String path) throws IOException {
+        InputStream in = storageService.open(path);
+        ByteArrayOutputStream head = new ByteArrayOutputStream(Math.min(prefetchBytes, 64 * 1024));
+        byte[] chunk = new byte[8192];
+        try {
+            while (head.size() < prefetchBytes) {
+                int n = in.read(chunk, 0, Math.min(chunk.length, prefetchBytes - head.size()));
+                if (n < 0) {
+                    in.close();
+                    return new Fetched(head.toByteArray(), null, null);
+                }
+                head.write(chunk, 0, n);
+            }
+            return new Fetched(head.toByteArray(), in, null);
+        } catch (IOException e) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // already failing on the read side
+            }
+            return new Fetched(head.toByteArray(), null, e);
+        }
+    }
+
+    /**
+     * Copies the prefetched file as the next entry; returns the bytes written.
+     * A file that can't be read becomes a short note entry — one bad file
+     * doesn't abort the ZIP — but a failed write to the client does.
+     */
+    private long writeEntry(ZipOutputStream zip, Prefetched next) throws IOException {
+        ExportRow row = next.row();
+        Fetched fetched;
+        try {
+            fetched = next.file().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("ZIP export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof FileNotFoundException) {
+                log.warn("File not found for document {}: {}", row.id(), row.filePath());
+                writeNote(zip, "MISSING_doc_" + row.id() + ".txt", "File missing: " + row.filePath());
+            } else {
+                log.warn("Could not open file for document {} ({})", row.id(), row.filePath(), cause);
+                writeNote(zip, "UNREADABLE_doc_" + row.id() + ".txt",
+                        "File unreadable: " + row.filePath() + " — " + cause);
+            }
+            return 0;
+        }
+
+        SourceStream source = new SourceStream(fetched.stream());
+        try (source) {
+            zip.setLevel(isPrecompressed(row.mimeType()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(row.zipEntryName()));
+            source.transferTo(zip);
+            zip.closeEntry();
+        } catch (SourceReadException e) {
+            log.warn("Reading file for document {} ({}) failed after {} bytes",
+                    row.id(), row.filePath(), source.count, e.getCause());
+            zip.closeEntry();
+            writeNote(zip, "INCOMPLETE_doc_" + row.id() + ".txt",
+                    "File truncated after " + source.count + " bytes: " + row.filePath() + " — " + e.getCause());
+        }
+        return source.count;
+    }
+
+    private void writeNote(ZipOutputStream zip, String name, String text) throws IOException {
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(text.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private void writeExcelRow(Row row, ExportRow doc) {
+        row.createCell(0).setCellValue(doc.id());
+        row.createCell(1).setCellValue(doc.firstName() + " " + doc.lastName());
+        row.createCell(2).setCellValue(doc.documentType() != null ? doc.documentType().name() : "");
+        row.createCell(3).setCellValue(doc.documentCategory() != null ? doc.documentCategory().name() : "");
+        row.createCell(4).setCellValue(doc.status() != null ? doc.status().name() : "");
+        row.createCell(5).setCellValue(doc.fileName());
+        row.createCell(6).setCellValue(doc.fileSize() != null
+                ? Math.round(doc.fileSize() / 1024.0 * 10) / 10.0 : 0);
+        row.createCell(7).setCellValue(doc.uploadedAt() != null
+                ? doc.uploadedAt().format(DATETIME_FMT) : "");
+        row.createCell(8).setCellValue(doc.leaveStart() != null ? doc.leaveStart().toString() : "");
+        row.createCell(9).setCellValue(doc.leaveEnd()   != null ? doc.leaveEnd().toString()   : "");
+        row.createCell(10).setCellValue(doc.reviewerFirstName() != null
+                ? doc.reviewerFirstName() + " " + doc.reviewerLastName() : "—");
+        row.createCell(11).setCellValue(doc.reviewedAt() != null
+                ? doc.reviewedAt().format(DATETIME_FMT) : "—");
+        row.createCell(12).setCellValue(doc.adminNotes() != null ? doc.adminNotes() : "");
+    }
+
+    private CellStyle buildHeaderStyle(Workbook wb) {
+        CellStyle style = wb.createCellStyle();
+        Font font = wb.createFont();
+        font.setBold(true);
+        style.setFont(font);
+        style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        return style;
+    }
+
+    private boolean isPrecompressed(String mimeType) {
+        return mimeType != null && PRECOMPRESSED_TYPES.contains(mimeType.toLowerCase());
+    }
+
+    // ─── Records ──────────────────────────────────────────────
+
+    private record Prefetched(ExportRow row, Future<Fetched> file) {
+
+        void discard() {
+            if (!file.cancel(true) && !file.isCancelled()) {
+                try {
+                    file.get().close();
+                } catch (Exception ignored) {
+                    // never opened, or already closed
+                }
+            }
+        }
+    }
+
+    /**
+     * The buffered head of a file, plus the still-open stream for whatever did
+     * not fit ({@code null} once the file was read to the end), or the read
+     * error hit while buffering.
+     */
+    private record Fetched(byte[] head, InputStream rest, IOException failure) implements Closeable {
+
+        InputStream stream() {
+            InputStream tail;
+            if (failure != null) {
+                tail = new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw failure;
+                    }
+                };
+            } else {
+                tail = rest != null ? rest : InputStream.nullInputStream();
+            }
+            return new SequenceInputStream(new ByteArrayInputStream(head), tail);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (rest != null) rest.close();
+        }
+    }
+
+    /** Failure on the file side of a copy, as opposed to the client side. */
+    private static class SourceReadException extends IOException {
+        SourceReadException(IOException cause) {
+            super(cause);
+        }
+    }
+
+    /** Counts bytes read and tags read errors, so transferTo failures can be told apart. */
+    private static class SourceStream extends FilterInputStream {
+
+        long count;
+
+        SourceStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = super.read();
+                if (b >= 0) count++;
+                return b;
+            } catch (IOException e) {
+                throw new SourceReadException(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                int n = in.read(b, off, len);
+                if (n > 0) count += n;
+                return n;
+            } catch (IOException e) {
+                throw new SourceReadException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } catch (IOException ignored) {
+                // read side only — every byte has been copied or the entry is already marked incomplete
+            }
+        }
+    }
+
+    /** One leave_documents row with everything an export needs, already joined. */
+    public record ExportRow(
+            Long             id,
+            String           fileName,
+            String           filePath,
+            String           mimeType,
+            Long             fileSize,
+            DocumentType     documentType,
+            DocumentCategory documentCategory,
+            DocumentStatus   status,
+            LocalDateTime    uploadedAt,
+            LocalDateTime    reviewedAt,
+            String           adminNotes,
+            String           firstName,
+            String           lastName,
+            LocalDate        leaveStart,
+            LocalDate        leaveEnd,
+            String           reviewerFirstName,
+            String           reviewerLastName
+    ) {
+        static ExportRow of(Tuple t) {
+            return new ExportRow(
+                    t.get("id", Long.class),
+                    t.get("fileName", String.class),
+                    t.get("filePath", String.class),
+                    t.get("mimeType", String.class),
+                    t.get("fileSize", Long.class),
+                    t.get("documentType", DocumentType.class),
+                    t.get("documentCategory", DocumentCategory.class),
+                    t.get("status", DocumentStatus.class),
+                    t.get("uploadedAt", LocalDateTime.class),
+                    t.get("reviewedAt", LocalDateTime.class),
+                    t.get("adminNotes", String.class),
+                    t.get("firstName", String.class),
+                    t.get("lastName", String.class),
+                    t.get("leaveStart", LocalDate.class),
+                    t.get("leaveEnd", LocalDate.class),
+                    t.get("reviewerFirstName", String.class),
+                    t.get("reviewerLastName", String.class));
+        }
+
+        String zipEntryName() {
+            String month = uploadedAt != null ? uploadedAt.format(MONTH_FMT) : "unknown";
+            return lastName + "_" + firstName + "/" + month + "/" + documentType + "_" + fileName;
+        }
+    }
+}
@@ -0,0 +1,683 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.LeaveDocumentRepository;
+import com.example.pfe.dto.DocumentFilterRequest;
+import com.example.pfe.entities.LeaveDocument;
+import com.example.pfe.entities.LeaveDocument.DocumentCategory;
+import com.example.pfe.entities.LeaveDocument.DocumentStatus;
+import com.example.pfe.entities.LeaveDocument.DocumentType;
+import com.example.pfe.entities.LeaveRequest;
+import com.example.pfe.entities.User;
+import com.example.pfe.messaging.ClusterEventBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.apache.lucene.analysis.fr.FrenchLightStemFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Embedded Lucene index over leave documents — file text plus the metadata
+ * the admin list filters on. Replaces {@code LIKE '%x%'} on the user join
+ * for free-text search and adds search inside the files themselves.
+ *
+ *   content               PDF text (PDFBox), DOCX text (POI), plain text
+ *   fileName, userName    boosted over content
+ *   documentType/status/
+ *   category              exact filters + facet counts
+ *   userId                exact filter
+ *   uploadedAt, leave*    range filters (LongPoint), uploadedAt also sorts
+ *
+ * Text is lower-cased, accent-folded and lightly stemmed for French, so
+ * "conges" matches "Congés".
+ *
+ * Updates are announced on the {@link ClusterEventBus} after the saving
+ * transaction commits, so a rolled-back save is never indexed and every
+ * node hears about documents uploaded elsewhere (with the JDBC bus, within
+ * one poll interval). Each node then re-reads the row and extracts the text
+ * on one private thread; a document that is gone from the DB is removed.
+ * A full queue drops the update; the rebuild (also started automatically
+ * when the index is empty) repairs anything missed. The index only returns
+ * ids — results are loaded from the DB.
+ *
+ * The rebuild fills a fresh generation directory while searches keep using
+ * the current one, then swaps it in and replays whatever changed meanwhile.
+ * {@code CURRENT} under the index directory names the live generation.
+ *
+ * The index is per node and derived from the DB; deleting the directory is
+ * always safe.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentSearchService {
+
+    /** Deepest hit a search can page to; Lucene collects every hit up to it. */
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private static final String F_ID          = "id";
+    private static final String F_USER_ID     = "userId";
+    private static final String F_USER_NAME   = "userName";
+    private static final String F_FILE_NAME   = "fileName";
+    private static final String F_CONTENT     = "content";
+    private static final String F_TYPE        = "documentType";
+    private static final String F_STATUS      = "status";
+    private static final String F_CATEGORY    = "category";
+    private static final String F_UPLOADED_AT = "uploadedAt";
+    private static final String F_LEAVE_START = "leaveStart";
+    private static final String F_LEAVE_END   = "leaveEnd";
+
+    static final String TOPIC = "document-search";
+    private static final String CURRENT = "CURRENT";
+    private static final String GENERATION_PREFIX = "gen-";
+
+    private static final String DOCX_MIME =
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    private static final int REBUILD_BATCH = 200;
+
+    private final LeaveDocumentRepository documentRepository;
+    private final LeaveFileStorageService storageService;
+    private final MeterRegistry           meterRegistry;
+    private final ClusterEventBus         eventBus;
+
+    @Value("${app.search.index-dir:search-index}")
+    private String indexDir;
+
+    @Value("${app.search.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.search.max-content-chars:200000}")
+    private int maxContentChars;
+
+    private final FacetsConfig  facetsConfig = new FacetsConfig();
+    private final AtomicBoolean rebuilding   = new AtomicBoolean();
+    private final Object        writeLock    = new Object();
+
+    private Analyzer           analyzer;
+    private ThreadPoolExecutor executor;
+
+    /** Live generation; replaced under {@link #writeLock} when a rebuild completes. */
+    private volatile Index index;
+
+    /** Ids changed while a rebuild runs — replayed into the new generation after the swap. */
+    private Set<Long> changedDuringRebuild;   // guarded by writeLock
+    private volatile boolean closed;
+    private volatile Thread  rebuildThread;
+
+    /** Facet ordinals for the current reader; rebuilt only when the reader changes. */
+    private volatile FacetState facetState;
+
+    @PostConstruct
+    public void init() throws IOException {
+        analyzer = CustomAnalyzer.builder()
+                .withTokenizer(StandardTokenizerFactory.class)
+                .addTokenFilter(LowerCaseFilterFactory.class)
+                .addTokenFilter(ASCIIFoldingFilterFactory.class)
+                .addTokenFilter(FrenchLightStemFilterFactory.class)
+                .build();
+
+        Path root = Paths.get(indexDir);
+        Files.createDirectories(root);
+        Path current = currentGeneration(root);
+        if (current == null) {
+            current = Files.createTempDirectory(root, GENERATION_PREFIX);
+            index = openIndex(current);
+            markCurrent(current);
+        } else {
+            index = openIndex(current);
+        }
+        deleteStaleGenerations(root, current);
+
+        executor = new ThreadPoolExecutor(
+                1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "search-indexer");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("documents.search.index.docs", this, s -> s.index.writer().getDocStats().numDocs)
+                .register(meterRegistry);
+        Gauge.builder("documents.search.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+
+        eventBus.subscribe(TOPIC, this::onChange);
+
+        if (index.writer().getDocStats().numDocs == 0) {
+            log.info("🔎 Search index empty — rebuilding from the database");
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        closed = true;   // stops a running rebuild after its current batch
+        Thread rebuild = rebuildThread;
+        if (rebuild != null) rebuild.join(TimeUnit.SECONDS.toMillis(10));
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        synchronized (writeLock) {
+            index.close();   // commits pending changes
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════
+    // Updates
+    // ══════════════════════════════════════════════════════════
+
+    /**
+     * (Re)indexes a document once the current transaction commits, on every
+     * node. Nothing is indexed if the transaction rolls back.
+     */
+    public void index(LeaveDocument doc) {
+        announceAfterCommit(doc.getId());
+    }
+
+    /** Drops a document from every node's index once the delete commits. */
+    public void remove(Long documentId) {
+        announceAfterCommit(documentId);
+    }
+
+    private void announceAfterCommit(Long documentId) {
+        String payload = documentId.toString();
+        TransactionCallbacks.afterCommit(() -> eventBus.publish(TOPIC, payload));
+    }
+
+    private void onChange(String payload) {
+        Long documentId;
+        try {
+            documentId = Long.valueOf(payload);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed search index event '{}'", payload);
+            return;
+        }
+        submit("refresh " + documentId, () -> refresh(documentId));
+    }
+
+    /** Brings one document in line with its row: re-read, re-extract, replace — or delete if gone. */
+    private void refresh(Long documentId) throws IOException {
+        Optional<LeaveDocument> row = documentRepository.findForIndex(documentId);
+        Document doc = null;
+        if (row.isPresent()) {
+            IndexEntry entry = IndexEntry.of(row.get());
+            doc = toLucene(entry, extractText(entry));
+        }
+        synchronized (writeLock) {
+            Index live = index;
+            if (doc != null) {
+                live.writer().updateDocument(idTerm(documentId), doc);
+            } else {
+                live.writer().deleteDocuments(idTerm(documentId));
+            }
+            live.searchers().maybeRefresh();
+            if (changedDuringRebuild != null) changedDuringRebuild.add(documentId);
+        }
+    }
+
+    /**
+     * Re-reads every document from the DB (keyset pages, user and leave
+     * fetched in the same query) into a new generation, on its own thread.
+     * Searches keep hitting the current generation until the swap.
+     *
+     * @return {@code false} if a rebuild is already running
+     */
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) return false;
+
+        Thread thread = new Thread(this::runRebuild, "search-rebuild");
+        thread.setDaemon(true);
+        rebuildThread = thread;
+        thread.start();
+        return true;
+    }
+
+    private void runRebuild() {
+        long started = System.currentTimeMillis();
+        long count = 0;
+        Index fresh = null;
+        synchronized (writeLock) {
+            changedDuringRebuild = new HashSet<>();
+        }
+        try {
+            fresh = openIndex(Files.createTempDirectory(Paths.get(indexDir), GENERATION_PREFIX));
+            long afterId = 0;
+            List<LeaveDocument> batch;
+            do {
+                batch = documentRepository.findIndexBatch(afterId, PageRequest.of(0, REBUILD_BATCH));
+                for (LeaveDocument doc : batch) {
+                    IndexEntry entry = IndexEntry.of(doc);
+                    fresh.writer().addDocument(toLucene(entry, extractText(entry)));
+                    afterId = doc.getId();
+                    count++;
+                }
+            } while (batch.size() == REBUILD_BATCH && !closed);
+            if (closed) throw new IllegalStateException("shutting down");
+
+            fresh.writer().commit();
+            fresh.searchers().maybeRefresh();
+            swap(fresh);
+            log.info("🔎 Search index rebuilt — {} documents in {} ms",
+                    count, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.error("Search index rebuild failed after {} documents: {}", count, e.getMessage(), e);
+            synchronized (writeLock) {
+                changedDuringRebuild = null;
+            }
+            if (fresh != null) discard(fresh);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void swap(Index fresh) throws IOException {
+        Index old;
+        Set<Long> replay;
+        synchronized (writeLock) {
+            markCurrent(fresh.dir());
+            old = index;
+            index = fresh;
+            replay = changedDuringRebuild;
+            changedDuringRebuild = null;
+        }
+        // The rebuild may have read these rows before their latest change
+        for (Long id : replay) {
+            submit("refresh " + id, () -> refresh(id));
+        }
+        discard(old);
+    }
+
+    /** Makes queued changes durable; NRT readers see them before this. */
+    @Scheduled(fixedDelayString = "${app.search.commit-interval-ms:30000}")
+    public void commit() {
+        IndexWriter writer = index.writer();
+        if (!writer.hasUncommittedChanges()) return;
+        try {
+            writer.commit();
+        } catch (IOException | AlreadyClosedException e) {   // closed: swapped out by a rebuild
+            log.warn("Search index commit failed: {}", e.getMessage());
+        }
+    }
+
+    private void submit(String what, IndexTask task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    meterRegistry.counter("documents.search.index.failed").increment();
+                    log.warn("Search index {} failed: {}", what, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Search index queue full — skipping {}", what);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexTask {
+        void run() throws IOException;
+    }
+
+    // ─── Generations ──────────────────────────────────────────
+
+    private Index openIndex(Path dir) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        IndexWriter writer = new IndexWriter(FSDirectory.open(dir), config);
+        return new Index(dir, writer, new SearcherManager(writer, null));
+    }
+
+    /** Live generation named by {@code CURRENT}, or {@code null} if there is none yet. */
+    private static Path currentGeneration(Path root) throws IOException {
+        Path pointer = root.resolve(CURRENT);
+        if (!Files.exists(pointer)) return null;
+        Path dir = root.resolve(Files.readString(pointer, StandardCharsets.UTF_8).trim());
+        return Files.isDirectory(dir) ? dir : null;
+    }
+
+    private void markCurrent(Path generation) throws IOException {
+        Path root = generation.getParent();
+        Path tmp = root.resolve(CURRENT + ".tmp");
+        Files.writeString(tmp, generation.getFileName().toString(), StandardCharsets.UTF_8);
+        Files.move(tmp, root.resolve(CURRENT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Leftovers of swapped-out or interrupted rebuilds. */
+    private static void deleteStaleGenerations(Path root, Path current) throws IOException {
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, GENERATION_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                if (!dir.equals(current)) FileSystemUtils.deleteRecursively(dir);
+            }
+        }
+    }
+
+    /** Closes a generation and deletes it; searches still holding its reader finish normally. */
+    private static void discard(Index generation) {
+        try {
+            generation.close();
+            FileSystemUtils.deleteRecursively(generation.dir());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not discard search index {}: {}", generation.dir(), e.getMessage());
+        }
+    }
+
+    private record Index(Path dir, IndexWriter writer, SearcherManager searchers) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            searchers.close();
+            writer.close();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════
+    // Search
+    // ══════════════════════════════════════════════════════════
+
+    /**
+     * Ranked full-text search with the same filters as the admin list.
+     * Without {@code text} every matching document is returned, newest
+     * upload first. Facet counts cover the whole filtered result set.
+     */
+    public SearchHits search(String text, DocumentFilterRequest filter, int page, int size) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long started = System.nanoTime();
+
+        long window = ((long) page + 1) * size;
+        if (page < 0 || size < 1 || window > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException(
+                    "page and size must stay within the first " + MAX_RESULT_WINDOW + " results");
+        }
+
+        Query query = buildQuery(text, filter);
+        boolean ranked = text != null && !text.isBlank();
+        int wanted = (int) window;
+
+        SearcherManager searchers;
+        IndexSearcher searcher;
+        while (true) {
+            searchers = index.searchers();
+            try {
+                searcher = searchers.acquire();
+                break;
+            } catch (AlreadyClosedException e) {
+                // swapped out by a rebuild between the read and the acquire — use the new one
+            }
+        }
+        try {
+            FacetsCollector facetsCollector = new FacetsCollector();
+            TopDocs top = ranked
+                    ? FacetsCollector.search(searcher, query, wanted, facetsCollector)
+                    : FacetsCollector.search(searcher, query, wanted,
+                            new Sort(new SortField(F_UPLOADED_AT, SortField.Type.LONG, true)),
+                            facetsCollector);
+
+            List<Hit> hits = new ArrayList<>(size);
+            ScoreDoc[] docs = top.scoreDocs;
+            for (int i = page * size; i < docs.length; i++) {
+                String id = searcher.storedFields().document(docs[i].doc).get(F_ID);
+                hits.add(new Hit(Long.parseLong(id), ranked ? docs[i].score : 0f));
+            }
+
+            Map<String, Map<String, Long>> facets = facets(searcher.getIndexReader(), facetsCollector);
+            long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return new SearchHits(top.totalHits.value, hits, facets, tookMs);
+        } finally {
+            searchers.release(searcher);
+            sample.stop(meterRegistry.timer("documents.search.time"));
+        }
+    }
+
+    private Query buildQuery(String text, DocumentFilterRequest f) {
+        BooleanQuery.Builder q = new BooleanQuery.Builder();
+
+        if (text != null && !text.isBlank()) {
+            SimpleQueryParser parser = new SimpleQueryParser(analyzer,
+                    Map.of(F_USER_NAME, 3f, F_FILE_NAME, 2f, F_CONTENT, 1f));
+            parser.setDefaultOperator(Occur.MUST);
+            q.add(parser.parse(text), Occur.MUST);
+        } else {
+            q.add(new MatchAllDocsQuery(), Occur.MUST);
+        }
+
+        if (f.getUserFullName() != null && !f.getUserFullName().isBlank()) {
+            SimpleQueryParser names = new SimpleQueryParser(analyzer, F_USER_NAME);
+            names.setDefaultOperator(Occur.MUST);
+            q.add(names.parse(f.getUserFullName()), Occur.FILTER);
+        }
+        if (f.getUserId() != null) {
+            q.add(new TermQuery(new Term(F_USER_ID, f.getUserId().toString())), Occur.FILTER);
+        }
+        if (f.getDocumentType() != null) {
+            q.add(new TermQuery(new Term(F_TYPE, f.getDocumentType().name())), Occur.FILTER);
+        }
+        if (f.getDocumentCategory() != null) {
+            q.add(new TermQuery(new Term(F_CATEGORY, f.getDocumentCategory().name())), Occur.FILTER);
+        }
+        if (f.getStatus() != null) {
+            q.add(new TermQuery(new Term(F_STATUS, f.getStatus().name())), Occur.FILTER);
+        } else if (!f.isIncludeArchived()) {
+            q.add(new TermQuery(new Term(F_STATUS, DocumentStatus.ARCHIVED.name())), Occur.MUST_NOT);
+        }
+        if (f.getUploadedFrom() != null || f.getUploadedTo() != null) {
+            long from = f.getUploadedFrom() == null ? Long.MIN_VALUE : epochMillis(f.getUploadedFrom().atStartOfDay());
+            long to   = f.getUploadedTo()   == null ? Long.MAX_VALUE : epochMillis(f.getUploadedTo().plusDays(1).atStartOfDay()) - 1;
+            q.add(LongPoint.newRangeQuery(F_UPLOADED_AT, from, to), Occur.FILTER);
+        }
+        // Leave period overlap: start <= to AND end >= from
+        if (f.getLeaveTo() != null) {
+            q.add(LongPoint.newRangeQuery(F_LEAVE_START, Long.MIN_VALUE, f.getLeaveTo().toEpochDay()), Occur.FILTER);
+        }
+        if (f.getLeaveFrom() != null) {
+            q.add(LongPoint.newRangeQuery(F_LEAVE_END, f.getLeaveFrom().toEpochDay(), Long.MAX_VALUE), Occur.FILTER);
+        }
+        return q.build();
+    }
+
+    private Map<String, Map<String, Long>> facets(IndexReader reader, FacetsCollector collector) throws IOException {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        if (reader.numDocs() == 0) return result;
+
+        FacetState state = facetState;
+        if (state == null || state.reader() != reader) {
+            state = new FacetState(reader, new DefaultSortedSetDocValuesReaderState(reader, facetsConfig));
+            facetState = state;
+        }
+
+        Facets counts = new SortedSetDocValuesFacetCounts(state.ordinals(), collector);
+        for (FacetResult dim : counts.getAllDims(20)) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (LabelAndValue lv : dim.labelValues) {
+                values.put(lv.label, lv.value.longValue());
+            }
+            result.put(dim.dim, values);
+        }
+        return result;
+    }
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState ordinals) {}
+
+    // ══════════════════════════════════════════════════════════
+    // Documents & text extraction
+    // ══════════════════════════════════════════════════════════
+
+    private Document toLucene(IndexEntry e, String content) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(F_ID, e.id().toString(), Field.Store.YES));
+        doc.add(new StringField(F_USER_ID, String.valueOf(e.userId()), Field.Store.NO));
+        doc.add(new TextField(F_USER_NAME, e.userName(), Field.Store.NO));
+        doc.add(new TextField(F_FILE_NAME, e.fileName() != null ? e.fileName() : "", Field.Store.NO));
+        doc.add(new TextField(F_CONTENT, content, Field.Store.NO));
+
+        addKeyword(doc, F_TYPE, e.documentType());
+        addKeyword(doc, F_STATUS, e.status());
+        addKeyword(doc, F_CATEGORY, e.category());
+
+        long uploadedAt = e.uploadedAt() != null ? epochMillis(e.uploadedAt()) : 0L;
+        doc.add(new LongPoint(F_UPLOADED_AT, uploadedAt));
+        doc.add(new NumericDocValuesField(F_UPLOADED_AT, uploadedAt));
+        if (e.leaveStart() != null) doc.add(new LongPoint(F_LEAVE_START, e.leaveStart().toEpochDay()));
+        if (e.leaveEnd()   != null) doc.add(new LongPoint(F_LEAVE_END, e.leaveEnd().toEpochDay()));
+
+        return facetsConfig.build(doc);
+    }
+
+    /** Exact-match term for filtering plus a facet value for counting. */
+    private void addKeyword(Document doc, String field, Enum<?> value) {
+        if (value == null) return;
+        doc.add(new StringField(field, value.name(), Field.Store.NO));
+        doc.add(new SortedSetDocValuesFacetField(field, value.name()));
+    }
+
+    /** Best effort: an unreadable file is still indexed by its metadata. */
+    private String extractText(IndexEntry e) {
+        String mime = e.mimeType();
+        if (mime == null || e.filePath() == null) return "";
+        try (InputStream in = storageService.open(e.filePath())) {
+            String text = switch (mime) {
+                case "application/pdf" -> {
+                    try (PDDocument pdf = PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly())) {
+                        yield new PDFTextStripper().getText(pdf);
+                    }
+                }
+                case DOCX_MIME -> {
+                    try (XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(in))) {
+                        yield extractor.getText();
+                    }
+                }
+                case "text/plain" -> new String(in.readNBytes(maxContentChars), StandardCharsets.UTF_8);
+                default -> "";   // images: no OCR, metadata only
+            };
+            return text.length() > maxContentChars ? text.substring(0, maxContentChars) : text;
+        } catch (Exception ex) {
+            log.warn("Text extraction failed for document {}: {}", e.id(), ex.getMessage());
+            return "";
+        }
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(F_ID, id.toString());
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // ─── Records ──────────────────────────────────────────────
+
+    /** What the indexer needs, copied while the entity is still attached. */
+    record IndexEntry(Long id,
+                      Long userId,
+                      String userName,
+                      DocumentType documentType,
+                      DocumentCategory category,
+                      DocumentStatus status,
+                      String fileName,
+                      String filePath,
+                      String mimeType,
+                      LocalDateTime uploadedAt,
+                      LocalDate leaveStart,
+                      LocalDate leaveEnd) {
+
+        static IndexEntry of(LeaveDocument doc) {
+            User user = doc.getUser();
+            LeaveRequest leave = doc.getLeaveRequest();
+            return new IndexEntry(
+                    doc.getId(),
+                    user != null ? user.getId() : null,
+                    user != null ? user.getFirstName() + " " + user.getLastName() : "",
+                    doc.getDocumentType(),
+                    doc.getDocumentCategory(),
+                    doc.getStatus(),
+                    doc.getFileName(),
+                    doc.getFilePath(),
+                    doc.getMimeType(),
+                    doc.getUploadedAt(),
+                    leave != null ? leave.getStartDate() : null,
+                    leave != null ? leave.getEndDate() : null);
+        }
+    }
+
+    public record Hit(long documentId, float score) {}
+
+    public record SearchHits(long total,
+                             List<Hit> hits,
+                             Map<String, Map<String, Long>> facets,
+                             long tookMs) {}
+}
@@ -15,22 +15,21 @@ import com.example.pfe.entities.User;
 import com.example.pfe.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -43,6 +42,11 @@ public class DocumentService {
     private final UserRepository          userRepository;
     private final LeaveFileStorageService storageService;
     private final LeaveDocumentMapper leaveDocumentMapper;
+    private final PreviewService          previewService;
+    private final DocumentSearchService   searchService;
+
+    static final String ADMIN_DOCUMENTS_URL    = "/api/admin/documents";
+    static final String EMPLOYEE_DOCUMENTS_URL = "/api/me/documents";
 
     // ══════════════════════════════════════════════════════════
     // CALLED BY LeaveService.approveLeave() — auto-save generated letter
@@ -61,6 +65,23 @@ public class DocumentService {
                                                Long leaveRequestId,
                                                Long userId,
                                                DocumentType type) throws IOException {
+        return saveGeneratedDocument(new ByteArrayInputStream(pdfContent), leaveRequestId, userId, type);
+    }
+
+    /** Streams the upload to storage instead of buffering it with getBytes(). */
+    public LeaveDocument saveGeneratedDocumentFromFile(MultipartFile file,
+                                                       Long leaveRequestId,
+                                                       Long userId,
+                                                       DocumentType type) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return saveGeneratedDocument(in, leaveRequestId, userId, type);
+        }
+    }
+
+    private LeaveDocument saveGeneratedDocument(InputStream pdfContent,
+                                                Long leaveRequestId,
+                                                Long userId,
+                                                DocumentType type) throws IOException {
 
         LeaveRequest leaveRequest = getLeaveRequestById(leaveRequestId);
         User user = getUserById(userId);
@@ -77,6 +98,7 @@ public class DocumentService {
                 .filePath(stored.filePath())
                 .mimeType(stored.mimeType())
                 .fileSize(stored.fileSize())
+                .contentHash(stored.contentHash())
                 .status(DocumentStatus.APPROVED)
                 .generatedBySystem(true)
                 .generatedAt(LocalDateTime.now())
@@ -84,18 +106,13 @@ public class DocumentService {
                 .build();
 
         LeaveDocument saved = documentRepository.save(doc);
+        schedulePreview(stored);
+        searchService.index(saved);
         log.info("Generated document saved — leaveId: {}, type: {}, path: {}",
                 leaveRequestId, type, stored.filePath());
         return saved;
     }
 
-    public LeaveDocument saveGeneratedDocumentFromFile(MultipartFile file,
-                                                       Long leaveRequestId,
-                                                       Long userId,
-                                                       DocumentType type) throws IOException {
-        return saveGeneratedDocument(file.getBytes(), leaveRequestId, userId, type);
-    }
-
     // ══════════════════════════════════════════════════════════
     // EMPLOYEE — Upload supporting document (medical cert, proof…)
     // ══════════════════════════════════════════════════════════
@@ -125,12 +142,15 @@ public class DocumentService {
                 .filePath(stored.filePath())
                 .mimeType(stored.mimeType())
                 .fileSize(stored.fileSize())
+                .contentHash(stored.contentHash())
                 .status(DocumentStatus.PENDING)
                 .generatedBySystem(false)
                 .uploadedAt(LocalDateTime.now())
                 .build();
 
         LeaveDocument saved = documentRepository.save(doc);
+        schedulePreview(stored);
+        searchService.index(saved);
         log.info("Employee document uploaded — leaveId: {}, userId: {}, type: {}",
                 leaveRequestId, userId, type);
         return saved;
@@ -143,7 +163,7 @@ public class DocumentService {
     @Transactional(readOnly = true)
     public Page<LeaveDocumentDTO> findAll(DocumentFilterRequest filter, Pageable pageable) {
         return documentRepository.findAll(Spec.build(filter), pageable)
-                .map(leaveDocumentMapper::toDTO);
+                .map(doc -> leaveDocumentMapper.toDTO(doc, ADMIN_DOCUMENTS_URL));
     }
 
     // ══════════════════════════════════════════════════════════
@@ -158,7 +178,7 @@ public class DocumentService {
             throw new SecurityException("Cannot resolve authenticated user.");
         }
         return documentRepository.findAll(Spec.forEmployee(userId, filter), pageable)
-                .map(leaveDocumentMapper::toDTO);
+                .map(doc -> leaveDocumentMapper.toDTO(doc, EMPLOYEE_DOCUMENTS_URL));
     }
     // ══════════════════════════════════════════════════════════
     // DOWNLOAD — single file streamed
@@ -184,8 +204,64 @@ public class DocumentService {
             }
         }
 
-        Resource resource = storageService.load(doc.getFilePath());
-        return new DocumentDownload(doc.getFileName(), doc.getMimeType(), resource);
+        // Existence is checked when serving — a presigned redirect needs no lookup
+        return new DocumentDownload(doc.getFileName(), doc.getMimeType(),
+                doc.getFilePath(), doc.getContentHash());
+    }
+
+    /**
+     * Page-1 / downscaled JPEG thumbnail, same access rules as {@link #download}.
+     * If it has not been generated yet it is queued and a 404 is returned;
+     * clients show a file-type icon until it exists.
+     */
+    @Transactional(readOnly = true)
+    public DocumentDownload preview(Long documentId,
+                                    Long requesterId,
+                                    boolean isAdmin) throws IOException {
+        DocumentDownload original = download(documentId, requesterId, isAdmin);
+        if (!PreviewService.isPreviewable(original.mimeType())) {
+            throw new ResourceNotFoundException("No preview for document " + documentId);
+        }
+
+        String thumb = PreviewService.thumbnailKey(original.key());
+        if (!storageService.exists(thumb)) {
+            previewService.scheduleThumbnail(original.key(), original.mimeType(), false);
+            throw new ResourceNotFoundException("Preview for document " + documentId + " is not ready yet");
+        }
+        return new DocumentDownload(
+                original.originalName() + ".jpg",
+                "image/jpeg",
+                thumb,
+                original.contentHash() != null ? original.contentHash() + "-thumb" : null);
+    }
+
+    // ══════════════════════════════════════════════════════════
+    // ADMIN — Full-text search (Lucene index, ranked + facets)
+    // ══════════════════════════════════════════════════════════
+
+    /**
+     * Ranks by relevance in the index, then loads that page from the DB in
+     * one query. Hits whose row no longer exists are skipped.
+     */
+    @Transactional(readOnly = true)
+    public SearchResult search(String text, DocumentFilterRequest filter, int page, int size) throws IOException {
+        DocumentSearchService.SearchHits hits = searchService.search(text, filter, page, size);
+
+        List<Long> ids = hits.hits().stream().map(DocumentSearchService.Hit::documentId).toList();
+        Map<Long, LeaveDocument> byId = documentRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(LeaveDocument::getId, Function.identity()));
+
+        List<LeaveDocumentDTO> content = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(doc -> leaveDocumentMapper.toDTO(doc, ADMIN_DOCUMENTS_URL))
+                .toList();
+        return new SearchResult(content, hits.total(), page, size, hits.facets(), hits.tookMs());
+    }
+
+    /** Reindexes every document in the background; {@code false} if one is already running. */
+    public boolean rebuildSearchIndex() {
+        return searchService.rebuild();
     }
 
     // ══════════════════════════════════════════════════════════
@@ -205,6 +281,7 @@ public class DocumentService {
         doc.setReviewedAt(LocalDateTime.now());
 
         LeaveDocument saved = documentRepository.save(doc);
+        searchService.index(saved);
         log.info("Document {} reviewed — status: {}, by: {}", documentId, newStatus, reviewerId);
         return saved;
     }
@@ -217,122 +294,42 @@ public class DocumentService {
         LeaveDocument doc = getDocumentById(documentId);
         doc.setStatus(DocumentStatus.ARCHIVED);
         documentRepository.save(doc);
+        searchService.index(doc);
         log.info("Document {} archived.", documentId);
     }
 
     // ══════════════════════════════════════════════════════════
-    // EXPORT — Stream ZIP (no full in-memory load)
+    // ADMIN — Delete a document (row + one blob reference)
     // ══════════════════════════════════════════════════════════
 
-    /**
-     * Streams a ZIP of all matching documents.
-     *
-     * ZIP internal structure:
-     *   {lastName}_{firstName}/{yyyy-MM}/{TYPE}_{filename}
-     *   e.g. Doe_John/2026-05/ACCEPTATION_LETTER_42_acceptation_letter.pdf
-     */
-    public void streamZip(DocumentFilterRequest filter, OutputStream out) throws IOException {
-        List<LeaveDocument> docs = documentRepository.findAll(Spec.build(filter));
-
-        try (ZipOutputStream zip = new ZipOutputStream(out)) {
-            for (LeaveDocument doc : docs) {
-                try {
-                    Resource file = storageService.load(doc.getFilePath());
-                    zip.putNextEntry(new ZipEntry(buildZipEntryName(doc)));
-                    StreamUtils.copy(file.getInputStream(), zip);
-                    zip.closeEntry();
-                } catch (IOException e) {
-                    // Log missing file but continue — don't abort the whole ZIP
-                    log.warn("File not found for document {}: {}", doc.getId(), doc.getFilePath());
-                    zip.putNextEntry(new ZipEntry("MISSING_doc_" + doc.getId() + ".txt"));
-                    zip.write(("File missing: " + doc.getFilePath()).getBytes());
-                    zip.closeEntry();
-                }
-            }
+    public void deleteDocument(Long documentId) throws IOException {
+        LeaveDocument doc = getDocumentById(documentId);
+        documentRepository.delete(doc);
+        searchService.remove(documentId);
+
+        if (doc.getContentHash() != null) {
+            storageService.release(doc.getContentHash());   // file swept once unreferenced
+        } else {
+            storageService.delete(doc.getFilePath());       // legacy per-user path
         }
+        log.info("Document {} deleted.", documentId);
     }
 
-    // ══════════════════════════════════════════════════════════
-    // EXPORT — Excel metadata report (Apache POI)
-    // ══════════════════════════════════════════════════════════
-
-    public byte[] exportExcel(DocumentFilterRequest filter) throws IOException {
-        List<LeaveDocument> docs = documentRepository.findAll(Spec.build(filter));
-
-        try (Workbook wb = new XSSFWorkbook()) {
-            Sheet sheet = wb.createSheet("Documents Congés");
-
-            // Header
-            CellStyle headerStyle = buildHeaderStyle(wb);
-            String[] headers = {
-                    "ID", "Employé", "Type doc", "Catégorie", "Statut",
-                    "Fichier", "Taille (KB)", "Date upload",
-                    "Congé début", "Congé fin",
-                    "Revu par", "Date révision", "Notes admin"
-            };
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // Rows — uses your User.firstName / User.lastName / LeaveRequest.startDate
-            int rowNum = 1;
-            for (LeaveDocument doc : docs) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(doc.getId());
-                row.createCell(1).setCellValue(
-                        doc.getUser().getFirstName() + " " + doc.getUser().getLastName());
-                row.createCell(2).setCellValue(doc.getDocumentType().name());
-                row.createCell(3).setCellValue(doc.getDocumentCategory().name());
-                row.createCell(4).setCellValue(doc.getStatus().name());
-                row.createCell(5).setCellValue(doc.getFileName());
-                row.createCell(6).setCellValue(doc.getFileSize() != null
-                        ? Math.round(doc.getFileSize() / 1024.0 * 10) / 10.0 : 0);
-                row.createCell(7).setCellValue(doc.getUploadedAt() != null
-                        ? doc.getUploadedAt().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) : "");
-                row.createCell(8).setCellValue(
-                        doc.getLeaveRequest().getStartDate().toString());
-                row.createCell(9).setCellValue(
-                        doc.getLeaveRequest().getEndDate().toString());
-                row.createCell(10).setCellValue(doc.getReviewedBy() != null
-                        ? doc.getReviewedBy().getFirstName() + " " + doc.getReviewedBy().getLastName() : "—");
-                row.createCell(11).setCellValue(doc.getReviewedAt() != null
-                        ? doc.getReviewedAt().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) : "—");
-                row.createCell(12).setCellValue(
-                        doc.getAdminNotes() != null ? doc.getAdminNotes() : "");
-            }
-
-            for (int i = 0; i < headers.length; i++) sheet.autoSizeColumn(i);
-
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            wb.write(bos);
-            return bos.toByteArray();
-        }
+    @Transactional(readOnly = true)
+    public LeaveFileStorageService.StorageStats storageStats() {
+        return storageService.stats();
     }
 
     // ──────────────────────────────────────────────────────────
     // Private helpers
     // ──────────────────────────────────────────────────────────
 
-    private String buildZipEntryName(LeaveDocument doc) {
-        // Uses your User.lastName / User.firstName
-        String folder = doc.getUser().getLastName() + "_" + doc.getUser().getFirstName();
-        String month  = doc.getUploadedAt() != null
-                ? doc.getUploadedAt().format(DateTimeFormatter.ofPattern("yyyy-MM"))
-                : "unknown";
-        return folder + "/" + month + "/" + doc.getDocumentType() + "_" + doc.getFileName();
-    }
-
-    private CellStyle buildHeaderStyle(Workbook wb) {
-        CellStyle style = wb.createCellStyle();
-        Font font = wb.createFont();
-        font.setBold(true);
-        style.setFont(font);
-        style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        return style;
+    /** Legacy paths are overwritten in place, so their thumbnail must be rebuilt. */
+    private void schedulePreview(LeaveFileStorageService.StorageResult stored) {
+        previewService.scheduleThumbnail(
+                stored.filePath(),
+                stored.mimeType(),
+                stored.contentHash() == null);
     }
 
     private LeaveDocument getDocumentById(Long id) {
@@ -354,13 +351,23 @@ public class DocumentService {
     }
 
     // ─── Records ──────────────────────────────────────────────
-    public record DocumentDownload(String originalName, String mimeType, Resource resource) {}
+    public record DocumentDownload(String originalName,
+                                   String mimeType,
+                                   String key,          // blob store key
+                                   String contentHash) {}   // null for legacy per-user paths
+
+    public record SearchResult(List<LeaveDocumentDTO> content,
+                               long totalElements,
+                               int page,
+                               int size,
+                               Map<String, Map<String, Long>> facets,   // dim → value → count
+                               long tookMs) {}
 
     // ══════════════════════════════════════════════════════════
-    // PRIVATE — Query specifications (only this service needs them)
+    // Query specifications (shared with DocumentExportService)
     // ══════════════════════════════════════════════════════════
 
-    private static class Spec {
+    static class Spec {
 
         static Specification<LeaveDocument> build(DocumentFilterRequest f) {
             return Specification
@@ -0,0 +1,254 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.exception.ResourceNotFoundException;
+import com.example.pfe.storage.BlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Writes a stored file to the HTTP response with conditional and partial
+ * request support:
+ *
+ *   ETag           strong {@code "<sha256>"} for content-addressed blobs,
+ *                  weak {@code W/"<size>-<mtime>"} for legacy per-user paths
+ *   304            If-None-Match, or If-Modified-Since when no ETag was sent
+ *   206 / 416      single {@code Range: bytes=a-b}, honouring If-Range;
+ *                  multi-range requests get the full body (allowed by RFC 9110)
+ *   Cache-Control  private; blobs are immutable so they get a max-age,
+ *                  legacy files must be revalidated on each use
+ *
+ * For a local {@link BlobStore} the body is handed to Tomcat's sendfile when
+ * the connector supports it (kernel-to-socket, nothing copied through the
+ * JVM); otherwise it is written with {@link FileChannel#transferTo}. For a
+ * store that can presign URLs (S3) the client is redirected to the bucket
+ * and the bytes never touch the app tier; the 304 check still runs first
+ * for content-addressed files since their ETag is known without a lookup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileDeliveryService {
+
+    // Tomcat NIO/NIO2 connector sendfile contract (see org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME  = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START     = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END       = "org.apache.tomcat.sendfile.end";
+
+    @Value("${app.documents.download.max-age:PT24H}")
+    private Duration maxAge;
+
+    @Value("${app.documents.download.sendfile-min-bytes:49152}")
+    private long sendfileMinBytes;
+
+    @Value("${app.documents.download.presign-ttl:PT5M}")
+    private Duration presignTtl;
+
+    private final BlobStore blobStore;
+
+    /**
+     * @param key         blob store key of the file
+     * @param contentHash SHA-256 of the file if it is content-addressed, else {@code null}
+     * @param inline      {@code true} to let the browser display it (PDF viewer), else attachment
+     */
+    public void serve(String key,
+                      String fileName,
+                      String mimeType,
+                      String contentHash,
+                      boolean inline,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+
+        Optional<Path> local = blobStore.localFile(key);
+        if (local.isEmpty()) {
+            if (contentHash != null && notModified(request, "\"" + contentHash + "\"", -1)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            Optional<URI> presigned = blobStore.presignedGet(key, fileName, mimeType, inline, presignTtl);
+            if (presigned.isPresent()) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store");
+                response.sendRedirect(presigned.get().toString());
+                return;
+            }
+        }
+
+        BlobStore.BlobInfo info = blobStore.stat(key)
+                .orElseThrow(() -> new ResourceNotFoundException("File not found: " + fileName));
+        long length       = info.size();
+        long lastModified = info.lastModifiedMillis() / 1000 * 1000; // HTTP dates have 1 s precision
+        String etag = contentHash != null
+                ? "\"" + contentHash + "\""
+                : "W/\"" + length + "-" + lastModified + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, contentHash != null
+                ? "private, max-age=" + maxAge.toSeconds() + ", immutable"
+                : "private, no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(mimeType != null ? mimeType : "application/octet-stream");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                        .filename(fileName, StandardCharsets.UTF_8)
+                        .build()
+                        .toString());
+
+        long start = 0;
+        long end   = length - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end   = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (local.isEmpty()) {
+            // Remote store without presigning: proxy just the requested bytes
+            try (InputStream in = blobStore.open(key, start, count)) {
+                OutputStream out = response.getOutputStream();
+                in.transferTo(out);
+                out.flush();
+            }
+            return;
+        }
+
+        Path file = local.get();
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);   // exclusive
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = in.transferTo(position, remaining, target);
+                if (sent <= 0) break;   // file shrank underneath us
+                position  += sent;
+                remaining -= sent;
+            }
+            out.flush();
+        }
+    }
+
+    // ─── Conditional requests ─────────────────────────────────
+
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // Weak comparison, as required for If-None-Match
+            String opaque = stripWeak(etag);
+            return ifNoneMatch.trim().equals("*")
+                    || Arrays.stream(ifNoneMatch.split(","))
+                             .map(t -> stripWeak(t.trim()))
+                             .anyMatch(opaque::equals);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    /** If-Range needs a strong validator: our hash ETag or an exact Last-Modified date. */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date != -1 && date == lastModified;
+    }
+
+    private long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;   // unparseable date → ignore the header
+        }
+    }
+
+    private String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * @return {@code {start, end}} (inclusive) for a satisfiable single range,
+     *         an empty array to ignore the header and send everything,
+     *         or {@code null} if the range cannot be satisfied (416)
+     */
+    long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last  = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {                       // bytes=-500 → last 500 bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return null;
+                start = Math.max(0, length - suffix);
+                end   = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end   = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) return null;
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
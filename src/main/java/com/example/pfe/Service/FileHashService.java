@@ -1,20 +1,52 @@
 package com.example.pfe.Service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+import static java.nio.file.StandardOpenOption.*;
 
 @Service
 @Slf4j
 public class FileHashService {
 
+    private static final int COPY_BUFFER = 64 * 1024;
+
     // Calculer le hash SHA-256 d'un fichier
     public String calculateHash(InputStream inputStream) throws IOException {
         String hash = DigestUtils.sha256Hex(inputStream);
         log.info("File hash calculated: {}", hash);
         return hash;
     }
-}
\ No newline at end of file
+
+    // Copier un flux vers un fichier en calculant le SHA-256 et la taille au passage (une seule lecture).
+    // Un seul tampon de 64 Ko par copie : la mémoire ne dépend pas de la taille du fichier.
+    public HashedCopy copyWithHash(InputStream inputStream, Path target) throws IOException {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        byte[] buffer = new byte[COPY_BUFFER];
+        ByteBuffer chunk = ByteBuffer.wrap(buffer);
+        long size = 0;
+
+        try (InputStream in = inputStream;
+             FileChannel out = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+                chunk.clear().limit(n);
+                while (chunk.hasRemaining()) out.write(chunk);
+                size += n;
+            }
+        }
+        return new HashedCopy(Hex.encodeHexString(digest.digest()), size);
+    }
+
+    public record HashedCopy(String sha256, long size) {}
+}
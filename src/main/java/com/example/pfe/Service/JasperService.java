@@ -2,53 +2,37 @@ package com.example.pfe.Service;
 
 import com.example.pfe.entities.LeaveRequest;
 import com.example.pfe.entities.User;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.export.JRPdfExporter;
-import net.sf.jasperreports.export.SimpleExporterInput;
-import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
-import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
-import org.springframework.core.io.ClassPathResource;
+import net.sf.jasperreports.renderers.Renderable;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import java.time.temporal.ChronoUnit;
 
+/**
+ * Builds the parameters for the ArabSoft letters and hands the render to
+ * {@link ReportRenderEngine}. Templates and static images come from
+ * {@link ReportAssetCache} — nothing is read from the classpath per render.
+ */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class JasperService {
 
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd / MM / yyyy");
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm");
 
-    // ✅ Compiled ONCE at startup
-    private JasperReport compiledReport;
-    private JasperReport exitAuthorizationReport;
-
-    // ─── Update your @PostConstruct init() to compile BOTH reports ───
-    @PostConstruct
-    public void init() throws Exception {
-        log.info("Compiling Jasper templates...");
-
-        try (InputStream demande = new ClassPathResource("reports/demande_conge.jrxml").getInputStream()) {
-            this.compiledReport = JasperCompileManager.compileReport(demande);
-        }
-        try (InputStream sortie = new ClassPathResource("reports/autorisation_sortie.jrxml").getInputStream()) {
-            this.exitAuthorizationReport = JasperCompileManager.compileReport(sortie);
-        }
-
-        log.info("✅ Both Jasper templates compiled successfully.");
-    }
+    private final ReportAssetCache   assets;
+    private final ReportRenderEngine renderEngine;
 
     /**
      * Generate the ArabSoft "Autorisation de Sortie" PDF.
@@ -60,6 +44,30 @@ public class JasperService {
     public byte[] generateAutorisationSortie(LeaveRequest leave,
                                              String signatureBase64,
                                              int monthlyCount) throws Exception {
+        return renderEngine.await(ReportAssetCache.AUTORISATION_SORTIE,
+                submitAutorisationSortie(leave, signatureBase64, monthlyCount));
+    }
+
+    public byte[] generateDemandeConge(LeaveRequest leave,
+                                       String signatureBase64,
+                                       String leaveBalanceText) throws Exception {
+        return renderEngine.await(ReportAssetCache.DEMANDE_CONGE,
+                submitDemandeConge(leave, signatureBase64, leaveBalanceText));
+    }
+
+    /** Waits for a letter queued with one of the submit* methods. */
+    public byte[] awaitLetter(String reportName, Future<byte[]> pdf) throws Exception {
+        return renderEngine.await(reportName, pdf);
+    }
+
+    /**
+     * Queues the "Autorisation de Sortie" render and returns without waiting.
+     * Parameters are built on the caller's thread, so lazy {@code leave.user}
+     * must be loadable here — the render thread never touches the entity.
+     */
+    public Future<byte[]> submitAutorisationSortie(LeaveRequest leave,
+                                                   String signatureBase64,
+                                                   int monthlyCount) {
 
         User user = leave.getUser();
         Map<String, Object> params = new HashMap<>();
@@ -79,8 +87,8 @@ public class JasperService {
         params.put("MONTHLY_COUNT", String.valueOf(monthlyCount));
 
         // ─── Images ───
-        loadImage(params, "COMPANY_LOGO", "static/images/arabsoft_logo.png");
-        loadImage(params, "CERT_LOGO",    "static/images/tuv_cert.png");
+        putImage(params, "COMPANY_LOGO", ReportAssetCache.COMPANY_LOGO);
+        putImage(params, "CERT_LOGO",    ReportAssetCache.CERT_LOGO);
 
         // ─── Signature ───
         if (signatureBase64 != null && !signatureBase64.isBlank()) {
@@ -91,9 +99,8 @@ public class JasperService {
             params.put("DG_SIGNATURE", new ByteArrayInputStream(sig));
         }
 
-        JasperPrint print = JasperFillManager.fillReport(
-                exitAuthorizationReport, params, new JREmptyDataSource());
-        return exportToPdf(print);
+        return renderEngine.submit(ReportAssetCache.AUTORISATION_SORTIE,
+                assets.report(ReportAssetCache.AUTORISATION_SORTIE), params);
     }
     /** Returns a human label like "1h 15min" from two LocalTime values. */
     private String computeDurationLabel(LocalTime from, LocalTime to) {
@@ -106,9 +113,10 @@ public class JasperService {
         if (m == 0) return h + "h";
         return h + "h " + m + "min";
     }
-    public byte[] generateDemandeConge(LeaveRequest leave,
-                                       String signatureBase64,
-                                       String leaveBalanceText) throws Exception {
+    /** Queues the "Demande de Congé" render and returns without waiting. */
+    public Future<byte[]> submitDemandeConge(LeaveRequest leave,
+                                             String signatureBase64,
+                                             String leaveBalanceText) {
 
         User user = leave.getUser();
         String typeName = leave.getLeaveType() != null ? leave.getLeaveType().name() : "";
@@ -158,8 +166,8 @@ public class JasperService {
         params.put("REC_DATE_3", ""); params.put("REC_DATE_4", "");
 
         // ─── Images (logo + TÜV cert) ───
-        loadImage(params, "COMPANY_LOGO", "static/images/arabsoft_logo.png");
-        loadImage(params, "CERT_LOGO",    "static/images/tuv_cert.png");
+        putImage(params, "COMPANY_LOGO", ReportAssetCache.COMPANY_LOGO);
+        putImage(params, "CERT_LOGO",    ReportAssetCache.CERT_LOGO);
 
         // ─── DG signature ───
         if (signatureBase64 != null && !signatureBase64.isBlank()) {
@@ -170,32 +178,16 @@ public class JasperService {
             params.put("DG_SIGNATURE", new ByteArrayInputStream(sig));
         }
 
-        JasperPrint print = JasperFillManager.fillReport(
-                compiledReport, params, new JREmptyDataSource());
-        return exportToPdf(print);
+        return renderEngine.submit(ReportAssetCache.DEMANDE_CONGE,
+                assets.report(ReportAssetCache.DEMANDE_CONGE), params);
     }
 
     // ─── Helpers ──────────────────────────────────────────────
 
-    private void loadImage(Map<String, Object> params, String paramName, String path) {
-        try {
-            params.put(paramName, new ClassPathResource(path).getInputStream());
-        } catch (Exception e) {
-            log.warn("Image not found at {} — skipping.", path);
-        }
+    private void putImage(Map<String, Object> params, String paramName, String path) {
+        Renderable image = assets.image(path);
+        if (image != null) params.put(paramName, image);
     }
 
     private String nz(String s) { return s == null ? "" : s; }
-
-    private byte[] exportToPdf(JasperPrint jasperPrint) throws JRException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        JRPdfExporter exporter = new JRPdfExporter();
-        exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
-        SimplePdfExporterConfiguration config = new SimplePdfExporterConfiguration();
-        config.setCompressed(true);
-        exporter.setConfiguration(config);
-        exporter.exportReport();
-        return out.toByteArray();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.example.pfe.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Bounded LRU of verified tokens, so a client sending the same access token
+ * on every request pays for HMAC verification and JSON decoding once.
+ *
+ * Keys are SHA-256 hashes of the token — raw bearer tokens are never kept.
+ * Entries are dropped when the token expires (with the same clock skew as
+ * {@link JwtService}); a token that fails verification is not cached.
+ * Revocation is not this class's concern: JwtAuthenticationFilter checks the
+ * blacklist before asking the cache.
+ *
+ * Metrics: {@code jwt.cache.requests{result=hit|miss}}, {@code jwt.cache.size}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JwtClaimsCache {
+
+    private final JwtService    jwtService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.cache.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    private MeteredLruCache<String, JwtService.VerifiedToken> entries;
+
+    @PostConstruct
+    public void init() {
+        entries = new MeteredLruCache<>(maxEntries, meterRegistry, "jwt.cache.requests", "jwt.cache.size");
+    }
+
+    /** Verified claims of {@code token}, from the cache when possible. */
+    public Optional<JwtService.VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+
+        String key = TokenDigests.sha256(token);
+        long skew = jwtService.getClockSkewSeconds();
+        JwtService.VerifiedToken cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+            if (cached != null && cached.isExpired(skew)) {
+                entries.remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            entries.hit();
+            return Optional.of(cached);
+        }
+
+        entries.miss();
+        Optional<JwtService.VerifiedToken> verified = jwtService.verify(token);
+        verified.ifPresent(v -> entries.put(key, v));
+        return verified;
+    }
+
+    /** Drops one token, e.g. on logout. */
+    public void evict(String token) {
+        entries.remove(TokenDigests.sha256(token));
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Instant;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -209,6 +210,59 @@ public class JwtService {
             return false;
         }
     }
+    // --- Single-parse verification (JwtAuthenticationFilter) ---
+
+    /**
+     * Checks signature and expiry once and returns everything the filter
+     * needs, so the request path never parses the same token twice.
+     * See {@link JwtClaimsCache} for the cached variant.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        try {
+            Claims claims = parseClaims(token);
+            Object type = claims.get("type");
+            Date exp = claims.getExpiration();
+            return Optional.of(new VerifiedToken(
+                    claims.getSubject(),
+                    type != null ? type.toString() : null,
+                    exp != null ? exp.toInstant() : null));
+        } catch (JwtException e) {
+            log.debug("verify: invalid token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** Same checks as {@link #isTokenValid(String, UserDetails)} on an already verified token. */
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        if (token.subject() == null || !token.subject().equals(userDetails.getUsername())) {
+            log.debug("isTokenValid(user): token subject '{}' does not match user '{}'",
+                    token.subject(), userDetails.getUsername());
+            return false;
+        }
+        if (token.isExpired(clockSkewSeconds)) {
+            log.debug("isTokenValid(user): token expired at {}", token.expiresAt());
+            return false;
+        }
+        return token.type() == null || token.isAccess() || "ACCOUNT_ACTIVATION".equals(token.type());
+    }
+
+    long getClockSkewSeconds() {
+        return clockSkewSeconds;
+    }
+
+    /** Claims of a token whose signature has been checked. */
+    public record VerifiedToken(String subject, String type, Instant expiresAt) {
+
+        public boolean isAccess() {
+            return type != null && "access".equalsIgnoreCase(type);
+        }
+
+        public boolean isExpired(long clockSkewSeconds) {
+            return expiresAt != null && expiresAt.plusSeconds(clockSkewSeconds).isBefore(Instant.now());
+        }
+    }
+
     private Claims parseClaims(String token) {
         return Jwts.parserBuilder()
                 .setAllowedClockSkewSeconds(clockSkewSeconds)
@@ -0,0 +1,188 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.LeaveBalanceRepository;
+import com.example.pfe.Repository.LeaveRolloverCheckpointRepository;
+import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.config.LeaveBalancePolicy;
+import com.example.pfe.entities.LeaveRolloverCheckpoint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Year-end leave balance rollover.
+ *
+ * Creates next year's {@code leave_balance} rows for every active user ahead
+ * of time, applying carry-over and seniority accrual from {@link LeaveBalancePolicy}.
+ * Users are walked by id in chunks; each chunk is one JDBC batch insert plus a
+ * checkpoint update in a single transaction, so a restarted run picks up where
+ * the last one stopped.
+ *
+ * LeaveService may already have created next year's row lazily (e.g. a
+ * December request for January leave), with the entitlement but no carry-over.
+ * The insert is an upsert that adds the carry-over to such a row; the
+ * {@code rolled_over} flag makes sure it is added only once, so the job stays
+ * idempotent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeaveBalanceRolloverService {
+
+    static final String RUNNING   = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED    = "FAILED";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO leave_balance " +
+            "(user_id, year, annual_total, annual_taken, sick_total, sick_taken, unpaid_total, unpaid_taken, " +
+            "carried_over, rolled_over) " +
+            "VALUES (?, ?, ?, 0, ?, 0, ?, 0, ?, TRUE) " +
+            "ON DUPLICATE KEY UPDATE " +
+            // rolled_over is assigned last, so both CASEs see the value before this statement
+            "annual_total = CASE WHEN rolled_over THEN annual_total ELSE annual_total + VALUES(carried_over) END, " +
+            "carried_over = CASE WHEN rolled_over THEN carried_over ELSE VALUES(carried_over) END, " +
+            "rolled_over = TRUE";
+
+    private final UserRepository                    userRepository;
+    private final LeaveBalanceRepository            leaveBalanceRepository;
+    private final LeaveRolloverCheckpointRepository checkpointRepository;
+    private final LeaveBalancePolicy                policy;
+    private final JdbcTemplate                      jdbcTemplate;
+    private final TransactionTemplate               transactionTemplate;
+
+    @Value("${leave.balance.rollover.chunk-size:500}")
+    private int chunkSize = 500;
+
+    /**
+     * Fires shortly after midnight on January 1st by default, once the
+     * previous year is closed — leaves approved late on December 31st are
+     * part of the carry-over.
+     */
+    @Scheduled(cron = "${leave.balance.rollover.cron:0 30 0 1 1 *}")
+    public void scheduledRollover() {
+        int targetYear = LocalDate.now().getYear();
+        log.info("⏰ Leave balance rollover triggered for {}", targetYear);
+        try {
+            rollover(targetYear);
+        } catch (Exception e) {
+            log.error("Leave balance rollover for {} failed", targetYear, e);
+        }
+    }
+
+    /**
+     * Creates {@code targetYear} balances for all active users.
+     * Resumes from the stored checkpoint; a completed year is a no-op.
+     */
+    public LeaveRolloverCheckpoint rollover(int targetYear) {
+        LeaveRolloverCheckpoint checkpoint = checkpointRepository.findByTargetYear(targetYear)
+                .orElseGet(() -> LeaveRolloverCheckpoint.builder()
+                        .targetYear(targetYear)
+                        .status(RUNNING)
+                        .build());
+
+        if (COMPLETED.equals(checkpoint.getStatus())) {
+            log.info("Leave balance rollover for {} already completed — skipping", targetYear);
+            return checkpoint;
+        }
+
+        if (checkpoint.getStartedAt() == null) {
+            checkpoint.setStartedAt(LocalDateTime.now());
+        } else {
+            log.info("Resuming leave balance rollover for {} after user {}",
+                    targetYear, checkpoint.getLastUserId());
+        }
+        checkpoint.setStatus(RUNNING);
+        checkpoint.setMessage(null);
+        checkpoint = checkpointRepository.save(checkpoint);
+
+        try {
+            List<UserRepository.ActiveUserRow> chunk;
+            while (!(chunk = userRepository.findActiveUsersAfter(
+                    checkpoint.getLastUserId(), PageRequest.of(0, chunkSize))).isEmpty()) {
+
+                LeaveRolloverCheckpoint current = checkpoint;
+                List<UserRepository.ActiveUserRow> users = chunk;
+                checkpoint = transactionTemplate.execute(status -> writeChunk(current, users));
+            }
+        } catch (RuntimeException e) {
+            checkpoint.setStatus(FAILED);
+            checkpoint.setMessage(e.getMessage());
+            checkpointRepository.save(checkpoint);
+            throw e;
+        }
+
+        checkpoint.setStatus(COMPLETED);
+        checkpoint.setFinishedAt(LocalDateTime.now());
+        checkpoint = checkpointRepository.save(checkpoint);
+
+        log.info("Leave balance rollover for {} done — {} users, {} balances created, {} existing balances carried over",
+                targetYear, checkpoint.getProcessedUsers(), checkpoint.getCreatedBalances(),
+                checkpoint.getUpdatedBalances());
+        return checkpoint;
+    }
+
+    // ── Private helpers ────────────────────────────────────────────────────────
+
+    private LeaveRolloverCheckpoint writeChunk(LeaveRolloverCheckpoint checkpoint,
+                                               List<UserRepository.ActiveUserRow> users) {
+        int targetYear = checkpoint.getTargetYear();
+        List<Long> userIds = users.stream()
+                .map(UserRepository.ActiveUserRow::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, Double> previousRemaining = leaveBalanceRepository
+                .findAnnualRemaining(targetYear - 1, userIds)
+                .stream()
+                .filter(r -> r.getAnnualRemaining() != null)
+                .collect(Collectors.toMap(
+                        LeaveBalanceRepository.AnnualRemaining::getUserId,
+                        LeaveBalanceRepository.AnnualRemaining::getAnnualRemaining));
+
+        List<Object[]> rows = new ArrayList<>(users.size());
+        for (UserRepository.ActiveUserRow user : users) {
+            double carryOver   = policy.carryOver(previousRemaining.get(user.getId()));
+            double annualTotal = policy.annualEntitlement(user.getHireDate(), targetYear) + carryOver;
+
+            rows.add(new Object[] {
+                    user.getId(), targetYear, annualTotal, policy.getSickDays(), policy.getUnpaidDays(), carryOver
+            });
+        }
+
+        // Counted from the rows already there: with rewriteBatchedStatements the
+        // driver reports SUCCESS_NO_INFO for every row of the batch
+        Map<Long, Boolean> existing = leaveBalanceRepository.findRolloverState(targetYear, userIds).stream()
+                .collect(Collectors.toMap(
+                        LeaveBalanceRepository.RolloverState::getUserId,
+                        s -> Boolean.TRUE.equals(s.getRolledOver())));
+        int created = users.size() - existing.size();
+        int updated = (int) existing.values().stream().filter(rolledOver -> !rolledOver).count();
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        checkpoint.setLastUserId(users.get(users.size() - 1).getId());
+        checkpoint.setProcessedUsers(checkpoint.getProcessedUsers() + users.size());
+        checkpoint.setCreatedBalances(checkpoint.getCreatedBalances() + created);
+        checkpoint.setUpdatedBalances(checkpoint.getUpdatedBalances() + updated);
+        if (updated > 0) {
+            log.info("Rollover {}: carry-over added to {} balance(s) created before the rollover",
+                    targetYear, updated);
+        }
+
+        log.debug("Rollover {}: chunk up to user {} — {} rows inserted, {} updated",
+                targetYear, checkpoint.getLastUserId(), created, updated);
+        return checkpointRepository.save(checkpoint);
+    }
+}
@@ -1,38 +1,89 @@
 package com.example.pfe.Service;
 
+import com.example.pfe.Repository.StoredBlobRepository;
 import com.example.pfe.entities.LeaveDocument.DocumentType;
+import com.example.pfe.entities.StoredBlob;
+import com.example.pfe.storage.BlobStore;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileNotFoundException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Handles all file I/O for leave documents.
  *
- * Directory structure produced:
+ * Files are written through the {@link BlobStore} (local directory or S3
+ * bucket, see app.storage.backend). Uploads are first spooled to
+ * {app.upload.dir}/.spool on this node — that is where the hash is computed —
+ * and then handed to the store.
+ *
+ * Key layout produced:
  *   uploads/leaves/{userId}/authorizations/  ← acceptance letters (generated)
  *   uploads/leaves/{userId}/justifications/  ← medical certs, proofs (uploaded)
  *
  * Base path is read from app.upload.dir (same property your LeaveService uses).
  * We append /leaves/ to keep leave-documents separate from any other uploads.
+ *
+ * With app.upload.dedup.enabled=true (default) files are instead stored once
+ * per distinct content, named after their SHA-256:
+ *   uploads/blobs/{h[0..2]}/{h[2..4]}/{sha256}
+ * The hash is computed while the upload streams to a temp file, identical
+ * content is kept only once, and stored_blobs.ref_count tracks how many
+ * documents point at each blob. Old per-user paths keep working for reads.
+ *
+ * The stored_blobs row lock orders uploads against the orphan sweep: an
+ * upload takes the reference first and only then checks / writes the file,
+ * and the sweep deletes a file while holding the lock of the row it just
+ * deleted. Whichever comes second sees the other's committed result.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class LeaveFileStorageService {
 
+    private static final String BLOB_ROOT = "blobs";
+    private static final String SPOOL_DIR = ".spool";
+
+    private final FileHashService      fileHashService;
+    private final StoredBlobRepository blobRepository;
+    private final BlobStore            blobStore;
+    private final TransactionTemplate  transactionTemplate;
+
     @Value("${app.upload.dir:uploads/leave-documents}")
     private String uploadDir;
 
+    @Value("${app.upload.dedup.enabled:true}")
+    private boolean dedupEnabled;
+
+    @Value("${app.upload.dedup.orphan-grace-hours:24}")
+    private long orphanGraceHours;
+
     private static final Set<String> ALLOWED_EXTENSIONS =
             Set.of("pdf", "jpg", "jpeg", "png", "docx", "xlsx");
 
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     // ─── Store an UPLOADED file (employee / admin) ────────────────────────────
 
     /**
@@ -51,13 +102,20 @@ public class LeaveFileStorageService {
 
         String subDir   = resolveSubDir(type);
         String fileName = leaveRequestId + "_" + type.name().toLowerCase() + "." + extension;
-        String relative = "leaves/" + userId + "/" + subDir + "/" + fileName;
 
-        write(file.getBytes(), relative);
+        // Streams from the container's spill file — never file.getBytes()
+        try (InputStream in = file.getInputStream()) {
+            if (dedupEnabled) {
+                return storeBlob(in, fileName, file.getContentType());
+            }
 
-        log.info("Uploaded document saved: {}", relative);
-        return new StorageResult(fileName, relative,
-                file.getContentType(), file.getSize());
+            String relative = "leaves/" + userId + "/" + subDir + "/" + fileName;
+            FileHashService.HashedCopy copy = writeAtomically(in, relative, file.getContentType());
+
+            log.info("Uploaded document saved: {}", relative);
+            return new StorageResult(fileName, relative,
+                    file.getContentType(), copy.size(), null);
+        }
     }
 
     // ─── Store a GENERATED file (system-produced acceptance letter / justif) ──
@@ -72,48 +130,185 @@ public class LeaveFileStorageService {
                                         Long userId,
                                         Long leaveRequestId,
                                         DocumentType type) throws IOException {
+        return storeGenerated(new ByteArrayInputStream(pdfContent), userId, leaveRequestId, type);
+    }
+
+    /** Streaming variant — used when the generated PDF arrives as a multipart upload. */
+    public StorageResult storeGenerated(InputStream pdfContent,
+                                        Long userId,
+                                        Long leaveRequestId,
+                                        DocumentType type) throws IOException {
 
         String subDir   = resolveSubDir(type);
         String fileName = leaveRequestId + "_" + type.name().toLowerCase() + ".pdf";
-        String relative = "leaves/" + userId + "/" + subDir + "/" + fileName;
 
-        write(pdfContent, relative);
+        if (dedupEnabled) {
+            return storeBlob(pdfContent, fileName, "application/pdf");
+        }
+
+        String relative = "leaves/" + userId + "/" + subDir + "/" + fileName;
+        FileHashService.HashedCopy copy = writeAtomically(pdfContent, relative, "application/pdf");
 
         log.info("Generated document saved: {}", relative);
         return new StorageResult(fileName, relative,
-                "application/pdf", (long) pdfContent.length);
+                "application/pdf", copy.size(), null);
+    }
+
+    // ─── Content-addressed blobs ─────────────────────────────────────────────
+
+    /**
+     * Streams {@code in} to a spool file while hashing it, then adds one
+     * reference and stores the file at its content address — or drops it if
+     * that blob already exists. Must run inside the caller's transaction so the
+     * reference is rolled back together with the document row; a file written
+     * by a rolled-back upload is removed again unless someone else uses it.
+     */
+    private StorageResult storeBlob(InputStream in, String fileName, String mimeType) throws IOException {
+        Path tmp = spoolFile();
+
+        try {
+            FileHashService.HashedCopy copy = fileHashService.copyWithHash(in, tmp);
+            String relative = blobPath(copy.sha256());
+
+            // Reference first: the row stays locked until our commit, so the sweep
+            // can't delete the file between the exists() check and the commit
+            blobRepository.acquire(copy.sha256(), relative, copy.size());
+
+            boolean duplicate = blobStore.exists(relative);
+            if (!duplicate) {
+                // A concurrent identical upload just replaces equal bytes
+                blobStore.put(relative, tmp, mimeType);
+                discardOnRollback(copy.sha256(), relative);
+            }
+
+            log.info("Blob {} stored — {} bytes, duplicate: {}", copy.sha256(), copy.size(), duplicate);
+            return new StorageResult(fileName, relative, mimeType, copy.size(), copy.sha256());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
     }
 
-    // ─── Load (for download / streaming) ─────────────────────────────────────
+    /** Drops one reference; the file itself is removed by {@link #sweepOrphans()}. */
+    public void release(String contentHash) {
+        int updated = blobRepository.release(contentHash, LocalDateTime.now());
+        if (updated == 0) {
+            log.warn("Release of unknown or unreferenced blob {}", contentHash);
+        }
+    }
 
-    public Resource load(String filePath) throws IOException {
-        Path path = Paths.get(uploadDir).resolve(filePath).normalize();
-        guardPathTraversal(path);
+    /**
+     * Deletes blobs that have had no references for longer than the grace
+     * period. Each blob is one short transaction: the row is deleted (and so
+     * locked) only if still unreferenced, the file is deleted under that lock,
+     * then the row deletion commits — an upload of the same content waits in
+     * {@code acquire} and then writes the file again. If the file can't be
+     * deleted, the row is kept and the next sweep retries.
+     */
+    @Scheduled(cron = "${app.upload.dedup.sweep-cron:0 30 3 * * *}")
+    public void sweepOrphans() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(orphanGraceHours);
+        List<StoredBlob> orphans = blobRepository.findOrphans(cutoff, PageRequest.of(0, 500));
 
-        Resource resource = new UrlResource(path.toUri());
-        if (!resource.exists()) {
-            throw new FileNotFoundException("File not found: " + filePath);
+        int removed = 0;
+        for (StoredBlob blob : orphans) {
+            Boolean deleted = requiresNew.execute(status -> {
+                if (blobRepository.deleteIfUnreferenced(blob.getId()) == 0) return false;
+                try {
+                    blobStore.delete(blob.getFilePath());
+                    blobStore.delete(PreviewService.thumbnailKey(blob.getFilePath()));
+                    return true;
+                } catch (IOException e) {
+                    log.warn("Could not delete orphan blob {}: {}", blob.getFilePath(), e.getMessage());
+                    status.setRollbackOnly();
+                    return false;
+                }
+            });
+            if (Boolean.TRUE.equals(deleted)) removed++;
         }
-        return resource;
+        if (removed > 0) log.info("Orphan blob sweep — {} blobs removed", removed);
+    }
+
+    /**
+     * A rolled-back upload leaves a file with no row, which the sweep would
+     * never find. Removes it after the rollback — under the row lock, and only
+     * if no other upload has registered the same content meanwhile.
+     */
+    private void discardOnRollback(String contentHash, String relative) {
+        TransactionCallbacks.afterRollback(() -> {
+            try {
+                requiresNew.executeWithoutResult(tx -> {
+                    if (blobRepository.lockRefCount(contentHash).isPresent()) return;
+                    try {
+                        blobStore.delete(relative);
+                        log.info("Blob {} of a rolled-back upload removed", contentHash);
+                    } catch (IOException e) {
+                        log.warn("Could not remove blob {} of a rolled-back upload: {}", relative, e.getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Could not check blob {} after rollback: {}", contentHash, e.getMessage());
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public StorageStats stats() {
+        StoredBlobRepository.BlobTotals t = blobRepository.totals();
+        long logical  = t.getLogicalBytes();
+        long physical = t.getPhysicalBytes();
+        return new StorageStats(
+                t.getBlobs(),
+                t.getTotalReferences(),
+                logical,
+                physical,
+                logical - physical,
+                physical == 0 ? 1.0 : (double) logical / physical);
+    }
+
+    // ─── Load (for export / previews) ────────────────────────────────────────
+
+    public InputStream open(String filePath) throws IOException {
+        return blobStore.open(filePath);
+    }
+
+    public boolean exists(String filePath) throws IOException {
+        return blobStore.exists(filePath);
     }
 
-    // ─── Delete from disk ─────────────────────────────────────────────────────
+    // ─── Delete ───────────────────────────────────────────────────────────────
 
     public void delete(String filePath) throws IOException {
-        Path path = Paths.get(uploadDir).resolve(filePath).normalize();
-        guardPathTraversal(path);
-        boolean deleted = Files.deleteIfExists(path);
-        log.info("File {} — deleted: {}", filePath, deleted);
+        blobStore.delete(filePath);
+        log.info("File {} deleted", filePath);
     }
 
     // ─── Private helpers ──────────────────────────────────────────────────────
 
-    private void write(byte[] content, String relative) throws IOException {
-        Path target = Paths.get(uploadDir).resolve(relative).normalize();
-        Files.createDirectories(target.getParent());
-        Files.write(target, content,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING);
+    private String blobPath(String sha256) {
+        return BLOB_ROOT + "/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    /**
+     * Streams into a spool file and hands it to the store, which replaces the
+     * target atomically — readers never see a half-written file.
+     */
+    private FileHashService.HashedCopy writeAtomically(InputStream in, String relative,
+                                                       String mimeType) throws IOException {
+        Path tmp = spoolFile();
+        try {
+            FileHashService.HashedCopy copy = fileHashService.copyWithHash(in, tmp);
+            blobStore.put(relative, tmp, mimeType);
+            return copy;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Same filesystem as the local store, so handing the file over is a rename. */
+    private Path spoolFile() throws IOException {
+        Path spool = Paths.get(uploadDir).resolve(SPOOL_DIR);
+        Files.createDirectories(spool);
+        return Files.createTempFile(spool, "upload-", ".part");
     }
 
     /**
@@ -140,19 +335,22 @@ public class LeaveFileStorageService {
         }
     }
 
-    private void guardPathTraversal(Path resolved) {
-        Path base = Paths.get(uploadDir).toAbsolutePath().normalize();
-        if (!resolved.toAbsolutePath().normalize().startsWith(base)) {
-            throw new SecurityException("Path traversal attempt blocked.");
-        }
-    }
-
     // ─── Result record ────────────────────────────────────────────────────────
 
     public record StorageResult(
             String fileName,
             String filePath,   // relative path stored in DB
             String mimeType,
-            Long   fileSize
+            Long   fileSize,
+            String contentHash // SHA-256 of the blob, null for legacy per-user paths
+    ) {}
+
+    public record StorageStats(
+            long   blobs,            // distinct files on disk
+            long   references,       // documents pointing at them
+            long   logicalBytes,     // what storage would cost without dedup
+            long   physicalBytes,    // what it actually costs
+            long   bytesSaved,
+            double dedupRatio        // logical / physical
     ) {}
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.example.pfe.Repository.LeaveBalanceRepository;
 import com.example.pfe.Repository.LeaveRequestRepository;
 import com.example.pfe.Repository.TeamAssignmentRepository;
 import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.config.LeaveBalancePolicy;
 import com.example.pfe.dto.*;
 import com.example.pfe.entities.LeaveBalance;
 import com.example.pfe.entities.LeaveDocument;
@@ -49,6 +50,7 @@ public class LeaveService {
     private final LeaveMapper              leaveMapper;
     private final NotificationService      notificationService;
     private final DocumentService documentService;
+    private final LeaveBalancePolicy       leaveBalancePolicy;
 
     @Value("${app.upload.dir:uploads/leave-documents}")
     private String uploadDir;
@@ -424,14 +426,15 @@ public class LeaveService {
         log.info("Balance updated for user {} — {} days deducted from {}", userId, days, type);
     }
 
+    // Fallback only — balances are normally pre-created by LeaveBalanceRolloverService
     private LeaveBalance createDefaultBalance(Long userId, int year) {
         User user = getUserById(userId);
         LeaveBalance balance = LeaveBalance.builder()
                 .user(user)
                 .year(year)
-                .annualTotal(22.0).annualTaken(0.0)
-                .sickTotal(15.0).sickTaken(0.0)
-                .unpaidTotal(0.0).unpaidTaken(0.0)
+                .annualTotal(leaveBalancePolicy.annualEntitlement(user.getHireDate(), year)).annualTaken(0.0)
+                .sickTotal(leaveBalancePolicy.getSickDays()).sickTaken(0.0)
+                .unpaidTotal(leaveBalancePolicy.getUnpaidDays()).unpaidTaken(0.0)
                 .build();
         return leaveBalanceRepository.save(balance);
     }
@@ -0,0 +1,225 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.LeaveRequestRepository;
+import com.example.pfe.dto.LetterBatchRequest;
+import com.example.pfe.entities.LeaveRequest;
+import com.example.pfe.enums.LeaveType;
+import com.example.pfe.exception.ServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk generation of acceptance letters / exit authorizations into one ZIP.
+ *
+ * Renders go through {@link JasperService} on the shared render pool, at most
+ * {@code workers} at a time. Finished PDFs are written in request order: the
+ * in-flight window doubles as the reorder buffer, so a fast render waits until
+ * the ones before it are written. Heap use is bounded by workers × PDF size
+ * no matter how many letters the batch contains.
+ *
+ * No transaction spans the stream: the matching ids are read up front, then
+ * leaves are loaded {@code page-size} at a time, each query on its own short
+ * connection — a slow client holds no pool connection. A failure after the
+ * first bytes are sent can no longer change the HTTP status, so it is written
+ * into the archive as {@value #INCOMPLETE_ENTRY} instead of cutting it short.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LetterBatchService {
+
+    private static final DateTimeFormatter MONTH_FMT = DateTimeFormatter.ofPattern("yyyy-MM");
+    static final String INCOMPLETE_ENTRY = "BATCH_INCOMPLETE.txt";
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final JasperService          jasperService;
+
+    @Value("${app.reports.batch.workers:4}")
+    private int workers;
+
+    @Value("${app.reports.batch.page-size:100}")
+    private int pageSize = 100;
+
+    /**
+     * ZIP structure:
+     *   {yyyy-MM}/{lastName}_{firstName}/{leave|exit}_{id}.pdf
+     */
+    public void streamLettersZip(LetterBatchRequest request, OutputStream out) throws IOException {
+        List<Long> ids = leaveRequestRepository.findApprovedIdsForLetterBatch(
+                request.getFrom(), request.getTo(), request.getLeaveType(), request.getUserId());
+        Map<String, Integer> exitCounts = exitCountsByUserMonth(request);
+
+        log.info("Letter batch {} → {}: {} letters, {} workers",
+                request.getFrom(), request.getTo(), ids.size(), workers);
+
+        int windowSize = Math.max(1, workers);
+        Iterator<LeaveRequest> pending = pages(ids);
+        Deque<InFlight> window = new ArrayDeque<>(windowSize);
+        int written = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            try {
+                while (pending.hasNext() || !window.isEmpty()) {
+
+                    // Fill the window; if the shared pool is saturated, drain one first
+                    while (window.size() < windowSize && pending.hasNext()) {
+                        LeaveRequest leave = pending.next();
+                        try {
+                            window.addLast(submit(leave, request.getSignatureBase64(), exitCounts));
+                        } catch (ServiceUnavailableException busy) {
+                            if (window.isEmpty()) throw busy;
+                            writeHead(zip, window);
+                            written++;
+                            window.addLast(submit(leave, request.getSignatureBase64(), exitCounts));
+                        }
+                    }
+
+                    writeHead(zip, window);
+                    written++;
+                }
+            } catch (RuntimeException e) {
+                // Headers are gone: say so inside the archive rather than truncating it
+                while (!window.isEmpty()) {
+                    writeHead(zip, window);
+                    written++;
+                }
+                log.error("Letter batch {} → {} aborted after {} of {} letters",
+                        request.getFrom(), request.getTo(), written, ids.size(), e);
+                zip.putNextEntry(new ZipEntry(INCOMPLETE_ENTRY));
+                zip.write(("Batch aborted after " + written + " of " + ids.size() + " letters: "
+                        + e.getMessage()).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────
+    // Private helpers
+    // ──────────────────────────────────────────────────────────
+
+    private record InFlight(String entryName, String reportName, Long leaveId, Future<byte[]> pdf) {}
+
+    private InFlight submit(LeaveRequest leave, String signature, Map<String, Integer> exitCounts) {
+        String folder = leave.getStartDate().format(MONTH_FMT) + "/"
+                + safe(leave.getUser().getLastName()) + "_" + safe(leave.getUser().getFirstName());
+
+        if (leave.getLeaveType() == LeaveType.EXIT_AUTHORIZATION) {
+            int monthlyCount = exitCounts.getOrDefault(monthKey(leave.getUser().getId(), leave.getStartDate()), 0);
+            return new InFlight(folder + "/exit_" + leave.getId() + ".pdf",
+                    ReportAssetCache.AUTORISATION_SORTIE, leave.getId(),
+                    jasperService.submitAutorisationSortie(leave, signature, monthlyCount));
+        }
+        return new InFlight(folder + "/leave_" + leave.getId() + ".pdf",
+                ReportAssetCache.DEMANDE_CONGE, leave.getId(),
+                jasperService.submitDemandeConge(leave, signature, null));
+    }
+
+    /** Leaves in {@code ids} order, loaded one page per query, on demand. */
+    private Iterator<LeaveRequest> pages(List<Long> ids) {
+        return new Iterator<>() {
+            private int next;
+            private Iterator<LeaveRequest> page = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && next < ids.size()) {
+                    List<Long> slice = ids.subList(next, Math.min(next + Math.max(1, pageSize), ids.size()));
+                    next += slice.size();
+                    page = loadPage(slice).iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public LeaveRequest next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.next();
+            }
+        };
+    }
+
+    private List<LeaveRequest> loadPage(List<Long> ids) {
+        Map<Long, LeaveRequest> byId = leaveRequestRepository.findWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(LeaveRequest::getId, l -> l));
+        List<LeaveRequest> page = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            LeaveRequest leave = byId.get(id);
+            if (leave != null) page.add(leave);   // deleted since the ids were read
+        }
+        return page;
+    }
+
+    /** Waits for the oldest render in the window and writes it as the next entry. */
+    private void writeHead(ZipOutputStream zip, Deque<InFlight> window) throws IOException {
+        InFlight head = window.pollFirst();
+        if (head == null) return;
+
+        try {
+            byte[] pdf = jasperService.awaitLetter(head.reportName(), head.pdf());
+            zip.putNextEntry(new ZipEntry(head.entryName()));
+            zip.write(pdf);
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw e;   // client went away — abort the whole stream
+        } catch (Exception e) {
+            // One bad letter must not abort the batch
+            log.warn("Letter for leave {} failed: {}", head.leaveId(), e.getMessage());
+            zip.putNextEntry(new ZipEntry("FAILED_leave_" + head.leaveId() + ".txt"));
+            zip.write(("Generation failed: " + e.getMessage()).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+    }
+
+    private Map<String, Integer> exitCountsByUserMonth(LetterBatchRequest request) {
+        if (request.getLeaveType() != null && request.getLeaveType() != LeaveType.EXIT_AUTHORIZATION) {
+            return Map.of();
+        }
+        // Widen to whole months so counts match countExitAuthorizationsInMonth
+        LocalDate from = request.getFrom().withDayOfMonth(1);
+        LocalDate to   = request.getTo().withDayOfMonth(request.getTo().lengthOfMonth());
+
+        return leaveRequestRepository.countByUserAndMonth(LeaveType.EXIT_AUTHORIZATION, from, to)
+                .stream()
+                .collect(Collectors.toMap(
+                        c -> c.getUserId() + ":" + c.getYear() + ":" + c.getMonth(),
+                        c -> c.getTotal().intValue()));
+    }
+
+    private String monthKey(Long userId, LocalDate date) {
+        return userId + ":" + date.getYear() + ":" + date.getMonthValue();
+    }
+
+    /** Call before the response is committed — errors inside the stream can't change the status. */
+    public void validate(LetterBatchRequest request) {
+        if (request.getFrom() == null || request.getTo() == null) {
+            throw new IllegalArgumentException("Both 'from' and 'to' dates are required");
+        }
+        if (request.getTo().isBefore(request.getFrom())) {
+            throw new IllegalArgumentException("'to' must be on or after 'from'");
+        }
+    }
+
+    private String safe(String s) {
+        return s == null ? "" : s.replaceAll("[^a-zA-Z0-9_-]", "_");
+    }
+}
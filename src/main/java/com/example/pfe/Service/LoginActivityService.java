@@ -0,0 +1,29 @@
+package com.example.pfe.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * What a successful login triggers besides the token — today the automatic
+ * check-in. Runs in the background so the login response does not wait for
+ * the attendance queries and insert, and a failure here never blocks a login.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginActivityService {
+
+    private final AttendanceService attendanceService;
+
+    @Async
+    public void afterLogin(Long userId) {
+        // Safe to call on every login — checkIn guards against duplicates
+        try {
+            attendanceService.checkIn(userId);
+        } catch (Exception e) {
+            log.error("Check-in failed for user {} — login not blocked: {}", userId, e.getMessage());
+        }
+    }
+}
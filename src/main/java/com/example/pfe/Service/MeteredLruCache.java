@@ -0,0 +1,72 @@
+package com.example.pfe.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded, access-ordered map with hit/miss counters and a size gauge.
+ *
+ * Every method locks on the cache itself, so callers that must combine a
+ * check with a write (e.g. a generation check before {@link #put}) can do so
+ * in a {@code synchronized (cache)} block. Expiry is left to the caller,
+ * which knows what "stale" means for its values.
+ */
+final class MeteredLruCache<K, V> {
+
+    private final Map<K, V> entries;
+    private final Counter   hits;
+    private final Counter   misses;
+
+    /**
+     * @param requestsMetric counter name, tagged {@code result=hit|miss}
+     * @param sizeMetric     gauge name for the number of entries
+     */
+    MeteredLruCache(int capacity, MeterRegistry meterRegistry, String requestsMetric, String sizeMetric) {
+        entries = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+        hits   = meterRegistry.counter(requestsMetric, "result", "hit");
+        misses = meterRegistry.counter(requestsMetric, "result", "miss");
+        Gauge.builder(sizeMetric, this, MeteredLruCache::size).register(meterRegistry);
+    }
+
+    synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    synchronized void removeIf(Predicate<V> filter) {
+        entries.values().removeIf(filter);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.config.NotificationPolicy;
+import com.example.pfe.enums.NotificationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deletes notifications older than their type's retention
+ * ({@link NotificationPolicy#retentionOf}).
+ *
+ * Each type is purged in small batches: the oldest ids are read off the
+ * {@code (type, created_at)} index and deleted by primary key in their own
+ * short transaction, with a pause between batches, so the job never holds
+ * row locks for long nor builds a huge undo log. Deleted rows drop out of
+ * the next read, so no cursor is needed and a run interrupted half-way just
+ * continues on the next schedule. Users who lost unread rows get their
+ * counter reconciled after each batch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetentionService {
+
+    private static final String SELECT_EXPIRED_SQL =
+            "SELECT id, user_id, is_read FROM notifications " +
+            "WHERE type = ? AND created_at < ? " +
+            "ORDER BY created_at, id LIMIT ?";
+
+    private final NotificationPolicy   policy;
+    private final UnreadCounterService unreadCounters;
+    private final JdbcTemplate         jdbcTemplate;
+    private final TransactionTemplate  transactionTemplate;
+    private final MeterRegistry        meterRegistry;
+
+    @Value("${app.notifications.purge.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${app.notifications.purge.pause-ms:50}")
+    private long pauseMs = 50;
+
+    @Scheduled(cron = "${app.notifications.purge.cron:0 30 2 * * *}")
+    public void scheduledPurge() {
+        try {
+            purge();
+        } catch (Exception e) {
+            log.error("Notification purge failed", e);
+        }
+    }
+
+    /** Runs every type's purge once; returns the number of deleted rows per type. */
+    public Map<NotificationType, Long> purge() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<NotificationType, Long> deleted = new EnumMap<>(NotificationType.class);
+
+        for (NotificationType type : NotificationType.values()) {
+            Duration keep = policy.retentionOf(type);
+            if (keep == null || keep.isZero() || keep.isNegative()) continue;   // kept forever
+
+            long count = purgeType(type, now.minus(keep));
+            if (count > 0) {
+                deleted.put(type, count);
+                meterRegistry.counter("notifications.purged", "type", type.name()).increment(count);
+            }
+        }
+
+        long total = deleted.values().stream().mapToLong(Long::longValue).sum();
+        log.info("Notification purge removed {} rows {}", total, deleted);
+        return deleted;
+    }
+
+    private long purgeType(NotificationType type, LocalDateTime cutoff) {
+        long deleted = 0;
+        while (true) {
+            List<ExpiredRow> rows = jdbcTemplate.query(SELECT_EXPIRED_SQL,
+                    (rs, i) -> new ExpiredRow(rs.getLong("id"), rs.getLong("user_id"), rs.getBoolean("is_read")),
+                    type.name(), Timestamp.valueOf(cutoff), batchSize);
+            if (rows.isEmpty()) break;
+
+            Object[] ids = rows.stream().map(ExpiredRow::id).toArray();
+            String sql = "DELETE FROM notifications WHERE id IN ("
+                    + String.join(",", Collections.nCopies(ids.length, "?")) + ")";
+            Integer count = transactionTemplate.execute(status -> jdbcTemplate.update(sql, ids));
+            deleted += count != null ? count : 0;
+
+            Set<Long> unreadOwners = new HashSet<>();
+            rows.stream().filter(r -> !r.read()).forEach(r -> unreadOwners.add(r.userId()));
+            unreadCounters.reconcile(unreadOwners);
+
+            if (rows.size() < batchSize) break;
+            if (!pause()) break;
+        }
+        return deleted;
+    }
+
+    /** @return {@code false} if the thread was interrupted (shutdown) */
+    private boolean pause() {
+        if (pauseMs <= 0) return true;
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record ExpiredRow(long id, long userId, boolean read) { }
+}
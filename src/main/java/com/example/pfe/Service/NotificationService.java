@@ -2,6 +2,7 @@ package com.example.pfe.Service;
 
 import com.example.pfe.Repository.NotificationRepository;
 import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.config.NotificationPolicy;
 import com.example.pfe.dto.NotificationDTO;
 import com.example.pfe.entities.Notification;
 import com.example.pfe.entities.User;
@@ -10,18 +11,47 @@ import com.example.pfe.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, type, title, message, link, is_read, occurrences, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, false, 1, ?)";
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_FEED_SIZE = 100;
+
     private final NotificationRepository notificationRepository;
     private final UserRepository         userRepository;
     private final SseEmitterService      sseEmitterService;
+    private final JdbcTemplate           jdbcTemplate;
+    private final UnreadCounterService   unreadCounters;
+    private final NotificationPolicy     policy;
 
     // ══════════════════════════════════════════════════════════════════════════
     // PUBLIC API — called by other services
@@ -118,6 +148,62 @@ public class NotificationService {
                 "/projects");
     }
 
+    /** Every active member of an updated project — one batch instead of one round trip per member */
+    @Transactional
+    public void notifyProjectUpdated(Collection<Long> userIds, String projectName) {
+        fanOut(userIds, new NotificationTemplate(NotificationType.PROJECT_UPDATED,
+                "Project Updated",
+                "Project \"" + projectName + "\" has been updated. Check the latest details.",
+                "/projects"));
+    }
+
+    /** Company-wide announcement to every active, enabled account */
+    @Transactional
+    public int broadcast(String title, String message, String link) {
+        return fanOut(userRepository.findActiveUserIds(),
+                new NotificationTemplate(NotificationType.ANNOUNCEMENT, title, message, link));
+    }
+
+    // ══════════════════════════════════════════════════════════════════════════
+    // FAN-OUT — same notification to many users
+    // ══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Inserts one notification per recipient with JDBC batches of
+     * {@value #BATCH_SIZE} rows — no User entity is loaded. SSE delivery is
+     * handed to the dispatcher after commit, and only for connected users.
+     *
+     * @return number of notifications created
+     */
+    @Transactional
+    public int fanOut(Collection<Long> userIds, NotificationTemplate template) {
+        List<Long> recipients = List.copyOf(new LinkedHashSet<>(userIds));
+        if (recipients.isEmpty()) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, NotificationDTO> live = new HashMap<>();
+        Set<Long> online = sseEmitterService.onlineUsers();
+
+        for (int from = 0; from < recipients.size(); from += BATCH_SIZE) {
+            List<Long> chunk = recipients.subList(from, Math.min(from + BATCH_SIZE, recipients.size()));
+            List<Long> ids = insertBatch(chunk, template, now);
+            unreadCounters.addAll(chunk, 1);
+            for (int i = 0; i < chunk.size(); i++) {
+                Long userId = chunk.get(i);
+                if (online.contains(userId)) {
+                    live.put(userId, toLiveDTO(i < ids.size() ? ids.get(i) : null, template, now));
+                }
+            }
+        }
+
+        TransactionCallbacks.afterCommit(() -> sseEmitterService.pushAll(live));
+        log.info("Notification [{}] fanned out to {} users ({} online)",
+                template.type(), recipients.size(), live.size());
+        return recipients.size();
+    }
+
+    public record NotificationTemplate(NotificationType type, String title, String message, String link) {}
+
     // ══════════════════════════════════════════════════════════════════════════
     // CONTROLLER-FACING METHODS
     // ══════════════════════════════════════════════════════════════════════════
@@ -129,19 +215,77 @@ public class NotificationService {
                 .map(this::toDTO);
     }
 
+    /**
+     * Infinite-scroll feed, newest first. {@code cursor} is the
+     * {@link FeedPage#nextCursor()} of the previous call ({@code null} for
+     * the first one). Each call is one index range read of {@code size + 1}
+     * rows — no OFFSET and no total count — so page 500 costs the same as
+     * page 1.
+     */
     @Transactional(readOnly = true)
+    public FeedPage getFeed(Long userId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_FEED_SIZE));
+        PageRequest first = PageRequest.of(0, limit);
+
+        Slice<Notification> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = notificationRepository.findFeedFirst(userId, first);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            slice = notificationRepository.findFeedBefore(userId, after.createdAt(), after.id(), first);
+        }
+
+        List<NotificationDTO> items = slice.getContent().stream().map(this::toDTO).toList();
+        String next = null;
+        if (slice.hasNext()) {
+            Notification last = slice.getContent().get(slice.getContent().size() - 1);
+            next = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new FeedPage(items, next, slice.hasNext());
+    }
+
+    /** One feed slice; {@code nextCursor} is {@code null} on the last one. */
+    public record FeedPage(List<NotificationDTO> items, String nextCursor, boolean hasMore) {}
+
+    /**
+     * Position of the last row shown: {@code (created_at, id)}. Opaque to the
+     * client (URL-safe Base64 of {@code <iso-datetime>|<id>}); full timestamp
+     * precision is kept so rows sharing a second are neither repeated nor skipped.
+     */
+    record FeedCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static FeedCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new FeedCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+
+    /** Counter lookup, not a COUNT(*) — see {@link UnreadCounterService}. */
+    @Transactional
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndReadFalse(userId);
+        return unreadCounters.get(userId);
     }
 
     @Transactional
     public void markRead(Long notificationId, Long userId) {
-        notificationRepository.markReadById(notificationId, userId);
+        int changed = notificationRepository.markReadById(notificationId, userId);
+        if (changed > 0) unreadCounters.add(userId, -changed);
     }
 
     @Transactional
     public void markAllRead(Long userId) {
-        notificationRepository.markAllReadByUserId(userId);
+        int changed = notificationRepository.markAllReadByUserId(userId);
+        if (changed > 0) unreadCounters.add(userId, -changed);
     }
 
     // ══════════════════════════════════════════════════════════════════════════
@@ -150,6 +294,10 @@ public class NotificationService {
 
     private void send(User user, NotificationType type,
                       String title, String message, String link) {
+        if (policy.coalesces(type) && coalesce(user.getId(), type, title, message, link)) {
+            return;
+        }
+
         Notification notification = Notification.builder()
                 .user(user)
                 .type(type)
@@ -159,13 +307,86 @@ public class NotificationService {
                 .build();
 
         notificationRepository.save(notification);
+        unreadCounters.add(user.getId(), 1);
 
-        // Push to browser immediately if user is online
-        sseEmitterService.push(user.getId(), toDTO(notification));
+        // Push to the browser once the row is committed — nothing for a rolled-back send
+        NotificationDTO dto = toDTO(notification);
+        TransactionCallbacks.afterCommit(() -> sseEmitterService.push(user.getId(), dto));
 
         log.debug("Notification [{}] sent to user {}", type, user.getId());
     }
 
+    /**
+     * Folds a repeated event into the user's latest unread notification of
+     * the same type within the window: occurrences + 1, newest text, time in
+     * {@code lastOccurredAt}. The unread count does not change.
+     *
+     * {@code createdAt} stays on the first event, so the window is fixed: a
+     * steady stream of events opens a new row once per window instead of
+     * extending one row forever, and merged rows still age out under
+     * retention.
+     *
+     * @return {@code false} if there was nothing to merge into
+     */
+    private boolean coalesce(Long userId, NotificationType type, String title, String message, String link) {
+        LocalDateTime now = LocalDateTime.now();
+        return notificationRepository
+                .findFirstByUserIdAndTypeAndReadFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+                        userId, type, now.minus(policy.getCoalesceWindow()))
+                .map(existing -> {
+                    existing.setOccurrences(Math.max(existing.getOccurrences(), 1) + 1);
+                    existing.setTitle(title);
+                    existing.setMessage(message);
+                    existing.setLink(link);
+                    existing.setLastOccurredAt(now);
+                    notificationRepository.save(existing);
+
+                    NotificationDTO dto = toDTO(existing);
+                    TransactionCallbacks.afterCommit(() -> sseEmitterService.push(userId, dto));   // same id → client replaces it
+                    log.debug("Notification [{}] coalesced for user {} (x{})", type, userId, existing.getOccurrences());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /** One JDBC batch on the transaction's connection; returns the generated ids in row order. */
+    private List<Long> insertBatch(List<Long> userIds, NotificationTemplate t, LocalDateTime now) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                Timestamp createdAt = Timestamp.valueOf(now);
+                for (Long userId : userIds) {
+                    ps.setLong(1, userId);
+                    ps.setString(2, t.type().name());
+                    ps.setString(3, t.title());
+                    ps.setString(4, t.message());
+                    ps.setString(5, t.link());
+                    ps.setTimestamp(6, createdAt);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(userIds.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) ids.add(keys.getLong(1));
+                }
+                return ids;
+            }
+        });
+    }
+
+    private NotificationDTO toLiveDTO(Long id, NotificationTemplate t, LocalDateTime createdAt) {
+        return NotificationDTO.builder()
+                .id(id)
+                .type(t.type())
+                .title(t.title())
+                .message(t.message())
+                .link(t.link())
+                .read(false)
+                .occurrences(1)
+                .createdAt(createdAt)
+                .build();
+    }
+
     private NotificationDTO toDTO(Notification n) {
         return NotificationDTO.builder()
                 .id(n.getId())
@@ -174,7 +395,9 @@ public class NotificationService {
                 .message(n.getMessage())
                 .link(n.getLink())
                 .read(n.isRead())
+                .occurrences(n.getOccurrences())
                 .createdAt(n.getCreatedAt())
+                .lastOccurredAt(n.getLastOccurredAt())
                 .build();
     }
 
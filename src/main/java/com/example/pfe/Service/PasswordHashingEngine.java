@@ -0,0 +1,134 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a pool sized to the cores: login checks, password changes,
+ * activations and temporary passwords on account creation or reset.
+ *
+ * BCrypt is pure CPU: during the morning login spike, running it on every
+ * Tomcat thread at once only makes each check slower and leaves no CPU for
+ * the other requests. Here at most {@code threads} hashes run at once,
+ * {@code queue-capacity} wait, and the rest get a 503 right away instead of
+ * queueing behind a backlog they would time out in anyway.
+ *
+ * Metrics: security.password_hash.queue.wait, security.password_hash.time
+ * (tagged by operation), rejected/timeout counters and pool gauges.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashingEngine {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int threads;
+
+    @Value("${app.security.password-hashing.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${app.security.password-hashing.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    private Counter timeouts;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        rejected = meterRegistry.counter("security.password_hash.rejected");
+        timeouts = meterRegistry.counter("security.password_hash.timeouts");
+        Gauge.builder("security.password_hash.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("security.password_hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+
+        log.info("Password hashing pool started — {} threads, queue {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs {@code task} (e.g. {@code passwordEncoder.matches(...)}) on the pool
+     * and waits for its result.
+     *
+     * @throws ServiceUnavailableException if the pool is saturated or the task timed out
+     */
+    public <T> T run(String operation, Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                Timer.builder("security.password_hash.queue.wait").tag("operation", operation)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    return task.call();
+                } finally {
+                    sample.stop(Timer.builder("security.password_hash.time").tag("operation", operation)
+                            .register(meterRegistry));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing pool saturated — rejecting {}", operation);
+            throw new ServiceUnavailableException("Too many password checks at once, please retry shortly", e);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new ServiceUnavailableException("Password check timed out, please retry", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password check interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
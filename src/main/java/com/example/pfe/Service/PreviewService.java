@@ -0,0 +1,347 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.storage.BlobStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background generation of small JPEG previews, stored in the {@link BlobStore}
+ * next to the original:
+ *
+ *   {key}.thumb.jpg           page 1 of a PDF / downscaled image (leave documents)
+ *   {avatar}.{64|256}.jpg     square-cropped avatar variants
+ *
+ * With a remote store the original is first copied to a local temp file.
+ *
+ * Work is queued on upload and runs on a small private pool, so uploads never
+ * wait for PDFBox. A full queue drops the job (logged, counted in
+ * {@code previews.dropped}): document previews are requeued the next time
+ * someone asks for them, dropped avatar jobs are retried every
+ * {@code retry-ms}. Content-addressed blobs share one thumbnail across every
+ * document that points at them.
+ *
+ * Images are only decoded if their header declares at most {@code max-pixels}
+ * pixels — a small file can claim a huge canvas.
+ *
+ * Output is JPEG: the JDK's ImageIO has no WebP writer.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PreviewService {
+
+    public static final String THUMB_SUFFIX = ".thumb.jpg";
+    public static final int[]  AVATAR_SIZES = { 64, 256 };
+
+    private final MeterRegistry meterRegistry;
+    private final BlobStore     blobStore;
+
+    @Value("${app.previews.threads:2}")
+    private int threads;
+
+    @Value("${app.previews.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${app.previews.thumbnail-width:240}")
+    private int thumbnailWidth;
+
+    @Value("${app.previews.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${app.previews.max-pixels:40000000}")
+    private long maxPixels = 40_000_000L;
+
+    private ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<String> droppedAvatars = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "preview-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("previews.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /** True while the queue is less than half full — lets bulk callers pace themselves. */
+    public boolean hasRoom() {
+        return executor.getQueue().remainingCapacity() > queueCapacity / 2;
+    }
+
+    // ─── Naming ───────────────────────────────────────────────
+
+    public static boolean isPreviewable(String mimeType) {
+        return mimeType != null
+                && (mimeType.equals("application/pdf")
+                    || mimeType.equals("image/jpeg")
+                    || mimeType.equals("image/png"));
+    }
+
+    public static String thumbnailKey(String key) {
+        return key + THUMB_SUFFIX;
+    }
+
+    public static String avatarVariantKey(String key, int size) {
+        return key + "." + size + ".jpg";
+    }
+
+    /** URL of an avatar variant, served by the same handler as the original. */
+    public static String avatarVariantUrl(String avatarUrl, int size) {
+        return avatarUrl == null || avatarUrl.isEmpty() ? null : avatarVariantKey(avatarUrl, size);
+    }
+
+    // ─── Scheduling ───────────────────────────────────────────
+
+    /**
+     * Queues a page-1 / downscaled thumbnail for a stored document.
+     *
+     * @param refresh regenerate even if a thumbnail exists (file overwritten in place)
+     */
+    public void scheduleThumbnail(String key, String mimeType, boolean refresh) {
+        if (!isPreviewable(mimeType)) return;
+        String target = thumbnailKey(key);
+        submit(target, refresh, "document", () -> withLocalCopy(key, original -> {
+            BufferedImage image = mimeType.equals("application/pdf")
+                    ? renderFirstPage(original)
+                    : fitWidth(readImage(original), thumbnailWidth);
+            writeJpeg(image, target);
+        }));
+    }
+
+    /** Queues every avatar size; the original is decoded once for all of them. */
+    public void scheduleAvatarVariants(String key) {
+        String first = avatarVariantKey(key, AVATAR_SIZES[0]);
+        boolean queued = submit(first, false, "avatar", () -> withLocalCopy(key, original -> {
+            BufferedImage source = readImage(original);
+            for (int size : AVATAR_SIZES) {
+                writeJpeg(squareCrop(source, size), avatarVariantKey(key, size));
+            }
+        }));
+        if (queued) {
+            droppedAvatars.remove(key);
+        } else {
+            droppedAvatars.add(key);   // nobody asks for an avatar preview again — retry it ourselves
+        }
+    }
+
+    /** Requeues avatar jobs that found the queue full. */
+    @Scheduled(fixedDelayString = "${app.previews.retry-ms:60000}")
+    public void retryDroppedAvatars() {
+        for (String key : List.copyOf(droppedAvatars)) {
+            if (!hasRoom()) return;
+            scheduleAvatarVariants(key);
+        }
+    }
+
+    /** Removes the variants of an avatar that is being replaced. */
+    public void deleteAvatarVariants(String key) throws IOException {
+        droppedAvatars.remove(key);
+        for (int size : AVATAR_SIZES) {
+            blobStore.delete(avatarVariantKey(key, size));
+        }
+    }
+
+    /** False if the job was dropped because the queue is full. */
+    private boolean submit(String target, boolean refresh, String kind, PreviewTask task) {
+        if (!inFlight.add(target)) return true;   // already queued
+
+        try {
+            executor.execute(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    if (!refresh && blobStore.exists(target)) return;
+                    task.run();
+                    sample.stop(meterRegistry.timer("previews.render.time", "kind", kind));
+                } catch (Exception e) {
+                    meterRegistry.counter("previews.failed", "kind", kind).increment();
+                    log.warn("Preview {} failed: {}", target, e.getMessage());
+                } finally {
+                    inFlight.remove(target);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(target);
+            meterRegistry.counter("previews.dropped", "kind", kind).increment();
+            log.warn("Preview queue full — dropped {} job {}", kind, target);
+            return false;
+        }
+    }
+
+    /** Runs {@code action} on a local file holding {@code key}'s content. */
+    private void withLocalCopy(String key, LocalFileAction action) throws IOException {
+        Optional<Path> local = blobStore.localFile(key);
+        if (local.isPresent()) {
+            action.run(local.get());
+            return;
+        }
+        Path tmp = Files.createTempFile("preview-src-", ".tmp");
+        try {
+            try (InputStream in = blobStore.open(key)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            action.run(tmp);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @FunctionalInterface
+    private interface LocalFileAction {
+        void run(Path file) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface PreviewTask {
+        void run() throws IOException;
+    }
+
+    // ─── Rendering ────────────────────────────────────────────
+
+    private BufferedImage renderFirstPage(Path pdfFile) throws IOException {
+        // Parsed objects spill to a temp file rather than the heap
+        try (PDDocument pdf = PDDocument.load(pdfFile.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            if (pdf.getNumberOfPages() == 0) {
+                throw new IOException("PDF has no pages");
+            }
+            // Render straight at thumbnail size instead of 300 dpi + downscale
+            PDRectangle box = pdf.getPage(0).getCropBox();
+            if (box.getWidth() <= 0 || box.getHeight() <= 0) {
+                throw new IOException("PDF page has an empty crop box");
+            }
+            float scale = thumbnailWidth / box.getWidth();
+            // A very tall page would still be huge at thumbnail width — same pixel cap as images
+            double pixels = (double) box.getWidth() * scale * box.getHeight() * scale;
+            if (pixels > maxPixels) {
+                scale *= (float) Math.sqrt(maxPixels / pixels);
+            }
+            return new PDFRenderer(pdf).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    /** Decodes {@code file} after checking the dimensions declared in its header. */
+    private BufferedImage readImage(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image too large: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage fitWidth(BufferedImage source, int width) {
+        int w = Math.min(width, source.getWidth());   // never upscale
+        int h = Math.max(1, Math.round((float) source.getHeight() * w / source.getWidth()));
+        return draw(source, w, h, 0, 0, source.getWidth(), source.getHeight());
+    }
+
+    private BufferedImage squareCrop(BufferedImage source, int size) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+        return draw(source, size, size, x, y, side, side);
+    }
+
+    /** Draws a region of {@code source} onto an opaque RGB canvas (JPEG has no alpha). */
+    private BufferedImage draw(BufferedImage source, int width, int height,
+                               int sx, int sy, int sw, int sh) {
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, sx, sy, sx + sw, sy + sh, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    /** Encodes to a temp file, then hands it to the store (atomic replace). */
+    private void writeJpeg(BufferedImage image, String targetKey) throws IOException {
+        Path tmp = Files.createTempFile("preview-", ".jpg");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            blobStore.put(targetKey, tmp, "image/jpeg");
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -42,6 +42,7 @@ public class ProjectServiceImpl implements ProjectService {
     private final NotificationService notificationService;
     private final ProjectStatusHistoryRepository historyRepository;
     private final RoleRepository roleRepository;
+    private final UserPrincipalCache principalCache;
 
     // ==================== CRUD OPERATIONS ====================
 
@@ -137,13 +138,12 @@ public class ProjectServiceImpl implements ProjectService {
         Project updatedProject = projectRepository.save(project);
         log.info("Project updated successfully: {} (ID: {})", project.getCode(), updatedProject.getId());
 
-        teamAssignmentRepository.findByProjectId(project.getId())
+        List<Long> activeMembers = teamAssignmentRepository.findByProjectId(project.getId())
                 .stream()
                 .filter(a -> Boolean.TRUE.equals(a.getActive()))
-                .forEach(a -> notificationService.notifyProjectUpdated(
-                        a.getEmployee().getId(),
-                        project.getName()
-                ));
+                .map(a -> a.getEmployee().getId())
+                .toList();
+        notificationService.notifyProjectUpdated(activeMembers, project.getName());
 
         return mapToProjectResponseDTO(updatedProject);
     }
@@ -479,6 +479,7 @@ public class ProjectServiceImpl implements ProjectService {
         if (!alreadyPm) {
             user.getRoles().add(pmRole);
             userRepository.save(user);
+            principalCache.invalidate(user.getId());   // new authority on the next request
             log.info("✅ User {} promoted to PROJECT_MANAGER", user.getEmail());
         } else {
             log.debug("User {} already has PROJECT_MANAGER role — skipping", user.getEmail());
@@ -500,6 +501,7 @@ public class ProjectServiceImpl implements ProjectService {
             boolean removed = user.getRoles().removeIf(r -> r.getName() == RoleName.PROJECT_MANAGER);
             if (removed) {
                 userRepository.save(user);
+                principalCache.invalidate(user.getId());
                 log.info("✅ User {} demoted from PROJECT_MANAGER (no more projects)", user.getEmail());
             }
         } else {
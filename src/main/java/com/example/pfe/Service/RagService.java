@@ -1,28 +1,52 @@
 package com.example.pfe.Service;
 
+import com.example.pfe.entities.RagChunk;
 import com.example.pfe.entities.RagIngestionLog;
+import com.example.pfe.Repository.RagChunkRepository;
 import com.example.pfe.Repository.RagIngestionLogRepository;
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
 import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
 import dev.langchain4j.store.embedding.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
 @Service
 @Slf4j
 public class RagService {
@@ -32,6 +56,18 @@ public class RagService {
     private final EmbeddingStore<TextSegment> embeddingStore;// ← ChromaDB
     private final RagIngestionLogRepository ingestionLogRepository;// ← Logs en DB
     private final FileHashService fileHashService; // ← Calcul SHA-256
+    private final RagChunkRepository chunkRepository;// ← Chunks stockés dans ChromaDB (diff)
+    private final SemanticAnswerCache answerCache; // ← Réponses du chatbot, invalidées à chaque changement
+
+    private static final String FAILED = "FAILED";
+
+    @Value("${app.rag.ingest.batch-size:32}")
+    private int batchSize = 32;
+
+    @Value("${app.rag.ingest.parallelism:2}")
+    private int parallelism = 2;
+
+    private ExecutorService ingestExecutor;
 
     public RagService(
             ChatLanguageModel chatLanguageModel,
@@ -39,13 +75,32 @@ public class RagService {
             // ChromaDB peut être absent (graceful degradation).
             @Nullable EmbeddingStore<TextSegment> embeddingStore,
             RagIngestionLogRepository ingestionLogRepository,
-            FileHashService fileHashService
+            FileHashService fileHashService,
+            RagChunkRepository chunkRepository,
+            SemanticAnswerCache answerCache
     ) {
         this.chatLanguageModel = chatLanguageModel;
         this.embeddingModel = embeddingModel;
         this.embeddingStore = embeddingStore;
         this.ingestionLogRepository = ingestionLogRepository;
         this.fileHashService = fileHashService;
+        this.chunkRepository = chunkRepository;
+        this.answerCache = answerCache;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        ingestExecutor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "rag-ingest-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdownNow();
     }
 
     // ── Ingestion PDF avec slug et hash-based update ──────────────────────────
@@ -56,6 +111,7 @@ public class RagService {
         }
 
         log.info("Starting ingestion: fileName={}, slug={}", fileName, fileSlug);
+        long startedAt = System.nanoTime();
 
         // ÉTAPE 1: Lire le PDF en bytes (pour pouvoir le hasher ET le re-lire)
         ByteArrayInputStream markableStream = new ByteArrayInputStream(fileInputStream.readAllBytes());
@@ -64,8 +120,9 @@ public class RagService {
 
         // Step 2: Vérifier si le fichier a changé
         Optional<RagIngestionLog> lastLog = ingestionLogRepository.findFirstByFileSlugOrderByIngestedAtDesc(fileSlug);
-        // ÉTAPE 3: Si même hash → SKIP (économie de ressources)
-        if (lastLog.isPresent() && lastLog.get().getFileHash().equals(newHash)) {
+        boolean sameFile = lastLog.isPresent() && lastLog.get().getFileHash().equals(newHash);
+        // ÉTAPE 3: Si même hash → SKIP (économie de ressources) — sauf si la dernière tentative a échoué
+        if (sameFile && !FAILED.equals(lastLog.get().getStatus())) {
             log.info("File hash unchanged — skipping ingestion");
             // Logger un NO_CHANGE
             RagIngestionLog noChangeLog = RagIngestionLog.builder()
@@ -81,39 +138,50 @@ public class RagService {
             ingestionLogRepository.save(noChangeLog);
             return;
         }
-// ÉTAPE 4: Sinon → INGÉRER
+
+// ÉTAPE 4: Sinon → INGÉRER (seulement les chunks nouveaux ou modifiés)
+        IngestionTimings timings = new IngestionTimings();
+        ChunkDiff diff = null;
+        int added = 0;
         try {
             // Step 3: Parser le PDF
             markableStream.reset();
             // 4a. Parser le PDF (extraire le texte)
+            long parseStart = System.nanoTime();
             Document document = new ApachePdfBoxDocumentParser().parse(markableStream);
 
             // 4b. Découper en chunks de 500 caractères avec chevauchement de 50 caractères
             var splitter = DocumentSplitters.recursive(500, 50);
             var segments = splitter.split(document);
-// 4c. Pour chaque chunk, vectoriser et stocker dans ChromaDB
-            int chunksIngested = 0;
-            for (TextSegment segment : segments) {
-                // Ajouter des métadonnées (utile pour filtrer)
-                TextSegment withMeta = TextSegment.from(
-                        segment.text(),
-                        dev.langchain4j.data.document.Metadata.from(Map.of(
-                                "slug", fileSlug,
-                                "source", fileName,
-                                "hash", newHash,
-                                "timestamp", LocalDateTime.now().toString()
-                        ))
-                );
-
-                // Embedding (texte → vecteur 384 dimensions)
-                var embedding = embeddingModel.embed(segment.text()).content();
-                // Stockage dans ChromaDB
-
-                embeddingStore.add(embedding, withMeta);
-                chunksIngested++;
+            timings.parseNanos = System.nanoTime() - parseStart;
+
+            // 4c. Comparer aux chunks déjà stockés (hash du contenu de chaque chunk)
+            diff = diff(fileSlug, segments);
+            log.info("Chunk diff for {}: {} added, {} removed, {} unchanged",
+                    fileSlug, diff.added().size(), diff.removedIds().size(), diff.unchanged());
+            if (diff.firstIngestion()) {
+                // Vecteurs d'avant le suivi par chunk : on repart de zéro pour ce slug
+                embeddingStore.removeAll(metadataKey("slug").isEqualTo(fileSlug));
+            } else if (!diff.added().isEmpty()) {
+                // Vecteurs d'un essai interrompu entre addAll et l'enregistrement dans rag_chunks :
+                // Chroma en a choisi les ids, on les retrouve par leur hash de contenu
+                embeddingStore.removeAll(metadataKey("slug").isEqualTo(fileSlug).and(
+                        metadataKey("content_hash").isIn(diff.added().stream().map(NewChunk::contentHash).toList())));
+            }
+
+            // 4d. Vectoriser (embedAll) et stocker (addAll) par lots les chunks nouveaux
+            added = embedAndStore(withMetadata(diff.added(), fileSlug, fileName), fileSlug, timings);
+
+            // 4e. Supprimer les vecteurs des chunks qui n'existent plus (après les ajouts :
+            //     la recherche n'est jamais vide pendant la mise à jour)
+            if (!diff.removedIds().isEmpty()) {
+                long removeStart = System.nanoTime();
+                embeddingStore.removeAll(diff.removedIds());
+                chunkRepository.deleteAllByIdInBatch(diff.removedIds());
+                timings.storeNanos.addAndGet(System.nanoTime() - removeStart);
             }
 
-            // 4d. Logger le SUCCESS
+            // 4f. Logger le SUCCESS
             RagIngestionLog successLog = RagIngestionLog.builder()
                     .fileSlug(fileSlug)
                     .fileName(fileName)
@@ -122,27 +190,222 @@ public class RagService {
                     .status("SUCCESS")
                     .message("PDF ingested successfully")
                     .ingestedAt(LocalDateTime.now())
-                    .chunksCount(chunksIngested)
+                    .chunksCount(segments.size())
                     .build();
+            timings.applyTo(successLog, diff, added, startedAt);
 
             ingestionLogRepository.save(successLog);
-            log.info("Ingestion completed successfully: {} chunks stored", chunksIngested);
+            // 4g. Les réponses en cache citent peut-être l'ancien règlement
+            if (added > 0 || !diff.removedIds().isEmpty()) {
+                answerCache.documentChanged(newHash);
+            }
+            log.info("Ingestion completed successfully: {} chunks ({} embedded, {} removed) in {} ms",
+                    segments.size(), added, diff.removedIds().size(), successLog.getTotalMs());
 
         } catch (Exception e) {
-            log.error("Ingestion failed: {}", e.getMessage(), e);
-            // ÉTAPE 5: Si erreur → logger FAILED
+            Throwable cause = e;
+            if (e instanceof PartialIngestionException partial) {
+                added = partial.storedSegments;
+                cause = partial.getCause();
+            }
+            log.error("Ingestion failed after {} new chunks stored: {}", added, cause.getMessage(), cause);
+            // ÉTAPE 5: Si erreur → logger FAILED ; les chunks déjà stockés sont dans rag_chunks,
+            // la prochaine tentative ne traitera que le reste
             RagIngestionLog failureLog = RagIngestionLog.builder()
                     .fileSlug(fileSlug)
                     .fileName(fileName)
                     .fileHash(newHash)
                     .previousHash(lastLog.map(RagIngestionLog::getFileHash).orElse(null))
-                    .status("FAILED")
-                    .message("Error: " + e.getMessage())
+                    .status(FAILED)
+                    .message("Error: " + cause.getMessage())
                     .ingestedAt(LocalDateTime.now())
                     .build();
+            timings.applyTo(failureLog, diff, added, startedAt);
 
             ingestionLogRepository.save(failureLog);
-            throw new IOException("Ingestion failed: " + e.getMessage(), e);
+            if (added > 0) {
+                answerCache.documentChanged(newHash);   // ajout partiel : la recherche a déjà changé
+            }
+            throw new IOException("Ingestion failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Splits the document's chunks into those already in Chroma (same content
+     * hash) and those to embed, and lists the Chroma ids of the stored chunks
+     * that disappeared. A text repeated in the document gets one content hash
+     * per occurrence.
+     */
+    ChunkDiff diff(String fileSlug, List<TextSegment> segments) {
+        List<RagChunk> storedChunks = chunkRepository.findByFileSlug(fileSlug);
+        Map<String, String> stored = new HashMap<>();   // content hash → Chroma id
+        List<String> removed = new ArrayList<>();
+        for (RagChunk chunk : storedChunks) {
+            if (stored.putIfAbsent(chunk.getContentHash(), chunk.getChunkId()) != null) {
+                removed.add(chunk.getChunkId());   // doublon : une seule copie suffit
+            }
+        }
+
+        Map<String, Integer> occurrences = new HashMap<>();
+        Set<String> current = new HashSet<>();
+        List<NewChunk> added = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            String textHash = sha256(segment.text());
+            int n = occurrences.merge(textHash, 1, Integer::sum);
+            String contentHash = n == 1 ? textHash : textHash + "#" + n;
+            current.add(contentHash);
+            if (!stored.containsKey(contentHash)) {
+                added.add(new NewChunk(contentHash, segment));
+            }
+        }
+
+        stored.forEach((contentHash, id) -> {
+            if (!current.contains(contentHash)) removed.add(id);
+        });
+        return new ChunkDiff(added, removed, segments.size() - added.size(), storedChunks.isEmpty());
+    }
+
+    private static List<NewChunk> withMetadata(List<NewChunk> chunks, String fileSlug, String fileName) {
+        String timestamp = LocalDateTime.now().toString();
+        List<NewChunk> result = new ArrayList<>(chunks.size());
+        for (NewChunk chunk : chunks) {
+            // Ajouter des métadonnées (utile pour filtrer)
+            result.add(new NewChunk(chunk.contentHash(), TextSegment.from(
+                    chunk.segment().text(),
+                    dev.langchain4j.data.document.Metadata.from(Map.of(
+                            "slug", fileSlug,
+                            "source", fileName,
+                            "content_hash", chunk.contentHash(),
+                            "timestamp", timestamp
+                    ))
+            )));
+        }
+        return result;
+    }
+
+    /**
+     * Embeds and stores {@code chunks} in batches of {@code batchSize} — one
+     * {@code embedAll} call to Ollama and one {@code addAll} call to Chroma per
+     * batch — with at most {@code parallelism} batches in flight.
+     *
+     * Each stored batch is recorded in {@code rag_chunks} right away, so after
+     * a failure the next run's diff only contains what is still missing. On
+     * failure the in-flight batches are drained and the number of chunks
+     * stored is carried by {@link PartialIngestionException}.
+     */
+    int embedAndStore(List<NewChunk> chunks, String fileSlug, IngestionTimings timings)
+            throws PartialIngestionException {
+        int total = chunks.size();
+        int batches = (total + batchSize - 1) / batchSize;
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(ingestExecutor);
+        int submitted = 0;
+        int completed = 0;
+        int stored = 0;
+        Throwable failure = null;
+
+        while (completed < submitted || (failure == null && submitted < batches)) {
+            while (failure == null && submitted < batches && submitted - completed < parallelism) {
+                int start = submitted++ * batchSize;
+                List<NewChunk> batch = chunks.subList(start, Math.min(total, start + batchSize));
+                completion.submit(() -> {
+                    storeBatch(batch, fileSlug, timings);
+                    return batch.size();
+                });
+            }
+            try {
+                stored += completion.take().get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause();   // stop submitting, drain the rest
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) failure = e;
+                break;
+            } finally {
+                completed++;
+            }
+        }
+
+        if (failure != null) {
+            throw new PartialIngestionException(stored, failure);
+        }
+        return stored;
+    }
+
+    private void storeBatch(List<NewChunk> batch, String fileSlug, IngestionTimings timings) {
+        List<TextSegment> segments = batch.stream().map(NewChunk::segment).toList();
+
+        // Embedding (texte → vecteurs) : un seul appel pour tout le lot
+        long embedStart = System.nanoTime();
+        List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+        timings.embedNanos.addAndGet(System.nanoTime() - embedStart);
+        if (embeddings.size() != segments.size()) {
+            throw new IllegalStateException("Embedding model returned " + embeddings.size()
+                    + " vectors for " + segments.size() + " chunks");
+        }
+
+        // Stockage dans ChromaDB : un seul appel pour tout le lot, puis le manifeste
+        // avec les ids attribués par Chroma (dans l'ordre des segments)
+        long storeStart = System.nanoTime();
+        List<String> ids = embeddingStore.addAll(embeddings, segments);
+        if (ids.size() != batch.size()) {
+            throw new IllegalStateException("Embedding store returned " + ids.size()
+                    + " ids for " + batch.size() + " chunks");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<RagChunk> manifest = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            manifest.add(RagChunk.builder()
+                    .chunkId(ids.get(i))
+                    .fileSlug(fileSlug)
+                    .contentHash(batch.get(i).contentHash())
+                    .createdAt(now)
+                    .build());
+        }
+        chunkRepository.saveAll(manifest);
+        timings.storeNanos.addAndGet(System.nanoTime() - storeStart);
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** A chunk to embed; Chroma assigns its id when it is stored. */
+    record NewChunk(String contentHash, TextSegment segment) { }
+
+    /** New chunks to embed, stored chunk ids to delete, and how many were kept as-is. */
+    record ChunkDiff(List<NewChunk> added, List<String> removedIds, int unchanged, boolean firstIngestion) { }
+
+    /** Per-stage time of one ingestion; embed/store are summed over batches. */
+    static final class IngestionTimings {
+        long parseNanos;
+        final AtomicLong embedNanos = new AtomicLong();
+        final AtomicLong storeNanos = new AtomicLong();
+
+        void applyTo(RagIngestionLog entry, ChunkDiff diff, int added, long startedAt) {
+            if (diff != null) {
+                entry.setChunksAdded(added);
+                entry.setChunksRemoved(FAILED.equals(entry.getStatus()) ? 0 : diff.removedIds().size());
+                entry.setChunksUnchanged(diff.unchanged());
+            }
+            entry.setParseMs(TimeUnit.NANOSECONDS.toMillis(parseNanos));
+            entry.setEmbedMs(TimeUnit.NANOSECONDS.toMillis(embedNanos.get()));
+            entry.setStoreMs(TimeUnit.NANOSECONDS.toMillis(storeNanos.get()));
+            entry.setTotalMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+    }
+
+    /** Ingestion stopped after {@code storedSegments} new chunks were stored. */
+    static final class PartialIngestionException extends Exception {
+        final int storedSegments;
+
+        PartialIngestionException(int storedSegments, Throwable cause) {
+            super(cause.getMessage(), cause);
+            this.storedSegments = storedSegments;
         }
     }
 
@@ -155,10 +418,25 @@ public class RagService {
     }
 
     // ── RAG Chat (inchangé) ──────────────────────────────────────────────────
+    public boolean isAvailable() {
+        return embeddingStore != null;
+    }
+
     //Répondre à une question en utilisant le RAG.
     public String chat(String question) {
+        return answer(question).text();
+    }
+
+    /**
+     * Réponse du RAG ; {@code grounded} est faux quand elle n'a pas été générée
+     * à partir de la documentation (Chroma absent, aucun chunk retrouvé) —
+     * une telle réponse ne doit pas être mise en cache.
+     */
+    public record Answer(String text, boolean grounded) { }
+
+    public Answer answer(String question) {
         if (embeddingStore == null) {
-            return "RAG is currently unavailable — Chroma is not running.";
+            return new Answer("RAG is currently unavailable — Chroma is not running.", false);
         }
 
         log.info("HR question received: {}", question);
@@ -193,8 +471,8 @@ public class RagService {
                 .collect(Collectors.joining("\n\n"));
 // 5. Si aucun contexte trouvé → réponse par défaut
         if (context.isEmpty()) {
-            return "I don't have enough information in the HR documentation to answer this. " +
-                    "Please contact the HR service for more details.";
+            return new Answer("I don't have enough information in the HR documentation to answer this. " +
+                    "Please contact the HR service for more details.", false);
         }
         // 6. Construire le prompt pour le LLM
         PromptTemplate template = PromptTemplate.from("""
@@ -222,7 +500,7 @@ public class RagService {
 // 7. Demander au LLM de générer la réponse
         String response = chatLanguageModel.generate(prompt.text());
         log.info("HR response generated successfully");
-        return response;
+        return new Answer(response, true);
     }
 
     private String translateToFrench(String question) {
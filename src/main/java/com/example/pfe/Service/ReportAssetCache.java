@@ -0,0 +1,92 @@
+package com.example.pfe.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.renderers.Renderable;
+import net.sf.jasperreports.renderers.SimpleDataRenderer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds everything a Jasper render needs that never changes between renders:
+ * the compiled templates and the static images (company logo, TÜV cert).
+ *
+ * Templates are precompiled to {@code reports/*.jasper} by the
+ * jasperreports-plugin during the Maven build; the {@code .jrxml} is only
+ * compiled here as a fallback (e.g. running from an IDE without a Maven build).
+ * Images are read from the classpath once and wrapped in a {@link Renderable}
+ * that every fill can share.
+ */
+@Component
+@Slf4j
+public class ReportAssetCache {
+
+    public static final String DEMANDE_CONGE       = "demande_conge";
+    public static final String AUTORISATION_SORTIE = "autorisation_sortie";
+
+    public static final String COMPANY_LOGO = "static/images/arabsoft_logo.png";
+    public static final String CERT_LOGO    = "static/images/tuv_cert.png";
+
+    private final Map<String, JasperReport> reports = new ConcurrentHashMap<>();
+    private final Map<String, Renderable>   images  = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws JRException, IOException {
+        for (String name : new String[] { DEMANDE_CONGE, AUTORISATION_SORTIE }) {
+            reports.put(name, loadReport(name));
+        }
+        for (String path : new String[] { COMPANY_LOGO, CERT_LOGO }) {
+            Renderable image = loadImage(path);
+            if (image != null) images.put(path, image);
+        }
+        log.info("✅ Report assets ready — {} templates, {} images", reports.size(), images.size());
+    }
+
+    public JasperReport report(String name) {
+        JasperReport report = reports.get(name);
+        if (report == null) {
+            throw new IllegalArgumentException("Unknown report template: " + name);
+        }
+        return report;
+    }
+
+    /** Cached image for the given classpath path, or {@code null} if it was missing at startup. */
+    public Renderable image(String path) {
+        return images.get(path);
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────
+
+    // Package-private so tests can exercise the .jrxml fallback
+    JasperReport loadReport(String name) throws JRException, IOException {
+        ClassPathResource compiled = new ClassPathResource("reports/" + name + ".jasper");
+        if (compiled.exists()) {
+            try (InputStream in = compiled.getInputStream()) {
+                return (JasperReport) JRLoader.loadObject(in);
+            }
+        }
+
+        log.warn("Precompiled reports/{}.jasper not found — compiling .jrxml at startup", name);
+        try (InputStream in = new ClassPathResource("reports/" + name + ".jrxml").getInputStream()) {
+            return JasperCompileManager.compileReport(in);
+        }
+    }
+
+    private Renderable loadImage(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return SimpleDataRenderer.getInstance(in.readAllBytes());
+        } catch (IOException e) {
+            log.warn("Image not found at {} — skipping.", path);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Jasper fill + PDF export off the request thread on a bounded pool.
+ *
+ * At most {@code threads} renders run at once and at most {@code queue-capacity}
+ * wait behind them; anything beyond that is rejected with a 503 instead of
+ * piling more JasperPrint objects onto the heap. Callers wait up to
+ * {@code timeout-ms} for their PDF.
+ *
+ * Metrics: reports.render.time, reports.render.queue.wait, reports.render.size
+ * (all tagged by report), plus rejected/timeout counters and pool gauges.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReportRenderEngine {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.reports.render.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int threads;
+
+    @Value("${app.reports.render.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${app.reports.render.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    private Counter timeouts;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "report-render-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        rejected = meterRegistry.counter("reports.render.rejected");
+        timeouts = meterRegistry.counter("reports.render.timeouts");
+        Gauge.builder("reports.render.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("reports.render.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+
+        log.info("Report render pool started — {} threads, queue {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queues a render and returns immediately.
+     *
+     * @throws ServiceUnavailableException if the pool and its queue are full
+     */
+    public Future<byte[]> submit(String reportName, JasperReport report, Map<String, Object> params) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                Timer.builder("reports.render.queue.wait").tag("report", reportName)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+
+                Timer.Sample sample = Timer.start(meterRegistry);
+                byte[] pdf = fillAndExport(report, params);
+                sample.stop(Timer.builder("reports.render.time").tag("report", reportName)
+                        .register(meterRegistry));
+
+                DistributionSummary.builder("reports.render.size").baseUnit("bytes")
+                        .tag("report", reportName)
+                        .register(meterRegistry)
+                        .record(pdf.length);
+                return pdf;
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Report render pool saturated — rejecting {}", reportName);
+            throw new ServiceUnavailableException("Document generation is busy, please retry shortly", e);
+        }
+    }
+
+    /** Waits for a submitted render, cancelling it on timeout. */
+    public byte[] await(String reportName, Future<byte[]> future) throws Exception {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            log.warn("Report {} did not render within {} ms", reportName, timeoutMs);
+            throw new ServiceUnavailableException("Document generation timed out, please retry", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────
+
+    // Package-private so tests can stand in a slow render
+    byte[] fillAndExport(JasperReport report, Map<String, Object> params) throws JRException {
+        JasperPrint print = JasperFillManager.fillReport(report, params, new JREmptyDataSource());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JRPdfExporter exporter = new JRPdfExporter();
+        exporter.setExporterInput(new SimpleExporterInput(print));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+        SimplePdfExporterConfiguration config = new SimplePdfExporterConfiguration();
+        config.setCompressed(true);
+        exporter.setConfiguration(config);
+        exporter.exportReport();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.RagIngestionLogRepository;
+import com.example.pfe.entities.RagIngestionLog;
+import com.example.pfe.messaging.ClusterEventBus;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Answers to HR questions, found again by meaning rather than by exact text.
+ *
+ * The question is normalised (case, accents, punctuation), embedded with the
+ * local embedding model and compared by cosine similarity against the
+ * previous questions — a brute-force scan over at most {@code max-entries}
+ * unit vectors, which for a few hundred entries is microseconds next to the
+ * four LLM calls a miss costs. Only entries in the same language can match,
+ * since answers are written in the language of the question.
+ *
+ * Entries are tagged with the regulations version (hash of the last
+ * ingested document): after RagService ingests a change the cache is
+ * emptied on every node through the {@link ClusterEventBus}.
+ *
+ * Metrics: {@code chat.cache.requests{result=hit|miss|bypass}},
+ * {@code chat.cache.latency.saved}, {@code chat.cache.size}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SemanticAnswerCache {
+
+    static final String TOPIC = "rag-document";
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final EmbeddingModel            embeddingModel;
+    private final RagIngestionLogRepository ingestionLogRepository;
+    private final ClusterEventBus           eventBus;
+    private final MeterRegistry             meterRegistry;
+
+    @Value("${app.chat.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.chat.cache.similarity-threshold:0.92}")
+    private double threshold = 0.92;
+
+    @Value("${app.chat.cache.max-entries:500}")
+    private int maxEntries = 500;
+
+    @Value("${app.chat.cache.ttl:P1D}")
+    private Duration ttl = Duration.ofDays(1);
+
+    private final List<Entry> entries = new ArrayList<>();   // oldest first
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile String version;
+    private volatile long generation;   // incremented on every change event, even for the same hash
+
+    private Counter hits;
+    private Counter misses;
+    private Counter bypassed;
+    private Timer saved;
+
+    @PostConstruct
+    public void init() {
+        hits     = meterRegistry.counter("chat.cache.requests", "result", "hit");
+        misses   = meterRegistry.counter("chat.cache.requests", "result", "miss");
+        bypassed = meterRegistry.counter("chat.cache.requests", "result", "bypass");
+        saved    = meterRegistry.timer("chat.cache.latency.saved");
+        Gauge.builder("chat.cache.size", this, SemanticAnswerCache::size).register(meterRegistry);
+
+        try {
+            version = ingestionLogRepository.findFirstByStatusOrderByIngestedAtDesc("SUCCESS")
+                    .map(RagIngestionLog::getFileHash)
+                    .orElse("");
+        } catch (DataAccessException e) {
+            log.warn("Could not read the regulations version: {}", e.getMessage());
+            version = "";
+        }
+        eventBus.subscribe(TOPIC, this::onDocumentChanged);
+    }
+
+    /**
+     * Looks {@code question} up. On a miss, pass the computed answer to
+     * {@link Lookup#store} so the next similar question is served from here.
+     */
+    public Lookup lookup(String question, String language) {
+        if (!enabled || question == null || question.isBlank()) {
+            bypassed.increment();
+            return Lookup.BYPASS;
+        }
+
+        float[] vector;
+        try {
+            vector = unit(embeddingModel.embed(normalize(question)).content().vector());
+        } catch (RuntimeException e) {
+            log.debug("Answer cache bypassed — embedding failed: {}", e.getMessage());
+            bypassed.increment();
+            return Lookup.BYPASS;
+        }
+
+        long currentGeneration = generation;
+        String currentVersion = version;
+        long now = System.nanoTime();
+        Entry best = null;
+        double bestScore = threshold;
+        lock.readLock().lock();
+        try {
+            for (Entry entry : entries) {
+                if (!entry.language.equals(language) || !entry.version.equals(currentVersion)
+                        || now - entry.expiresAt > 0) continue;
+                double score = dot(vector, entry.vector);
+                if (score >= bestScore) {
+                    best = entry;
+                    bestScore = score;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (best != null) {
+            hits.increment();
+            saved.record(best.costNanos, TimeUnit.NANOSECONDS);
+            log.info("Answer cache hit (similarity {}) for '{}' ← '{}'",
+                    String.format("%.3f", bestScore), question, best.question);
+            return new Lookup(this, best.answer, vector, language, currentVersion, currentGeneration, question);
+        }
+        misses.increment();
+        return new Lookup(this, null, vector, language, currentVersion, currentGeneration, question);
+    }
+
+    /** A new regulations version was ingested: drop every answer, on every node. */
+    public void documentChanged(String documentHash) {
+        eventBus.publish(TOPIC, documentHash);
+    }
+
+    // ─── Internals ────────────────────────────────────────────
+
+    private void store(Lookup lookup, String answer, long costNanos) {
+        if (answer == null) return;
+        Entry entry = new Entry(lookup.question, lookup.vector, lookup.language, lookup.version,
+                answer, costNanos, System.nanoTime() + ttl.toNanos());
+        lock.writeLock().lock();
+        try {
+            // Regulations changed (or were re-ingested) meanwhile
+            if (lookup.generation != generation || !Objects.equals(lookup.version, version)) return;
+            entries.add(entry);
+            while (entries.size() > maxEntries) entries.remove(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void onDocumentChanged(String documentHash) {
+        lock.writeLock().lock();
+        try {
+            // Always clear: a re-ingestion with the same hash may still have changed the chunks
+            version = documentHash;
+            generation++;
+            int dropped = entries.size();
+            entries.clear();
+            log.info("Regulations changed — {} cached answer(s) dropped", dropped);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lower case, no accents, no punctuation, single spaces. */
+    static String normalize(String question) {
+        String s = Normalizer.normalize(question.toLowerCase(), Normalizer.Form.NFD);
+        s = DIACRITICS.matcher(s).replaceAll("");
+        return NON_WORD.matcher(s).replaceAll(" ").trim();
+    }
+
+    private static float[] unit(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        if (norm == 0) return v;
+        float[] u = new float[v.length];
+        for (int i = 0; i < v.length; i++) u[i] = (float) (v[i] / norm);
+        return u;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) return -1;   // embedding model changed
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    /** Result of {@link #lookup}: either a cached answer, or a slot to store the computed one. */
+    public static final class Lookup {
+
+        static final Lookup BYPASS = new Lookup(null, null, null, null, null, 0, null);
+
+        private final SemanticAnswerCache cache;
+        private final String answer;
+        private final float[] vector;
+        private final String language;
+        private final String version;
+        private final long generation;
+        private final String question;
+
+        private Lookup(SemanticAnswerCache cache, String answer, float[] vector,
+                       String language, String version, long generation, String question) {
+            this.cache = cache;
+            this.answer = answer;
+            this.vector = vector;
+            this.language = language;
+            this.version = version;
+            this.generation = generation;
+            this.question = question;
+        }
+
+        public boolean isHit() {
+            return answer != null;
+        }
+
+        public String answer() {
+            return answer;
+        }
+
+        /** Caches {@code answer}, computed in {@code costNanos}; no-op on a hit or bypass. */
+        public void store(String answer, long costNanos) {
+            if (cache != null && !isHit()) cache.store(this, answer, costNanos);
+        }
+    }
+
+    private record Entry(String question, float[] vector, String language, String version,
+                         String answer, long costNanos, long expiresAt) { }
+}
@@ -1,55 +1,362 @@
 package com.example.pfe.Service;
 
 import com.example.pfe.dto.NotificationDTO;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.pfe.messaging.NotificationBroker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Keeps one active SSE connection per user.
- * When NotificationService creates a notification it calls
- * {@link #push(Long, NotificationDTO)} to deliver it instantly.
+ * Live SSE connections, several per user (one per browser tab).
+ *
+ * {@link #push} never writes to a socket: it drops the event into each of
+ * the user's connection queues and returns, so a slow client cannot stall
+ * NotificationService. A small dispatcher pool drains the queues — at most
+ * one drain per connection at a time, which keeps events in order, and at
+ * most {@code max-events-per-drain} events per turn before the connection
+ * goes to the back of the pool's queue. {@link #pushAll} fan-outs are built
+ * on their own single thread so they never wait behind socket writes.
+ *
+ * Trade-off: {@code SseEmitter.send} is a blocking servlet write, so a client
+ * that stops reading holds a dispatcher thread until the container's write
+ * timeout fires. The heartbeat closes any connection whose send has been in
+ * progress for more than {@code send-timeout-ms} (counted in
+ * sse.connections.stalled) so nothing more is queued for it, but the thread
+ * itself is only released by that container timeout — size
+ * {@code dispatcher-threads} for the number of stalled clients to ride out.
+ *
+ * When a connection's queue is full the oldest event is dropped and the
+ * client later gets a single {@code resync} event telling it to reload its
+ * notifications over REST. Heartbeat comments go through the same queue
+ * (only when it is empty) so a dead connection fails on write and is removed.
+ *
+ * Publishing goes through the {@link NotificationBroker}, which hands each
+ * node the events of the users connected to it — with several app nodes a
+ * user's tabs may be spread over all of them.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class SseEmitterService {
 
-    private final Map<Long, SseEmitter> emitters = new ConcurrentHashMap<>();
+    static final String RESYNC_EVENT = "resync";
 
-    public SseEmitter createEmitter(Long userId) {
-        SseEmitter old = emitters.remove(userId);
-        if (old != null) { try { old.complete(); } catch (Exception ignored) {} }
+    private final MeterRegistry      meterRegistry;
+    private final NotificationBroker broker;
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.sse.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${app.sse.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.sse.dispatcher-threads:4}")
+    private int dispatcherThreads;
+
+    @Value("${app.sse.max-events-per-drain:16}")
+    private int maxEventsPerDrain = 16;
+
+    @Value("${app.sse.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10_000;
+
+    /** Pending pushAll fan-outs; beyond this they are dropped and logged. */
+    private static final int FANOUT_QUEUE_CAPACITY = 100;
+
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicLong connectionSeq = new AtomicLong();
+
+    private ExecutorService dispatcher;
+    private ExecutorService fanout;
+    private Counter droppedEvents;
+    private Counter stalledConnections;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(dispatcherThreads, r -> {
+            Thread t = new Thread(r, "sse-dispatch-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        fanout = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(FANOUT_QUEUE_CAPACITY), r -> {
+            Thread t = new Thread(r, "sse-fanout");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("sse.connections", this, SseEmitterService::connectionCount)
+                .register(meterRegistry);
+        Gauge.builder("sse.users", connections, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("sse.queue.depth", this, SseEmitterService::queuedEvents)
+                .register(meterRegistry);
+        droppedEvents = meterRegistry.counter("sse.events.dropped");
+        stalledConnections = meterRegistry.counter("sse.connections.stalled");
+
+        broker.attach(new NotificationBroker.LocalNode() {
+            @Override
+            public Set<Long> connectedUsers() {
+                return Set.copyOf(connections.keySet());
+            }
+
+            @Override
+            public boolean isConnectedHere(Long userId) {
+                return connections.containsKey(userId);
+            }
+
+            @Override
+            public void deliver(List<NotificationBroker.Delivery> deliveries) {
+                deliveries.forEach(d -> deliverLocal(d.userId(), d.eventName(), d.data()));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanout.shutdownNow();
+        dispatcher.shutdownNow();
+        connections.values().forEach(set -> set.forEach(c -> c.emitter.complete()));
+        connections.clear();
+    }
 
-        SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
+    // ─── Connections ──────────────────────────────────────────
 
-        emitter.onCompletion(() -> emitters.remove(userId));
-        emitter.onTimeout(()     -> emitters.remove(userId));
-        emitter.onError(e        -> emitters.remove(userId));
+    /**
+     * Opens a new stream for {@code userId}. Earlier tabs stay connected;
+     * past {@code max-connections-per-user} the oldest one is closed.
+     */
+    public SseEmitter createEmitter(Long userId) {
+        Connection connection = new Connection(connectionSeq.incrementAndGet(), userId,
+                newEmitter(), new ArrayBlockingQueue<>(queueCapacity));
 
-        emitters.put(userId, emitter);
+        SseEmitter emitter = connection.emitter;
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(()     -> remove(connection));
+        emitter.onError(e        -> remove(connection));
 
-        log.debug("SSE emitter created for user {}", userId);
+        // compute() so a concurrent remove() of the last connection cannot orphan this one
+        Set<Connection> userConnections = connections.compute(userId, (id, set) -> {
+            Set<Connection> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            s.add(connection);
+            return s;
+        });
+        while (userConnections.size() > maxConnectionsPerUser) {
+            userConnections.stream()
+                    .min(Comparator.comparingLong(c -> c.id))
+                    .ifPresent(oldest -> {
+                        remove(oldest);
+                        oldest.emitter.complete();
+                    });
+        }
+
+        broker.onConnect(userId);
+        log.debug("SSE emitter created for user {} ({} open)", userId, userConnections.size());
         return emitter;
     }
 
+    /** Separate so tests can observe what is written. */
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (id, set) -> {
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+        connection.queue.clear();
+    }
+
+    /** {@code true} if the user has a stream open on any node. */
+    public boolean isConnected(Long userId) {
+        return broker.isOnline(userId);
+    }
+
+    /** Users with a stream open on any node, for filtering many recipients at once. */
+    public Set<Long> onlineUsers() {
+        return broker.onlineUsers();
+    }
+
+    // ─── Publishing ───────────────────────────────────────────
+
     public void push(Long userId, NotificationDTO dto) {
-        SseEmitter emitter = emitters.get(userId);
-        if (emitter == null) return;
+        push(userId, "notification", dto);
+    }
+
+    /**
+     * Sends a JSON event to every open connection of the user, on any node.
+     * Never blocks on a socket; with a cluster broker it costs one insert.
+     */
+    public void push(Long userId, String eventName, Object data) {
+        broker.publish(List.of(new NotificationBroker.Delivery(userId, eventName, data)));
+    }
+
+    /**
+     * Pushes one event per user from the fan-out thread, so a fan-out to
+     * thousands of users returns without walking them.
+     */
+    public void pushAll(Map<Long, NotificationDTO> byUser) {
+        pushAll("notification", byUser);
+    }
+
+    public void pushAll(String eventName, Map<Long, ?> byUser) {
+        if (byUser.isEmpty()) return;
+        try {
+            fanout.execute(() -> {
+                List<NotificationBroker.Delivery> deliveries = new ArrayList<>(byUser.size());
+                byUser.forEach((userId, data) -> deliveries.add(new NotificationBroker.Delivery(userId, eventName, data)));
+                broker.publish(deliveries);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("SSE fan-out queue full — dropping a fan-out of {} events", byUser.size());
+        }
+    }
+
+    /** Queues the event on this node's connections of the user; {@code data} may be a ready JSON string. */
+    private void deliverLocal(Long userId, String eventName, Object data) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections == null) return;
+
+        for (Connection connection : userConnections) {
+            enqueue(connection, SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * Keeps proxies from closing idle streams, flushes out dead connections
+     * and closes those stuck in one send for longer than {@code send-timeout-ms}.
+     */
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                long since = connection.sendingSince.get();
+                if (since != 0 && now - since > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)) {
+                    stalledConnections.increment();
+                    log.debug("SSE send to user {} stalled for over {} ms — closing connection",
+                            connection.userId, sendTimeoutMs);
+                    remove(connection);
+                    connection.emitter.completeWithError(new IOException("SSE send stalled"));
+                } else if (connection.queue.isEmpty()) {   // anything already queued proves liveness too
+                    enqueue(connection, SseEmitter.event().comment("ping"));
+                }
+            }
+        }
+    }
+
+    private void enqueue(Connection connection, SseEmitter.SseEventBuilder event) {
+        while (!connection.queue.offer(event)) {
+            if (connection.queue.poll() != null) {
+                droppedEvents.increment();
+                connection.lost.set(true);
+            }
+        }
+        scheduleDrain(connection);
+    }
+
+    // ─── Dispatch ─────────────────────────────────────────────
+
+    private void scheduleDrain(Connection connection) {
+        if (!connection.draining.compareAndSet(false, true)) return;
+        try {
+            dispatcher.execute(() -> drain(connection));
+        } catch (RejectedExecutionException e) {
+            connection.draining.set(false);   // shutting down
+        }
+    }
 
+    private void drain(Connection connection) {
         try {
-            emitter.send(SseEmitter.event()
-                    .name("notification")
-                    .data(dto, MediaType.APPLICATION_JSON));
-        } catch (IOException e) {
-            log.warn("Failed to push SSE to user {} — removing emitter", userId);
-            emitters.remove(userId);
+            SseEmitter.SseEventBuilder event;
+            int sent = 0;
+            // Bounded turn: the rest is picked up by the reschedule below, behind other connections
+            while (sent++ < maxEventsPerDrain && (event = connection.queue.poll()) != null) {
+                if (connection.lost.getAndSet(false)) {
+                    send(connection, SseEmitter.event().name(RESYNC_EVENT).data("{}", MediaType.APPLICATION_JSON));
+                }
+                send(connection, event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE send to user {} failed — closing connection: {}", connection.userId, e.getMessage());
+            remove(connection);
+            connection.emitter.completeWithError(e);
+        } finally {
+            connection.draining.set(false);
+        }
+        // An event may have been queued after the last poll but before the flag was cleared
+        if (!connection.queue.isEmpty() && connections.getOrDefault(connection.userId, Set.of()).contains(connection)) {
+            scheduleDrain(connection);
+        }
+    }
+
+    private void send(Connection connection, SseEmitter.SseEventBuilder event) throws IOException {
+        connection.sendingSince.set(System.nanoTime());
+        try {
+            connection.emitter.send(event);
+        } finally {
+            connection.sendingSince.set(0);
+        }
+    }
+
+    // ─── Metrics ──────────────────────────────────────────────
+
+    private int connectionCount() {
+        return connections.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private int queuedEvents() {
+        return connections.values().stream()
+                .flatMap(Set::stream)
+                .mapToInt(c -> c.queue.size())
+                .sum();
+    }
+
+    private static final class Connection {
+        final long id;
+        final Long userId;
+        final SseEmitter emitter;
+        final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean lost     = new AtomicBoolean();
+        final AtomicLong sendingSince = new AtomicLong();   // System.nanoTime() of the send in progress, 0 if none
+
+        Connection(long id, Long userId, SseEmitter emitter, BlockingQueue<SseEmitter.SseEventBuilder> queue) {
+            this.id = id;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = queue;
         }
     }
-}
\ No newline at end of file
+}
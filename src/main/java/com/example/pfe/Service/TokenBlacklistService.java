@@ -1,19 +1,146 @@
 package com.example.pfe.Service;
 
+import com.example.pfe.Repository.RevokedTokenRepository;
+import com.example.pfe.entities.RevokedToken;
+import com.example.pfe.messaging.ClusterEventBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Revoked (logged out) tokens, until they expire.
+ *
+ * "Expire" means {@code exp} plus {@link JwtService}'s clock skew, since
+ * that is how long verification still accepts the token; the revocation is
+ * filed, persisted and broadcast under that later instant.
+ *
+ * Tokens are keyed by a 128-bit SHA-256 prefix, so the raw bearer token is
+ * never kept, logged or stored. Each id is filed in a one-minute bucket of
+ * its token's {@code exp}; {@link #sweep()} drops whole buckets once they are
+ * past, so memory follows the number of revoked tokens that could still be
+ * used rather than every logout since startup.
+ *
+ * Revocations are written to {@code revoked_tokens} (reloaded at startup)
+ * and broadcast on the {@link ClusterEventBus} so every node rejects the
+ * token straight away.
+ */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class TokenBlacklistService {
-    private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
+
+    static final String TOPIC = "token-revoked";
+    private static final long BUCKET_MS = 60_000;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final JwtService             jwtService;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ClusterEventBus        eventBus;
+    private final MeterRegistry          meterRegistry;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();                        // id → exp + skew (epoch ms)
+    private final NavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();     // exp minute → ids
+
+    @PostConstruct
+    public void init() {
+        eventBus.subscribe(TOPIC, this::onRevoked);
+        Gauge.builder("security.revoked.tokens", revoked, Map::size).register(meterRegistry);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            revokedTokenRepository.findByExpiresAtAfter(now)
+                    .forEach(r -> remember(r.getTokenId(), r.getExpiresAt().atZone(ZONE).toInstant().toEpochMilli()));
+            log.info("🔒 Loaded {} live token revocation(s)", revoked.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load token revocations: {}", e.getMessage());
+        }
+    }
 
     public void blacklist(String token) {
-        blacklistedTokens.add(token);
-        System.out.println("Token blacklisté: " + token.substring(0, 10) + "...");
+        Instant expiresAt = jwtService.verify(token)
+                .map(JwtService.VerifiedToken::expiresAt)
+                .orElse(null);
+        if (expiresAt == null) {
+            log.debug("Not revoking a token that is invalid or never expires");
+            return;
+        }
+
+        // Verification accepts the token until exp + skew, so the revocation must last as long
+        Instant acceptedUntil = expiresAt.plusSeconds(jwtService.getClockSkewSeconds());
+        String id = TokenDigests.shortId(token);
+        long exp = acceptedUntil.toEpochMilli();
+        remember(id, exp);
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(id)
+                .expiresAt(LocalDateTime.ofInstant(acceptedUntil, ZONE))
+                .revokedAt(LocalDateTime.now())
+                .build());
+        eventBus.publish(TOPIC, id + "|" + exp);
+        log.debug("Token {} revoked until {}", id, acceptedUntil);
     }
 
     public boolean isBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        if (token == null || revoked.isEmpty()) return false;   // common case: no hashing at all
+        Long exp = revoked.get(TokenDigests.shortId(token));
+        return exp != null && exp > System.currentTimeMillis();
+    }
+
+    /** Forgets revocations whose tokens have expired, in memory and in the table. */
+    @Scheduled(fixedDelayString = "${app.security.revocation.sweep-ms:60000}")
+    @Transactional
+    public void sweep() {
+        long currentBucket = System.currentTimeMillis() / BUCKET_MS;
+        int dropped = 0;
+        for (var it = buckets.headMap(currentBucket).entrySet().iterator(); it.hasNext(); ) {
+            for (String id : it.next().getValue()) {
+                revoked.remove(id);
+                dropped++;
+            }
+            it.remove();
+        }
+        try {
+            int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+            if (dropped > 0 || deleted > 0) {
+                log.debug("Revocation sweep: {} dropped from memory, {} deleted", dropped, deleted);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Revocation cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    // ─── Internals ────────────────────────────────────────────
+
+    private void onRevoked(String payload) {
+        int sep = payload.indexOf('|');
+        try {
+            remember(payload.substring(0, sep), Long.parseLong(payload.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed revocation '{}'", payload);
+        }
+    }
+
+    private void remember(String id, long exp) {
+        if (exp <= System.currentTimeMillis()) return;
+        if (revoked.put(id, exp) == null) {
+            buckets.computeIfAbsent(Math.floorDiv(exp, BUCKET_MS), b -> ConcurrentHashMap.newKeySet()).add(id);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.example.pfe.Service;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * SHA-256 keys for bearer tokens, so a raw token is never used as a map key,
+ * logged or stored.
+ */
+final class TokenDigests {
+
+    private TokenDigests() {
+    }
+
+    /** Full SHA-256 of the token, Base64 — in-memory cache keys. */
+    static String sha256(String token) {
+        return Base64.getEncoder().encodeToString(DigestUtils.sha256(token));
+    }
+
+    /** 128-bit URL-safe prefix of the SHA-256 — the id stored in revoked_tokens. */
+    static String shortId(String token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(DigestUtils.sha256(token), 16));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.pfe.Service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs side effects (broadcasts, SSE pushes, blob clean-up) at the right
+ * point of the surrounding transaction, so other nodes and clients never
+ * see an event for data that is not committed yet.
+ */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /** Runs {@code action} after the current transaction commits, or right away if there is none. */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Runs {@code action} if the current transaction rolls back; nothing happens outside a transaction. */
+    static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.NotificationCounterRepository;
+import com.example.pfe.entities.NotificationCounter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user unread-notification counters ({@code notification_counters}).
+ *
+ * NotificationService adjusts them in the same transaction as the
+ * notification insert / read update, so the bell badge reads one row by
+ * primary key instead of counting the user's notifications on every page
+ * load. After commit the new value is pushed to the user's open tabs as an
+ * {@value #UNREAD_EVENT} SSE event.
+ *
+ * A user without a row is seeded from the real count on first use, and an
+ * hourly job resets every counter to the real count, which bounds the
+ * effect of any missed update.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadCounterService {
+
+    static final String UNREAD_EVENT = "unread-count";
+
+    private static final int RECONCILE_CHUNK = 500;
+
+    private final NotificationCounterRepository counterRepository;
+    private final SseEmitterService             sseEmitterService;
+    private final JdbcTemplate                  jdbcTemplate;
+    private final TransactionTemplate           transactionTemplate;
+
+    /** Current unread count — one primary-key read once the row exists. */
+    @Transactional
+    public long get(Long userId) {
+        return counterRepository.findById(userId)
+                .or(() -> {
+                    counterRepository.applyDelta(userId, 0);
+                    return counterRepository.findById(userId);
+                })
+                .map(NotificationCounter::getUnreadCount)
+                .orElse(0L);
+    }
+
+    /** Adjusts one counter; call inside the transaction that changed the notifications. */
+    @Transactional
+    public void add(Long userId, long delta) {
+        counterRepository.applyDelta(userId, delta);
+        publishAfterCommit(List.of(userId));
+    }
+
+    /** Same delta for many users in one JDBC batch (fan-out). */
+    @Transactional
+    public void addAll(List<Long> userIds, long delta) {
+        if (userIds.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new Object[] { userId, userId, delta });
+        }
+        jdbcTemplate.batchUpdate(NotificationCounterRepository.APPLY_DELTA_SQL, rows);
+        publishAfterCommit(userIds);
+    }
+
+    /** Resets every counter to the real count, chunk by chunk. */
+    @Scheduled(cron = "${app.notifications.unread-reconcile-cron:0 15 * * * *}")
+    public void reconcile() {
+        long afterId = 0;
+        int total = 0;
+        List<Long> chunk;
+        do {
+            chunk = counterRepository.findUserIdsAfter(afterId, PageRequest.of(0, RECONCILE_CHUNK));
+            if (chunk.isEmpty()) break;
+            List<Long> ids = chunk;
+            transactionTemplate.executeWithoutResult(status -> counterRepository.reconcile(ids));
+            afterId = chunk.get(chunk.size() - 1);
+            total += chunk.size();
+        } while (chunk.size() == RECONCILE_CHUNK);
+        log.debug("Unread counters reconciled for {} users", total);
+    }
+
+    /**
+     * Resets the given users' counters to the real count in its own
+     * transaction — for bulk deletes that don't track per-user deltas
+     * (retention purge).
+     */
+    public void reconcile(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        transactionTemplate.executeWithoutResult(status -> counterRepository.reconcile(userIds));
+        publishAfterCommit(userIds);
+    }
+
+    // ─── SSE ──────────────────────────────────────────────────
+
+    /** After commit, reads the new values of connected users only and pushes them. */
+    private void publishAfterCommit(Collection<Long> userIds) {
+        Runnable publish = () -> {
+            Set<Long> connected = sseEmitterService.onlineUsers();
+            List<Long> online = userIds.stream().filter(connected::contains).toList();
+            if (online.isEmpty()) return;
+            Map<Long, Map<String, Long>> counts = counterRepository.findAllById(online).stream()
+                    .collect(Collectors.toMap(NotificationCounter::getUserId,
+                            c -> Map.of("count", c.getUnreadCount())));
+            sseEmitterService.pushAll(UNREAD_EVENT, counts);
+        };
+
+        TransactionCallbacks.afterCommit(publish);
+    }
+}
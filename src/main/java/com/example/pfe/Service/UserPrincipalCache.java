@@ -0,0 +1,125 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.config.UserPrincipal;
+import com.example.pfe.messaging.ClusterEventBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Per-node cache of {@link UserPrincipal}s by email, so JwtAuthenticationFilter
+ * does not load the user and its roles on every request.
+ *
+ * Bounded (LRU) and TTL'd; the TTL only caps staleness if an invalidation is
+ * ever lost. Services that change anything a principal carries — enabled
+ * flag, password, roles, email — call {@link #invalidate(Long)}: the entry
+ * is dropped at once, dropped again after the transaction commits, and the
+ * user id is broadcast on the {@link ClusterEventBus} so other nodes drop
+ * theirs too.
+ *
+ * A load that started before an invalidation is not stored (generation
+ * check), so a request racing with an update cannot put the old principal
+ * back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserPrincipalCache {
+
+    static final String TOPIC = "user-principal";
+    private static final String ALL = "*";
+
+    private final ClusterEventBus eventBus;
+    private final MeterRegistry   meterRegistry;
+
+    @Value("${app.security.principal-cache.ttl:PT5M}")
+    private Duration ttl = Duration.ofMinutes(5);
+
+    @Value("${app.security.principal-cache.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    private MeteredLruCache<String, Entry> entries;
+    private long generation;   // guarded by entries
+
+    @PostConstruct
+    public void init() {
+        entries = new MeteredLruCache<>(maxEntries, meterRegistry,
+                "security.principal.cache", "security.principal.cache.size");
+
+        eventBus.subscribe(TOPIC, this::onInvalidation);
+    }
+
+    /** Cached principal for {@code email}, or {@code loader}'s result (cached unless it threw). */
+    public UserPrincipal get(String email, Function<String, UserPrincipal> loader) {
+        long startedAt;
+        synchronized (entries) {
+            Entry entry = entries.get(email);
+            if (entry != null && entry.expiresAt > System.nanoTime()) {
+                entries.hit();
+                return entry.principal;
+            }
+            if (entry != null) entries.remove(email);
+            startedAt = generation;
+        }
+
+        entries.miss();
+        UserPrincipal principal = loader.apply(email);
+        synchronized (entries) {
+            if (generation == startedAt) {
+                entries.put(email, new Entry(principal, System.nanoTime() + ttl.toNanos()));
+            }
+        }
+        return principal;
+    }
+
+    /** Drops the user's principal on every node; safe to call inside a transaction. */
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        broadcastAfterCommit(userId.toString());
+    }
+
+    /** Drops every cached principal on every node (bulk updates). */
+    public void invalidateAll() {
+        broadcastAfterCommit(ALL);
+    }
+
+    // ─── Invalidation ─────────────────────────────────────────
+
+    private void broadcastAfterCommit(String payload) {
+        evictLocal(payload);
+        // local listener evicts again, after the new data is visible
+        TransactionCallbacks.afterCommit(() -> eventBus.publish(TOPIC, payload));
+    }
+
+    private void onInvalidation(String payload) {
+        evictLocal(payload);
+    }
+
+    private void evictLocal(String payload) {
+        synchronized (entries) {
+            generation++;
+            if (ALL.equals(payload)) {
+                entries.clear();
+                return;
+            }
+            try {
+                Long userId = Long.valueOf(payload);
+                entries.removeIf(e -> userId.equals(e.principal.getId()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed principal invalidation '{}'", payload);
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Entry(UserPrincipal principal, long expiresAt) { }
+}
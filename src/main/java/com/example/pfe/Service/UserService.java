@@ -15,6 +15,7 @@ import com.example.pfe.exception.BusinessException;
 import com.example.pfe.exception.ResourceNotFoundException;
 import com.example.pfe.mapper.UserMapper;
 import com.example.pfe.specification.UserSpecification;
+import com.example.pfe.storage.BlobStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
@@ -48,6 +49,10 @@ public class UserService {
     private final UserMapper userMapper;
     private final EmailService emailService;
     private final JwtService jwtService;
+    private final PreviewService previewService;
+    private final BlobStore blobStore;
+    private final UserPrincipalCache principalCache;
+    private final PasswordHashingEngine passwordHashing;
 
     // ==================== CRUD OPERATIONS ====================
     @Value("${app.upload.dir:uploads/avatars}")
@@ -116,6 +121,7 @@ public class UserService {
         setUserRelations(existingUser, userRequestDTO);
 
         User updatedUser = userRepository.save(existingUser);
+        principalCache.invalidate(updatedUser.getId());   // email, roles or flags may have changed
         log.info("User updated successfully: {} (ID: {})", updatedUser.getEmail(), updatedUser.getId());
 
         return userMapper.toResponseDTO(updatedUser);
@@ -151,6 +157,7 @@ public class UserService {
         user.setActive(true);
         user.setEnabled(true);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
         log.info("User reactivated: {}", user.getEmail());
     }
 
@@ -161,9 +168,10 @@ public class UserService {
         User user = getUserEntityById(id);
 
         String newTemporaryPassword = generateTemporaryPassword();
-        user.setPasswordHash(passwordEncoder.encode(newTemporaryPassword));
+        user.setPasswordHash(hashPassword(newTemporaryPassword));
         user.setFirstLogin(true);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
 
         // Envoyer email avec nouveau mot de passe
         emailService.sendPasswordResetEmail(
@@ -201,6 +209,15 @@ public class UserService {
 
     // ==================== PRIVATE HELPER METHODS ====================
 
+    // BCrypt runs on the bounded hashing pool, like login
+    private String hashPassword(String rawPassword) {
+        return passwordHashing.run("hash", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    private boolean passwordMatches(String rawPassword, String hash) {
+        return passwordHashing.run("verify", () -> passwordEncoder.matches(rawPassword, hash));
+    }
+
     private User getUserEntityById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User with ID " + id + " not found"));
@@ -229,7 +246,7 @@ public class UserService {
     private User buildUserEntity(UserRequestDTO dto, String tempPassword) {
         User user = userMapper.toEntity(dto);
         user.setUsername(dto.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(tempPassword));
+        user.setPasswordHash(hashPassword(tempPassword));
         user.setEnabled(false);           // Not activated yet
         user.setActive(false);            // Not active until approved+activated
         user.setFirstLogin(true);
@@ -334,6 +351,7 @@ public class UserService {
         // ← Only touch active, never enabled
         user.setActive(false);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
 
         try {
             emailService.sendAccountDisabledEmail(user.getEmail(),
@@ -361,6 +379,7 @@ public class UserService {
         user.setActivationToken(null);
         user.setActivationTokenExpiry(null);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
 
         try {
             emailService.sendAccountApprovedEmail(user.getEmail(),
@@ -385,6 +404,7 @@ public class UserService {
 
         // Delete the user (or you could mark them as rejected)
         userRepository.delete(user);
+        principalCache.invalidate(user.getId());
 
         log.info("User rejected successfully: {}", user.getEmail());
     }
@@ -446,6 +466,7 @@ public class UserService {
         // ← Only restore active, registration (enabled) stays untouched
         user.setActive(true);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
         log.info("User re-enabled successfully: {}", user.getEmail());
     }
 
@@ -470,6 +491,7 @@ public class UserService {
             }
         }
         userRepository.saveAll(users);
+        principalCache.invalidateAll();
         log.info("Fixed {} users", users.size());
     }
     /**
@@ -498,19 +520,20 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         // Verify current password
-        if (!passwordEncoder.matches(dto.getCurrentPassword(), user.getPasswordHash())) {
+        if (!passwordMatches(dto.getCurrentPassword(), user.getPasswordHash())) {
             throw new BusinessException("Current password is incorrect");
         }
 
         // Prevent using the same password
-        if (passwordEncoder.matches(dto.getNewPassword(), user.getPasswordHash())) {
+        if (passwordMatches(dto.getNewPassword(), user.getPasswordHash())) {
             throw new BusinessException("New password must be different from current password");
         }
 
         // Update password
-        user.setPasswordHash(passwordEncoder.encode(dto.getNewPassword()));
+        user.setPasswordHash(hashPassword(dto.getNewPassword()));
         user.setFirstLogin(false);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
 
         log.info("Password changed successfully for user: {}", email);
     }
@@ -538,23 +561,25 @@ public class UserService {
             throw new BusinessException("Image must be smaller than 5MB");
         }
 
+        Path tmp = null;
         try {
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
             // Delete old photo if exists
             if (user.getAvatar() != null && !user.getAvatar().isEmpty()) {
                 String oldFileName = user.getAvatar().substring(user.getAvatar().lastIndexOf('/') + 1);
-                Path oldFilePath = uploadPath.resolve(oldFileName);
-                Files.deleteIfExists(oldFilePath);
+                blobStore.delete(oldFileName);
+                previewService.deleteAvatarVariants(oldFileName);
             }
 
             String extension = getFileExtension(photo.getOriginalFilename());
             String newFileName = "avatar_" + userId + "_" + UUID.randomUUID() + "." + extension;
-            Path targetPath = uploadPath.resolve(newFileName);
-            Files.copy(photo.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+
+            // Spool locally, then hand over to the blob store (local dir or S3)
+            Path spool = Paths.get(uploadDir).resolve(".spool");
+            Files.createDirectories(spool);
+            tmp = Files.createTempFile(spool, "avatar-", ".part");
+            Files.copy(photo.getInputStream(), tmp, StandardCopyOption.REPLACE_EXISTING);
+            blobStore.put(newFileName, tmp, contentType);
+            previewService.scheduleAvatarVariants(newFileName);   // 64/256 px JPEGs next to it
 
             // ✅ FIX : chemin relatif uniquement, sans baseUrl
             String avatarPath = "/uploads/avatars/" + newFileName;
@@ -567,6 +592,17 @@ public class UserService {
         } catch (IOException e) {
             log.error("Failed to upload photo for user {}: {}", userId, e.getMessage());
             throw new BusinessException("Failed to save photo: " + e.getMessage());
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", file, e.getMessage());
         }
     }
 
@@ -0,0 +1,81 @@
+package com.example.pfe.config;
+
+import com.example.pfe.storage.BlobStore;
+import com.example.pfe.storage.LocalBlobStore;
+import com.example.pfe.storage.S3BlobStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Picks the file storage backend.
+ *
+ *   app.storage.backend=local  (default) — files under app.upload.dir on this node
+ *   app.storage.backend=s3     — S3-compatible bucket; set app.storage.s3.endpoint
+ *                                for MinIO and friends (path-style addressing)
+ *
+ * Access keys fall back to the AWS default chain (env, profile, instance role)
+ * when app.storage.s3.access-key is empty.
+ */
+@Configuration
+@Slf4j
+public class BlobStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "local", matchIfMissing = true)
+    public BlobStore localBlobStore(@Value("${app.upload.dir:uploads/avatars}") String uploadDir) {
+        LocalBlobStore store = new LocalBlobStore(Paths.get(uploadDir));
+        log.info("📁 Blob store: local — {}", store.getRoot());
+        return store;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+    public BlobStore s3BlobStore(
+            @Value("${app.storage.s3.bucket}") String bucket,
+            @Value("${app.storage.s3.prefix:}") String prefix,
+            @Value("${app.storage.s3.region:us-east-1}") String region,
+            @Value("${app.storage.s3.endpoint:}") String endpoint,
+            @Value("${app.storage.s3.access-key:}") String accessKey,
+            @Value("${app.storage.s3.secret-key:}") String secretKey,
+            @Value("${app.storage.s3.part-size-bytes:8388608}") long partSize,
+            @Value("${app.storage.s3.presign-downloads:true}") boolean presignDownloads) {
+
+        AwsCredentialsProvider credentials = accessKey.isEmpty()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        S3Configuration s3Config = S3Configuration.builder()
+                .pathStyleAccessEnabled(!endpoint.isEmpty())   // MinIO: http://host:9000/bucket/key
+                .build();
+
+        S3ClientBuilder client = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Config);
+        S3Presigner.Builder presigner = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Config);
+        if (!endpoint.isEmpty()) {
+            client.endpointOverride(URI.create(endpoint));
+            presigner.endpointOverride(URI.create(endpoint));
+        }
+
+        log.info("🪣 Blob store: s3 — bucket {}, endpoint {}", bucket, endpoint.isEmpty() ? "AWS" : endpoint);
+        return new S3BlobStore(client.build(), presigner.build(), bucket, prefix, partSize, presignDownloads);
+    }
+}
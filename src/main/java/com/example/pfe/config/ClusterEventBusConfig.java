@@ -0,0 +1,43 @@
+package com.example.pfe.config;
+
+import com.example.pfe.messaging.ClusterEventBus;
+import com.example.pfe.messaging.JdbcClusterEventBus;
+import com.example.pfe.messaging.LocalClusterEventBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Picks how per-node caches hear about changes made on other nodes.
+ *
+ *   app.cluster.bus=local  (default) — one app node
+ *   app.cluster.bus=jdbc   — several nodes sharing the database; set it
+ *                            together with app.notifications.broker=jdbc
+ */
+@Configuration
+public class ClusterEventBusConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.cluster.bus", havingValue = "local", matchIfMissing = true)
+    public ClusterEventBus localClusterEventBus() {
+        return new LocalClusterEventBus();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.cluster.bus", havingValue = "jdbc")
+    public ClusterEventBus jdbcClusterEventBus(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.notifications.broker.node-id:}") String nodeId,
+            @Value("${app.cluster.bus.poll-interval:PT0.5S}") Duration pollInterval,
+            @Value("${app.cluster.bus.retention:PT10M}") Duration retention,
+            @Value("${app.cluster.bus.batch-size:500}") int batchSize) {
+
+        return new JdbcClusterEventBus(jdbcTemplate,
+                nodeId.isEmpty() ? NotificationBrokerConfig.DEFAULT_NODE_ID : nodeId,
+                pollInterval, retention, batchSize);
+    }
+}
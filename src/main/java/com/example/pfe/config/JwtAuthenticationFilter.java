@@ -1,5 +1,6 @@
 package com.example.pfe.config;
 
+import com.example.pfe.Service.JwtClaimsCache;
 import com.example.pfe.Service.JwtService;
 import com.example.pfe.Service.TokenBlacklistService;
 import jakarta.servlet.FilterChain;
@@ -18,6 +19,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -25,6 +27,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final JwtClaimsCache claimsCache;
     private final UserDetailsService userDetailsService;
     private final TokenBlacklistService blacklistService;
 
@@ -127,27 +130,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Check token validity
-        boolean isValid = jwtService.isTokenValid(jwt);
-        log.debug("Token valid basic check: {}", isValid);
+        // Verify signature + expiry once (cached per token) and reuse the claims below
+        Optional<JwtService.VerifiedToken> verified = claimsCache.verify(jwt);
+        log.debug("Token valid basic check: {}", verified.isPresent());
 
-        if (!isValid) {
+        if (verified.isEmpty()) {
             log.debug("Token is not valid: {}", path);
             filterChain.doFilter(request, response);
             return;
         }
 
-        // Check if it's an access token
-        boolean isAccessToken = jwtService.isAccessToken(jwt);
-        log.debug("Is access token: {}", isAccessToken);
+        JwtService.VerifiedToken token = verified.get();
+        log.debug("Is access token: {}", token.isAccess());
 
-        if (!isAccessToken) {
+        if (!token.isAccess()) {
             log.debug("Token is not an access token for path: {}", path);
             filterChain.doFilter(request, response);
             return;
         }
 
-        String userEmail = jwtService.extractUsername(jwt);
+        String userEmail = token.subject();
         log.debug("Extracted username: {}", userEmail);
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
@@ -155,7 +157,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
             log.debug("Loaded user details for: {}", userEmail);
 
-            boolean isValidForUser = jwtService.isTokenValid(jwt, userDetails);
+            boolean isValidForUser = jwtService.isTokenValid(token, userDetails);
             log.debug("Token valid for user: {}", isValidForUser);
 
             if (!isValidForUser) {
@@ -0,0 +1,61 @@
+package com.example.pfe.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Yearly leave entitlement rules, bound from {@code leave.balance.*}.
+ *
+ * Used both by the year-end rollover job (which pre-creates next year's
+ * balances) and by LeaveService when it has to create a balance lazily
+ * for a user hired after the rollover ran.
+ */
+@Component
+@ConfigurationProperties(prefix = "leave.balance")
+@Getter @Setter
+public class LeaveBalancePolicy {
+
+    // ─── Base entitlements ────────────────────────────────────
+    private double annualDays = 22.0;
+    private double sickDays   = 15.0;
+    private double unpaidDays = 0.0;
+
+    // ─── Carry-over ───────────────────────────────────────────
+    /** Max unused annual days moved to the next year (0 disables carry-over). */
+    private double maxCarryOverDays = 5.0;
+
+    // ─── Seniority accrual ────────────────────────────────────
+    /** Every N full years of service earns {@link #seniorityBonusDays}. */
+    private int    seniorityStepYears    = 5;
+    private double seniorityBonusDays    = 1.0;
+    private double maxSeniorityBonusDays = 5.0;
+
+    /**
+     * Annual entitlement for the given year, before carry-over.
+     * Seniority is measured on January 1st of that year.
+     */
+    public double annualEntitlement(LocalDate hireDate, int year) {
+        return annualDays + seniorityBonus(hireDate, year);
+    }
+
+    public double seniorityBonus(LocalDate hireDate, int year) {
+        if (hireDate == null || seniorityStepYears <= 0) return 0.0;
+
+        long yearsOfService = ChronoUnit.YEARS.between(hireDate, LocalDate.of(year, 1, 1));
+        if (yearsOfService <= 0) return 0.0;
+
+        double bonus = (yearsOfService / seniorityStepYears) * seniorityBonusDays;
+        return Math.min(bonus, maxSeniorityBonusDays);
+    }
+
+    /** Unused annual days from the previous year that survive the rollover. */
+    public double carryOver(Double previousRemaining) {
+        if (previousRemaining == null || previousRemaining <= 0) return 0.0;
+        return Math.min(previousRemaining, maxCarryOverDays);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.pfe.config;
+
+import com.example.pfe.messaging.JdbcNotificationBroker;
+import com.example.pfe.messaging.LocalNotificationBroker;
+import com.example.pfe.messaging.NotificationBroker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Picks how live notifications reach SSE streams.
+ *
+ *   app.notifications.broker=local  (default) — one app node
+ *   app.notifications.broker=jdbc   — several nodes behind a load balancer,
+ *                                     sharing events through the database
+ *
+ * Node ids default to {@code <hostname>-<random>}, unique per start and
+ * shared with the cluster event bus.
+ */
+@Configuration
+@Slf4j
+public class NotificationBrokerConfig {
+
+    static final String DEFAULT_NODE_ID = defaultNodeId();
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.notifications.broker", havingValue = "local", matchIfMissing = true)
+    public NotificationBroker localNotificationBroker() {
+        return new LocalNotificationBroker();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.notifications.broker", havingValue = "jdbc")
+    public NotificationBroker jdbcNotificationBroker(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.notifications.broker.node-id:}") String nodeId,
+            @Value("${app.notifications.broker.poll-interval:PT0.25S}") Duration pollInterval,
+            @Value("${app.notifications.broker.batch-size:500}") int batchSize,
+            @Value("${app.notifications.broker.presence-interval:PT5S}") Duration presenceInterval,
+            @Value("${app.notifications.broker.retention:PT10M}") Duration retention,
+            @Value("${app.notifications.broker.gap-timeout:PT10S}") Duration gapTimeout) {
+
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        return new JdbcNotificationBroker(jdbcTemplate, requiresNew, objectMapper, meterRegistry,
+                nodeId.isEmpty() ? DEFAULT_NODE_ID : nodeId,
+                new JdbcNotificationBroker.Settings(pollInterval, batchSize, presenceInterval, retention, gapTimeout));
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        String id = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.pfe.config;
+
+import com.example.pfe.enums.NotificationType;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Retention and coalescing rules for notifications, bound from
+ * {@code app.notifications.policy.*}.
+ *
+ * Used by NotificationService (coalescing on send) and by the nightly
+ * purge in NotificationRetentionService.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.notifications.policy")
+@Getter @Setter
+public class NotificationPolicy {
+
+    // ─── Retention ────────────────────────────────────────────
+    /** Age after which a notification is deleted; {@code null} keeps it forever. */
+    private Duration defaultRetention = Duration.ofDays(365);
+
+    /** Per-type override of {@link #defaultRetention}, e.g. LATE_ARRIVAL → 90d. */
+    private Map<NotificationType, Duration> retention = new HashMap<>();
+
+    // ─── Coalescing ───────────────────────────────────────────
+    /** Types merged into the previous unread one of the same type. */
+    private Set<NotificationType> coalesce = EnumSet.of(
+            NotificationType.LATE_ARRIVAL,
+            NotificationType.MISSED_CHECKOUT,
+            NotificationType.EARLY_DEPARTURE);
+
+    /** How far back an unread notification can absorb a new one. */
+    private Duration coalesceWindow = Duration.ofDays(7);
+
+    public Duration retentionOf(NotificationType type) {
+        return retention.getOrDefault(type, defaultRetention);
+    }
+
+    public boolean coalesces(NotificationType type) {
+        return coalesce.contains(type) && coalesceWindow != null && !coalesceWindow.isZero();
+    }
+}
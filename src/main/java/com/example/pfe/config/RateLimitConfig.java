@@ -0,0 +1,36 @@
+package com.example.pfe.config;
+
+import com.example.pfe.ratelimit.InMemoryRateLimitStore;
+import com.example.pfe.ratelimit.JdbcRateLimitStore;
+import com.example.pfe.ratelimit.RateLimitStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Picks where rate-limit buckets live.
+ *
+ *   app.rate-limit.backend=memory  (default) — per node; with N nodes behind a
+ *                                  load balancer a caller gets up to N× the limit
+ *   app.rate-limit.backend=jdbc    — shared through the database
+ */
+@Configuration
+@Slf4j
+public class RateLimitConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "memory", matchIfMissing = true)
+    public RateLimitStore inMemoryRateLimitStore(@Value("${app.rate-limit.max-keys:100000}") int maxKeys) {
+        log.info("🚦 Rate limit store: memory");
+        return new InMemoryRateLimitStore(maxKeys);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "jdbc")
+    public RateLimitStore jdbcRateLimitStore(JdbcTemplate jdbcTemplate) {
+        return new JdbcRateLimitStore(jdbcTemplate);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.pfe.config;
+
+import com.example.pfe.ratelimit.RateLimitStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Throttles the expensive route groups of {@link RateLimitPolicy}.
+ *
+ * Runs right after JwtAuthenticationFilter so an authenticated caller is
+ * limited by user id wherever they connect from; anonymous callers are
+ * limited by IP. Over the limit the request gets {@code 429} with a
+ * {@code Retry-After} header. If the store fails the request goes through —
+ * throttling is not worth an outage.
+ *
+ * Metrics: {@code http.rate_limit.requests{group, result=allowed|throttled}}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitPolicy policy;
+    private final RateLimitStore  store;
+    private final MeterRegistry   meterRegistry;
+    private final ObjectMapper    objectMapper;
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !policy.isEnabled() || "OPTIONS".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String path = request.getServletPath();
+        Map.Entry<String, RateLimitPolicy.Group> group = policy.getGroups().entrySet().stream()
+                .filter(e -> e.getValue().matches(request.getMethod(), path, matcher))
+                .findFirst()
+                .orElse(null);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String name = group.getKey();
+        RateLimitStore.Decision decision;
+        try {
+            decision = store.tryConsume(name + ":" + callerKey(request), group.getValue().limit());
+        } catch (RuntimeException e) {
+            log.warn("Rate limit check failed for {} — letting the request through: {}", name, e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        meterRegistry.counter("http.rate_limit.requests",
+                "group", name, "result", decision.allowed() ? "allowed" : "throttled").increment();
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfter = Math.max(1, (decision.retryAfter().toMillis() + 999) / 1000);
+        log.debug("Throttled {} {} ({}), retry in {}s", request.getMethod(), path, name, retryAfter);
+        writeTooManyRequests(response, retryAfter);
+    }
+
+    private String callerKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof UserPrincipal principal) {
+            return "user:" + principal.getId();
+        }
+        return "ip:" + clientIp(request);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (policy.isTrustForwardedFor()) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void writeTooManyRequests(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Too Many Requests");
+        body.put("message", "Trop de requêtes, réessayez dans " + retryAfterSeconds + " s");
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(), body);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.pfe.config;
+
+import com.example.pfe.ratelimit.RateLimitStore;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Route groups throttled by RateLimitFilter, bound from {@code app.rate-limit.*}.
+ *
+ * Each group has its own bucket per caller — the user id once
+ * JwtAuthenticationFilter has authenticated the request, the client IP
+ * otherwise. The first group whose paths (Ant patterns on the servlet path)
+ * and methods match is used; requests matching no group are not throttled.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Getter @Setter
+public class RateLimitPolicy {
+
+    private boolean enabled = true;
+
+    /** Use the first X-Forwarded-For address as client IP (only behind a trusted proxy). */
+    private boolean trustForwardedFor = false;
+
+    /** Group name → limits, in matching order. */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Getter @Setter
+    public static class Group {
+
+        private List<String> paths = new ArrayList<>();
+
+        /** HTTP methods; empty for all. */
+        private List<String> methods = new ArrayList<>();
+
+        /** Requests allowed in a burst. */
+        private int capacity = 10;
+
+        /** Time for an empty bucket to refill completely. */
+        private Duration period = Duration.ofMinutes(1);
+
+        public boolean matches(String method, String path, AntPathMatcher matcher) {
+            if (!methods.isEmpty() && methods.stream().noneMatch(method::equalsIgnoreCase)) return false;
+            return paths.stream().anyMatch(p -> matcher.match(p, path));
+        }
+
+        public RateLimitStore.Limit limit() {
+            return new RateLimitStore.Limit(capacity, period);
+        }
+    }
+}
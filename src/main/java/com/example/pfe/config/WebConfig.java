@@ -1,15 +1,27 @@
 package com.example.pfe.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.PathResourceResolver;
 
+import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 @Configuration
+@Slf4j
 public class WebConfig implements WebMvcConfigurer {
 
+    /** avatar_{userId}_{uuid}.{ext}, optionally followed by a .{size}.jpg variant suffix — no sub-paths. */
+    private static final Pattern AVATAR_FILE =
+            Pattern.compile("avatar_[A-Za-z0-9_-]+\\.[A-Za-z0-9]{1,5}(\\.\\d{2,4}\\.jpg)?");
+
     @Value("${app.upload.dir:uploads/avatars}")
     private String uploadDir;
 
@@ -19,9 +31,28 @@ public class WebConfig implements WebMvcConfigurer {
 
         // URL: /uploads/avatars/** → disk: <absolutePath>/
         // uploadDir = "uploads/avatars" → absolutePath = "/your/app/uploads/avatars"
+        // The same directory holds leaves/ and blobs/ (medical documents): only
+        // top-level avatar files and their variants are served, everything
+        // else is a 404. Avatar names carry a random UUID and variants are
+        // derived from them, so a URL never changes content — let browsers
+        // keep them for a year.
         registry.addResourceHandler("/uploads/avatars/**")
-                .addResourceLocations("file:" + absolutePath + "/");
+                .addResourceLocations("file:" + absolutePath + "/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new AvatarResourceResolver());
+
+        log.info("📁 Static resources: /uploads/avatars/avatar_* → file:{}/", absolutePath);
+    }
+
+    static boolean isAvatarFile(String resourcePath) {
+        return AVATAR_FILE.matcher(resourcePath).matches();
+    }
 
-        System.out.println("📁 Static resources: /uploads/avatars/** → file:" + absolutePath + "/");
+    private static class AvatarResourceResolver extends PathResourceResolver {
+        @Override
+        protected Resource getResource(String resourcePath, Resource location) throws IOException {
+            return isAvatarFile(resourcePath) ? super.getResource(resourcePath, location) : null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -26,6 +26,7 @@ public class LeaveDocumentDTO {
     private LocalDateTime reviewedAt;
     private LocalDateTime generatedAt;
     private boolean generatedBySystem;
+    private String previewUrl;          // small JPEG thumbnail, null if not previewable
 
     // ── Leave request info ─────────────────────────
     private Long leaveRequestId;
@@ -0,0 +1,29 @@
+package com.example.pfe.dto;
+
+import com.example.pfe.enums.LeaveType;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Body of POST /api/leaves/letters/export/zip.
+ * Selects APPROVED leave requests whose start date falls in [from, to].
+ *
+ * Example:
+ *   { "from": "2026-05-01", "to": "2026-05-31", "leaveType": "EXIT_AUTHORIZATION" }
+ */
+@Data
+public class LetterBatchRequest {
+
+    private LocalDate from;
+    private LocalDate to;
+
+    /** Optional — null means every leave type (acceptance letters + exit authorizations) */
+    private LeaveType leaveType;
+
+    /** Optional — restrict to one employee */
+    private Long userId;
+
+    /** Optional DG signature stamped on every letter */
+    private String signatureBase64;
+}
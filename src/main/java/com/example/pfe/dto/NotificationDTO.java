@@ -14,5 +14,7 @@ public class NotificationDTO {
     private String           message;
     private String           link;
     private boolean          read;
+    private int              occurrences;   // > 1 when repeated events were merged
     private LocalDateTime    createdAt;
+    private LocalDateTime    lastOccurredAt;   // latest merged event, null if none
 }
\ No newline at end of file
@@ -50,6 +50,7 @@ public class UserResponseDTO {
     private String username;
     private LocalDateTime createdAt;
     private String avatar;
+    private String avatarThumbnail;     // 64 px JPEG variant, generated in the background
 
 
 
@@ -47,5 +47,14 @@ import lombok.*;
 
         @Builder.Default
         private Double unpaidTaken = 0.0;
+
+        // ─── Year-end rollover ────────────────────────────────────
+        @Builder.Default
+        @Column(name = "carried_over", nullable = false, columnDefinition = "double default 0")
+        private Double carriedOver = 0.0;    // Included in annualTotal
+
+        @Builder.Default
+        @Column(name = "rolled_over", nullable = false, columnDefinition = "boolean default false")
+        private Boolean rolledOver = false;  // Carry-over applied — set once by the rollover job
     }
 
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_ld_user_id",          columnList = "user_id"),
         @Index(name = "idx_ld_leave_request_id",  columnList = "leave_request_id"),
         @Index(name = "idx_ld_document_type",     columnList = "document_type"),
-        @Index(name = "idx_ld_status",            columnList = "status")
+        @Index(name = "idx_ld_status",            columnList = "status"),
+        @Index(name = "idx_ld_content_hash",      columnList = "content_hash")
 })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class LeaveDocument {
@@ -60,6 +61,9 @@ public class LeaveDocument {
     @Column(name = "mime_type", length = 100)
     private String mimeType;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;         // SHA-256 of the blob; null for legacy per-user paths
+
     // ─── Status ───────────────────────────────────────────────
     @Enumerated(EnumType.STRING)
     @Builder.Default
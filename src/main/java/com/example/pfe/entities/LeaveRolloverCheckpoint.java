@@ -0,0 +1,50 @@
+package com.example.pfe.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the year-end leave balance rollover for one target year.
+ * Updated in the same transaction as each inserted chunk, so a crashed
+ * run resumes right after the last committed user id.
+ */
+@Entity
+@Table(name = "leave_rollover_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaveRolloverCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "target_year", nullable = false, unique = true)
+    private Integer targetYear;   // year whose balances are being created
+
+    @Column(name = "last_user_id", nullable = false)
+    @Builder.Default
+    private Long lastUserId = 0L; // keyset cursor over active users
+
+    @Column(name = "status", nullable = false)
+    private String status;        // "RUNNING", "COMPLETED", "FAILED"
+
+    @Builder.Default
+    private Integer processedUsers  = 0;
+
+    @Builder.Default
+    private Integer createdBalances = 0;   // rows inserted by the job
+
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private Integer updatedBalances = 0;   // rows created earlier by LeaveService, carry-over added
+
+    @Column(name = "message")
+    private String message;       // last error, if any
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -9,7 +9,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "notifications", indexes = {
         @Index(name = "idx_notif_user_read", columnList = "user_id, is_read"),
-        @Index(name = "idx_notif_created",   columnList = "created_at")
+        @Index(name = "idx_notif_created",   columnList = "created_at"),
+        @Index(name = "idx_notif_user_feed", columnList = "user_id, created_at, id"),   // keyset feed
+        @Index(name = "idx_notif_type_created", columnList = "type, created_at")   // retention purge
 })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Notification {
@@ -40,7 +42,17 @@ public class Notification {
     @Column(name = "is_read", nullable = false)
     private boolean read = false;
 
+    /** How many events were merged into this row (coalesced types); 1 otherwise */
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "integer default 1")
+    private int occurrences = 1;
+
+    /** Time of the first event — anchors the feed order, the coalescing window and retention */
     @Builder.Default
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    /** Time of the latest merged event; null until one is merged */
+    @Column(name = "last_occurred_at")
+    private LocalDateTime lastOccurredAt;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.pfe.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unread-notification count of one user, kept up to date on every send and
+ * read so the bell badge is a primary-key lookup instead of a COUNT(*).
+ * Periodically reconciled against {@code notifications}.
+ */
+@Entity
+@Table(name = "notification_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,36 @@
+package com.example.pfe.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One chunk currently stored in ChromaDB for a document, so re-ingestion can
+ * diff the new chunks against the stored ones instead of re-embedding
+ * everything. The id is the vector id Chroma returned when the chunk was
+ * stored; the diff matches chunks on (slug, content hash).
+ */
+@Entity
+@Table(name = "rag_chunks", indexes = {
+        @Index(name = "idx_rag_chunk_slug", columnList = "file_slug")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RagChunk {
+
+    @Id
+    @Column(name = "chunk_id", length = 36)
+    private String chunkId;
+
+    @Column(name = "file_slug", nullable = false)
+    private String fileSlug;
+
+    @Column(name = "content_hash", nullable = false, length = 80)
+    private String contentHash;   // SHA-256 du texte + "#n" si le même texte apparaît plusieurs fois
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -37,5 +37,28 @@ public class RagIngestionLog {
     private LocalDateTime ingestedAt;
 
     @Column(name = "chunks_count")
-    private Integer chunksCount;  // combien de chunks créés
+    private Integer chunksCount;  // combien de chunks dans le document
+
+    // Diff par chunk avec la version précédente
+    @Column(name = "chunks_added")
+    private Integer chunksAdded;      // nouveaux ou modifiés → vectorisés
+
+    @Column(name = "chunks_removed")
+    private Integer chunksRemoved;    // disparus → vecteurs supprimés
+
+    @Column(name = "chunks_unchanged")
+    private Integer chunksUnchanged;  // identiques → ignorés
+
+    // Durées par étape (ms) — embed/store additionnées sur tous les lots
+    @Column(name = "parse_ms")
+    private Long parseMs;
+
+    @Column(name = "embed_ms")
+    private Long embedMs;
+
+    @Column(name = "store_ms")
+    private Long storeMs;
+
+    @Column(name = "total_ms")
+    private Long totalMs;
 }
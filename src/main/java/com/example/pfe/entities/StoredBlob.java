@@ -0,0 +1,49 @@
+package com.example.pfe.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One physical file in the content-addressed document store.
+ *
+ * Every {@link LeaveDocument} whose bytes hash to {@code contentHash} points at
+ * the same file; {@code refCount} is the number of such documents. A blob that
+ * drops to zero references is kept for a grace period and then swept.
+ */
+@Entity
+@Table(name = "stored_blobs", indexes = {
+        @Index(name = "idx_sb_ref_count_released", columnList = "ref_count, released_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;       // SHA-256, lowercase hex
+
+    @Column(name = "file_path", nullable = false, length = 500)
+    private String filePath;          // e.g. "blobs/3f/a2/3fa2…"
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;            // bytes
+
+    @Column(name = "ref_count", nullable = false)
+    @Builder.Default
+    private Integer refCount = 0;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt; // last time refCount was decremented
+}
@@ -18,4 +18,7 @@ public enum NotificationType {
     PROJECT_ASSIGNED,         // Employee added to a project
     PM_ASSIGNED,              // Employee assigned to a project manager
     PROJECT_UPDATED,          // A project the employee works on was updated
+
+    // ── Company ───────────────────────────────────────────────────────────────
+    ANNOUNCEMENT,             // Broadcast to every active user
 }
\ No newline at end of file
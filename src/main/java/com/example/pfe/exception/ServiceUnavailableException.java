@@ -0,0 +1,16 @@
+package com.example.pfe.exception;
+
+/**
+ * Thrown when a bounded resource (render pool, export pool...) is saturated
+ * or timed out. Mapped to 503 so clients know to retry later.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
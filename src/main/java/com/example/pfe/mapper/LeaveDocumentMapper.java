@@ -1,5 +1,6 @@
 package com.example.pfe.mapper;
 
+import com.example.pfe.Service.PreviewService;
 import com.example.pfe.dto.LeaveDocumentDTO;
 import com.example.pfe.entities.LeaveDocument;
 import org.springframework.stereotype.Component;
@@ -66,4 +67,16 @@ public class LeaveDocumentMapper {
 
         return builder.build();
     }
+
+    /**
+     * Same as {@link #toDTO(LeaveDocument)} plus the thumbnail URL under the
+     * caller's endpoint ({@code /api/admin/documents} or {@code /api/me/documents}).
+     */
+    public LeaveDocumentDTO toDTO(LeaveDocument doc, String documentsUrl) {
+        LeaveDocumentDTO dto = toDTO(doc);
+        if (dto != null && PreviewService.isPreviewable(doc.getMimeType())) {
+            dto.setPreviewUrl(documentsUrl + "/" + doc.getId() + "/preview");
+        }
+        return dto;
+    }
 }
\ No newline at end of file
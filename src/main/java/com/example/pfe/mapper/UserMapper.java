@@ -2,6 +2,7 @@
 
 package com.example.pfe.mapper;
 
+import com.example.pfe.Service.PreviewService;
 import com.example.pfe.dto.RegisterRequestDTO;
 import com.example.pfe.dto.UserRequestDTO;
 import com.example.pfe.dto.UserResponseDTO;
@@ -168,5 +169,6 @@ public class UserMapper {
 
                 .createdAt(user.getCreatedAt())   // ← add this
                 .avatar(user.getAvatar())
+                .avatarThumbnail(PreviewService.avatarVariantUrl(user.getAvatar(), 64))
                 .build();
     }}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.pfe.messaging;
+
+import java.util.function.Consumer;
+
+/**
+ * Small fire-and-forget messages to every app node, for keeping per-node
+ * caches coherent (evict this user, revoke that token).
+ *
+ * Subscribers must be idempotent: a message may arrive more than once, and
+ * the publishing node receives its own messages too. Implementations:
+ *
+ *   {@link LocalClusterEventBus}  single node — delivered in-process
+ *   {@link JdbcClusterEventBus}   several nodes — through a polled table
+ */
+public interface ClusterEventBus extends AutoCloseable {
+
+    void publish(String topic, String payload);
+
+    void subscribe(String topic, Consumer<String> listener);
+
+    @Override
+    default void close() { }
+}
@@ -0,0 +1,161 @@
+package com.example.pfe.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cluster bus over the shared database, for low-volume cache invalidations.
+ *
+ * {@link #publish} runs the local listeners, then inserts one row into
+ * {@code cluster_events} (auto-commit, outside any caller transaction — call
+ * it after commit). Every node polls the table and runs its listeners for
+ * rows from other nodes.
+ *
+ * Rather than tracking id gaps like JdbcNotificationBroker, each poll
+ * re-reads the last {@value #OVERLAP_ROWS} ids below the cursor and skips the
+ * ones already seen: a row committed slightly out of order is still picked
+ * up, and since listeners are idempotent the overlap costs nothing.
+ */
+@Slf4j
+public class JdbcClusterEventBus implements ClusterEventBus {
+
+    static final int OVERLAP_ROWS = 100;
+
+    private static final String CREATE_SQL =
+            "CREATE TABLE IF NOT EXISTS cluster_events (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "topic VARCHAR(64) NOT NULL, " +
+            "payload VARCHAR(512) NOT NULL, " +
+            "origin_node VARCHAR(64) NOT NULL, " +
+            "created_at DATETIME NOT NULL)";
+    private static final String INSERT_SQL =
+            "INSERT INTO cluster_events (topic, payload, origin_node, created_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_SQL =
+            "SELECT id, topic, payload, origin_node FROM cluster_events WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String       nodeId;
+    private final Duration     pollInterval;
+    private final Duration     retention;
+    private final int          batchSize;
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> seen = new ConcurrentSkipListSet<>();
+    private volatile long cursor;
+    private ScheduledExecutorService scheduler;
+
+    public JdbcClusterEventBus(JdbcTemplate jdbcTemplate, String nodeId,
+                               Duration pollInterval, Duration retention, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    // ─── Lifecycle ────────────────────────────────────────────
+
+    public void start() {
+        jdbcTemplate.execute(CREATE_SQL);
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cluster_events", Long.class);
+        cursor = max != null ? max : 0;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-bus-" + nodeId);
+            t.setDaemon(true);
+            return t;
+        });
+        long ms = pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (Exception e) {
+                log.warn("Cluster bus poll failed on node {}: {}", nodeId, e.getMessage());
+            }
+        }, ms, ms, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::cleanup, 1, 1, TimeUnit.MINUTES);
+        log.info("📡 Cluster event bus: jdbc — node {} from event {}", nodeId, cursor);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    // ─── Bus ──────────────────────────────────────────────────
+
+    @Override
+    public void publish(String topic, String payload) {
+        dispatch(topic, payload);
+        try {
+            jdbcTemplate.update(INSERT_SQL, topic, payload, nodeId, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DataAccessException e) {
+            log.warn("Could not publish cluster event {} {}: {}", topic, payload, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<String> listener) {
+        listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    // ─── Polling ──────────────────────────────────────────────
+
+    synchronized void poll() {
+        List<EventRow> rows;
+        do {
+            long from = Math.max(0, cursor - OVERLAP_ROWS);
+            rows = jdbcTemplate.query(SELECT_SQL,
+                    (rs, i) -> new EventRow(rs.getLong("id"), rs.getString("topic"),
+                            rs.getString("payload"), rs.getString("origin_node")),
+                    from, batchSize + OVERLAP_ROWS);
+
+            long before = cursor;
+            for (EventRow row : rows) {
+                if (!seen.add(row.id())) continue;
+                cursor = Math.max(cursor, row.id());
+                if (!nodeId.equals(row.originNode())) {
+                    dispatch(row.topic(), row.payload());
+                }
+            }
+            seen.headSet(cursor - OVERLAP_ROWS).clear();
+            if (cursor == before) break;
+        } while (rows.size() == batchSize + OVERLAP_ROWS);
+    }
+
+    private void dispatch(String topic, String payload) {
+        for (Consumer<String> listener : listeners.getOrDefault(topic, List.of())) {
+            try {
+                listener.accept(payload);
+            } catch (RuntimeException e) {
+                log.warn("Cluster event listener for {} failed: {}", topic, e.getMessage());
+            }
+        }
+    }
+
+    private void cleanup() {
+        try {
+            jdbcTemplate.update("DELETE FROM cluster_events WHERE created_at < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+        } catch (DataAccessException e) {
+            log.debug("Cluster bus cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private record EventRow(long id, String topic, String payload, String originNode) { }
+}
@@ -0,0 +1,333 @@
+package com.example.pfe.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster broker over the shared MySQL database — no extra infrastructure.
+ *
+ * {@link #publish} hands events for users connected here straight to the
+ * local node, then batch-inserts every event into {@code sse_events} in its
+ * own transaction. Each node polls the table from its cursor, skips its own
+ * rows and delivers the rest to its locally connected users. Callers publish
+ * after their own transaction commits. Live delivery is best effort: if the
+ * insert fails (database down, pool exhausted), other nodes never see the
+ * event. It is counted in {@code sse.broker.publish.failed}, and the
+ * notification is still in the user's feed over REST.
+ *
+ * Auto-increment ids are not committed in order: a row with a lower id can
+ * become visible after a higher one was read. Skipped ids are remembered as
+ * gaps and re-queried on every poll until they show up or
+ * {@code gapTimeout} passes (rolled-back inserts leave permanent gaps).
+ *
+ * Presence: every node rewrites its connected user ids in
+ * {@code sse_presence} and caches everyone else's, so {@link #isOnline}
+ * answers without a query; a node that stops refreshing drops out after
+ * three intervals. The same tick deletes events older than {@code retention}.
+ *
+ * Both tables are created on first start if missing.
+ */
+@Slf4j
+public class JdbcNotificationBroker implements NotificationBroker {
+
+    public record Settings(Duration pollInterval,
+                           int batchSize,
+                           Duration presenceInterval,
+                           Duration retention,
+                           Duration gapTimeout) { }
+
+    private static final int MAX_TRACKED_GAP = 1000;   // wider jumps are sequence skips, not in-flight rows
+
+    private static final String CREATE_EVENTS_SQL =
+            "CREATE TABLE IF NOT EXISTS sse_events (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "user_id BIGINT NOT NULL, " +
+            "event_name VARCHAR(50) NOT NULL, " +
+            "payload TEXT NOT NULL, " +
+            "origin_node VARCHAR(64) NOT NULL, " +
+            "created_at DATETIME NOT NULL, " +
+            "INDEX idx_sse_events_created (created_at))";   // retention delete
+    private static final String CREATE_EVENTS_INDEX_SQL =
+            "CREATE INDEX idx_sse_events_created ON sse_events (created_at)";
+    private static final String CREATE_PRESENCE_SQL =
+            "CREATE TABLE IF NOT EXISTS sse_presence (" +
+            "node_id VARCHAR(64) NOT NULL, " +
+            "user_id BIGINT NOT NULL, " +
+            "seen_at DATETIME NOT NULL, " +
+            "PRIMARY KEY (node_id, user_id))";
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO sse_events (user_id, event_name, payload, origin_node, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_AFTER_SQL =
+            "SELECT id, user_id, event_name, payload, origin_node FROM sse_events WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SELECT_IN_SQL =
+            "SELECT id, user_id, event_name, payload, origin_node FROM sse_events WHERE id IN (%s)";
+
+    private static final RowMapper<EventRow> ROW_MAPPER = (rs, i) -> new EventRow(
+            rs.getLong("id"), rs.getLong("user_id"), rs.getString("event_name"),
+            rs.getString("payload"), rs.getString("origin_node"));
+
+    private final JdbcTemplate        jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;   // REQUIRES_NEW
+    private final ObjectMapper        objectMapper;
+    private final String              nodeId;
+    private final Settings            settings;
+
+    private final Counter published;
+    private final Counter received;
+    private final Counter publishFailed;
+
+    private volatile LocalNode node;
+    private volatile Set<Long> remoteOnline = Set.of();
+    private ScheduledExecutorService scheduler;
+
+    // Poller state — only touched under this lock
+    private final Object pollLock = new Object();
+    private long cursor;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();   // id → first missed (epoch ms)
+
+    public JdbcNotificationBroker(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  String nodeId,
+                                  Settings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId;
+        this.settings = settings;
+
+        this.published     = meterRegistry.counter("sse.broker.published");
+        this.received      = meterRegistry.counter("sse.broker.received");
+        this.publishFailed = meterRegistry.counter("sse.broker.publish.failed");
+        Gauge.builder("sse.broker.gaps", this, b -> b.gapCount()).register(meterRegistry);
+    }
+
+    // ─── Lifecycle ────────────────────────────────────────────
+
+    /** Creates the tables, starts reading from the current end of the log, then starts polling. */
+    @Override
+    public void attach(LocalNode node) {
+        this.node = node;
+        jdbcTemplate.execute(CREATE_EVENTS_SQL);
+        try {
+            jdbcTemplate.execute(CREATE_EVENTS_INDEX_SQL);   // tables created before the index existed
+        } catch (DataAccessException e) {
+            log.debug("sse_events created_at index already present: {}", e.getMessage());
+        }
+        jdbcTemplate.execute(CREATE_PRESENCE_SQL);
+        synchronized (pollLock) {
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sse_events", Long.class);
+            cursor = max != null ? max : 0;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-broker-" + nodeId);
+            t.setDaemon(true);
+            return t;
+        });
+        long pollMs = settings.pollInterval().toMillis();
+        long presenceMs = settings.presenceInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(guarded("poll", this::poll), pollMs, pollMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(guarded("presence", this::refreshPresence), 0, presenceMs, TimeUnit.MILLISECONDS);
+        log.info("📡 Notification broker: jdbc — node {} from event {}", nodeId, cursor);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler == null) return;
+        scheduler.shutdownNow();
+        try {
+            jdbcTemplate.update("DELETE FROM sse_presence WHERE node_id = ?", nodeId);
+        } catch (DataAccessException e) {
+            log.debug("Could not clear presence of node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private Runnable guarded(String task, Runnable action) {
+        return () -> {
+            try {
+                action.run();
+            } catch (Exception e) {   // keep the schedule alive through DB hiccups
+                log.warn("SSE broker {} failed on node {}: {}", task, nodeId, e.getMessage());
+            }
+        };
+    }
+
+    // ─── Publishing ───────────────────────────────────────────
+
+    @Override
+    public void publish(List<Delivery> deliveries) {
+        if (deliveries.isEmpty()) return;
+
+        LocalNode local = node;
+        if (local != null) {
+            List<Delivery> here = deliveries.stream().filter(d -> local.isConnectedHere(d.userId())).toList();
+            if (!here.isEmpty()) local.deliver(here);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(deliveries.size());
+        for (Delivery d : deliveries) {
+            try {
+                String payload = d.data() instanceof String s ? s : objectMapper.writeValueAsString(d.data());
+                rows.add(new Object[] { d.userId(), d.eventName(), payload, nodeId, now });
+            } catch (JsonProcessingException e) {
+                log.warn("SSE event {} for user {} not serializable: {}", d.eventName(), d.userId(), e.getMessage());
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, rows));
+            published.increment(rows.size());
+        } catch (DataAccessException | TransactionException e) {   // e.g. no connection for the new transaction
+            publishFailed.increment(rows.size());
+            log.warn("Could not publish {} SSE events to other nodes: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isOnline(Long userId) {
+        LocalNode local = node;
+        return (local != null && local.isConnectedHere(userId)) || remoteOnline.contains(userId);
+    }
+
+    @Override
+    public Set<Long> onlineUsers() {
+        LocalNode local = node;
+        Set<Long> remote = remoteOnline;
+        if (local == null) return remote;
+        Set<Long> online = new HashSet<>(remote);
+        online.addAll(local.connectedUsers());
+        return online;
+    }
+
+    @Override
+    public void onConnect(Long userId) {
+        if (scheduler == null) return;
+        scheduler.execute(guarded("presence", () -> transactionTemplate.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update("DELETE FROM sse_presence WHERE node_id = ? AND user_id = ?", nodeId, userId);
+            jdbcTemplate.update("INSERT INTO sse_presence (node_id, user_id, seen_at) VALUES (?, ?, ?)", nodeId, userId, now);
+        })));
+    }
+
+    // ─── Polling ──────────────────────────────────────────────
+
+    /** Reads and delivers everything new since the last poll. */
+    void poll() {
+        LocalNode local = node;
+        if (local == null) return;
+
+        synchronized (pollLock) {
+            List<EventRow> rows;
+            do {
+                List<EventRow> late = fetchGaps();
+                rows = jdbcTemplate.query(SELECT_AFTER_SQL, ROW_MAPPER, cursor, settings.batchSize());
+                advance(rows);
+
+                List<EventRow> batch = new ArrayList<>(late.size() + rows.size());
+                batch.addAll(late);
+                batch.addAll(rows);
+                deliver(local, batch);
+            } while (rows.size() == settings.batchSize());
+
+            long expiredBefore = System.currentTimeMillis() - settings.gapTimeout().toMillis();
+            gaps.values().removeIf(firstMissed -> firstMissed < expiredBefore);
+        }
+    }
+
+    private List<EventRow> fetchGaps() {
+        if (gaps.isEmpty()) return List.of();
+        Object[] ids = gaps.keySet().toArray();
+        String sql = String.format(SELECT_IN_SQL, String.join(",", Collections.nCopies(ids.length, "?")));
+        List<EventRow> late = jdbcTemplate.query(sql, ROW_MAPPER, ids);
+        late.forEach(r -> gaps.remove(r.id()));
+        return late;
+    }
+
+    /** Moves the cursor past {@code rows}, remembering any ids skipped on the way. */
+    private void advance(List<EventRow> rows) {
+        long now = System.currentTimeMillis();
+        for (EventRow row : rows) {
+            long missing = row.id() - cursor - 1;
+            if (missing > 0 && missing <= MAX_TRACKED_GAP && gaps.size() + missing <= MAX_TRACKED_GAP) {
+                for (long id = cursor + 1; id < row.id(); id++) {
+                    gaps.put(id, now);
+                }
+            }
+            cursor = Math.max(cursor, row.id());
+        }
+    }
+
+    private void deliver(LocalNode local, List<EventRow> rows) {
+        List<Delivery> deliveries = new ArrayList<>();
+        for (EventRow row : rows) {
+            if (!nodeId.equals(row.originNode()) && local.isConnectedHere(row.userId())) {
+                deliveries.add(new Delivery(row.userId(), row.eventName(), row.payload()));
+            }
+        }
+        if (!deliveries.isEmpty()) {
+            received.increment(deliveries.size());
+            local.deliver(deliveries);
+        }
+    }
+
+    // ─── Presence & cleanup ───────────────────────────────────
+
+    void refreshPresence() {
+        LocalNode local = node;
+        if (local == null) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp seenAt = Timestamp.valueOf(now);
+        List<Object[]> rows = local.connectedUsers().stream()
+                .map(userId -> new Object[] { nodeId, userId, seenAt })
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM sse_presence WHERE node_id = ?", nodeId);
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO sse_presence (node_id, user_id, seen_at) VALUES (?, ?, ?)", rows);
+            }
+        });
+
+        Timestamp stale = Timestamp.valueOf(now.minus(settings.presenceInterval().multipliedBy(3)));
+        jdbcTemplate.update("DELETE FROM sse_presence WHERE seen_at < ?", stale);
+        remoteOnline = Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM sse_presence WHERE node_id <> ?", Long.class, nodeId));
+
+        jdbcTemplate.update("DELETE FROM sse_events WHERE created_at < ?",
+                Timestamp.valueOf(now.minus(settings.retention())));
+    }
+
+    private int gapCount() {
+        synchronized (pollLock) {
+            return gaps.size();
+        }
+    }
+
+    private record EventRow(long id, long userId, String eventName, String payload, String originNode) { }
+}
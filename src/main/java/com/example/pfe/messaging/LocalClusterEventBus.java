@@ -0,0 +1,32 @@
+package com.example.pfe.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/** Single-node bus: listeners run on the publishing thread. */
+@Slf4j
+public class LocalClusterEventBus implements ClusterEventBus {
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String topic, String payload) {
+        for (Consumer<String> listener : listeners.getOrDefault(topic, List.of())) {
+            try {
+                listener.accept(payload);
+            } catch (RuntimeException e) {
+                log.warn("Cluster event listener for {} failed: {}", topic, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<String> listener) {
+        listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+}
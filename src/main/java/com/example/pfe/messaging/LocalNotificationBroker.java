@@ -0,0 +1,33 @@
+package com.example.pfe.messaging;
+
+import java.util.List;
+import java.util.Set;
+
+/** Single-node broker: every stream lives in this JVM. */
+public class LocalNotificationBroker implements NotificationBroker {
+
+    private volatile LocalNode node;
+
+    @Override
+    public void attach(LocalNode node) {
+        this.node = node;
+    }
+
+    @Override
+    public void publish(List<Delivery> deliveries) {
+        if (node != null && !deliveries.isEmpty()) {
+            node.deliver(deliveries);
+        }
+    }
+
+    @Override
+    public boolean isOnline(Long userId) {
+        return node != null && node.isConnectedHere(userId);
+    }
+
+    @Override
+    public Set<Long> onlineUsers() {
+        LocalNode local = node;
+        return local != null ? local.connectedUsers() : Set.of();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.pfe.messaging;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Carries live SSE events to whichever node holds the recipient's stream.
+ *
+ * SseEmitterService attaches itself as this node's {@link LocalNode} and
+ * publishes every event through the broker; the broker hands each node the
+ * events of its own connected users. Implementations:
+ *
+ *   {@link LocalNotificationBroker}  single node — straight hand-off
+ *   {@link JdbcNotificationBroker}   several nodes sharing the database —
+ *                                    events go through a polled table
+ */
+public interface NotificationBroker extends AutoCloseable {
+
+    /** One event for one user. {@code data} is either an object or a ready JSON string. */
+    record Delivery(Long userId, String eventName, Object data) { }
+
+    /** The SSE side of this node. */
+    interface LocalNode {
+
+        /** Users with at least one open stream on this node. */
+        Set<Long> connectedUsers();
+
+        boolean isConnectedHere(Long userId);
+
+        /** Queues the events on local streams; must not block. */
+        void deliver(List<Delivery> deliveries);
+    }
+
+    /** Called once at startup, before anything is published. */
+    void attach(LocalNode node);
+
+    /** Sends the events to every node where the recipients are connected. */
+    void publish(List<Delivery> deliveries);
+
+    /** {@code true} if the user has a stream open on any node (may lag a few seconds for remote nodes). */
+    boolean isOnline(Long userId);
+
+    /** Snapshot of {@link #isOnline} for every user — one call per fan-out instead of one per recipient. */
+    Set<Long> onlineUsers();
+
+    /** Hint that a user just opened a stream on this node. */
+    default void onConnect(Long userId) { }
+
+    @Override
+    default void close() { }
+}
@@ -0,0 +1,75 @@
+package com.example.pfe.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Buckets in this node's memory; each one is an {@link AtomicLong} updated
+ * with a compare-and-set loop, so concurrent requests never block.
+ *
+ * A bucket whose arrival time is in the past is full again and carries no
+ * information, so once there are more than {@code maxKeys} buckets those are
+ * dropped — by at most one sweep per second, since a sweep walks every key.
+ * If a flood of distinct keys still reaches twice {@code maxKeys}, new keys
+ * are let through untracked (a fresh bucket would allow them anyway) until a
+ * sweep frees room, so memory stays bounded.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    static final long EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final int maxKeys;
+    private final int hardCap;
+    private final AtomicLong nextEviction;
+
+    public InMemoryRateLimitStore(int maxKeys) {
+        this(maxKeys, System::nanoTime);
+    }
+
+    InMemoryRateLimitStore(int maxKeys, LongSupplier nanoClock) {
+        this.maxKeys = maxKeys;
+        this.hardCap = (int) Math.min(Integer.MAX_VALUE, 2L * maxKeys);
+        this.nanoClock = nanoClock;
+        this.nextEviction = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    @Override
+    public Decision tryConsume(String key, Limit limit) {
+        long now = nanoClock.getAsLong();
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            if (buckets.size() > maxKeys) evictFull(now);
+            if (buckets.size() >= hardCap) return Decision.ALLOWED;
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        long interval = limit.intervalNanos();
+        long burst = limit.burstNanos();
+
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > burst) {
+                return Decision.throttled(next - now - burst);
+            }
+            if (tat.compareAndSet(current, next)) {
+                return Decision.ALLOWED;
+            }
+        }
+    }
+
+    /** Drops full buckets, unless another request already did within the last interval. */
+    private void evictFull(long now) {
+        long due = nextEviction.get();
+        if (now - due < 0 || !nextEviction.compareAndSet(due, now + EVICTION_INTERVAL_NANOS)) return;
+        buckets.values().removeIf(tat -> tat.get() - now <= 0);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
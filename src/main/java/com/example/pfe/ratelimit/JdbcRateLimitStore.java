@@ -0,0 +1,123 @@
+package com.example.pfe.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buckets shared by every node through the {@code rate_limit_buckets} table.
+ *
+ * A request is one conditional UPDATE that moves the arrival time forward
+ * only if the bucket still has a token — the row lock is held for that single
+ * statement, never across a round trip. Only a throttled request or the
+ * first request of a key costs a second statement. Times are epoch
+ * microseconds from the wall clock, so nodes need roughly synchronised clocks
+ * (NTP drift is small next to the refill intervals involved).
+ *
+ * Full buckets (arrival time in the past) are deleted every minute.
+ */
+@Slf4j
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private static final String CREATE_SQL =
+            "CREATE TABLE IF NOT EXISTS rate_limit_buckets (" +
+            "bucket_key VARCHAR(191) PRIMARY KEY, " +
+            "tat BIGINT NOT NULL)";
+    private static final String CONSUME_SQL =
+            "UPDATE rate_limit_buckets SET tat = GREATEST(tat, ?) + ? " +
+            "WHERE bucket_key = ? AND GREATEST(tat, ?) + ? - ? <= ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO rate_limit_buckets (bucket_key, tat) VALUES (?, ?)";
+    private static final String SELECT_SQL =
+            "SELECT tat FROM rate_limit_buckets WHERE bucket_key = ?";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private ScheduledExecutorService scheduler;
+
+    public JdbcRateLimitStore(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemUTC());
+    }
+
+    JdbcRateLimitStore(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    // ─── Lifecycle ────────────────────────────────────────────
+
+    public void start() {
+        jdbcTemplate.execute(CREATE_SQL);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-limit-cleanup");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::cleanup, 1, 1, TimeUnit.MINUTES);
+        log.info("🚦 Rate limit store: jdbc");
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    // ─── Buckets ──────────────────────────────────────────────
+
+    @Override
+    public Decision tryConsume(String key, Limit limit) {
+        long interval = micros(limit.intervalNanos());
+        long burst = interval * limit.capacity();
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long now = nowMicros();
+            if (jdbcTemplate.update(CONSUME_SQL, now, interval, key, now, interval, now, burst) == 1) {
+                return Decision.ALLOWED;
+            }
+
+            List<Long> tat = jdbcTemplate.queryForList(SELECT_SQL, Long.class, key);
+            if (tat.isEmpty()) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, key, now + interval);
+                    return Decision.ALLOWED;
+                } catch (DuplicateKeyException e) {
+                    continue;   // another node created it first
+                }
+            }
+            long wait = Math.max(tat.get(0), now) + interval - now - burst;
+            if (wait > 0) {
+                return Decision.throttled(TimeUnit.MICROSECONDS.toNanos(wait));
+            }
+            // a token came back between the two statements — try again
+        }
+        return Decision.ALLOWED;   // heavy contention on one key: let it through rather than spin
+    }
+
+    private void cleanup() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE tat < ?", nowMicros());
+            if (deleted > 0) log.debug("Rate limit cleanup: {} full bucket(s) deleted", deleted);
+        } catch (DataAccessException e) {
+            log.debug("Rate limit cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private long nowMicros() {
+        Instant now = clock.instant();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+}
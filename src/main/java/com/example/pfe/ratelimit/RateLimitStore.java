@@ -0,0 +1,52 @@
+package com.example.pfe.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Token buckets, one per key (e.g. {@code chat:user:42}).
+ *
+ * Buckets are kept as GCRA state — a single "theoretical arrival time" per
+ * key — which behaves exactly like a token bucket of {@code capacity} tokens
+ * refilled evenly over {@code period}, but updates with one compare-and-set
+ * (or one conditional UPDATE) instead of a read-modify-write of two values.
+ *
+ * Implementations: {@link InMemoryRateLimitStore} (one node) and
+ * {@link JdbcRateLimitStore} (buckets shared through the database), selected
+ * with {@code app.rate-limit.backend}.
+ */
+public interface RateLimitStore {
+
+    /** Takes one token from {@code key}'s bucket if there is one. */
+    Decision tryConsume(String key, Limit limit);
+
+    default void close() { }
+
+    /** {@code capacity} requests per {@code period}, all of which may come in a burst. */
+    record Limit(int capacity, Duration period) {
+
+        public Limit {
+            if (capacity < 1 || period == null || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Rate limit needs capacity >= 1 and a positive period");
+            }
+        }
+
+        /** Time for one token to come back. */
+        long intervalNanos() {
+            return Math.max(1, period.toNanos() / capacity);
+        }
+
+        /** How far ahead of now the arrival time may run. */
+        long burstNanos() {
+            return intervalNanos() * capacity;
+        }
+    }
+
+    record Decision(boolean allowed, Duration retryAfter) {
+
+        static final Decision ALLOWED = new Decision(true, Duration.ZERO);
+
+        static Decision throttled(long waitNanos) {
+            return new Decision(false, Duration.ofNanos(Math.max(0, waitNanos)));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.pfe.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where uploaded and generated files live.
+ *
+ * Keys are relative, slash-separated paths — the same strings stored in
+ * {@code LeaveDocument.filePath} and {@code User.avatar}, e.g.
+ * {@code blobs/3f/a2/3fa2…} or {@code avatar_7_<uuid>.png}.
+ *
+ * Implementations: {@link LocalBlobStore} (a directory on this node) and
+ * {@link S3BlobStore} (any S3-compatible service, e.g. MinIO), selected with
+ * {@code app.storage.backend}.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores the content of a local file under {@code key}, replacing any
+     * previous object. Readers see either the old or the new content, never a
+     * partial write. {@code source} may be moved by the store; callers delete
+     * it afterwards if it still exists.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /** @throws java.io.FileNotFoundException if there is no such key */
+    InputStream open(String key) throws IOException;
+
+    /** Reads {@code length} bytes starting at {@code offset}. */
+    InputStream open(String key, long offset, long length) throws IOException;
+
+    Optional<BlobInfo> stat(String key) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    /** No-op if the key does not exist. */
+    void delete(String key) throws IOException;
+
+    /** Every key starting with {@code prefix} ("" for all). Close the stream. */
+    Stream<String> list(String prefix) throws IOException;
+
+    /**
+     * Path of the object on this node's filesystem, if the store is local.
+     * Lets callers use sendfile / PDFBox on the file directly.
+     */
+    default Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Time-limited URL the client can download from directly, so the bytes
+     * never pass through the app tier. Empty if the store cannot sign URLs.
+     */
+    default Optional<URI> presignedGet(String key, String fileName, String contentType,
+                                       boolean inline, Duration ttl) {
+        return Optional.empty();
+    }
+
+    record BlobInfo(long size, long lastModifiedMillis) {}
+}
@@ -0,0 +1,107 @@
+package com.example.pfe.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * One-off copy of the local upload directory into the configured store.
+ *
+ * Run once with the S3 backend configured:
+ *   java -jar pfe.jar --app.storage.backend=s3 --migrate-storage [--delete-source]
+ *
+ * Keys are the relative paths, so DB rows (file_path, avatar) need no
+ * update. Objects that already exist with the same size are skipped, which
+ * makes the command safe to re-run after an interruption. With
+ * --delete-source a local file is removed only after its copy was verified.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BlobStoreMigration implements ApplicationRunner {
+
+    private static final String SPOOL_DIR = ".spool";
+
+    private final BlobStore target;
+
+    @Value("${app.upload.dir:uploads/avatars}")
+    private String uploadDir;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!args.containsOption("migrate-storage")) return;
+
+        if (target instanceof LocalBlobStore) {
+            log.warn("--migrate-storage ignored: the configured backend is already the local directory");
+            return;
+        }
+        migrate(new LocalBlobStore(Paths.get(uploadDir)), args.containsOption("delete-source"));
+    }
+
+    Result migrate(LocalBlobStore source, boolean deleteSource) throws IOException {
+        long copied = 0, skipped = 0, failed = 0, bytes = 0;
+
+        try (Stream<String> keys = source.list("")) {
+            Iterator<String> it = keys.filter(k -> !k.startsWith(SPOOL_DIR + "/")).iterator();
+            while (it.hasNext()) {
+                String key = it.next();
+                Path file = source.resolve(key);
+                try {
+                    long size = Files.size(file);
+                    Optional<BlobStore.BlobInfo> existing = target.stat(key);
+                    if (existing.isPresent() && existing.get().size() == size) {
+                        skipped++;
+                    } else {
+                        // put() may move its source — hand it a link so the original survives until verified
+                        Path handoff = handoff(source, file);
+                        try {
+                            target.put(key, handoff, Files.probeContentType(file));
+                        } finally {
+                            Files.deleteIfExists(handoff);
+                        }
+                        Optional<BlobStore.BlobInfo> copy = target.stat(key);
+                        if (copy.isEmpty() || copy.get().size() != size) {
+                            throw new IOException("size mismatch after upload");
+                        }
+                        copied++;
+                        bytes += size;
+                    }
+                    if (deleteSource) Files.deleteIfExists(file);
+                } catch (IOException | RuntimeException e) {
+                    failed++;
+                    log.warn("Migration of {} failed: {}", key, e.getMessage());
+                }
+            }
+        }
+
+        log.info("Storage migration done — {} copied ({} MB), {} already present, {} failed",
+                copied, bytes / (1024 * 1024), skipped, failed);
+        return new Result(copied, skipped, failed, bytes);
+    }
+
+    /** Hard link to {@code file} in the source's spool dir, or a copy where links aren't supported. */
+    private static Path handoff(LocalBlobStore source, Path file) throws IOException {
+        Path spool = source.getRoot().resolve(SPOOL_DIR);
+        Files.createDirectories(spool);
+        Path link = spool.resolve("migrate-" + UUID.randomUUID() + ".part");
+        try {
+            return Files.createLink(link, file);
+        } catch (UnsupportedOperationException | IOException e) {
+            return Files.copy(file, link);
+        }
+    }
+
+    record Result(long copied, long skipped, long failed, long bytes) {}
+}
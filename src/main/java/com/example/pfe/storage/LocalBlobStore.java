@@ -0,0 +1,135 @@
+package com.example.pfe.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} on a local directory ({@code app.upload.dir}).
+ * Keys map 1:1 to relative paths, so files written before the SPI existed
+ * are readable unchanged.
+ */
+@Slf4j
+public class LocalBlobStore implements BlobStore {
+
+    private final Path root;
+
+    public LocalBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Source is on another filesystem: copy next to the target, then rename
+            Path tmp = Files.createTempFile(target.getParent(), ".put-", ".part");
+            try {
+                Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Path file = resolve(key);
+        try {
+            return Files.newInputStream(file);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("File not found: " + key);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("File not found: " + key);
+        }
+        channel.position(offset);
+        InputStream in = Channels.newInputStream(channel);
+        return new InputStream() {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) return -1;
+                int b = in.read();
+                if (b >= 0) remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) return -1;
+                int n = in.read(b, off, (int) Math.min(len, remaining));
+                if (n > 0) remaining -= n;
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) return Optional.empty();
+            return Optional.of(new BlobInfo(attrs.size(), attrs.lastModifiedTime().toMillis()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Stream<String> list(String prefix) throws IOException {
+        if (!Files.isDirectory(root)) return Stream.empty();
+        return Files.walk(root)
+                .filter(Files::isRegularFile)
+                .map(p -> root.relativize(p).toString().replace('\\', '/'))
+                .filter(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    /** Absolute path of {@code key}, refusing anything that escapes the root. */
+    Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new SecurityException("Path traversal attempt blocked.");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.pfe.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} on an S3-compatible bucket (AWS S3, MinIO, Ceph RGW…).
+ *
+ * Objects above {@code partSize} are sent as a multipart upload, each part
+ * streamed from its slice of the spooled file, so memory use does not depend
+ * on file size and a failed part can be retried on its own. PUT is atomic in
+ * S3, which gives the same "old or new, never partial" guarantee as the
+ * local rename.
+ */
+@Slf4j
+public class S3BlobStore implements BlobStore, AutoCloseable {
+
+    private final S3Client    s3;
+    private final S3Presigner presigner;
+    private final String      bucket;
+    private final String      prefix;     // e.g. "pfe/" — prepended to every key
+    private final long        partSize;
+    private final boolean     presignDownloads;
+
+    public S3BlobStore(S3Client s3, S3Presigner presigner, String bucket, String prefix,
+                       long partSize, boolean presignDownloads) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.prefix = prefix == null || prefix.isEmpty() ? ""
+                : prefix.endsWith("/") ? prefix : prefix + "/";
+        this.partSize = Math.max(partSize, 5L * 1024 * 1024);   // S3 minimum part size
+        this.presignDownloads = presignDownloads;
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        String objectKey = objectKey(key);
+
+        if (size <= partSize) {
+            s3.putObject(PutObjectRequest.builder()
+                            .bucket(bucket).key(objectKey)
+                            .contentType(contentType)
+                            .contentLength(size)
+                            .build(),
+                    RequestBody.fromFile(source));
+            return;
+        }
+
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket).key(objectKey).contentType(contentType).build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long length = Math.min(partSize, size - offset);
+                long from = offset;
+                // Re-opened per attempt, so SDK retries re-read the slice from disk
+                RequestBody body = RequestBody.fromContentProvider(
+                        () -> fileSlice(source, from, length), length, contentType);
+                String etag = s3.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucket).key(objectKey)
+                                .uploadId(uploadId).partNumber(partNumber)
+                                .contentLength(length)
+                                .build(), body).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(objectKey).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (RuntimeException e) {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket).key(objectKey).uploadId(uploadId).build());
+            throw new IOException("Multipart upload of " + key + " failed", e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return get(key, null);
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        return get(key, "bytes=" + offset + "-" + (offset + length - 1));
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket).key(objectKey(key)).build());
+            return Optional.of(new BlobInfo(head.contentLength(), head.lastModified().toEpochMilli()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return Optional.empty();
+            throw new IOException("HEAD " + key + " failed", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(objectKey(key)).build());
+        } catch (S3Exception e) {
+            throw new IOException("DELETE " + key + " failed", e);
+        }
+    }
+
+    @Override
+    public Stream<String> list(String keyPrefix) {
+        return s3.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                        .bucket(bucket).prefix(objectKey(keyPrefix)).build())
+                .contents().stream()
+                .map(o -> o.key().substring(prefix.length()));
+    }
+
+    @Override
+    public Optional<URI> presignedGet(String key, String fileName, String contentType,
+                                      boolean inline, Duration ttl) {
+        if (!presignDownloads) return Optional.empty();
+
+        String disposition = (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                .filename(fileName, StandardCharsets.UTF_8).build().toString();
+        GetObjectPresignRequest request = GetObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .getObjectRequest(b -> b.bucket(bucket).key(objectKey(key))
+                        .responseContentType(contentType)
+                        .responseContentDisposition(disposition))
+                .build();
+        try {
+            return Optional.of(presigner.presignGetObject(request).url().toURI());
+        } catch (URISyntaxException e) {
+            log.warn("Presigned URL for {} is not a valid URI: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void close() {
+        presigner.close();
+        s3.close();
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────
+
+    private InputStream get(String key, String range) throws IOException {
+        try {
+            return s3.getObject(GetObjectRequest.builder()
+                    .bucket(bucket).key(objectKey(key)).range(range).build());
+        } catch (NoSuchKeyException e) {
+            throw new FileNotFoundException("File not found: " + key);
+        } catch (S3Exception e) {
+            throw new IOException("GET " + key + " failed", e);
+        }
+    }
+
+    private String objectKey(String key) {
+        return prefix + key;
+    }
+
+    /** Positional reads of one part of the file, without buffering the part. */
+    private static InputStream fileSlice(Path file, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new InputStream() {
+                private long position = offset;
+                private final long end = offset + length;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (position >= end) return -1;
+                    int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+                    if (n > 0) position += n;
+                    return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
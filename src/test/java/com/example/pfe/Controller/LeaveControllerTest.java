@@ -1,6 +1,7 @@
 package com.example.pfe.Controller;
 
 import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.Service.LeaveBalanceRolloverService;
 import com.example.pfe.Service.LeaveService;
 import com.example.pfe.dto.*;
 import com.example.pfe.entities.User;
@@ -50,8 +51,9 @@ class LeaveControllerTest {
     @Autowired MockMvc      mockMvc;
     @Autowired ObjectMapper objectMapper;
 
-    @MockBean LeaveService   leaveService;
-    @MockBean UserRepository userRepository;
+    @MockBean LeaveService                leaveService;
+    @MockBean LeaveBalanceRolloverService rolloverService;
+    @MockBean UserRepository              userRepository;
 
     // ── Security config ───────────────────────────────────────────────────────
     @Configuration
@@ -25,6 +25,7 @@ import org.mockito.InjectMocks;                              // crée le vrai ob
 import org.mockito.Mock;                                     // crée un faux objet
 import org.mockito.junit.jupiter.MockitoExtension;           // active Mockito dans JUnit 5
 
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDate;
@@ -32,6 +33,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 // AssertJ — pour écrire des vérifications lisibles
 import static org.assertj.core.api.Assertions.*;
@@ -76,6 +78,9 @@ class AuthenticationServiceTest {
     @Mock private AttendanceService attendanceService;
     @Mock private RoleRepository      roleRepository;
     @Mock private NotificationService notificationService;
+    @Mock private UserPrincipalCache principalCache;
+    @Mock private PasswordHashingEngine passwordHashing;
+    @Mock private LoginActivityService loginActivityService;
 
     // ═══════════════════════════════════════════════════════════════════════════
     // @InjectMocks = le VRAI objet qu'on teste.
@@ -122,6 +127,10 @@ class AuthenticationServiceTest {
         registerRequest.setFirstName("Jane");
         registerRequest.setLastName("Doe");
         registerRequest.setNationalId("12345678");
+
+        // Le pool BCrypt exécute simplement la tâche reçue (login, activation, inscription)
+        lenient().when(passwordHashing.run(anyString(), any()))
+                .thenAnswer(inv -> inv.<Callable<?>>getArgument(1).call());
     }
 
 
@@ -362,7 +371,8 @@ class AuthenticationServiceTest {
             loginRequest = new LoginRequestDTO();
             loginRequest.setEmail("jane.doe@example.com");
             loginRequest.setPassword("plainPassword");
-            // Compte prêt à se connecter
+            // Compte prêt à se connecter (approuvé, activé, mot de passe déjà changé)
+            mockUser.setRegistrationPending(false);
             mockUser.setEnabled(true);
             mockUser.setFirstLogin(false);
         }
@@ -376,7 +386,6 @@ class AuthenticationServiceTest {
             // passwordEncoder.matches(plaintext, hash) → true = mot de passe correct
             given(passwordEncoder.matches("plainPassword", mockUser.getPasswordHash()))
                     .willReturn(true);
-            given(userRepository.save(any())).willReturn(mockUser);
             given(jwtService.generateAccessToken(any())).willReturn("jwt-token");
             given(userMapper.toResponseDTO(any())).willReturn(new UserResponseDTO());
 
@@ -385,12 +394,12 @@ class AuthenticationServiceTest {
             assertThat(result.getToken()).isEqualTo("jwt-token");
             assertThat(result.getTokenType()).isEqualTo("Bearer");
             assertThat(result.getMessage()).contains("successful");
-            // Le check-in DOIT avoir été appelé avec l'ID du user
-            then(attendanceService).should().checkIn(mockUser.getId());
+            // Le check-in DOIT avoir été déclenché (en arrière-plan) avec l'ID du user
+            then(loginActivityService).should().afterLogin(mockUser.getId());
         }
 
         @Test
-        @DisplayName("❌ Email introuvable — lève BusinessException 'Invalid credentials'")
+        @DisplayName("❌ Email introuvable — lève BusinessException 'Incorrect email or password'")
         void authenticate_emailNotFound_throwsBusinessException() {
 
             given(userRepository.findByEmailIgnoreCase(anyString()))
@@ -398,14 +407,14 @@ class AuthenticationServiceTest {
 
             assertThatThrownBy(() -> authService.authenticate(loginRequest))
                     .isInstanceOf(BusinessException.class)
-                    .hasMessageContaining("Invalid credentials");
+                    .hasMessageContaining("Incorrect email or password");
 
-            // Le check-in ne doit JAMAIS être appelé si le login échoue
-            then(attendanceService).should(never()).checkIn(any());
+            // Le check-in ne doit JAMAIS être déclenché si le login échoue
+            then(loginActivityService).should(never()).afterLogin(any());
         }
 
         @Test
-        @DisplayName("❌ Mauvais mot de passe — lève BusinessException 'Invalid credentials'")
+        @DisplayName("❌ Mauvais mot de passe — lève BusinessException 'Incorrect email or password'")
         void authenticate_wrongPassword_throwsBusinessException() {
 
             given(userRepository.findByEmailIgnoreCase(anyString()))
@@ -415,7 +424,7 @@ class AuthenticationServiceTest {
 
             assertThatThrownBy(() -> authService.authenticate(loginRequest))
                     .isInstanceOf(BusinessException.class)
-                    .hasMessageContaining("Invalid credentials");
+                    .hasMessageContaining("Incorrect email or password");
         }
 
         @Test
@@ -432,6 +441,21 @@ class AuthenticationServiceTest {
                     .hasMessageContaining("not activated");
         }
 
+        @Test
+        @DisplayName("❌ Inscription en attente d'approbation — lève BusinessException")
+        void authenticate_registrationPending_throwsBusinessException() {
+
+            mockUser.setRegistrationPending(true);
+            given(userRepository.findByEmailIgnoreCase(anyString()))
+                    .willReturn(Optional.of(mockUser));
+            given(passwordEncoder.matches(anyString(), anyString())).willReturn(true);
+
+            assertThatThrownBy(() -> authService.authenticate(loginRequest))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("pending approval");
+            then(userRepository).should(never()).updateLastLogin(any(), any());
+        }
+
         @Test
         @DisplayName("❌ Premier login non effectué — lève BusinessException")
         void authenticate_firstLoginNotDone_throwsBusinessException() {
@@ -454,11 +478,10 @@ class AuthenticationServiceTest {
             given(userRepository.findByEmailIgnoreCase(anyString()))
                     .willReturn(Optional.of(mockUser));
             given(passwordEncoder.matches(anyString(), anyString())).willReturn(true);
-            given(userRepository.save(any())).willReturn(mockUser);
             given(jwtService.generateAccessToken(any())).willReturn("jwt-token");
             given(userMapper.toResponseDTO(any())).willReturn(new UserResponseDTO());
-            // willThrow() → le checkIn() lance une exception
-            willThrow(new RuntimeException("DB error")).given(attendanceService).checkIn(any());
+            // willThrow() → le check-in ne peut même pas être planifié (pool plein)
+            willThrow(new TaskRejectedException("pool full")).given(loginActivityService).afterLogin(any());
 
             // Le login NE DOIT PAS être bloqué même si checkIn() échoue
             JwtResponseDTO result = authService.authenticate(loginRequest);
@@ -467,22 +490,21 @@ class AuthenticationServiceTest {
         }
 
         @Test
-        @DisplayName("✅ La date du dernier login est mise à jour")
+        @DisplayName("✅ La date du dernier login est mise à jour (UPDATE d'une seule colonne)")
         void authenticate_updatesLastLoginDate() {
 
             given(userRepository.findByEmailIgnoreCase(anyString()))
                     .willReturn(Optional.of(mockUser));
             given(passwordEncoder.matches(anyString(), anyString())).willReturn(true);
-            // inv.getArgument(0) = retourne l'objet passé en paramètre à save()
-            // → permet de vérifier les modifications faites AVANT le save()
-            given(userRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
             given(jwtService.generateAccessToken(any())).willReturn("token");
             given(userMapper.toResponseDTO(any())).willReturn(new UserResponseDTO());
 
-            authService.authenticate(loginRequest);
+            JwtResponseDTO result = authService.authenticate(loginRequest);
 
-            // La propriété lastLogin du user doit avoir été mise à aujourd'hui
-            assertThat(mockUser.getLastLogin()).isEqualTo(LocalDate.now());
+            // Pas de save() de l'entité complète : seulement lastLogin
+            then(userRepository).should().updateLastLogin(eq(mockUser.getId()), any(LocalDateTime.class));
+            then(userRepository).should(never()).save(any());
+            assertThat(result.getUser().getLastLogin()).isNotNull();
         }
     }
 
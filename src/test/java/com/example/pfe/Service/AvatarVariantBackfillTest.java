@@ -0,0 +1,53 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.storage.BlobStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AvatarVariantBackfill — Tests Unitaires")
+class AvatarVariantBackfillTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private BlobStore      blobStore;
+    @Mock private PreviewService previewService;
+
+    @InjectMocks
+    private AvatarVariantBackfill backfill;
+
+    private UserRepository.AvatarRow row(Long id, String avatar) {
+        return new UserRepository.AvatarRow() {
+            public Long getId()       { return id; }
+            public String getAvatar() { return avatar; }
+        };
+    }
+
+    @Test
+    @DisplayName("Met en file uniquement les avatars sans variantes")
+    void shouldQueueAvatarsWithoutVariants() throws Exception {
+        when(userRepository.findAvatarsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                row(1L, "/uploads/avatars/avatar_1_a.png"),
+                row(2L, "/uploads/avatars/avatar_2_b.png")));
+        when(userRepository.findAvatarsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(blobStore.exists(anyString())).thenAnswer(inv -> inv.<String>getArgument(0).startsWith("avatar_1_"));
+        when(previewService.hasRoom()).thenReturn(true);
+
+        int queued = backfill.run();
+
+        assertThat(queued).isEqualTo(1);
+        verify(previewService).scheduleAvatarVariants("avatar_2_b.png");
+        verify(previewService, never()).scheduleAvatarVariants("avatar_1_a.png");
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.enums.QueryCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChatRouterService — Mise en cache des réponses RH")
+class ChatRouterServiceTest {
+
+    private static final String QUESTION = "How many days off per year?";
+
+    @Mock private QueryClassifierService classifier;
+    @Mock private RagService ragService;
+    @Mock private SemanticAnswerCache answerCache;
+    @Mock private SemanticAnswerCache.Lookup lookup;
+
+    @InjectMocks private ChatRouterService router;
+
+    @BeforeEach
+    void setUp() {
+        given(answerCache.lookup(QUESTION, "en")).willReturn(lookup);
+        given(lookup.isHit()).willReturn(false);
+        given(classifier.classify(QUESTION)).willReturn(QueryCategory.HR_DOCUMENTATION);
+    }
+
+    @Test
+    @DisplayName("Une réponse fondée sur la documentation est mise en cache")
+    void shouldStoreGroundedAnswer() {
+        given(ragService.answer(QUESTION)).willReturn(new RagService.Answer("30 days.", true));
+
+        assertThat(router.route(QUESTION)).isEqualTo("30 days.");
+
+        then(lookup).should().store(eq("30 days."), anyLong());
+    }
+
+    @Test
+    @DisplayName("La réponse par défaut sans contexte n'est pas mise en cache")
+    void shouldNotStoreUngroundedAnswer() {
+        given(ragService.answer(QUESTION))
+                .willReturn(new RagService.Answer("I don't have enough information…", false));
+
+        assertThat(router.route(QUESTION)).isEqualTo("I don't have enough information…");
+
+        then(lookup).should(never()).store(anyString(), anyLong());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.pfe.Service;
 
 import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.config.UserPrincipal;
 import com.example.pfe.entities.Role;
 import com.example.pfe.entities.User;
 import com.example.pfe.enums.RoleName;
@@ -18,6 +19,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
@@ -30,6 +32,10 @@ class CustomUserDetailsServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    // Cache traversant par défaut : chaque appel exécute le chargement réel
+    @Mock
+    private UserPrincipalCache principalCache;
+
     @InjectMocks
     private CustomUserDetailsService userDetailsService;
 
@@ -52,6 +58,9 @@ class CustomUserDetailsServiceTest {
                 .accountNonLocked(true)
                 .roles(new ArrayList<>(List.of(employeeRole)))
                 .build();
+
+        lenient().when(principalCache.get(anyString(), any()))
+                .thenAnswer(inv -> inv.<Function<String, UserPrincipal>>getArgument(1).apply(inv.getArgument(0)));
     }
 
     // ─────────────────────────────────────────────────────────────────────────
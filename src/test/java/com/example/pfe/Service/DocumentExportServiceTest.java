@@ -0,0 +1,203 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.dto.DocumentFilterRequest;
+import com.example.pfe.entities.LeaveDocument.DocumentCategory;
+import com.example.pfe.entities.LeaveDocument.DocumentStatus;
+import com.example.pfe.entities.LeaveDocument.DocumentType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DocumentExportService — Tests Unitaires")
+class DocumentExportServiceTest {
+
+    @Mock private EntityManager           entityManager;
+    @Mock private LeaveFileStorageService storageService;
+
+    private DocumentExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        DocumentExportService service = new DocumentExportService(
+                entityManager, storageService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "ioThreads", 2);
+        ReflectionTestUtils.setField(service, "prefetch", 2);
+        service.init();
+        exportService = spy(service);
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportService.shutdown();
+    }
+
+    // ── Fixtures ──────────────────────────────────────────────────────────────
+
+    private DocumentExportService.ExportRow row(Long id, String fileName, String mimeType) {
+        return new DocumentExportService.ExportRow(
+                id, fileName, "leaves/" + id + "/" + fileName, mimeType, 2048L,
+                DocumentType.MEDICAL_CERTIFICATE, DocumentCategory.GENERATED, DocumentStatus.PENDING,
+                LocalDateTime.of(2026, 5, 4, 10, 30), null, null,
+                "John", "Doe", null, null, null, null);
+    }
+
+    private void givenRows(DocumentExportService.ExportRow... rows) {
+        doReturn(Stream.of(rows)).when(exportService).scroll(any());
+    }
+
+    private Map<String, String> zipEntries(byte[] zip) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry e;
+            while ((e = in.getNextEntry()) != null) {
+                entries.put(e.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    // ── ZIP ───────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("ZIP : copie les fichiers et remplace un fichier absent par une note")
+    void shouldZipFilesAndNoteMissingOnes() throws Exception {
+        givenRows(row(1L, "scan.pdf", "application/pdf"), row(2L, "gone.pdf", "application/pdf"));
+        when(storageService.open("leaves/1/scan.pdf"))
+                .thenReturn(new ByteArrayInputStream("%PDF-1.7 scan".getBytes(StandardCharsets.UTF_8)));
+        when(storageService.open("leaves/2/gone.pdf"))
+                .thenThrow(new FileNotFoundException("File not found: leaves/2/gone.pdf"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.streamZip(new DocumentFilterRequest(), out);
+
+        assertThat(zipEntries(out.toByteArray())).containsExactly(
+                entry("Doe_John/2026-05/MEDICAL_CERTIFICATE_scan.pdf", "%PDF-1.7 scan"),
+                entry("MISSING_doc_2.txt", "File missing: leaves/2/gone.pdf"));
+    }
+
+    @Test
+    @DisplayName("ZIP : une erreur d'accès n'est pas signalée comme un fichier absent")
+    void shouldReportUnreadableFileWithCause() throws Exception {
+        givenRows(row(3L, "locked.pdf", "application/pdf"));
+        when(storageService.open("leaves/3/locked.pdf"))
+                .thenThrow(new AccessDeniedException("leaves/3/locked.pdf"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.streamZip(new DocumentFilterRequest(), out);
+
+        Map<String, String> entries = zipEntries(out.toByteArray());
+        assertThat(entries).containsOnlyKeys("UNREADABLE_doc_3.txt");
+        assertThat(entries.get("UNREADABLE_doc_3.txt")).contains("AccessDeniedException");
+    }
+
+    @Test
+    @DisplayName("ZIP : une lecture interrompue marque l'entrée incomplète et continue")
+    void shouldMarkTruncatedEntryAndContinue() throws Exception {
+        givenRows(row(4L, "big.txt", "text/plain"), row(5L, "ok.txt", "text/plain"));
+        when(storageService.open("leaves/4/big.txt")).thenReturn(new InputStream() {
+            private int served;
+
+            @Override
+            public int read() throws IOException {
+                if (served++ < 3) return 'x';
+                throw new IOException("disk error");
+            }
+        });
+        when(storageService.open("leaves/5/ok.txt"))
+                .thenReturn(new ByteArrayInputStream("ok".getBytes(StandardCharsets.UTF_8)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.streamZip(new DocumentFilterRequest(), out);
+
+        Map<String, String> entries = zipEntries(out.toByteArray());
+        assertThat(entries.keySet()).containsExactly(
+                "Doe_John/2026-05/MEDICAL_CERTIFICATE_big.txt",
+                "INCOMPLETE_doc_4.txt",
+                "Doe_John/2026-05/MEDICAL_CERTIFICATE_ok.txt");
+        assertThat(entries.get("INCOMPLETE_doc_4.txt")).startsWith("File truncated after 3 bytes");
+        assertThat(entries.get("Doe_John/2026-05/MEDICAL_CERTIFICATE_ok.txt")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("ZIP : un fichier plus grand que le tampon de préchargement est copié en entier")
+    void shouldStreamTailBeyondPrefetchBuffer() throws Exception {
+        ReflectionTestUtils.setField(exportService, "prefetchBytes", 4);
+        givenRows(row(6L, "long.txt", "text/plain"), row(7L, "short.txt", "text/plain"));
+        when(storageService.open("leaves/6/long.txt"))
+                .thenReturn(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+        when(storageService.open("leaves/7/short.txt"))
+                .thenReturn(new ByteArrayInputStream("ab".getBytes(StandardCharsets.UTF_8)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.streamZip(new DocumentFilterRequest(), out);
+
+        assertThat(zipEntries(out.toByteArray())).containsExactly(
+                entry("Doe_John/2026-05/MEDICAL_CERTIFICATE_long.txt", "0123456789"),
+                entry("Doe_John/2026-05/MEDICAL_CERTIFICATE_short.txt", "ab"));
+    }
+
+    // ── Excel ─────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("Excel : une ligne sans type, catégorie ni statut est exportée avec des cellules vides")
+    void shouldExportRowWithNullEnums() throws Exception {
+        DocumentExportService.ExportRow bare = new DocumentExportService.ExportRow(
+                7L, "note.pdf", "leaves/7/note.pdf", "application/pdf", 5120L,
+                null, null, null,
+                LocalDateTime.of(2026, 5, 4, 10, 30), null, null,
+                "Jane", "Roe", null, null, null, null);
+        givenRows(row(6L, "scan.pdf", "application/pdf"), bare);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.streamExcel(new DocumentFilterRequest(), out);
+
+        try (XSSFWorkbook wb = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = wb.getSheet("Documents Congés");
+            assertThat(sheet.getLastRowNum()).isEqualTo(2);
+            assertThat(sheet.getRow(0).getCell(3).getStringCellValue()).isEqualTo("Catégorie");
+
+            Row first = sheet.getRow(1);
+            assertThat(first.getCell(0).getNumericCellValue()).isEqualTo(6.0);
+            assertThat(first.getCell(2).getStringCellValue()).isEqualTo("MEDICAL_CERTIFICATE");
+            assertThat(first.getCell(3).getStringCellValue()).isEqualTo("GENERATED");
+
+            Row second = sheet.getRow(2);
+            assertThat(second.getCell(1).getStringCellValue()).isEqualTo("Jane Roe");
+            assertThat(second.getCell(2).getStringCellValue()).isEmpty();
+            assertThat(second.getCell(3).getStringCellValue()).isEmpty();
+            assertThat(second.getCell(4).getStringCellValue()).isEmpty();
+            assertThat(second.getCell(6).getNumericCellValue()).isEqualTo(5.0);
+            assertThat(second.getCell(7).getStringCellValue()).isEqualTo("04/05/2026 10:30");
+            assertThat(second.getCell(10).getStringCellValue()).isEqualTo("—");
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.LeaveDocumentRepository;
+import com.example.pfe.dto.DocumentFilterRequest;
+import com.example.pfe.entities.LeaveDocument;
+import com.example.pfe.entities.LeaveDocument.DocumentCategory;
+import com.example.pfe.entities.LeaveDocument.DocumentStatus;
+import com.example.pfe.entities.LeaveDocument.DocumentType;
+import com.example.pfe.entities.LeaveRequest;
+import com.example.pfe.entities.User;
+import com.example.pfe.messaging.LocalClusterEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DocumentSearchService — Tests Unitaires")
+class DocumentSearchServiceTest {
+
+    @Mock private LeaveDocumentRepository documentRepository;
+    @Mock private LeaveFileStorageService storageService;
+
+    @TempDir Path indexDir;
+
+    private DocumentSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        searchService = new DocumentSearchService(documentRepository, storageService,
+                new SimpleMeterRegistry(), new LocalClusterEventBus());
+        ReflectionTestUtils.setField(searchService, "indexDir", indexDir.toString());
+        ReflectionTestUtils.setField(searchService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(searchService, "maxContentChars", 10_000);
+    }
+
+    /** Stub the repository first: init() rebuilds the empty index on another thread at once. */
+    private void start() throws Exception {
+        searchService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        searchService.shutdown();
+    }
+
+    private LeaveDocument doc(Long id, String firstName, DocumentType type, DocumentStatus status, String text)
+            throws Exception {
+        User user = new User();
+        user.setId(id * 10);
+        user.setFirstName(firstName);
+        user.setLastName("Doe");
+        LeaveRequest leave = LeaveRequest.builder()
+                .id(id)
+                .startDate(LocalDate.of(2026, 5, 4))
+                .endDate(LocalDate.of(2026, 5, 8))
+                .build();
+        String path = "docs/" + id + ".txt";
+        lenient().when(storageService.open(path))
+                .thenAnswer(inv -> new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        LeaveDocument doc = LeaveDocument.builder()
+                .id(id)
+                .user(user)
+                .leaveRequest(leave)
+                .documentType(type)
+                .documentCategory(DocumentCategory.UPLOADED)
+                .status(status)
+                .fileName(id + "_" + type.name().toLowerCase() + ".txt")
+                .filePath(path)
+                .mimeType("text/plain")
+                .uploadedAt(LocalDateTime.of(2026, 5, 1, 9, 0).plusHours(id))
+                .build();
+        lenient().when(documentRepository.findForIndex(id)).thenReturn(Optional.of(doc));
+        return doc;
+    }
+
+    private static DocumentFilterRequest withArchived() {
+        DocumentFilterRequest f = new DocumentFilterRequest();
+        f.setIncludeArchived(true);
+        return f;
+    }
+
+    private DocumentSearchService.SearchHits awaitTotal(String q, DocumentFilterRequest f, long expected)
+            throws Exception {
+        DocumentSearchService.SearchHits hits = searchService.search(q, f, 0, 10);
+        for (int i = 0; i < 200 && hits.total() != expected; i++) {
+            Thread.sleep(25);
+            hits = searchService.search(q, f, 0, 10);
+        }
+        assertThat(hits.total()).isEqualTo(expected);
+        return hits;
+    }
+
+    @Test
+    @DisplayName("Trouve un document par le texte du fichier, sans tenir compte des accents")
+    void shouldSearchFileContent() throws Exception {
+        start();
+        searchService.index(doc(1L, "John", DocumentType.MEDICAL_CERTIFICATE, DocumentStatus.PENDING,
+                "Certificat médical : repos de cinq jours."));
+        searchService.index(doc(2L, "Jane", DocumentType.PROOF, DocumentStatus.APPROVED,
+                "Justificatif de déménagement."));
+
+        DocumentSearchService.SearchHits hits = awaitTotal("medical repos", new DocumentFilterRequest(), 1);
+
+        assertThat(hits.hits()).extracting(DocumentSearchService.Hit::documentId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Applique les filtres et compte les facettes sur le résultat")
+    void shouldFilterAndCountFacets() throws Exception {
+        start();
+        searchService.index(doc(1L, "John", DocumentType.PROOF, DocumentStatus.PENDING, "attestation"));
+        searchService.index(doc(2L, "Jane", DocumentType.PROOF, DocumentStatus.APPROVED, "attestation"));
+        searchService.index(doc(3L, "Jim", DocumentType.OTHER, DocumentStatus.ARCHIVED, "attestation"));
+        awaitTotal(null, withArchived(), 3);
+        assertThat(searchService.search(null, new DocumentFilterRequest(), 0, 10).total())
+                .isEqualTo(2);   // archived hidden by default
+
+        DocumentFilterRequest pending = new DocumentFilterRequest();
+        pending.setStatus(DocumentStatus.PENDING);
+        assertThat(searchService.search("attestation", pending, 0, 10).hits())
+                .extracting(DocumentSearchService.Hit::documentId).containsExactly(1L);
+
+        DocumentSearchService.SearchHits hits = searchService.search("attestation", withArchived(), 0, 10);
+        assertThat(hits.facets().get("documentType")).containsEntry("PROOF", 2L).containsEntry("OTHER", 1L);
+
+        DocumentFilterRequest leave = new DocumentFilterRequest();
+        leave.setLeaveFrom(LocalDate.of(2026, 6, 1));
+        assertThat(searchService.search(null, leave, 0, 10).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Une mise à jour remplace le document et une suppression le retire")
+    void shouldUpdateAndRemove() throws Exception {
+        start();
+        LeaveDocument d = doc(1L, "John", DocumentType.PROOF, DocumentStatus.PENDING, "facture");
+        searchService.index(d);
+        awaitTotal("facture", new DocumentFilterRequest(), 1);
+
+        d.setStatus(DocumentStatus.APPROVED);
+        searchService.index(d);
+        DocumentFilterRequest approved = new DocumentFilterRequest();
+        approved.setStatus(DocumentStatus.APPROVED);
+        awaitTotal("facture", approved, 1);
+        assertThat(searchService.search("facture", new DocumentFilterRequest(), 0, 10).total()).isEqualTo(1);
+
+        when(documentRepository.findForIndex(1L)).thenReturn(Optional.empty());
+        searchService.remove(1L);
+        awaitTotal("facture", new DocumentFilterRequest(), 0);
+    }
+
+    @Test
+    @DisplayName("N'indexe qu'après le commit, et jamais après un rollback")
+    void shouldIndexOnlyAfterCommit() throws Exception {
+        start();
+        LeaveDocument committed = doc(1L, "John", DocumentType.PROOF, DocumentStatus.PENDING, "facture");
+        LeaveDocument rolledBack = doc(2L, "Jane", DocumentType.PROOF, DocumentStatus.PENDING, "facture");
+
+        TransactionSynchronizationManager.initSynchronization();
+        searchService.index(committed);
+        List<TransactionSynchronization> first = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        searchService.index(rolledBack);
+        List<TransactionSynchronization> second = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        verify(documentRepository, after(100).never()).findForIndex(any());
+
+        first.forEach(TransactionSynchronization::afterCommit);
+        second.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(awaitTotal("facture", new DocumentFilterRequest(), 1).hits())
+                .extracting(DocumentSearchService.Hit::documentId).containsExactly(1L);
+        verify(documentRepository, never()).findForIndex(2L);
+    }
+
+    @Test
+    @DisplayName("Reconstruit l'index depuis la base par lots")
+    void shouldRebuildFromDatabase() throws Exception {
+        LeaveDocument ana = doc(5L, "Ana", DocumentType.OTHER, DocumentStatus.APPROVED, "contrat");
+        when(documentRepository.findIndexBatch(eq(0L), any())).thenReturn(List.of(ana));
+
+        start();   // empty index → rebuild
+
+        awaitTotal("ana", new DocumentFilterRequest(), 1);
+    }
+
+    @Test
+    @DisplayName("Une reconstruction remplace l'index d'un coup et rejoue les changements concurrents")
+    void shouldSwapRebuiltIndex() throws Exception {
+        LeaveDocument ana = doc(5L, "Ana", DocumentType.OTHER, DocumentStatus.APPROVED, "contrat");
+        when(documentRepository.findIndexBatch(eq(0L), any())).thenReturn(List.of(ana));
+        start();
+        awaitTotal("contrat", new DocumentFilterRequest(), 1);
+
+        // Ana's row is gone; Bob is saved while the rebuild still reads the old batch
+        LeaveDocument bob = doc(6L, "Bob", DocumentType.OTHER, DocumentStatus.APPROVED, "contrat");
+        when(documentRepository.findIndexBatch(eq(0L), any())).thenAnswer(inv -> {
+            searchService.index(bob);
+            Thread.sleep(100);
+            // searches keep using the old generation meanwhile
+            assertThat(searchService.search("ana", new DocumentFilterRequest(), 0, 10).total()).isEqualTo(1);
+            return List.of();
+        });
+
+        boolean started = searchService.rebuild();
+        for (int i = 0; i < 200 && !started; i++) {   // the startup rebuild may still be finishing
+            Thread.sleep(25);
+            started = searchService.rebuild();
+        }
+        assertThat(started).isTrue();
+
+        awaitTotal("ana", new DocumentFilterRequest(), 0);   // swapped
+        awaitTotal("bob", new DocumentFilterRequest(), 1);   // replayed
+        assertThat(searchService.search("contrat", new DocumentFilterRequest(), 0, 10).hits())
+                .extracting(DocumentSearchService.Hit::documentId).containsExactly(6L);
+
+        long generations = generationDirs();
+        for (int i = 0; i < 200 && generations != 1; i++) {
+            Thread.sleep(25);
+            generations = generationDirs();
+        }
+        assertThat(generations).isEqualTo(1);   // old generation deleted
+    }
+
+    @Test
+    @DisplayName("Refuse une page au-delà de la fenêtre de résultats sans débordement d'entier")
+    void shouldRejectPageBeyondResultWindow() {
+        assertThatThrownBy(() -> searchService.search("x", new DocumentFilterRequest(), Integer.MAX_VALUE, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> searchService.search("x", new DocumentFilterRequest(),
+                DocumentSearchService.MAX_RESULT_WINDOW / 10, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long generationDirs() throws Exception {
+        try (var dirs = Files.list(indexDir)) {
+            return dirs.filter(Files::isDirectory).count();
+        }
+    }
+}
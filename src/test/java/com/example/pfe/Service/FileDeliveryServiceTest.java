@@ -0,0 +1,105 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.storage.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("FileDeliveryService — Tests Unitaires")
+class FileDeliveryServiceTest {
+
+    private static final String HASH = "ab12cd34";
+
+    @TempDir Path dir;
+
+    private FileDeliveryService deliveryService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        deliveryService = new FileDeliveryService(new LocalBlobStore(dir));
+        ReflectionTestUtils.setField(deliveryService, "maxAge", Duration.ofHours(24));
+        ReflectionTestUtils.setField(deliveryService, "sendfileMinBytes", 49152L);
+        ReflectionTestUtils.setField(deliveryService, "presignTtl", Duration.ofMinutes(5));
+        Files.writeString(dir.resolve("doc.pdf"), "0123456789", StandardCharsets.UTF_8);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request, String hash) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        deliveryService.serve("doc.pdf", "doc.pdf", "application/pdf", hash, false, request, response);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Renvoie le fichier complet avec ETag fort et Cache-Control immutable")
+    void shouldServeFullBody() throws Exception {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/d"), HASH);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + HASH + "\"");
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    @DisplayName("Répond 304 quand If-None-Match correspond")
+    void shouldReturnNotModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/d");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", \"" + HASH + "\"");
+
+        MockHttpServletResponse response = serve(request, HASH);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Sert une plage d'octets en 206")
+    void shouldServeRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/d");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse response = serve(request, HASH);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    @DisplayName("Ignore Range si If-Range ne correspond plus")
+    void shouldIgnoreRangeWhenIfRangeIsStale() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/d");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        MockHttpServletResponse response = serve(request, HASH);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    @DisplayName("Répond 416 pour une plage hors du fichier")
+    void shouldRejectUnsatisfiableRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/d");
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+
+        MockHttpServletResponse response = serve(request, null);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("W/");
+    }
+}
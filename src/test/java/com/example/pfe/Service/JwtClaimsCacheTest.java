@@ -0,0 +1,105 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("JwtClaimsCache — Tests Unitaires")
+class JwtClaimsCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private JwtService jwtService;
+    private JwtClaimsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = spy(new JwtService());
+        ReflectionTestUtils.setField(jwtService, "secret",
+                "dGhpc2lzYXZlcnlsb25nc2VjcmV0a2V5Zm9ydGVzdGluZ3B1cnBvc2VzMTIzNDU2");
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "clockSkewSeconds", 0L);
+        jwtService.init();
+
+        cache = new JwtClaimsCache(jwtService, registry);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        cache.init();
+    }
+
+    private String accessToken(String email) {
+        return jwtService.generateAccessToken(User.builder().id(1L).email(email).roles(List.of()).build());
+    }
+
+    private double count(String result) {
+        return registry.counter("jwt.cache.requests", "result", result).count();
+    }
+
+    @Test
+    @DisplayName("Ne vérifie la signature qu'une fois pour un même token")
+    void shouldVerifyOnlyOnce() {
+        String token = accessToken("a@test.com");
+
+        Optional<JwtService.VerifiedToken> first  = cache.verify(token);
+        Optional<JwtService.VerifiedToken> second = cache.verify(token);
+
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        assertThat(first.get().subject()).isEqualTo("a@test.com");
+        assertThat(first.get().isAccess()).isTrue();
+        verify(jwtService, times(1)).verify(token);
+        assertThat(count("hit")).isEqualTo(1);
+        assertThat(count("miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un token invalide n'est jamais mis en cache")
+    void shouldNotCacheInvalidTokens() {
+        String tampered = accessToken("a@test.com") + "x";
+
+        assertThat(cache.verify(tampered)).isEmpty();
+        assertThat(cache.verify(tampered)).isEmpty();
+        assertThat(cache.size()).isZero();
+        verify(jwtService, times(2)).verify(tampered);
+    }
+
+    @Test
+    @DisplayName("Un token expiré en cache est re-vérifié (et rejeté)")
+    void shouldDropExpiredEntries() throws Exception {
+        String token = jwtService.generateTokenWithExpiration(Map.of("type", "access"), "a@test.com", 1_000);
+        assertThat(cache.verify(token)).isPresent();
+
+        Thread.sleep(1_100);
+
+        assertThat(cache.verify(token)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Le cache est borné et évince le moins récemment utilisé")
+    void shouldEvictLeastRecentlyUsed() {
+        String a = accessToken("a@test.com");
+        String b = accessToken("b@test.com");
+        String c = accessToken("c@test.com");
+
+        cache.verify(a);
+        cache.verify(b);
+        cache.verify(a);   // a is now the most recent
+        cache.verify(c);   // evicts b
+
+        assertThat(cache.size()).isEqualTo(2);
+        clearInvocations(jwtService);
+        cache.verify(a);
+        cache.verify(b);
+        verify(jwtService, never()).verify(a);
+        verify(jwtService, times(1)).verify(b);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.LeaveBalanceRepository;
+import com.example.pfe.Repository.LeaveRolloverCheckpointRepository;
+import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.config.LeaveBalancePolicy;
+import com.example.pfe.entities.LeaveRolloverCheckpoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LeaveBalanceRolloverService — Tests Unitaires")
+class LeaveBalanceRolloverServiceTest {
+
+    @Mock private UserRepository                    userRepository;
+    @Mock private LeaveBalanceRepository            leaveBalanceRepository;
+    @Mock private LeaveRolloverCheckpointRepository checkpointRepository;
+    @Mock private JdbcTemplate                      jdbcTemplate;
+    @Spy  private LeaveBalancePolicy                policy = new LeaveBalancePolicy();
+    @Spy  private TransactionTemplate               transactionTemplate =
+            new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private LeaveBalanceRolloverService rolloverService;
+
+    // ── Fixtures ──────────────────────────────────────────────────────────────
+
+    private UserRepository.ActiveUserRow user(Long id, LocalDate hireDate) {
+        return new UserRepository.ActiveUserRow() {
+            public Long getId()            { return id; }
+            public LocalDate getHireDate() { return hireDate; }
+        };
+    }
+
+    private LeaveBalanceRepository.AnnualRemaining remaining(Long userId, double days) {
+        return new LeaveBalanceRepository.AnnualRemaining() {
+            public Long getUserId()            { return userId; }
+            public Double getAnnualRemaining() { return days; }
+        };
+    }
+
+    private LeaveBalanceRepository.RolloverState state(Long userId, boolean rolledOver) {
+        return new LeaveBalanceRepository.RolloverState() {
+            public Long getUserId()        { return userId; }
+            public Boolean getRolledOver() { return rolledOver; }
+        };
+    }
+
+    @Test
+    @DisplayName("Crée les soldes de l'année suivante avec report et ancienneté")
+    void shouldCreateBalancesWithCarryOverAndSeniority() {
+        when(checkpointRepository.findByTargetYear(2027)).thenReturn(Optional.empty());
+        when(checkpointRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(userRepository.findActiveUsersAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(user(1L, LocalDate.of(2016, 3, 1)), user(2L, null)));
+        when(userRepository.findActiveUsersAfter(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(leaveBalanceRepository.findAnnualRemaining(eq(2026), anyCollection()))
+                .thenReturn(List.of(remaining(1L, 8.0), remaining(2L, 3.0)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {1, 1});
+        when(leaveBalanceRepository.findRolloverState(eq(2027), anyCollection())).thenReturn(List.of());
+
+        LeaveRolloverCheckpoint result = rolloverService.rollover(2027);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+
+        // 22 base + 2 seniority (10 years) + 5 carried over (capped)
+        assertThat(rows.getValue().get(0)[2]).isEqualTo(29.0);
+        // 22 base + 3 carried over
+        assertThat(rows.getValue().get(1)[2]).isEqualTo(25.0);
+
+        assertThat(result.getStatus()).isEqualTo(LeaveBalanceRolloverService.COMPLETED);
+        assertThat(result.getProcessedUsers()).isEqualTo(2);
+        assertThat(result.getCreatedBalances()).isEqualTo(2);
+        assertThat(result.getLastUserId()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Ajoute le report au solde déjà créé par LeaveService au lieu de l'ignorer")
+    void shouldAddCarryOverToLazilyCreatedBalance() {
+        when(checkpointRepository.findByTargetYear(2027)).thenReturn(Optional.empty());
+        when(checkpointRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(userRepository.findActiveUsersAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(user(1L, null)));
+        when(userRepository.findActiveUsersAfter(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(leaveBalanceRepository.findAnnualRemaining(eq(2026), anyCollection()))
+                .thenReturn(List.of(remaining(1L, 4.0)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {2});
+        // Row created lazily by LeaveService, carry-over not applied yet
+        when(leaveBalanceRepository.findRolloverState(eq(2027), anyCollection()))
+                .thenReturn(List.of(state(1L, false)));
+
+        LeaveRolloverCheckpoint result = rolloverService.rollover(2027);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), rows.capture());
+
+        assertThat(sql.getValue())
+                .doesNotContain("IGNORE")
+                .contains("ON DUPLICATE KEY UPDATE")
+                .contains("annual_total + VALUES(carried_over)")
+                .contains("WHEN rolled_over THEN annual_total");
+        assertThat(rows.getValue().get(0)[5]).isEqualTo(4.0);   // carry-over, added to the existing total
+
+        assertThat(result.getCreatedBalances()).isZero();
+        assertThat(result.getUpdatedBalances()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Compte créations et reports même quand le batch réécrit ne renvoie que SUCCESS_NO_INFO")
+    void shouldCountRowsWithRewrittenBatch() {
+        when(checkpointRepository.findByTargetYear(2027)).thenReturn(Optional.empty());
+        when(checkpointRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(userRepository.findActiveUsersAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(user(1L, null), user(2L, null), user(3L, null)));
+        when(userRepository.findActiveUsersAfter(eq(3L), any(Pageable.class)))
+                .thenReturn(List.of());
+        // rewriteBatchedStatements=true: one multi-row INSERT, no per-row count
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {-2, -2, -2});
+        // 1: new, 2: created lazily by LeaveService, 3: already rolled over by an earlier run
+        when(leaveBalanceRepository.findRolloverState(eq(2027), anyCollection()))
+                .thenReturn(List.of(state(2L, false), state(3L, true)));
+
+        LeaveRolloverCheckpoint result = rolloverService.rollover(2027);
+
+        assertThat(result.getProcessedUsers()).isEqualTo(3);
+        assertThat(result.getCreatedBalances()).isEqualTo(1);
+        assertThat(result.getUpdatedBalances()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Le report planifié tourne après minuit, sur l'année qui vient de se terminer")
+    void shouldRunAfterYearIsClosed() throws Exception {
+        Scheduled scheduled = LeaveBalanceRolloverService.class
+                .getMethod("scheduledRollover").getAnnotation(Scheduled.class);
+        assertThat(scheduled.cron()).endsWith(":0 30 0 1 1 *}");   // January 1st, 00:30
+
+        int year = LocalDate.now().getYear();
+        LeaveRolloverCheckpoint done = LeaveRolloverCheckpoint.builder()
+                .targetYear(year).status(LeaveBalanceRolloverService.COMPLETED).build();
+        when(checkpointRepository.findByTargetYear(anyInt())).thenReturn(Optional.of(done));
+
+        rolloverService.scheduledRollover();
+
+        // Balances of the current year, from the remaining days of the year that just ended
+        verify(checkpointRepository).findByTargetYear(year);
+    }
+
+    @Test
+    @DisplayName("Ne fait rien si le report de l'année est déjà terminé")
+    void shouldSkipCompletedYear() {
+        LeaveRolloverCheckpoint done = LeaveRolloverCheckpoint.builder()
+                .targetYear(2027).status(LeaveBalanceRolloverService.COMPLETED).build();
+        when(checkpointRepository.findByTargetYear(2027)).thenReturn(Optional.of(done));
+
+        LeaveRolloverCheckpoint result = rolloverService.rollover(2027);
+
+        assertThat(result).isSameAs(done);
+        verifyNoInteractions(userRepository, jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Reprend après le dernier utilisateur traité")
+    void shouldResumeFromCheckpoint() {
+        LeaveRolloverCheckpoint failed = LeaveRolloverCheckpoint.builder()
+                .targetYear(2027).status(LeaveBalanceRolloverService.FAILED)
+                .lastUserId(500L).processedUsers(500).createdBalances(500)
+                .build();
+        when(checkpointRepository.findByTargetYear(2027)).thenReturn(Optional.of(failed));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(userRepository.findActiveUsersAfter(eq(500L), any(Pageable.class))).thenReturn(List.of());
+
+        LeaveRolloverCheckpoint result = rolloverService.rollover(2027);
+
+        verify(userRepository, never()).findActiveUsersAfter(eq(0L), any(Pageable.class));
+        assertThat(result.getStatus()).isEqualTo(LeaveBalanceRolloverService.COMPLETED);
+        assertThat(result.getProcessedUsers()).isEqualTo(500);
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.StoredBlobRepository;
+import com.example.pfe.entities.LeaveDocument.DocumentType;
+import com.example.pfe.entities.StoredBlob;
+import com.example.pfe.storage.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LeaveFileStorageService — Tests Unitaires")
+class LeaveFileStorageServiceTest {
+
+    @Mock private StoredBlobRepository       blobRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    @TempDir Path uploadDir;
+
+    private LocalBlobStore          blobStore;
+    private LeaveFileStorageService storageService;
+    private final List<SimpleTransactionStatus> transactions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            SimpleTransactionStatus status = new SimpleTransactionStatus();
+            transactions.add(status);
+            return status;
+        });
+        blobStore = spy(new LocalBlobStore(uploadDir));
+        storageService = new LeaveFileStorageService(new FileHashService(), blobRepository, blobStore,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(storageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(storageService, "dedupEnabled", true);
+        ReflectionTestUtils.setField(storageService, "orphanGraceHours", 24L);
+        storageService.init();
+    }
+
+    private StoredBlob orphan(long id, String path) {
+        return StoredBlob.builder().id(id).contentHash("h" + id).filePath(path).fileSize(1L).refCount(0).build();
+    }
+
+    private MockMultipartFile pdf(String name, String content) {
+        return new MockMultipartFile("file", name, "application/pdf",
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long blobFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(uploadDir.resolve("blobs"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    @DisplayName("Un contenu identique n'est stocké qu'une fois et compte deux références")
+    void shouldStoreIdenticalContentOnce() throws Exception {
+        LeaveFileStorageService.StorageResult first =
+                storageService.storeUpload(pdf("a.pdf", "certificat"), 7L, 1L, DocumentType.MEDICAL_CERTIFICATE);
+        LeaveFileStorageService.StorageResult second =
+                storageService.storeUpload(pdf("b.pdf", "certificat"), 9L, 2L, DocumentType.MEDICAL_CERTIFICATE);
+
+        assertThat(second.filePath()).isEqualTo(first.filePath());
+        assertThat(first.filePath()).startsWith("blobs/" + first.contentHash().substring(0, 2) + "/");
+        assertThat(first.fileName()).isEqualTo("1_medical_certificate.pdf");
+        assertThat(blobFiles()).isEqualTo(1);
+        verify(blobRepository, times(2)).acquire(eq(first.contentHash()), eq(first.filePath()), eq(10L));
+    }
+
+    @Test
+    @DisplayName("Un contenu différent produit un blob distinct")
+    void shouldStoreDifferentContentSeparately() throws Exception {
+        LeaveFileStorageService.StorageResult first =
+                storageService.storeUpload(pdf("a.pdf", "v1"), 7L, 1L, DocumentType.PROOF);
+        LeaveFileStorageService.StorageResult second =
+                storageService.storeUpload(pdf("a.pdf", "v2"), 7L, 1L, DocumentType.PROOF);
+
+        assertThat(second.contentHash()).isNotEqualTo(first.contentHash());
+        assertThat(Files.readString(uploadDir.resolve(first.filePath()))).isEqualTo("v1");
+        assertThat(blobFiles()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("La référence est prise avant de vérifier la présence du fichier")
+    void shouldAcquireReferenceBeforeCheckingFile() throws Exception {
+        LeaveFileStorageService.StorageResult stored =
+                storageService.storeUpload(pdf("a.pdf", "certificat"), 7L, 1L, DocumentType.MEDICAL_CERTIFICATE);
+
+        InOrder order = inOrder(blobRepository, blobStore);
+        order.verify(blobRepository).acquire(stored.contentHash(), stored.filePath(), 10L);
+        order.verify(blobStore).exists(stored.filePath());
+        order.verify(blobStore).put(eq(stored.filePath()), any(Path.class), eq("application/pdf"));
+    }
+
+    @Test
+    @DisplayName("Le fichier d'un upload annulé est supprimé s'il n'est référencé par personne")
+    void shouldRemoveFileOfRolledBackUpload() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            LeaveFileStorageService.StorageResult stored =
+                    storageService.storeUpload(pdf("a.pdf", "brouillon"), 7L, 1L, DocumentType.PROOF);
+            when(blobRepository.lockRefCount(stored.contentHash())).thenReturn(Optional.empty());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            assertThat(uploadDir.resolve(stored.filePath())).doesNotExist();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Le fichier d'un upload annulé est conservé si un autre upload l'a référencé entre-temps")
+    void shouldKeepRolledBackFileReferencedByAnotherUpload() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            LeaveFileStorageService.StorageResult stored =
+                    storageService.storeUpload(pdf("a.pdf", "partagé"), 7L, 1L, DocumentType.PROOF);
+            when(blobRepository.lockRefCount(stored.contentHash())).thenReturn(Optional.of(1));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            assertThat(uploadDir.resolve(stored.filePath())).exists();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Le balayage supprime les blobs orphelins, chacun dans sa propre transaction")
+    void shouldSweepOrphansOneTransactionEach() throws Exception {
+        Files.createDirectories(uploadDir.resolve("blobs/aa"));
+        Files.writeString(uploadDir.resolve("blobs/aa/one"), "1");
+        Files.writeString(uploadDir.resolve("blobs/aa/two"), "2");
+        when(blobRepository.findOrphans(any(), any()))
+                .thenReturn(List.of(orphan(1L, "blobs/aa/one"), orphan(2L, "blobs/aa/two")));
+        when(blobRepository.deleteIfUnreferenced(1L)).thenReturn(1);
+        when(blobRepository.deleteIfUnreferenced(2L)).thenReturn(0);   // re-acquired since findOrphans
+
+        storageService.sweepOrphans();
+
+        assertThat(uploadDir.resolve("blobs/aa/one")).doesNotExist();
+        assertThat(uploadDir.resolve("blobs/aa/two")).exists();
+        assertThat(transactions).hasSize(2);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Si le fichier ne peut pas être supprimé, la ligne est conservée pour le prochain balayage")
+    void shouldKeepRowWhenFileDeleteFails() throws Exception {
+        when(blobRepository.findOrphans(any(), any())).thenReturn(List.of(orphan(1L, "blobs/aa/one")));
+        when(blobRepository.deleteIfUnreferenced(1L)).thenReturn(1);
+        doThrow(new IOException("permission denied")).when(blobStore).delete("blobs/aa/one");
+
+        storageService.sweepOrphans();
+
+        assertThat(transactions).singleElement()
+                .satisfies(status -> assertThat(status.isRollbackOnly()).isTrue());
+    }
+
+    @Test
+    @DisplayName("Calcule le ratio de déduplication et les octets économisés")
+    void shouldComputeStats() {
+        StoredBlobRepository.BlobTotals totals = mock(StoredBlobRepository.BlobTotals.class);
+        when(totals.getBlobs()).thenReturn(2L);
+        when(totals.getTotalReferences()).thenReturn(5L);
+        when(totals.getLogicalBytes()).thenReturn(3000L);
+        when(totals.getPhysicalBytes()).thenReturn(1000L);
+        when(blobRepository.totals()).thenReturn(totals);
+
+        LeaveFileStorageService.StorageStats stats = storageService.stats();
+
+        assertThat(stats.bytesSaved()).isEqualTo(2000L);
+        assertThat(stats.dedupRatio()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Un upload est écrit sur disque au fil de la lecture, pas après l'avoir lu en entier")
+    void shouldSpoolUploadWhileReading() throws Exception {
+        int size = 1024 * 1024;
+        AtomicLong spooledAtHalf = new AtomicLong(-1);
+        StreamingPart part = new StreamingPart("doc.pdf", size, (byte) 1, served -> {
+            if (served >= size / 2 && spooledAtHalf.get() < 0) spooledAtHalf.set(spooledBytes());
+        });
+
+        storageService.storeUpload(part, 7L, 1L, DocumentType.PROOF);
+
+        assertThat(part.served()).isEqualTo(size);
+        // Everything read so far is already on disk, give or take one copy buffer
+        assertThat(spooledAtHalf.get()).isGreaterThanOrEqualTo(size / 2 - 2 * 64 * 1024);
+    }
+
+    @Test
+    @DisplayName("100 uploads parallèles de 1 Mo passent tous par le flux, jamais par getBytes()")
+    void shouldStreamParallelUploads() throws Exception {
+        int uploads = 100;
+        int size    = 1024 * 1024;
+
+        ExecutorService pool = Executors.newFixedThreadPool(uploads);
+        List<StreamingPart> parts = new ArrayList<>();
+        try {
+            List<Future<LeaveFileStorageService.StorageResult>> results = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                StreamingPart part = new StreamingPart("doc" + i + ".pdf", size, (byte) i, served -> { });
+                parts.add(part);
+                long userId = i;
+                results.add(pool.submit(() ->
+                        storageService.storeUpload(part, userId, userId, DocumentType.PROOF)));
+            }
+            for (Future<LeaveFileStorageService.StorageResult> f : results) {
+                assertThat(f.get().fileSize()).isEqualTo((long) size);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(blobFiles()).isEqualTo(uploads);
+        assertThat(parts).allSatisfy(part -> assertThat(part.served()).isEqualTo(size));
+    }
+
+    private long spooledBytes() {
+        try (Stream<Path> files = Files.list(uploadDir.resolve(".spool"))) {
+            return files.mapToLong(f -> f.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Multipart part that produces its bytes on the fly and refuses to be
+     * buffered; reports the bytes served after each read.
+     */
+    private static final class StreamingPart implements MultipartFile {
+
+        private final String name;
+        private final int size;
+        private final byte fill;
+        private final LongConsumer progress;
+        private final AtomicLong served = new AtomicLong();
+
+        StreamingPart(String name, int size, byte fill, LongConsumer progress) {
+            this.name = name;
+            this.size = size;
+            this.fill = fill;
+            this.progress = progress;
+        }
+
+        long served() {
+            return served.get();
+        }
+
+        @Override public String getName()             { return "file"; }
+        @Override public String getOriginalFilename() { return name; }
+        @Override public String getContentType()      { return "application/pdf"; }
+        @Override public boolean isEmpty()            { return size == 0; }
+        @Override public long getSize()               { return size; }
+
+        @Override
+        public byte[] getBytes() {
+            throw new AssertionError("upload must be streamed, not buffered");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private int remaining = size;
+
+                @Override
+                public int read() {
+                    if (remaining == 0) return -1;
+                    remaining--;
+                    progress.accept(served.incrementAndGet());
+                    return fill & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (remaining == 0) return -1;
+                    int n = Math.min(len, remaining);
+                    Arrays.fill(b, off, off + n, fill);
+                    remaining -= n;
+                    progress.accept(served.addAndGet(n));
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
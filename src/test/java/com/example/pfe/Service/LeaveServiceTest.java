@@ -4,6 +4,7 @@ import com.example.pfe.Repository.LeaveBalanceRepository;
 import com.example.pfe.Repository.LeaveRequestRepository;
 import com.example.pfe.Repository.TeamAssignmentRepository;
 import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.config.LeaveBalancePolicy;
 import com.example.pfe.dto.*;
 import com.example.pfe.entities.LeaveBalance;
 import com.example.pfe.entities.LeaveRequest;
@@ -20,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 
@@ -43,6 +45,7 @@ class LeaveServiceTest {
     @Mock private TeamAssignmentRepository teamAssignmentRepository;
     @Mock private LeaveMapper              leaveMapper;
     @Mock private NotificationService      notificationService;
+    @Spy  private LeaveBalancePolicy       leaveBalancePolicy = new LeaveBalancePolicy();
 
     @InjectMocks
     private LeaveService leaveService;
@@ -0,0 +1,178 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.LeaveRequestRepository;
+import com.example.pfe.dto.LetterBatchRequest;
+import com.example.pfe.entities.LeaveRequest;
+import com.example.pfe.entities.User;
+import com.example.pfe.enums.LeaveStatus;
+import com.example.pfe.enums.LeaveType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LetterBatchService — Tests Unitaires")
+class LetterBatchServiceTest {
+
+    @Mock private LeaveRequestRepository leaveRequestRepository;
+    @Mock private JasperService          jasperService;
+
+    @InjectMocks
+    private LetterBatchService letterBatchService;
+
+    private LetterBatchRequest request;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(letterBatchService, "workers", 2);
+        ReflectionTestUtils.setField(letterBatchService, "pageSize", 2);
+
+        request = new LetterBatchRequest();
+        request.setFrom(LocalDate.of(2026, 5, 1));
+        request.setTo(LocalDate.of(2026, 5, 31));
+        request.setLeaveType(LeaveType.ANNUAL);
+
+        lenient().when(jasperService.awaitLetter(anyString(), any())).thenAnswer(inv ->
+                ((Future<?>) inv.getArgument(1)).get());
+    }
+
+    private LeaveRequest buildLeave(Long id) {
+        User user = new User();
+        user.setId(10L);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        return LeaveRequest.builder()
+                .id(id)
+                .user(user)
+                .leaveType(LeaveType.ANNUAL)
+                .startDate(LocalDate.of(2026, 5, 4))
+                .endDate(LocalDate.of(2026, 5, 6))
+                .daysCount(3.0)
+                .status(LeaveStatus.APPROVED)
+                .build();
+    }
+
+    private void givenLeaves(LeaveRequest... leaves) {
+        List<LeaveRequest> all = List.of(leaves);
+        when(leaveRequestRepository.findApprovedIdsForLetterBatch(any(), any(), eq(LeaveType.ANNUAL), isNull()))
+                .thenReturn(all.stream().map(LeaveRequest::getId).toList());
+        lenient().when(leaveRequestRepository.findWithUserByIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            List<LeaveRequest> page = new ArrayList<>(all.stream().filter(l -> ids.contains(l.getId())).toList());
+            Collections.reverse(page);   // the IN query does not keep the requested order
+            return page;
+        });
+    }
+
+    private List<String> entryNames(byte[] zip) throws Exception {
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry e;
+            while ((e = in.getNextEntry()) != null) names.add(e.getName());
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("Écrit les lettres dans l'ordre de la requête même si elles finissent dans le désordre")
+    void shouldKeepRequestOrder() throws Exception {
+        givenLeaves(buildLeave(1L), buildLeave(2L), buildLeave(3L));
+
+        CompletableFuture<byte[]> slow = new CompletableFuture<>();
+        when(jasperService.submitDemandeConge(any(), any(), isNull()))
+                .thenReturn(slow)
+                .thenReturn(CompletableFuture.completedFuture(new byte[] {2}))
+                .thenReturn(CompletableFuture.completedFuture(new byte[] {3}));
+        CompletableFuture.runAsync(() -> slow.complete(new byte[] {1}));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        letterBatchService.streamLettersZip(request, out);
+
+        assertThat(entryNames(out.toByteArray())).containsExactly(
+                "2026-05/Doe_John/leave_1.pdf",
+                "2026-05/Doe_John/leave_2.pdf",
+                "2026-05/Doe_John/leave_3.pdf");
+    }
+
+    @Test
+    @DisplayName("Une lettre en échec n'interrompt pas le lot")
+    void shouldContinueAfterFailedLetter() throws Exception {
+        givenLeaves(buildLeave(1L), buildLeave(2L));
+        when(jasperService.submitDemandeConge(any(), any(), isNull()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")))
+                .thenReturn(CompletableFuture.completedFuture(new byte[] {2}));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        letterBatchService.streamLettersZip(request, out);
+
+        assertThat(entryNames(out.toByteArray())).containsExactly(
+                "FAILED_leave_1.txt",
+                "2026-05/Doe_John/leave_2.pdf");
+    }
+
+    @Test
+    @DisplayName("Charge les demandes page par page, sans transaction ouverte pendant le flux")
+    void shouldLoadLeavesPageByPage() throws Exception {
+        givenLeaves(buildLeave(1L), buildLeave(2L), buildLeave(3L));
+        when(jasperService.submitDemandeConge(any(), any(), isNull()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(new byte[] {1}));
+
+        letterBatchService.streamLettersZip(request, new ByteArrayOutputStream());
+
+        verify(leaveRequestRepository).findWithUserByIdIn(List.of(1L, 2L));
+        verify(leaveRequestRepository).findWithUserByIdIn(List.of(3L));
+        assertThat(LetterBatchService.class.getMethod("streamLettersZip",
+                LetterBatchRequest.class, OutputStream.class).isAnnotationPresent(Transactional.class)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Une erreur en cours de flux est signalée dans l'archive au lieu de la tronquer")
+    void shouldMarkArchiveIncompleteOnFailure() throws Exception {
+        givenLeaves(buildLeave(1L), buildLeave(2L), buildLeave(3L));
+        when(leaveRequestRepository.findWithUserByIdIn(List.of(3L)))
+                .thenThrow(new QueryTimeoutException("database gone"));
+        when(jasperService.submitDemandeConge(any(), any(), isNull()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(new byte[] {1}));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        letterBatchService.streamLettersZip(request, out);
+
+        assertThat(entryNames(out.toByteArray())).containsExactly(
+                "2026-05/Doe_John/leave_1.pdf",
+                "2026-05/Doe_John/leave_2.pdf",
+                LetterBatchService.INCOMPLETE_ENTRY);
+    }
+
+    @Test
+    @DisplayName("Rejette une période invalide")
+    void shouldRejectInvalidPeriod() {
+        request.setTo(LocalDate.of(2026, 4, 1));
+
+        assertThatThrownBy(() -> letterBatchService.validate(request))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
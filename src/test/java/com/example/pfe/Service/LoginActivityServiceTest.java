@@ -0,0 +1,37 @@
+package com.example.pfe.Service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LoginActivityService — Tests Unitaires")
+class LoginActivityServiceTest {
+
+    @Mock private AttendanceService attendanceService;
+
+    @InjectMocks
+    private LoginActivityService loginActivityService;
+
+    @Test
+    @DisplayName("Le login déclenche le check-in de l'utilisateur")
+    void shouldCheckInAfterLogin() {
+        loginActivityService.afterLogin(1L);
+
+        then(attendanceService).should().checkIn(1L);
+    }
+
+    @Test
+    @DisplayName("Un échec du check-in est absorbé")
+    void shouldSwallowCheckInFailure() {
+        willThrow(new RuntimeException("DB error")).given(attendanceService).checkIn(any());
+
+        assertThatCode(() -> loginActivityService.afterLogin(1L)).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.config.NotificationPolicy;
+import com.example.pfe.enums.NotificationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationRetentionService — Tests Unitaires")
+class NotificationRetentionServiceTest {
+
+    @Mock private UnreadCounterService unreadCounters;
+    @Mock private JdbcTemplate         jdbcTemplate;
+    @Mock private TransactionTemplate  transactionTemplate;
+
+    private final NotificationPolicy policy = new NotificationPolicy();
+    private NotificationRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        policy.setDefaultRetention(null);   // keep everything unless configured
+        policy.getRetention().put(NotificationType.LATE_ARRIVAL, Duration.ofDays(90));
+
+        retentionService = new NotificationRetentionService(
+                policy, unreadCounters, jdbcTemplate, transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(retentionService, "batchSize", 2);
+        ReflectionTestUtils.setField(retentionService, "pauseMs", 0L);
+    }
+
+    /** Each row is {id, userId, read (0/1)}; rows go through the service's RowMapper. */
+    private Answer<List<Object>> rows(long[]... data) {
+        return inv -> {
+            RowMapper<?> mapper = inv.getArgument(1);
+            List<Object> out = new ArrayList<>();
+            for (int i = 0; i < data.length; i++) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("id")).thenReturn(data[i][0]);
+                when(rs.getLong("user_id")).thenReturn(data[i][1]);
+                when(rs.getBoolean("is_read")).thenReturn(data[i][2] == 1);
+                out.add(mapper.mapRow(rs, i));
+            }
+            return out;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubTransactions() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Supprime par petits lots jusqu'à épuisement, chacun dans sa transaction")
+    @SuppressWarnings("unchecked")
+    void shouldDeleteInBatchesUntilExhausted() {
+        stubTransactions();
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(rows(new long[] {1, 10, 1}, new long[] {2, 11, 0}))
+                .thenAnswer(rows(new long[] {3, 12, 0}));
+        when(jdbcTemplate.update(startsWith("DELETE FROM notifications WHERE id IN"), any(Object[].class)))
+                .thenReturn(2, 1);
+
+        Map<NotificationType, Long> deleted = retentionService.purge();
+
+        assertThat(deleted).containsExactly(Map.entry(NotificationType.LATE_ARRIVAL, 3L));
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(jdbcTemplate).update("DELETE FROM notifications WHERE id IN (?,?)", 1L, 2L);
+        verify(jdbcTemplate).update("DELETE FROM notifications WHERE id IN (?)", 3L);
+    }
+
+    @Test
+    @DisplayName("Ne recalcule les compteurs que pour les propriétaires de notifications non lues")
+    @SuppressWarnings("unchecked")
+    void shouldReconcileOnlyOwnersOfUnreadRows() {
+        stubTransactions();
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(rows(new long[] {1, 10, 1}, new long[] {2, 11, 0}))
+                .thenAnswer(rows());
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2);
+
+        retentionService.purge();
+
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(unreadCounters, atLeastOnce()).reconcile(captor.capture());
+        assertThat(captor.getAllValues().get(0)).containsExactly(11L);
+    }
+
+    @Test
+    @DisplayName("Ne touche pas aux types conservés indéfiniment")
+    @SuppressWarnings("unchecked")
+    void shouldSkipTypesKeptForever() {
+        policy.getRetention().clear();
+
+        assertThat(retentionService.purge()).isEmpty();
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+        verifyNoInteractions(transactionTemplate, unreadCounters);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.pfe.Service;
 
 import com.example.pfe.Repository.NotificationRepository;
 import com.example.pfe.Repository.UserRepository;
+import com.example.pfe.config.NotificationPolicy;
 import com.example.pfe.dto.NotificationDTO;
 import com.example.pfe.entities.Notification;
 import com.example.pfe.entities.User;
@@ -14,15 +15,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,6 +47,9 @@ class NotificationServiceTest {
     @Mock private NotificationRepository notificationRepository;
     @Mock private UserRepository         userRepository;
     @Mock private SseEmitterService sseEmitterService;
+    @Mock private JdbcTemplate      jdbcTemplate;
+    @Mock private UnreadCounterService unreadCounters;
+    @Spy  private NotificationPolicy   policy = new NotificationPolicy();
 
     @InjectMocks
     private NotificationService notificationService;
@@ -111,6 +126,35 @@ class NotificationServiceTest {
             verify(sseEmitterService).push(eq(1L), any(NotificationDTO.class));
         }
 
+        @Test
+        @DisplayName("Dans une transaction, le push SSE attend le commit et disparaît au rollback")
+        void shouldPushOnlyAfterCommit() {
+            User user = buildUser(1L, "Oumayma");
+            stubHappyPath(user);
+
+            TransactionSynchronizationManager.initSynchronization();
+            List<TransactionSynchronization> committed;
+            List<TransactionSynchronization> rolledBack;
+            try {
+                notificationService.notifyWelcome(1L);
+                committed = TransactionSynchronizationManager.getSynchronizations();
+                TransactionSynchronizationManager.clearSynchronization();
+
+                TransactionSynchronizationManager.initSynchronization();
+                notificationService.notifyWelcome(1L);
+                rolledBack = TransactionSynchronizationManager.getSynchronizations();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            verify(sseEmitterService, never()).push(any(), any(NotificationDTO.class));
+
+            rolledBack.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            verify(sseEmitterService, never()).push(any(), any(NotificationDTO.class));
+
+            committed.forEach(TransactionSynchronization::afterCommit);
+            verify(sseEmitterService).push(eq(1L), any(NotificationDTO.class));
+        }
+
         @Test
         @DisplayName("notifyLateArrival sauvegarde et push avec le bon type")
         void shouldSaveWithCorrectTypeOnLateArrival() {
@@ -327,6 +371,69 @@ class NotificationServiceTest {
         }
     }
 
+    // ══════════════════════════════════════════════════════════════════════════
+    // 4b. getFeed (keyset)
+    // ══════════════════════════════════════════════════════════════════════════
+    @Nested
+    @DisplayName("getFeed()")
+    class GetFeed {
+
+        private Notification at(long id, LocalDateTime createdAt) {
+            return Notification.builder()
+                    .id(id).type(NotificationType.WELCOME)
+                    .title("n" + id).read(false).createdAt(createdAt).build();
+        }
+
+        @Test
+        @DisplayName("Première tranche sans curseur, sans requête de comptage")
+        void shouldReturnFirstSliceWithCursor() {
+            LocalDateTime t = LocalDateTime.of(2026, 5, 1, 10, 0, 0, 123_456_000);
+            Slice<Notification> slice = new SliceImpl<>(List.of(at(9L, t), at(8L, t)), PageRequest.of(0, 2), true);
+            when(notificationRepository.findFeedFirst(1L, PageRequest.of(0, 2))).thenReturn(slice);
+
+            NotificationService.FeedPage page = notificationService.getFeed(1L, null, 2);
+
+            assertThat(page.items()).extracting(NotificationDTO::getId).containsExactly(9L, 8L);
+            assertThat(page.hasMore()).isTrue();
+            NotificationService.FeedCursor cursor = NotificationService.FeedCursor.decode(page.nextCursor());
+            assertThat(cursor.id()).isEqualTo(8L);
+            assertThat(cursor.createdAt()).isEqualTo(t);   // sub-second precision kept
+            verify(notificationRepository, never()).findByUserIdOrderByCreatedAtDesc(any(), any());
+        }
+
+        @Test
+        @DisplayName("Le curseur est renvoyé tel quel à la requête keyset suivante")
+        void shouldContinueAfterCursor() {
+            LocalDateTime t = LocalDateTime.of(2026, 5, 1, 10, 0);
+            String cursor = new NotificationService.FeedCursor(t, 8L).encode();
+            when(notificationRepository.findFeedBefore(1L, t, 8L, PageRequest.of(0, 20)))
+                    .thenReturn(new SliceImpl<>(List.of(at(7L, t)), PageRequest.of(0, 20), false));
+
+            NotificationService.FeedPage page = notificationService.getFeed(1L, cursor, 20);
+
+            assertThat(page.items()).hasSize(1);
+            assertThat(page.hasMore()).isFalse();
+            assertThat(page.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Curseur invalide → IllegalArgumentException (400)")
+        void shouldRejectInvalidCursor() {
+            assertThatThrownBy(() -> notificationService.getFeed(1L, "not-a-cursor", 20))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("La taille est bornée à 100")
+        void shouldCapSliceSize() {
+            when(notificationRepository.findFeedFirst(eq(1L), any())).thenReturn(new SliceImpl<>(List.of()));
+
+            notificationService.getFeed(1L, null, 10_000);
+
+            verify(notificationRepository).findFeedFirst(1L, PageRequest.of(0, 100));
+        }
+    }
+
     // ══════════════════════════════════════════════════════════════════════════
     // 5. getUnreadCount
     // ══════════════════════════════════════════════════════════════════════════
@@ -337,17 +444,18 @@ class NotificationServiceTest {
         @Test
         @DisplayName("Retourne le nombre de notifications non lues")
         void shouldReturnUnreadCount() {
-            when(notificationRepository.countByUserIdAndReadFalse(1L)).thenReturn(5L);
+            when(unreadCounters.get(1L)).thenReturn(5L);
 
             long count = notificationService.getUnreadCount(1L);
 
             assertThat(count).isEqualTo(5L);
+            verify(notificationRepository, never()).countByUserIdAndReadFalse(any());
         }
 
         @Test
         @DisplayName("Retourne 0 si toutes les notifications sont lues")
         void shouldReturnZeroWhenAllRead() {
-            when(notificationRepository.countByUserIdAndReadFalse(1L)).thenReturn(0L);
+            when(unreadCounters.get(1L)).thenReturn(0L);
 
             assertThat(notificationService.getUnreadCount(1L)).isZero();
         }
@@ -367,6 +475,17 @@ class NotificationServiceTest {
 
             verify(notificationRepository).markReadById(10L, 1L);
         }
+
+        @Test
+        @DisplayName("Décrémente le compteur seulement si la notification était non lue")
+        void shouldDecrementCounterOnlyWhenChanged() {
+            when(notificationRepository.markReadById(10L, 1L)).thenReturn(1).thenReturn(0);
+
+            notificationService.markRead(10L, 1L);
+            notificationService.markRead(10L, 1L);
+
+            verify(unreadCounters, times(1)).add(1L, -1);
+        }
     }
 
     // ══════════════════════════════════════════════════════════════════════════
@@ -379,9 +498,126 @@ class NotificationServiceTest {
         @Test
         @DisplayName("Délègue au repository avec le bon userId")
         void shouldMarkAllNotificationsRead() {
+            when(notificationRepository.markAllReadByUserId(1L)).thenReturn(4);
+
             notificationService.markAllRead(1L);
 
             verify(notificationRepository).markAllReadByUserId(1L);
+            verify(unreadCounters).add(1L, -4);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════════
+    // 8. fanOut / broadcast
+    // ══════════════════════════════════════════════════════════════════════════
+    @Nested
+    @DisplayName("fanOut() / broadcast()")
+    class FanOut {
+
+        private final NotificationService.NotificationTemplate template =
+                new NotificationService.NotificationTemplate(NotificationType.PROJECT_UPDATED, "T", "M", "/projects");
+
+        /** Typed matcher, so execute(ConnectionCallback) is picked without a raw type. */
+        private ConnectionCallback<List<Long>> anyConnectionCallback() {
+            return any();
+        }
+
+        @Test
+        @DisplayName("Insère par lots JDBC sans charger les utilisateurs")
+        void shouldInsertInBatchesWithoutLoadingUsers() {
+            when(jdbcTemplate.execute(anyConnectionCallback())).thenReturn(List.of());
+            List<Long> recipients = LongStream.rangeClosed(1, 1200).boxed().toList();
+
+            int created = notificationService.fanOut(recipients, template);
+
+            assertThat(created).isEqualTo(1200);
+            verify(jdbcTemplate, times(3)).execute(anyConnectionCallback());   // 500 + 500 + 200
+            verifyNoInteractions(userRepository, notificationRepository);
+        }
+
+        @Test
+        @DisplayName("Ne pousse en SSE que vers les utilisateurs connectés, avec l'id généré")
+        @SuppressWarnings("unchecked")
+        void shouldPushOnlyToConnectedUsers() {
+            when(jdbcTemplate.execute(anyConnectionCallback())).thenReturn(List.of(100L, 101L));
+            when(sseEmitterService.onlineUsers()).thenReturn(Set.of(2L));
+
+            notificationService.fanOut(List.of(1L, 2L, 2L), template);   // duplicates ignored
+
+            ArgumentCaptor<Map<Long, NotificationDTO>> captor = ArgumentCaptor.forClass(Map.class);
+            verify(sseEmitterService).pushAll(captor.capture());
+            assertThat(captor.getValue()).containsOnlyKeys(2L);
+            assertThat(captor.getValue().get(2L).getId()).isEqualTo(101L);
+        }
+
+        @Test
+        @DisplayName("broadcast cible tous les utilisateurs actifs avec le type ANNOUNCEMENT")
+        void shouldBroadcastToActiveUsers() {
+            when(userRepository.findActiveUserIds()).thenReturn(List.of(1L, 2L, 3L));
+            when(jdbcTemplate.execute(anyConnectionCallback())).thenReturn(List.of());
+
+            assertThat(notificationService.broadcast("Fermeture", "Vendredi", null)).isEqualTo(3);
+            verify(userRepository, never()).findById(any());
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════════
+    // 9. Coalescing
+    // ══════════════════════════════════════════════════════════════════════════
+    @Nested
+    @DisplayName("Regroupement des notifications répétées")
+    class Coalescing {
+
+        @Test
+        @DisplayName("Fusionne un retard dans la notification non lue existante sans toucher au compteur")
+        void shouldMergeIntoExistingUnreadNotification() {
+            User user = buildUser(1L, "Oumayma");
+            LocalDateTime firstAt = LocalDateTime.now().minusMinutes(30);
+            Notification existing = Notification.builder()
+                    .id(7L).user(user).type(NotificationType.LATE_ARRIVAL)
+                    .title("Late").message("09:10").read(false)
+                    .createdAt(firstAt)
+                    .build();
+            stubHappyPath(user);
+            when(notificationRepository.findFirstByUserIdAndTypeAndReadFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+                    eq(1L), eq(NotificationType.LATE_ARRIVAL), any()))
+                    .thenReturn(Optional.of(existing));
+
+            notificationService.notifyLateArrival(1L, "09:15");
+
+            assertThat(existing.getOccurrences()).isEqualTo(2);
+            assertThat(existing.getMessage()).contains("09:15");
+            assertThat(existing.getCreatedAt()).isEqualTo(firstAt);   // window stays anchored on the first event
+            assertThat(existing.getLastOccurredAt()).isAfter(LocalDateTime.now().minusMinutes(1));
+            verify(notificationRepository).save(existing);
+            verify(sseEmitterService).push(eq(1L), argThat(dto -> dto.getId() == 7L && dto.getOccurrences() == 2
+                    && dto.getLastOccurredAt() != null));
+            verifyNoInteractions(unreadCounters);
+        }
+
+        @Test
+        @DisplayName("Crée une nouvelle notification quand rien n'est à fusionner")
+        void shouldCreateNewRowWhenNothingToMerge() {
+            User user = buildUser(1L, "Oumayma");
+            stubHappyPath(user);
+
+            notificationService.notifyLateArrival(1L, "09:15");
+
+            ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+            verify(notificationRepository).save(captor.capture());
+            assertThat(captor.getValue().getOccurrences()).isEqualTo(1);
+            verify(unreadCounters).add(1L, 1);
+        }
+
+        @Test
+        @DisplayName("Les types non configurés ne sont jamais regroupés")
+        void shouldNotCoalesceOtherTypes() {
+            stubHappyPath(buildUser(1L, "Oumayma"));
+
+            notificationService.notifyWelcome(1L);
+
+            verify(notificationRepository, never())
+                    .findFirstByUserIdAndTypeAndReadFalseAndCreatedAtAfterOrderByCreatedAtDesc(any(), any(), any());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PasswordHashingEngine — Tests Unitaires")
+class PasswordHashingEngineTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PasswordHashingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PasswordHashingEngine(registry);
+        ReflectionTestUtils.setField(engine, "threads", 1);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 1);
+        ReflectionTestUtils.setField(engine, "timeoutMs", 5_000L);
+        engine.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("La tâche s'exécute sur le pool et son temps d'attente est mesuré")
+    void shouldRunOnPoolAndRecordQueueWait() {
+        String thread = engine.run("verify", () -> Thread.currentThread().getName());
+
+        assertThat(thread).startsWith("password-hash-");
+        assertThat(registry.timer("security.password_hash.queue.wait", "operation", "verify").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Pool et file pleins — 503 immédiat")
+    void shouldRejectWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> engine.run("verify", () -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> engine.run("verify", () -> true));
+        while (registry.get("security.password_hash.queue.depth").gauge().value() < 1) Thread.sleep(5);
+
+        assertThatThrownBy(() -> engine.run("verify", () -> true))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(registry.counter("security.password_hash.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Une exception de la tâche est relancée telle quelle")
+    void shouldRethrowTaskException() {
+        assertThatThrownBy(() -> engine.run("verify", () -> { throw new IllegalArgumentException("bad hash"); }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad hash");
+    }
+}
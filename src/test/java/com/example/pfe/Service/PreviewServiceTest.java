@@ -0,0 +1,143 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.storage.LocalBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PreviewService — Tests Unitaires")
+class PreviewServiceTest {
+
+    @TempDir Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PreviewService previewService;
+
+    @BeforeEach
+    void setUp() {
+        previewService = new PreviewService(meterRegistry, new LocalBlobStore(dir));
+        ReflectionTestUtils.setField(previewService, "threads", 1);
+        ReflectionTestUtils.setField(previewService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(previewService, "thumbnailWidth", 240);
+        ReflectionTestUtils.setField(previewService, "jpegQuality", 0.8f);
+        previewService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        previewService.shutdown();
+    }
+
+    private void awaitFile(Path file) throws InterruptedException {
+        for (int i = 0; i < 200 && !Files.exists(file); i++) {
+            Thread.sleep(25);
+        }
+        assertThat(file).exists();
+    }
+
+    @Test
+    @DisplayName("Génère une vignette de la première page d'un PDF")
+    void shouldRenderPdfThumbnail() throws Exception {
+        Path pdf = dir.resolve("doc.pdf");
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.save(pdf.toFile());
+        }
+
+        previewService.scheduleThumbnail("doc.pdf", "application/pdf", false);
+
+        Path thumb = dir.resolve(PreviewService.thumbnailKey("doc.pdf"));
+        awaitFile(thumb);
+        BufferedImage image = ImageIO.read(thumb.toFile());
+        assertThat(image.getWidth()).isEqualTo(240);
+    }
+
+    @Test
+    @DisplayName("Réduit l'échelle d'une page PDF très haute pour respecter la limite de pixels")
+    void shouldCapPdfThumbnailPixels() throws Exception {
+        ReflectionTestUtils.setField(previewService, "maxPixels", 100_000L);
+        Path pdf = dir.resolve("tall.pdf");
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(new PDRectangle(100, 20_000)));   // 240 px wide → 48 000 px tall uncapped
+            document.save(pdf.toFile());
+        }
+
+        previewService.scheduleThumbnail("tall.pdf", "application/pdf", false);
+
+        Path thumb = dir.resolve(PreviewService.thumbnailKey("tall.pdf"));
+        awaitFile(thumb);
+        BufferedImage image = ImageIO.read(thumb.toFile());
+        assertThat((long) image.getWidth() * image.getHeight()).isLessThanOrEqualTo(100_000L);
+        assertThat(image.getWidth()).isLessThan(240);
+    }
+
+    @Test
+    @DisplayName("Génère les variantes carrées d'un avatar")
+    void shouldRenderAvatarVariants() throws Exception {
+        Path avatar = dir.resolve("avatar_1.png");
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB), "png", avatar.toFile());
+
+        previewService.scheduleAvatarVariants("avatar_1.png");
+
+        Path largest = dir.resolve(PreviewService.avatarVariantKey("avatar_1.png", 256));
+        awaitFile(largest);
+        BufferedImage image = ImageIO.read(largest.toFile());
+        assertThat(image.getWidth()).isEqualTo(256);
+        assertThat(image.getHeight()).isEqualTo(256);
+    }
+
+    @Test
+    @DisplayName("Refuse de décoder une image dont l'en-tête annonce trop de pixels")
+    void shouldRejectOversizedImage() throws Exception {
+        ReflectionTestUtils.setField(previewService, "maxPixels", 10_000L);
+        Path avatar = dir.resolve("avatar_2.png");
+        ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", avatar.toFile());
+
+        previewService.scheduleAvatarVariants("avatar_2.png");
+
+        for (int i = 0; i < 200 && meterRegistry.counter("previews.failed", "kind", "avatar").count() == 0; i++) {
+            Thread.sleep(25);
+        }
+        assertThat(meterRegistry.counter("previews.failed", "kind", "avatar").count()).isEqualTo(1);
+        assertThat(dir.resolve(PreviewService.avatarVariantKey("avatar_2.png", 64))).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Un travail refusé par la file est compté et gardé pour une nouvelle tentative")
+    void shouldCountAndKeepDroppedAvatarJob() {
+        previewService.shutdown();   // every submit is rejected from now on
+
+        previewService.scheduleAvatarVariants("avatar_3.png");
+
+        assertThat(meterRegistry.counter("previews.dropped", "kind", "avatar").count()).isEqualTo(1);
+        assertThat(ReflectionTestUtils.getField(previewService, "droppedAvatars"))
+                .asInstanceOf(InstanceOfAssertFactories.collection(String.class))
+                .containsExactly("avatar_3.png");
+    }
+
+    @Test
+    @DisplayName("Ignore les types non prévisualisables")
+    void shouldSkipUnsupportedTypes() throws Exception {
+        Files.writeString(dir.resolve("doc.docx"), "x");
+
+        previewService.scheduleThumbnail("doc.docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document", false);
+
+        Thread.sleep(100);
+        assertThat(dir.resolve(PreviewService.thumbnailKey("doc.docx"))).doesNotExist();
+    }
+}
@@ -50,6 +50,7 @@ class ProjectServiceImplTest {
     @Mock private NotificationService            notificationService;
     // ✅ AJOUT : le service dépend aussi de ce repository (injection Lombok)
     @Mock private ProjectStatusHistoryRepository historyRepository;
+    @Mock private UserPrincipalCache principalCache;
 
     @InjectMocks
     private ProjectServiceImpl projectService;
@@ -317,8 +318,8 @@ class ProjectServiceImplTest {
 
             projectService.updateProject(1L, dto);
 
-            verify(notificationService, times(1)).notifyProjectUpdated(10L, "Proj Updated");
-            verify(notificationService, never()).notifyProjectUpdated(eq(11L), any());
+            verify(notificationService, times(1)).notifyProjectUpdated(List.of(10L), "Proj Updated");
+            verify(notificationService, never()).notifyProjectUpdated(anyLong(), any());
         }
 
         @Test
@@ -0,0 +1,215 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.RagChunkRepository;
+import com.example.pfe.Repository.RagIngestionLogRepository;
+import com.example.pfe.entities.RagChunk;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RagService — Ingestion incrémentale par lots")
+class RagServiceTest {
+
+    private static final String SLUG = "reglement";
+
+    @Mock private ChatLanguageModel chatLanguageModel;
+    @Mock private EmbeddingModel embeddingModel;
+    @Mock private EmbeddingStore<TextSegment> embeddingStore;
+    @Mock private RagIngestionLogRepository ingestionLogRepository;
+    @Mock private FileHashService fileHashService;
+    @Mock private RagChunkRepository chunkRepository;
+    @Mock private SemanticAnswerCache answerCache;
+
+    @Captor private ArgumentCaptor<List<RagChunk>> manifestCaptor;
+
+    private RagService ragService;
+    private final List<String> storedIds = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        ragService = new RagService(chatLanguageModel, embeddingModel, embeddingStore,
+                ingestionLogRepository, fileHashService, chunkRepository, answerCache);
+        ReflectionTestUtils.setField(ragService, "batchSize", 4);
+        ReflectionTestUtils.setField(ragService, "parallelism", 2);
+        ragService.init();
+
+        lenient().when(embeddingModel.embedAll(anyList())).thenAnswer(inv -> embeddings(inv.getArgument(0)));
+        // Chroma attribue un id par vecteur, dans l'ordre reçu
+        lenient().when(embeddingStore.addAll(anyList(), anyList())).thenAnswer(inv -> {
+            List<String> ids = inv.<List<?>>getArgument(0).stream().map(e -> UUID.randomUUID().toString()).toList();
+            storedIds.addAll(ids);
+            return ids;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ragService.shutdown();
+    }
+
+    private static Response<List<Embedding>> embeddings(List<TextSegment> batch) {
+        return Response.from(batch.stream().map(s -> Embedding.from(new float[]{1f, 0f})).toList());
+    }
+
+    private static List<TextSegment> segments(String... texts) {
+        return Arrays.stream(texts).map(TextSegment::from).toList();
+    }
+
+    private static List<TextSegment> segments(int n) {
+        return IntStream.range(0, n).mapToObj(i -> TextSegment.from("chunk " + i)).toList();
+    }
+
+    private List<RagChunk> givenStored(List<RagService.NewChunk> chunks) {
+        List<RagChunk> stored = chunks.stream()
+                .map(c -> new RagChunk(UUID.randomUUID().toString(), SLUG, c.contentHash(), LocalDateTime.now()))
+                .toList();
+        given(chunkRepository.findByFileSlug(SLUG)).willReturn(stored);
+        return stored;
+    }
+
+    @Nested
+    @DisplayName("diff()")
+    class Diff {
+
+        @Test
+        @DisplayName("Première ingestion — tous les chunks sont nouveaux")
+        void shouldAddEverythingOnFirstIngestion() {
+            RagService.ChunkDiff diff = ragService.diff(SLUG, segments("a", "b", "c"));
+
+            assertThat(diff.added()).hasSize(3);
+            assertThat(diff.removedIds()).isEmpty();
+            assertThat(diff.unchanged()).isZero();
+            assertThat(diff.firstIngestion()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Seuls les chunks modifiés sont ajoutés, les disparus sont supprimés")
+        void shouldDiffByContentHash() {
+            RagService.ChunkDiff previous = ragService.diff(SLUG, segments("a", "b", "c"));
+            List<RagChunk> stored = givenStored(previous.added());
+
+            RagService.ChunkDiff diff = ragService.diff(SLUG, segments("a", "B modifié", "c", "d"));
+
+            assertThat(diff.added()).extracting(c -> c.segment().text()).containsExactly("B modifié", "d");
+            // suppression par l'id que Chroma avait attribué
+            assertThat(diff.removedIds()).containsExactly(stored.get(1).getChunkId());
+            assertThat(diff.unchanged()).isEqualTo(2);
+            assertThat(diff.firstIngestion()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Un texte répété garde un hash par occurrence")
+        void shouldKeepOneHashPerOccurrence() {
+            RagService.ChunkDiff diff = ragService.diff(SLUG, segments("Article 1", "Article 1"));
+
+            assertThat(diff.added()).extracting(RagService.NewChunk::contentHash).doesNotHaveDuplicates().hasSize(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("embedAndStore()")
+    class EmbedAndStore {
+
+        @Test
+        @DisplayName("Les chunks sont vectorisés et stockés par lots (embedAll / addAll) puis enregistrés")
+        void shouldEmbedAndStoreInBatches() throws Exception {
+            List<RagService.NewChunk> chunks = ragService.diff(SLUG, segments(10)).added();
+
+            int stored = ragService.embedAndStore(chunks, SLUG, new RagService.IngestionTimings());
+
+            assertThat(stored).isEqualTo(10);
+            then(embeddingModel).should(times(3)).embedAll(anyList());      // 4 + 4 + 2
+            then(embeddingModel).should(never()).embed(anyString());
+            then(chunkRepository).should(times(3)).saveAll(manifestCaptor.capture());
+            List<RagChunk> manifest = manifestCaptor.getAllValues().stream().flatMap(List::stream).toList();
+            // rag_chunks garde exactement les ids renvoyés par addAll, avec le bon hash
+            assertThat(manifest).extracting(RagChunk::getChunkId).containsExactlyInAnyOrderElementsOf(storedIds);
+            assertThat(manifest).extracting(RagChunk::getContentHash).containsExactlyInAnyOrderElementsOf(
+                    chunks.stream().map(RagService.NewChunk::contentHash).toList());
+        }
+
+        @Test
+        @DisplayName("En cas d'échec, les lots déjà stockés sont comptés et enregistrés")
+        void shouldReportProgressOnFailure() {
+            ReflectionTestUtils.setField(ragService, "parallelism", 1);   // deterministic order
+            given(embeddingModel.embedAll(anyList()))
+                    .willAnswer(inv -> embeddings(inv.getArgument(0)))
+                    .willAnswer(inv -> embeddings(inv.getArgument(0)))
+                    .willThrow(new RuntimeException("Ollama unreachable"));
+            List<RagService.NewChunk> chunks = ragService.diff(SLUG, segments(12)).added();
+
+            assertThatThrownBy(() -> ragService.embedAndStore(chunks, SLUG, new RagService.IngestionTimings()))
+                    .isInstanceOfSatisfying(RagService.PartialIngestionException.class,
+                            e -> assertThat(e.storedSegments).isEqualTo(8))
+                    .hasMessageContaining("Ollama unreachable");
+            then(chunkRepository).should(times(2)).saveAll(anyList());
+        }
+    }
+
+    @Nested
+    @DisplayName("answer()")
+    class Answering {
+
+        @BeforeEach
+        void setUp() {
+            given(chatLanguageModel.generate(startsWith("You are a translator"))).willReturn("Combien de jours de congé ?");
+            given(embeddingModel.embed("Combien de jours de congé ?")).willReturn(Response.from(Embedding.from(new float[]{1f, 0f})));
+        }
+
+        @Test
+        @DisplayName("Sans chunk retrouvé, la réponse par défaut n'est pas marquée comme fondée")
+        void shouldNotBeGroundedWithoutContext() {
+            given(embeddingStore.search(any(EmbeddingSearchRequest.class)))
+                    .willReturn(new EmbeddingSearchResult<>(List.of()));
+
+            RagService.Answer answer = ragService.answer("How many days off?");
+
+            assertThat(answer.grounded()).isFalse();
+            assertThat(answer.text()).startsWith("I don't have enough information");
+        }
+
+        @Test
+        @DisplayName("Une réponse générée à partir de la documentation est fondée")
+        void shouldBeGroundedWithContext() {
+            TextSegment chunk = TextSegment.from("Article 12 : 30 jours de congé par an.");
+            given(embeddingStore.search(any(EmbeddingSearchRequest.class)))
+                    .willReturn(new EmbeddingSearchResult<>(List.of(
+                            new EmbeddingMatch<>(0.9, "id-1", Embedding.from(new float[]{1f, 0f}), chunk))));
+            given(chatLanguageModel.generate(startsWith("You are an HR assistant"))).willReturn("30 days per year.");
+
+            RagService.Answer answer = ragService.answer("How many days off?");
+
+            assertThat(answer.grounded()).isTrue();
+            assertThat(answer.text()).isEqualTo("30 days per year.");
+        }
+    }
+}
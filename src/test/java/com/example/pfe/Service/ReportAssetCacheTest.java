@@ -0,0 +1,41 @@
+package com.example.pfe.Service;
+
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ReportAssetCache — Tests Unitaires")
+class ReportAssetCacheTest {
+
+    private final ReportAssetCache cache = new ReportAssetCache();
+
+    @Test
+    @DisplayName("Compile le .jrxml quand aucun .jasper précompilé n'existe")
+    void shouldCompileJrxmlWhenPrecompiledMissing() throws Exception {
+        // Only reports/fallback_only.jrxml exists on the test classpath
+        JasperReport report = cache.loadReport("fallback_only");
+
+        assertThat(report).isNotNull();
+        assertThat(report.getName()).isEqualTo("fallback_only");
+    }
+
+    @Test
+    @DisplayName("Charge les deux modèles au démarrage")
+    void shouldLoadTemplatesAtStartup() throws Exception {
+        cache.init();
+
+        assertThat(cache.report(ReportAssetCache.DEMANDE_CONGE).getName()).isEqualTo("demande_conge");
+        assertThat(cache.report(ReportAssetCache.AUTORISATION_SORTIE)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Rejette un nom de modèle inconnu")
+    void shouldRejectUnknownTemplate() throws Exception {
+        cache.init();
+
+        assertThatThrownBy(() -> cache.report("inconnu"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ReportRenderEngine — Tests Unitaires")
+class ReportRenderEngineTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release     = new CountDownLatch(1);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+    private final JasperReport report = mock(JasperReport.class);
+    private ReportRenderEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = spy(new ReportRenderEngine(registry));
+        ReflectionTestUtils.setField(engine, "threads", 1);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 1);
+        ReflectionTestUtils.setField(engine, "timeoutMs", 100L);
+        engine.init();
+
+        // Every render blocks until released (or interrupted by a cancel)
+        doAnswer(inv -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return new byte[] { 1, 2, 3 };
+        }).when(engine).fillAndExport(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Rejette avec 503 quand le pool et sa file sont pleins")
+    void shouldRejectWhenSaturated() {
+        engine.submit("demande_conge", report, Map.of());   // running
+        engine.submit("demande_conge", report, Map.of());   // queued
+
+        assertThatThrownBy(() -> engine.submit("demande_conge", report, Map.of()))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(registry.counter("reports.render.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Annule le rendu et compte le timeout quand il dépasse le délai")
+    void shouldCancelOnTimeout() throws Exception {
+        Future<byte[]> future = engine.submit("demande_conge", report, Map.of());
+
+        assertThatThrownBy(() -> engine.await("demande_conge", future))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(future.isCancelled()).isTrue();
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(registry.counter("reports.render.timeouts").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Retourne le PDF quand le rendu se termine à temps")
+    void shouldReturnRenderedPdf() throws Exception {
+        release.countDown();
+        Future<byte[]> future = engine.submit("demande_conge", report, Map.of());
+
+        assertThat(engine.await("demande_conge", future)).containsExactly(1, 2, 3);
+        assertThat(registry.counter("reports.render.timeouts").count()).isZero();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.RagIngestionLogRepository;
+import com.example.pfe.entities.RagIngestionLog;
+import com.example.pfe.messaging.LocalClusterEventBus;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SemanticAnswerCache — Tests Unitaires")
+class SemanticAnswerCacheTest {
+
+    private static final String QUESTION = "Combien de jours de congé par an ?";
+    private static final String ANSWER   = "Vous avez droit à 30 jours de congé par an.";
+
+    @Mock private EmbeddingModel embeddingModel;
+    @Mock private RagIngestionLogRepository ingestionLogRepository;
+
+    private final LocalClusterEventBus bus = new LocalClusterEventBus();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, float[]> vectors = new HashMap<>();   // normalised question → embedding
+    private SemanticAnswerCache cache;
+
+    @BeforeEach
+    void setUp() {
+        vectors.put("combien de jours de conge par an", new float[]{1f, 0f, 0f});
+        lenient().when(embeddingModel.embed(anyString())).thenAnswer(inv -> {
+            float[] v = vectors.get(inv.<String>getArgument(0));
+            if (v == null) throw new IllegalStateException("no vector for " + inv.getArgument(0));
+            return Response.from(Embedding.from(v));
+        });
+        given(ingestionLogRepository.findFirstByStatusOrderByIngestedAtDesc("SUCCESS"))
+                .willReturn(Optional.of(RagIngestionLog.builder().fileHash("v1").build()));
+
+        cache = new SemanticAnswerCache(embeddingModel, ingestionLogRepository, bus, meterRegistry);
+        ReflectionTestUtils.setField(cache, "threshold", 0.92);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+        cache.init();
+    }
+
+    private void remember(String question, String language, String answer) {
+        cache.lookup(question, language).store(answer, 2_000_000_000L);
+    }
+
+    @Test
+    @DisplayName("Une question reformulée proche est servie depuis le cache")
+    void shouldServeSimilarQuestion() {
+        remember(QUESTION, "fr", ANSWER);
+        vectors.put("combien de jours de conges ai je par an", new float[]{0.98f, 0.1f, 0f});
+
+        SemanticAnswerCache.Lookup lookup = cache.lookup("Combien de jours de congés ai-je par an ?", "fr");
+
+        assertThat(lookup.isHit()).isTrue();
+        assertThat(lookup.answer()).isEqualTo(ANSWER);
+        assertThat(meterRegistry.counter("chat.cache.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("chat.cache.latency.saved").totalTime(TimeUnit.SECONDS))
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("La casse, les accents et la ponctuation sont ignorés")
+    void shouldNormalizeQuestion() {
+        assertThat(SemanticAnswerCache.normalize("  Combien de jours de CONGÉ, par an ?? "))
+                .isEqualTo("combien de jours de conge par an");
+    }
+
+    @Test
+    @DisplayName("Une question sous le seuil de similarité n'est pas servie")
+    void shouldMissBelowThreshold() {
+        remember(QUESTION, "fr", ANSWER);
+        vectors.put("quel est l horaire de travail", new float[]{0.6f, 0.8f, 0f});
+
+        assertThat(cache.lookup("Quel est l'horaire de travail ?", "fr").isHit()).isFalse();
+        assertThat(meterRegistry.counter("chat.cache.requests", "result", "miss").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Une réponse n'est servie que dans la langue de la question")
+    void shouldNotServeOtherLanguage() {
+        remember(QUESTION, "fr", ANSWER);
+
+        assertThat(cache.lookup(QUESTION, "en").isHit()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Un nouveau règlement ingéré vide le cache")
+    void shouldDropAnswersWhenDocumentChanges() {
+        remember(QUESTION, "fr", ANSWER);
+
+        cache.documentChanged("v2");
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.lookup(QUESTION, "fr").isHit()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Une ré-ingestion du même règlement vide aussi le cache")
+    void shouldDropAnswersWhenSameDocumentIsReingested() {
+        vectors.put("autre question", new float[]{0f, 1f, 0f});
+        remember(QUESTION, "fr", ANSWER);
+        SemanticAnswerCache.Lookup pending = cache.lookup("Autre question", "fr");
+
+        cache.documentChanged("v1");
+        pending.store(ANSWER, 1_000_000L);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.lookup(QUESTION, "fr").isHit()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Une réponse calculée avant le changement de règlement n'est pas conservée")
+    void shouldNotStoreAnswerComputedForOldVersion() {
+        SemanticAnswerCache.Lookup pending = cache.lookup(QUESTION, "fr");
+
+        cache.documentChanged("v2");
+        pending.store(ANSWER, 1_000_000L);
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Les entrées les plus anciennes sont évincées au-delà de la capacité")
+    void shouldEvictOldestEntries() {
+        vectors.put("a", new float[]{0f, 1f, 0f});
+        vectors.put("b", new float[]{0f, 0f, 1f});
+        remember(QUESTION, "fr", ANSWER);
+        remember("a", "fr", "A");
+        remember("b", "fr", "B");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.lookup(QUESTION, "fr").isHit()).isFalse();
+        assertThat(cache.lookup("b", "fr").answer()).isEqualTo("B");
+    }
+
+    @Test
+    @DisplayName("Si le modèle d'embedding échoue, le cache est contourné")
+    void shouldBypassWhenEmbeddingFails() {
+        SemanticAnswerCache.Lookup lookup = cache.lookup("question inconnue", "fr");
+        lookup.store(ANSWER, 1_000_000L);
+
+        assertThat(lookup.isHit()).isFalse();
+        assertThat(cache.size()).isZero();
+        assertThat(meterRegistry.counter("chat.cache.requests", "result", "bypass").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.dto.NotificationDTO;
+import com.example.pfe.messaging.LocalNotificationBroker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("SseEmitterService — Tests Unitaires")
+class SseEmitterServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Queue<RecordingEmitter> created = new ConcurrentLinkedQueue<>();
+
+    /** Lets a test make the next emitters slow or broken. */
+    private volatile CountDownLatch sendGate;
+    private volatile boolean failSends;
+
+    private SseEmitterService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SseEmitterService(registry, new LocalNotificationBroker()) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter(sendGate, failSends);
+                created.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(service, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(service, "maxConnectionsPerUser", 3);
+        ReflectionTestUtils.setField(service, "queueCapacity", 4);
+        ReflectionTestUtils.setField(service, "dispatcherThreads", 2);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private NotificationDTO notification(long id) {
+        return NotificationDTO.builder().id(id).title("n" + id).build();
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Chaque onglet ouvert reçoit la notification")
+    void shouldDeliverToEveryTab() throws Exception {
+        service.createEmitter(USER_ID);
+        service.createEmitter(USER_ID);
+
+        service.push(USER_ID, notification(1));
+
+        await(() -> created.stream().allMatch(e -> e.events.size() == 1));
+        assertThat(created).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Au-delà du maximum par utilisateur, la connexion la plus ancienne est fermée")
+    void shouldEvictOldestConnection() {
+        for (int i = 0; i < 4; i++) service.createEmitter(USER_ID);
+
+        assertThat(registry.get("sse.connections").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Un client lent ne bloque pas push() : les plus anciens événements sont abandonnés puis un resync est envoyé")
+    void shouldDropOldestAndResyncWhenQueueIsFull() throws Exception {
+        sendGate = new CountDownLatch(1);
+        service.createEmitter(USER_ID);
+        RecordingEmitter slow = created.peek();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 20; i++) service.push(USER_ID, notification(i));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(500);
+
+        await(() -> registry.get("sse.events.dropped").counter().count() > 0);
+        sendGate.countDown();
+
+        await(() -> slow.events.contains(SseEmitterService.RESYNC_EVENT));
+        assertThat(slow.events.size()).isLessThan(20);
+        assertThat(slow.events).last().isEqualTo("n19");
+    }
+
+    @Test
+    @DisplayName("Le heartbeat détecte et retire une connexion morte")
+    void shouldRemoveDeadConnectionOnHeartbeat() throws Exception {
+        failSends = true;
+        service.createEmitter(USER_ID);
+
+        service.heartbeat();
+
+        await(() -> !service.isConnected(USER_ID));
+    }
+
+    @Test
+    @DisplayName("Le heartbeat ferme une connexion bloquée dans un envoi au-delà du délai")
+    void shouldCloseConnectionStalledInSend() throws Exception {
+        ReflectionTestUtils.setField(service, "sendTimeoutMs", 50L);
+        sendGate = new CountDownLatch(1);
+        try {
+            service.createEmitter(USER_ID);
+            service.push(USER_ID, notification(1));
+            Thread.sleep(150);   // the dispatcher is now stuck in send()
+
+            service.heartbeat();
+
+            assertThat(service.isConnected(USER_ID)).isFalse();
+            assertThat(registry.get("sse.connections.stalled").counter().count()).isEqualTo(1);
+        } finally {
+            sendGate.countDown();
+        }
+    }
+
+    /** Records the name (or title / comment) of each event instead of writing to a response. */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch gate;
+        private final boolean fail;
+
+        RecordingEmitter(CountDownLatch gate, boolean fail) {
+            this.gate = gate;
+            this.fail = fail;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) throw new IOException("broken pipe");
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Set<DataWithMediaType> parts = builder.build();
+            String text = parts.stream().map(p -> String.valueOf(p.getData())).reduce("", String::concat);
+            parts.stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(NotificationDTO.class::isInstance)
+                    .map(d -> ((NotificationDTO) d).getTitle())
+                    .findFirst()
+                    .ifPresentOrElse(events::add,
+                            () -> events.add(text.contains("event:" + SseEmitterService.RESYNC_EVENT)
+                                    ? SseEmitterService.RESYNC_EVENT : text.trim()));
+        }
+    }
+}
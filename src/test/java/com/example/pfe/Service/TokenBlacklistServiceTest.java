@@ -0,0 +1,133 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.RevokedTokenRepository;
+import com.example.pfe.entities.RevokedToken;
+import com.example.pfe.messaging.LocalClusterEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenBlacklistService — Tests Unitaires")
+class TokenBlacklistServiceTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock private JwtService jwtService;
+    @Mock private RevokedTokenRepository revokedTokenRepository;
+
+    private final LocalClusterEventBus bus = new LocalClusterEventBus();
+    private TokenBlacklistService service;
+
+    @BeforeEach
+    void setUp() {
+        service = newNode();
+    }
+
+    private TokenBlacklistService newNode() {
+        TokenBlacklistService node = new TokenBlacklistService(jwtService, revokedTokenRepository, bus, new SimpleMeterRegistry());
+        node.init();
+        return node;
+    }
+
+    private void givenTokenExpiresAt(Instant exp) {
+        given(jwtService.verify(TOKEN)).willReturn(Optional.of(new JwtService.VerifiedToken("a@b.c", "access", exp)));
+    }
+
+    @Test
+    @DisplayName("Un token révoqué est refusé et persisté sous forme de hash")
+    void shouldRevokeAndPersistHashOnly() {
+        givenTokenExpiresAt(Instant.now().plusSeconds(3600));
+
+        service.blacklist(TOKEN);
+
+        assertThat(service.isBlacklisted(TOKEN)).isTrue();
+        assertThat(service.isBlacklisted("other.token.value")).isFalse();
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        then(revokedTokenRepository).should().save(saved.capture());
+        assertThat(saved.getValue().getTokenId())
+                .isEqualTo(TokenDigests.shortId(TOKEN))
+                .hasSize(22)
+                .doesNotContain("payload");
+    }
+
+    @Test
+    @DisplayName("La révocation est propagée aux autres nœuds")
+    void shouldPropagateToOtherNodes() {
+        TokenBlacklistService otherNode = newNode();
+        givenTokenExpiresAt(Instant.now().plusSeconds(3600));
+
+        service.blacklist(TOKEN);
+
+        assertThat(otherNode.isBlacklisted(TOKEN)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Les révocations encore valides sont rechargées au démarrage")
+    void shouldReloadLiveRevocationsOnStartup() {
+        given(revokedTokenRepository.findByExpiresAtAfter(any())).willReturn(List.of(
+                new RevokedToken(TokenDigests.shortId(TOKEN), LocalDateTime.now().plusHours(1), LocalDateTime.now())));
+
+        TokenBlacklistService restarted = newNode();
+
+        assertThat(restarted.isBlacklisted(TOKEN)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Un token invalide n'est pas conservé")
+    void shouldIgnoreInvalidToken() {
+        given(jwtService.verify(TOKEN)).willReturn(Optional.empty());
+
+        service.blacklist(TOKEN);
+
+        assertThat(service.size()).isZero();
+        then(revokedTokenRepository).should(never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Une révocation cesse de compter quand le token expire")
+    void shouldStopCountingAfterExpiry() throws Exception {
+        givenTokenExpiresAt(Instant.now().plusMillis(50));
+
+        service.blacklist(TOKEN);
+        assertThat(service.isBlacklisted(TOKEN)).isTrue();
+
+        Thread.sleep(80);
+        assertThat(service.isBlacklisted(TOKEN)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Une révocation dure tant que la tolérance d'horloge accepte encore le token")
+    void shouldKeepRevocationDuringClockSkew() {
+        givenTokenExpiresAt(Instant.now().minusSeconds(10));   // expired, but still accepted with 60 s skew
+        given(jwtService.getClockSkewSeconds()).willReturn(60L);
+
+        service.blacklist(TOKEN);
+
+        assertThat(service.isBlacklisted(TOKEN)).isTrue();
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        then(revokedTokenRepository).should().save(saved.capture());
+        assertThat(saved.getValue().getExpiresAt()).isAfter(LocalDateTime.now().plusSeconds(40));
+    }
+
+    @Test
+    @DisplayName("Le nettoyage supprime les lignes expirées")
+    void shouldDeleteExpiredRowsOnSweep() {
+        service.sweep();
+
+        then(revokedTokenRepository).should().deleteExpired(any(LocalDateTime.class));
+    }
+}
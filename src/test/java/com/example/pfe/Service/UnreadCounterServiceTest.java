@@ -0,0 +1,106 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.Repository.NotificationCounterRepository;
+import com.example.pfe.entities.NotificationCounter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UnreadCounterService — Tests Unitaires")
+class UnreadCounterServiceTest {
+
+    @Mock private NotificationCounterRepository counterRepository;
+    @Mock private SseEmitterService             sseEmitterService;
+    @Mock private JdbcTemplate                  jdbcTemplate;
+    @Mock private TransactionTemplate           transactionTemplate;
+
+    @InjectMocks
+    private UnreadCounterService unreadCounters;
+
+    @Captor
+    private ArgumentCaptor<Map<Long, Map<String, Long>>> countsCaptor;
+
+    private NotificationCounter counter(Long userId, long count) {
+        return NotificationCounter.builder().userId(userId).unreadCount(count).build();
+    }
+
+    @Test
+    @DisplayName("Lit le compteur par clé primaire sans COUNT")
+    void shouldReadExistingCounter() {
+        when(counterRepository.findById(1L)).thenReturn(Optional.of(counter(1L, 7)));
+
+        assertThat(unreadCounters.get(1L)).isEqualTo(7);
+        verify(counterRepository, never()).applyDelta(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Initialise le compteur depuis le vrai nombre à la première lecture")
+    void shouldSeedMissingCounter() {
+        when(counterRepository.findById(1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(counter(1L, 3)));
+
+        assertThat(unreadCounters.get(1L)).isEqualTo(3);
+        verify(counterRepository).applyDelta(1L, 0);
+    }
+
+    @Test
+    @DisplayName("Pousse la nouvelle valeur en SSE aux utilisateurs connectés")
+    void shouldPushNewValueToConnectedUsers() {
+        when(sseEmitterService.onlineUsers()).thenReturn(Set.of(1L));
+        when(counterRepository.findAllById(List.of(1L))).thenReturn(List.of(counter(1L, 4)));
+
+        unreadCounters.add(1L, 1);
+
+        verify(counterRepository).applyDelta(1L, 1);
+        verify(sseEmitterService).pushAll(eq(UnreadCounterService.UNREAD_EVENT), countsCaptor.capture());
+        assertThat(countsCaptor.getValue()).containsEntry(1L, Map.of("count", 4L));
+    }
+
+    @Test
+    @DisplayName("N'interroge pas la base si aucun destinataire n'est connecté")
+    void shouldSkipPushWhenNobodyIsOnline() {
+        unreadCounters.addAll(List.of(1L, 2L), 1);
+
+        verify(jdbcTemplate).batchUpdate(eq(NotificationCounterRepository.APPLY_DELTA_SQL), anyList());
+        verify(counterRepository, never()).findAllById(any());
+        verify(sseEmitterService, never()).pushAll(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Réconcilie les compteurs par lots")
+    @SuppressWarnings("unchecked")
+    void shouldReconcileInChunks() {
+        List<Long> first = LongStream.rangeClosed(1, 500).boxed().toList();
+        when(counterRepository.findUserIdsAfter(eq(0L), any())).thenReturn(first);
+        when(counterRepository.findUserIdsAfter(eq(500L), any())).thenReturn(List.of(501L));
+        doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        unreadCounters.reconcile();
+
+        verify(counterRepository).reconcile(first);
+        verify(counterRepository).reconcile(List.of(501L));
+    }
+}
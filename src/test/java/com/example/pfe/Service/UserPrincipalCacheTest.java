@@ -0,0 +1,121 @@
+package com.example.pfe.Service;
+
+import com.example.pfe.config.UserPrincipal;
+import com.example.pfe.entities.Role;
+import com.example.pfe.entities.User;
+import com.example.pfe.enums.RoleName;
+import com.example.pfe.messaging.LocalClusterEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("UserPrincipalCache — Tests Unitaires")
+class UserPrincipalCacheTest {
+
+    private static final String EMAIL = "jane.doe@example.com";
+
+    private final LocalClusterEventBus bus = new LocalClusterEventBus();
+    private final AtomicInteger loads = new AtomicInteger();
+    private UserPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(Duration.ofMinutes(5));
+    }
+
+    private UserPrincipalCache newCache(Duration ttl) {
+        UserPrincipalCache c = new UserPrincipalCache(bus, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(c, "ttl", ttl);
+        ReflectionTestUtils.setField(c, "maxEntries", 100);
+        c.init();
+        return c;
+    }
+
+    private final Function<String, UserPrincipal> loader = email -> {
+        loads.incrementAndGet();
+        return UserPrincipal.from(User.builder()
+                .id(1L).email(email).passwordHash("hash").enabled(true)
+                .roles(new ArrayList<>(List.of(new Role(1, RoleName.EMPLOYEE, "Employee"))))
+                .build());
+    };
+
+    @Test
+    @DisplayName("Le second appel est servi depuis le cache")
+    void shouldServeFromCache() {
+        UserPrincipal first = cache.get(EMAIL, loader);
+        UserPrincipal second = cache.get(EMAIL, loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("invalidate(userId) force un rechargement")
+    void shouldReloadAfterInvalidation() {
+        cache.get(EMAIL, loader);
+
+        cache.invalidate(1L);
+        cache.get(EMAIL, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("L'invalidation est propagée aux autres nœuds via le bus")
+    void shouldPropagateToOtherNodes() {
+        UserPrincipalCache otherNode = newCache(Duration.ofMinutes(5));
+        otherNode.get(EMAIL, loader);
+
+        cache.invalidate(1L);
+        otherNode.get(EMAIL, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Un chargement concurrent d'une invalidation n'est pas mis en cache")
+    void shouldNotStoreLoadRacingWithInvalidation() {
+        cache.get(EMAIL, email -> {
+            UserPrincipal stale = loader.apply(email);
+            cache.invalidate(1L);   // update committed while we were reading
+            return stale;
+        });
+
+        cache.get(EMAIL, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Les entrées expirent après le TTL")
+    void shouldExpireAfterTtl() throws Exception {
+        cache = newCache(Duration.ofMillis(20));
+        cache.get(EMAIL, loader);
+
+        Thread.sleep(40);
+        cache.get(EMAIL, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Une erreur de chargement n'est pas mise en cache")
+    void shouldNotCacheFailures() {
+        assertThatThrownBy(() -> cache.get(EMAIL, email -> { throw new IllegalStateException("db down"); }))
+                .isInstanceOf(IllegalStateException.class);
+
+        cache.get(EMAIL, loader);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
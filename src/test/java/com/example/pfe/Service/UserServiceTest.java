@@ -12,6 +12,7 @@ import com.example.pfe.enums.RoleName;
 import com.example.pfe.exception.BusinessException;
 import com.example.pfe.exception.ResourceNotFoundException;
 import com.example.pfe.mapper.UserMapper;
+import com.example.pfe.storage.BlobStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -30,6 +31,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -45,6 +47,10 @@ class UserServiceTest {
     @Mock private UserMapper userMapper;
     @Mock private EmailService emailService;
     @Mock private JwtService jwtService;
+    @Mock private PreviewService previewService;
+    @Mock private BlobStore blobStore;
+    @Mock private UserPrincipalCache principalCache;
+    @Mock private PasswordHashingEngine passwordHashing;
 
     @InjectMocks
     private UserService userService;
@@ -89,6 +95,9 @@ class UserServiceTest {
     void injectConfigValues() {
         ReflectionTestUtils.setField(userService, "uploadDir", "uploads/avatars");
         ReflectionTestUtils.setField(userService, "baseUrl", "http://localhost:8080");
+        // The BCrypt pool just runs the task it is given
+        lenient().when(passwordHashing.run(anyString(), any()))
+                .thenAnswer(inv -> inv.<Callable<?>>getArgument(1).call());
     }
 
     // ══════════════════════════════════════════════════════════════════════════
@@ -505,6 +514,8 @@ class UserServiceTest {
             assertThat(user.getPasswordHash()).isEqualTo("$hashed_new");
             assertThat(user.isFirstLogin()).isFalse();
             verify(userRepository).save(user);
+            verify(passwordHashing, times(2)).run(eq("verify"), any());
+            verify(passwordHashing).run(eq("hash"), any());
         }
 
         @Test
@@ -0,0 +1,77 @@
+package com.example.pfe.benchmark;
+
+import com.example.pfe.Service.JwtClaimsCache;
+import com.example.pfe.Service.JwtService;
+import com.example.pfe.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What JwtAuthenticationFilter pays per request to authenticate a token:
+ *
+ *   legacy        isTokenValid + isAccessToken + extractUsername + isTokenValid(user)
+ *                 — four full parses, as the filter used to do
+ *   singleParse   one JwtService.verify
+ *   cached        JwtClaimsCache.verify on a hot token (SHA-256 + LRU lookup)
+ *
+ * Not a test — run with:
+ *   mvn test-compile
+ *   java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        com.example.pfe.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtService jwtService;
+    private JwtClaimsCache cache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret",
+                "dGhpc2lzYXZlcnlsb25nc2VjcmV0a2V5Zm9ydGVzdGluZ3B1cnBvc2VzMTIzNDU2");
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "clockSkewSeconds", 60L);
+        jwtService.init();
+
+        cache = new JwtClaimsCache(jwtService, new SimpleMeterRegistry());
+        cache.init();
+
+        token = jwtService.generateAccessToken(User.builder().id(1L).email("bench@test.com").roles(List.of()).build());
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        return jwtService.isTokenValid(token)
+                && jwtService.isAccessToken(token)
+                && jwtService.extractUsername(token) != null
+                && jwtService.extractClaim(token, c -> c.getSubject()) != null;   // stands in for isTokenValid(user)
+    }
+
+    @Benchmark
+    public Object singleParse() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Object cached() {
+        return cache.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.pfe.benchmark;
+
+import com.example.pfe.Service.PasswordHashingEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A morning login spike next to ordinary traffic: 48 threads log in while
+ * 8 threads serve cheap requests (a SHA-256 stands in for an authenticated
+ * API call).
+ *
+ *   callerThread   BCrypt on every request thread, as authenticate() used to
+ *   boundedPool    BCrypt through PasswordHashingEngine (one thread per core)
+ *
+ * Compare both the login rate (sustained logins per second) and what is left
+ * for the other requests. No reference figures are kept here; they depend on
+ * the core count of the machine. Not a test — run with:
+ *   mvn test-compile
+ *   java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        com.example.pfe.benchmark.LoginThroughputBenchmark
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoginThroughputBenchmark {
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHashingEngine engine;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder();
+        hash = encoder.encode("Secret123!");
+
+        engine = new PasswordHashingEngine(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "threads", Runtime.getRuntime().availableProcessors());
+        ReflectionTestUtils.setField(engine, "queueCapacity", 1_000);
+        ReflectionTestUtils.setField(engine, "timeoutMs", 60_000L);
+        engine.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    // ─── Unbounded: BCrypt on the caller thread ───────────────
+
+    @Benchmark
+    @Group("callerThread")
+    @GroupThreads(48)
+    public boolean callerThreadLogin() {
+        return encoder.matches("Secret123!", hash);
+    }
+
+    @Benchmark
+    @Group("callerThread")
+    @GroupThreads(8)
+    public byte[] callerThreadOtherRequests() throws Exception {
+        return otherRequest();
+    }
+
+    // ─── Bounded: BCrypt on PasswordHashingEngine ─────────────
+
+    @Benchmark
+    @Group("boundedPool")
+    @GroupThreads(48)
+    public boolean boundedPoolLogin() {
+        return engine.run("verify", () -> encoder.matches("Secret123!", hash));
+    }
+
+    @Benchmark
+    @Group("boundedPool")
+    @GroupThreads(8)
+    public byte[] boundedPoolOtherRequests() throws Exception {
+        return otherRequest();
+    }
+
+    private static byte[] otherRequest() throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest("header.payload.signature".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LoginThroughputBenchmark.class.getSimpleName()).build()).run();
+    }
+}
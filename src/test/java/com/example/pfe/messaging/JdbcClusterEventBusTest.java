@@ -0,0 +1,80 @@
+package com.example.pfe.messaging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("JdbcClusterEventBus — Tests d'intégration multi-nœuds")
+class JdbcClusterEventBusTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcClusterEventBus busA;
+    private JdbcClusterEventBus busB;
+    private final List<String> receivedA = new CopyOnWriteArrayList<>();
+    private final List<String> receivedB = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:bus-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        busA = new JdbcClusterEventBus(jdbcTemplate, "node-a", Duration.ofMillis(20), Duration.ofMinutes(10), 50);
+        busB = new JdbcClusterEventBus(jdbcTemplate, "node-b", Duration.ofMillis(20), Duration.ofMinutes(10), 50);
+        busA.subscribe("t", receivedA::add);
+        busB.subscribe("t", receivedB::add);
+        busA.start();
+        busB.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        busA.close();
+        busB.close();
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 300 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Un message publié sur A est reçu une fois par A et par B")
+    void shouldReachEveryNode() throws Exception {
+        busA.publish("t", "42");
+
+        await(() -> receivedB.size() == 1);
+        Thread.sleep(100);   // a few more polls, including the overlap window
+        assertThat(receivedA).containsExactly("42");
+        assertThat(receivedB).containsExactly("42");
+    }
+
+    @Test
+    @DisplayName("Une ligne validée sous le curseur est quand même livrée")
+    void shouldPickUpRowsCommittedOutOfOrder() throws Exception {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cluster_events", Long.class);
+        insert(max + 2, "late-2");
+        await(() -> receivedB.contains("late-2"));
+
+        insert(max + 1, "late-1");
+        await(() -> receivedB.contains("late-1"));
+    }
+
+    private void insert(long id, String payload) {
+        jdbcTemplate.update("INSERT INTO cluster_events (id, topic, payload, origin_node, created_at) VALUES (?, ?, ?, ?, ?)",
+                id, "t", payload, "node-x", Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.pfe.messaging;
+
+import com.example.pfe.Service.SseEmitterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Two broker nodes sharing one in-memory database (H2 in MySQL mode), each
+ * with its own set of connected users — the same wiring as two app nodes.
+ */
+@DisplayName("JdbcNotificationBroker — Tests d'intégration multi-nœuds")
+class JdbcNotificationBrokerTest {
+
+    private static final JdbcNotificationBroker.Settings SETTINGS = new JdbcNotificationBroker.Settings(
+            Duration.ofMillis(20), 100, Duration.ofMillis(50), Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    private TestNode nodeA;
+    private TestNode nodeB;
+    private JdbcNotificationBroker brokerA;
+    private JdbcNotificationBroker brokerB;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:broker-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        nodeA = new TestNode();
+        nodeB = new TestNode();
+        brokerA = broker("node-a");
+        brokerB = broker("node-b");
+        brokerA.attach(nodeA);
+        brokerB.attach(nodeB);
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerA.close();
+        brokerB.close();
+    }
+
+    private JdbcNotificationBroker broker(String nodeId) {
+        return new JdbcNotificationBroker(jdbcTemplate, transactionTemplate, new ObjectMapper(),
+                new SimpleMeterRegistry(), nodeId, SETTINGS);
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 300 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Un événement publié sur le nœud A atteint l'utilisateur connecté au nœud B")
+    void shouldDeliverAcrossNodes() throws Exception {
+        nodeB.users.add(7L);
+
+        brokerA.publish(List.of(new NotificationBroker.Delivery(7L, "notification", Map.of("id", 1))));
+
+        await(() -> nodeB.received.size() == 1);
+        NotificationBroker.Delivery delivered = nodeB.received.get(0);
+        assertThat(delivered.userId()).isEqualTo(7L);
+        assertThat(delivered.eventName()).isEqualTo("notification");
+        assertThat(delivered.data()).isEqualTo("{\"id\":1}");   // raw JSON, written as-is on the stream
+        assertThat(nodeA.received).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Le nœud d'origine livre directement et ne relit pas ses propres événements")
+    void shouldDeliverLocallyOnceOnOriginNode() throws Exception {
+        nodeA.users.add(7L);
+        nodeB.users.add(7L);   // two tabs on two nodes
+
+        brokerA.publish(List.of(new NotificationBroker.Delivery(7L, "notification", "{}")));
+
+        await(() -> nodeB.received.size() == 1);
+        Thread.sleep(100);   // a few more polls
+        assertThat(nodeA.received).hasSize(1);
+        assertThat(nodeB.received).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Sans connexion pour la transaction, publish livre localement et ne lève rien")
+    void shouldSurviveTransactionFailureOnPublish() {
+        TransactionTemplate broken = new TransactionTemplate(new DataSourceTransactionManager(
+                new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable")));
+        TestNode node = new TestNode();
+        node.users.add(7L);
+        JdbcNotificationBroker broker = new JdbcNotificationBroker(jdbcTemplate, broken, new ObjectMapper(),
+                new SimpleMeterRegistry(), "node-c", SETTINGS);
+        broker.attach(node);
+        try {
+            assertThatCode(() -> broker.publish(List.of(new NotificationBroker.Delivery(7L, "notification", "{}"))))
+                    .doesNotThrowAnyException();
+            assertThat(node.received).hasSize(1);
+        } finally {
+            broker.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Un lot n'est livré qu'aux utilisateurs du nœud")
+    void shouldDeliverBatchToLocalUsersOnly() throws Exception {
+        nodeA.users.add(1L);
+        nodeB.users.add(2L);
+
+        brokerA.publish(List.of(
+                new NotificationBroker.Delivery(1L, "notification", "{\"n\":1}"),
+                new NotificationBroker.Delivery(2L, "notification", "{\"n\":2}"),
+                new NotificationBroker.Delivery(3L, "notification", "{\"n\":3}")));
+
+        await(() -> nodeB.received.size() == 1);
+        assertThat(nodeA.received).extracting(NotificationBroker.Delivery::userId).containsExactly(1L);
+        assertThat(nodeB.received).extracting(NotificationBroker.Delivery::userId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Un événement validé après un id plus grand n'est pas perdu")
+    void shouldDeliverRowCommittedOutOfOrder() throws Exception {
+        nodeB.users.add(7L);
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sse_events", Long.class);
+
+        insertEvent(max + 2, "{\"n\":2}");   // id max + 1 is still "in flight"
+        await(() -> nodeB.received.size() == 1);
+
+        insertEvent(max + 1, "{\"n\":1}");
+        await(() -> nodeB.received.size() == 2);
+        assertThat(nodeB.received).extracting(NotificationBroker.Delivery::data)
+                .containsExactly("{\"n\":2}", "{\"n\":1}");
+    }
+
+    @Test
+    @DisplayName("La présence des utilisateurs est partagée entre les nœuds")
+    void shouldSharePresence() throws Exception {
+        nodeB.users.add(7L);
+
+        await(() -> brokerA.isOnline(7L));
+        assertThat(brokerA.isOnline(8L)).isFalse();
+
+        nodeB.users.remove(7L);
+        await(() -> !brokerA.isOnline(7L));
+    }
+
+    @Test
+    @DisplayName("SseEmitterService publie via le broker et voit les utilisateurs des autres nœuds")
+    void shouldRouteSseServiceThroughBroker() throws Exception {
+        JdbcNotificationBroker brokerC = broker("node-c");
+        SseEmitterService sse = new SseEmitterService(new SimpleMeterRegistry(), brokerC);
+        ReflectionTestUtils.setField(sse, "dispatcherThreads", 1);
+        ReflectionTestUtils.setField(sse, "queueCapacity", 4);
+        sse.init();
+        try {
+            nodeB.users.add(7L);
+            await(() -> sse.isConnected(7L));
+
+            sse.push(7L, "unread-count", Map.of("count", 3));
+
+            await(() -> nodeB.received.size() == 1);
+            assertThat(nodeB.received.get(0).data()).isEqualTo("{\"count\":3}");
+        } finally {
+            sse.shutdown();
+            brokerC.close();
+        }
+    }
+
+    private void insertEvent(long id, String payload) {
+        jdbcTemplate.update("INSERT INTO sse_events (id, user_id, event_name, payload, origin_node, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                id, 7L, "notification", payload, "node-x", Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /** Stand-in for one node's SseEmitterService. */
+    private static class TestNode implements NotificationBroker.LocalNode {
+
+        final Set<Long> users = ConcurrentHashMap.newKeySet();
+        final List<NotificationBroker.Delivery> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Set<Long> connectedUsers() {
+            return Set.copyOf(users);
+        }
+
+        @Override
+        public boolean isConnectedHere(Long userId) {
+            return users.contains(userId);
+        }
+
+        @Override
+        public void deliver(List<NotificationBroker.Delivery> deliveries) {
+            received.addAll(deliveries);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.pfe.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("InMemoryRateLimitStore — Tests Unitaires")
+class InMemoryRateLimitStoreTest {
+
+    private static final RateLimitStore.Limit LIMIT = new RateLimitStore.Limit(1, Duration.ofSeconds(10));
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+    private final InMemoryRateLimitStore store = new InMemoryRateLimitStore(2, nanos::get);
+
+    @Test
+    @DisplayName("Les seaux pleins sont balayés au plus une fois par intervalle")
+    void shouldThrottleEviction() {
+        RateLimitStore.Limit fast = new RateLimitStore.Limit(1, Duration.ofMillis(100));
+        store.tryConsume("a", fast);
+        store.tryConsume("b", fast);
+        store.tryConsume("c", fast);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));   // a, b and c are full again
+
+        store.tryConsume("d", fast);                            // sweep: a, b, c dropped
+        assertThat(store.size()).isEqualTo(1);
+
+        store.tryConsume("e", fast);
+        store.tryConsume("f", fast);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        store.tryConsume("g", fast);                            // over maxKeys, but swept < 1 s ago
+        assertThat(store.size()).isEqualTo(4);
+
+        nanos.addAndGet(InMemoryRateLimitStore.EVICTION_INTERVAL_NANOS);
+        store.tryConsume("h", fast);                            // next sweep is due
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Au-delà de la limite stricte, les nouvelles clés passent sans être mémorisées")
+    void shouldNotGrowBeyondHardCap() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(store.tryConsume("k" + i, LIMIT).allowed()).isTrue();
+        }
+
+        assertThat(store.size()).isEqualTo(4);            // 2 × maxKeys; nothing was full yet
+        assertThat(store.tryConsume("k0", LIMIT).allowed()).isFalse();   // tracked keys are still limited
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.pfe.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/** Two nodes sharing buckets through one in-memory database (H2 in MySQL mode). */
+@DisplayName("JdbcRateLimitStore — Tests d'intégration multi-nœuds")
+class JdbcRateLimitStoreTest {
+
+    private static final RateLimitStore.Limit LIMIT = new RateLimitStore.Limit(3, Duration.ofSeconds(30));
+
+    private MutableClock clock;
+    private JdbcRateLimitStore nodeA;
+    private JdbcRateLimitStore nodeB;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:ratelimit-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+        nodeA = new JdbcRateLimitStore(jdbcTemplate, clock);
+        nodeB = new JdbcRateLimitStore(jdbcTemplate, clock);
+        nodeA.start();
+        nodeB.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    @DisplayName("Le seau est partagé entre les nœuds")
+    void shouldShareBucketAcrossNodes() {
+        assertThat(nodeA.tryConsume("chat:user:7", LIMIT).allowed()).isTrue();
+        assertThat(nodeB.tryConsume("chat:user:7", LIMIT).allowed()).isTrue();
+        assertThat(nodeA.tryConsume("chat:user:7", LIMIT).allowed()).isTrue();
+
+        RateLimitStore.Decision decision = nodeB.tryConsume("chat:user:7", LIMIT);
+
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.retryAfter()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(nodeB.tryConsume("chat:user:8", LIMIT).allowed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Un jeton revient après l'intervalle de recharge")
+    void shouldRefillAfterInterval() {
+        for (int i = 0; i < 3; i++) nodeA.tryConsume("k", LIMIT);
+        assertThat(nodeA.tryConsume("k", LIMIT).allowed()).isFalse();
+
+        clock.advance(Duration.ofSeconds(10));
+
+        assertThat(nodeB.tryConsume("k", LIMIT).allowed()).isTrue();
+        assertThat(nodeA.tryConsume("k", LIMIT).allowed()).isFalse();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.pfe.ratelimit;
+
+import com.example.pfe.config.RateLimitFilter;
+import com.example.pfe.config.RateLimitPolicy;
+import com.example.pfe.config.UserPrincipal;
+import com.example.pfe.entities.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("RateLimitFilter — Tests Unitaires")
+class RateLimitFilterTest {
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitPolicy.Group chat = new RateLimitPolicy.Group();
+        chat.setPaths(List.of("/api/chat/message"));
+        chat.setCapacity(2);
+        chat.setPeriod(Duration.ofSeconds(10));
+
+        RateLimitPolicy policy = new RateLimitPolicy();
+        policy.getGroups().put("chat", chat);
+
+        filter = new RateLimitFilter(policy, new InMemoryRateLimitStore(1000, nanos::get), registry, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletResponse call(String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    @DisplayName("Au-delà de la capacité la requête reçoit 429 et Retry-After")
+    void shouldThrottleOverCapacity() throws Exception {
+        assertThat(call("/api/chat/message", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(call("/api/chat/message", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse throttled = call("/api/chat/message", "10.0.0.1");
+
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        assertThat(throttled.getHeader("Retry-After")).isEqualTo("5");
+        assertThat(throttled.getContentAsString()).contains("Too Many Requests");
+        assertThat(registry.counter("http.rate_limit.requests", "group", "chat", "result", "throttled").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Les jetons reviennent avec le temps")
+    void shouldRefillOverTime() throws Exception {
+        call("/api/chat/message", "10.0.0.1");
+        call("/api/chat/message", "10.0.0.1");
+        assertThat(call("/api/chat/message", "10.0.0.1").getStatus()).isEqualTo(429);
+
+        nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertThat(call("/api/chat/message", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(call("/api/chat/message", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Chaque IP a son propre seau et les autres routes ne sont pas limitées")
+    void shouldKeepBucketsPerIpAndGroup() throws Exception {
+        call("/api/chat/message", "10.0.0.1");
+        call("/api/chat/message", "10.0.0.1");
+
+        assertThat(call("/api/chat/message", "10.0.0.2").getStatus()).isEqualTo(200);
+        for (int i = 0; i < 5; i++) {
+            assertThat(call("/api/notifications", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    @DisplayName("Un utilisateur authentifié est limité par id, quelle que soit son IP")
+    void shouldKeyAuthenticatedCallersByUserId() throws Exception {
+        UserPrincipal principal = UserPrincipal.from(User.builder().id(7L).email("a@b.c").passwordHash("x").build());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        call("/api/chat/message", "10.0.0.1");
+        call("/api/chat/message", "10.0.0.2");
+
+        assertThat(call("/api/chat/message", "10.0.0.3").getStatus()).isEqualTo(429);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.pfe.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Behaviour every {@link BlobStore} must share; run once per backend.
+ */
+abstract class BlobStoreContractTest {
+
+    @TempDir Path work;
+
+    protected abstract BlobStore store();
+
+    private Path spool(String content) throws Exception {
+        return Files.writeString(Files.createTempFile(work, "spool-", ".tmp"), content, StandardCharsets.UTF_8);
+    }
+
+    private String read(InputStream in) throws Exception {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Écrit puis relit un objet")
+    void shouldPutAndOpen() throws Exception {
+        store().put("docs/a.txt", spool("bonjour"), "text/plain");
+
+        assertThat(read(store().open("docs/a.txt"))).isEqualTo("bonjour");
+        assertThat(store().stat("docs/a.txt")).hasValueSatisfying(info ->
+                assertThat(info.size()).isEqualTo(7));
+    }
+
+    @Test
+    @DisplayName("Lit une plage d'octets")
+    void shouldOpenRange() throws Exception {
+        store().put("range.txt", spool("0123456789"), "text/plain");
+
+        assertThat(read(store().open("range.txt", 3, 4))).isEqualTo("3456");
+    }
+
+    @Test
+    @DisplayName("Remplace un objet existant")
+    void shouldOverwrite() throws Exception {
+        store().put("same.txt", spool("v1"), "text/plain");
+        store().put("same.txt", spool("v2"), "text/plain");
+
+        assertThat(read(store().open("same.txt"))).isEqualTo("v2");
+    }
+
+    @Test
+    @DisplayName("Un objet absent n'existe pas et ne s'ouvre pas")
+    void shouldReportMissing() throws Exception {
+        assertThat(store().exists("missing.txt")).isFalse();
+        assertThat(store().stat("missing.txt")).isEmpty();
+        assertThatThrownBy(() -> store().open("missing.txt")).isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Supprime un objet et liste par préfixe")
+    void shouldDeleteAndList() throws Exception {
+        store().put("list/one.txt", spool("1"), "text/plain");
+        store().put("list/two.txt", spool("2"), "text/plain");
+        store().put("other/three.txt", spool("3"), "text/plain");
+
+        store().delete("list/one.txt");
+        store().delete("list/one.txt");   // idempotent
+
+        try (Stream<String> keys = store().list("list/")) {
+            assertThat(keys.toList()).isEqualTo(List.of("list/two.txt"));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.pfe.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("BlobStoreMigration — Tests Unitaires")
+class BlobStoreMigrationTest {
+
+    @TempDir Path sourceDir;
+    @TempDir Path targetDir;
+
+    private LocalBlobStore source;
+    private LocalBlobStore target;
+
+    @BeforeEach
+    void setUp() {
+        source = new LocalBlobStore(sourceDir);
+        target = spy(new LocalBlobStore(targetDir));
+    }
+
+    private Path write(Path root, String key, String content) throws Exception {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Copie les fichiers, garde la source et ignore le répertoire de spool")
+    void shouldCopyAndKeepSource() throws Exception {
+        Path a = write(sourceDir, "docs/a.pdf", "aaaa");
+        write(sourceDir, ".spool/upload-1.part", "tmp");
+
+        BlobStoreMigration.Result result = new BlobStoreMigration(target).migrate(source, false);
+
+        assertThat(result.copied()).isEqualTo(1);
+        assertThat(result.bytes()).isEqualTo(4);
+        assertThat(Files.readString(targetDir.resolve("docs/a.pdf"))).isEqualTo("aaaa");
+        assertThat(a).exists();
+        assertThat(targetDir.resolve(".spool")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Saute un objet déjà présent avec la même taille")
+    void shouldSkipSameSize() throws Exception {
+        write(sourceDir, "docs/a.pdf", "new!");
+        write(targetDir, "docs/a.pdf", "old!");
+
+        BlobStoreMigration.Result result = new BlobStoreMigration(target).migrate(source, false);
+
+        assertThat(result.skipped()).isEqualTo(1);
+        assertThat(result.copied()).isZero();
+        assertThat(Files.readString(targetDir.resolve("docs/a.pdf"))).isEqualTo("old!");
+        verify(target, never()).put(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("--delete-source supprime la source seulement après vérification de la copie")
+    void shouldDeleteSourceOnlyAfterVerifiedCopy() throws Exception {
+        Path ok  = write(sourceDir, "docs/ok.pdf", "ok");
+        Path bad = write(sourceDir, "docs/bad.pdf", "bad");
+        doReturn(Optional.empty()).when(target).stat("docs/bad.pdf");   // copy never shows up
+
+        BlobStoreMigration.Result result = new BlobStoreMigration(target).migrate(source, true);
+
+        assertThat(result.copied()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(ok).doesNotExist();
+        assertThat(bad).exists().hasContent("bad");
+        assertThat(Files.readString(targetDir.resolve("docs/ok.pdf"))).isEqualTo("ok");
+    }
+}
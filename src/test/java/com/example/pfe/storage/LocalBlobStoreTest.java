@@ -0,0 +1,40 @@
+package com.example.pfe.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("LocalBlobStore — Tests Unitaires")
+class LocalBlobStoreTest extends BlobStoreContractTest {
+
+    @TempDir Path root;
+
+    private LocalBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalBlobStore(root);
+    }
+
+    @Override
+    protected BlobStore store() {
+        return store;
+    }
+
+    @Test
+    @DisplayName("Refuse une clé qui sort du répertoire racine")
+    void shouldBlockTraversal() {
+        assertThatThrownBy(() -> store.open("../secret.txt")).isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    @DisplayName("Expose le fichier local pour sendfile")
+    void shouldExposeLocalFile() {
+        assertThat(store.localFile("a/b.pdf")).contains(root.resolve("a/b.pdf").toAbsolutePath().normalize());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.pfe.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Multipart path of {@link S3BlobStore} against a mocked client — runs by
+ * default, unlike {@link S3BlobStoreTest} which needs a MinIO server.
+ */
+@DisplayName("S3BlobStore — Upload multipart (client simulé)")
+class S3BlobStoreMultipartTest {
+
+    private static final long PART = 5L * 1024 * 1024;
+
+    @TempDir Path work;
+
+    private S3Client s3;
+    private S3BlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        s3 = mock(S3Client.class);
+        store = new S3BlobStore(s3, mock(S3Presigner.class), "bucket", "pfe", PART, false);
+
+        when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("up-1").build());
+    }
+
+    /** {@code size} bytes where byte i is {@code i % 251}, so every slice is distinct. */
+    private Path file(long size) throws IOException {
+        byte[] content = new byte[(int) size];
+        for (int i = 0; i < content.length; i++) content[i] = (byte) (i % 251);
+        return Files.write(work.resolve("big.bin"), content);
+    }
+
+    private static byte[] read(RequestBody body) throws IOException {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    @DisplayName("Découpe le fichier en parts envoyées depuis leur tranche du fichier")
+    void shouldUploadPartsFromFileSlices() throws Exception {
+        Path source = file(2 * PART + 1000);
+        byte[] content = Files.readAllBytes(source);
+        when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(inv -> UploadPartResponse.builder()
+                        .eTag("etag-" + inv.getArgument(0, UploadPartRequest.class).partNumber()).build());
+
+        store.put("docs/big.bin", source, "application/octet-stream");
+
+        ArgumentCaptor<UploadPartRequest> requests = ArgumentCaptor.forClass(UploadPartRequest.class);
+        ArgumentCaptor<RequestBody> bodies = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3, times(3)).uploadPart(requests.capture(), bodies.capture());
+
+        List<UploadPartRequest> parts = requests.getAllValues();
+        assertThat(parts).extracting(UploadPartRequest::partNumber).containsExactly(1, 2, 3);
+        assertThat(parts).extracting(UploadPartRequest::contentLength).containsExactly(PART, PART, 1000L);
+        assertThat(parts).allSatisfy(p -> {
+            assertThat(p.key()).isEqualTo("pfe/docs/big.bin");
+            assertThat(p.uploadId()).isEqualTo("up-1");
+        });
+        assertThat(read(bodies.getAllValues().get(1)))
+                .isEqualTo(Arrays.copyOfRange(content, (int) PART, (int) (2 * PART)));
+        assertThat(read(bodies.getAllValues().get(2)))
+                .isEqualTo(Arrays.copyOfRange(content, (int) (2 * PART), content.length));
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3).completeMultipartUpload(complete.capture());
+        assertThat(complete.getValue().multipartUpload().parts())
+                .extracting(CompletedPart::eTag).containsExactly("etag-1", "etag-2", "etag-3");
+        verify(s3, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    @DisplayName("Annule l'upload multipart quand une part échoue")
+    void shouldAbortOnPartFailure() throws Exception {
+        Path source = file(PART + 10);
+        when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag-1").build())
+                .thenThrow(SdkClientException.create("connection reset"));
+
+        assertThatThrownBy(() -> store.put("docs/big.bin", source, "application/octet-stream"))
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(SdkClientException.class);
+
+        ArgumentCaptor<AbortMultipartUploadRequest> abort =
+                ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3).abortMultipartUpload(abort.capture());
+        assertThat(abort.getValue().uploadId()).isEqualTo("up-1");
+        assertThat(abort.getValue().key()).isEqualTo("pfe/docs/big.bin");
+        verify(s3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    @DisplayName("Envoie un petit fichier en un seul PUT")
+    void shouldUseSinglePutBelowPartSize() throws Exception {
+        Path source = Files.writeString(work.resolve("small.txt"), "petit");
+
+        store.put("docs/small.txt", source, "text/plain");
+
+        verify(s3).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+}